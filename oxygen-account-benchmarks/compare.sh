@@ -0,0 +1,4 @@
+#!/bin/sh
+# Compares two JMH result files and fails if a benchmark regressed by more than the threshold, in percent (10 by default).
+# Usage: ./compare.sh baseline.json current.json [threshold-percent]
+exec java -cp "$(dirname "$0")/target/benchmarks.jar" com.oxygenxml.account.benchmarks.BenchmarkComparison "$@"
@@ -0,0 +1,139 @@
+package com.oxygenxml.account.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two JMH result files written with {@code -rf json} and fails when a benchmark regressed by more than a threshold.
+ * <p>
+ * A benchmark regressed when its score got worse by more than the threshold, lower for the throughput and higher for the times,
+ * or when it allocates more than the threshold more bytes per operation, as reported by {@code -prof gc}. An increase of the allocation
+ * smaller than {@link #ALLOCATION_NOISE_BYTES} is ignored, since the allocation of a benchmark that allocates almost nothing varies by a few bytes.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar com.oxygenxml.account.benchmarks.BenchmarkComparison baseline.json current.json [threshold-percent]}.
+ * The exit status is 1 if a benchmark regressed, 2 if the arguments are invalid.
+ */
+public final class BenchmarkComparison {
+
+	/**
+	 * The threshold used when none is given, in percent.
+	 */
+	private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+	/**
+	 * The increase of the bytes allocated per operation below which the allocation is not compared.
+	 */
+	private static final double ALLOCATION_NOISE_BYTES = 16;
+
+	/**
+	 * The secondary metric of the bytes allocated per operation.
+	 */
+	private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+	/**
+	 * The results of a benchmark.
+	 *
+	 * @param mode The mode of the benchmark, such as "thrpt" or "avgt".
+	 * @param score The primary score.
+	 * @param unit The unit of the primary score.
+	 * @param allocation The bytes allocated per operation, or NaN if they were not measured.
+	 */
+	private record Result(String mode, double score, String unit, double allocation) {
+
+		/**
+		 * Checks whether a higher score is better.
+		 *
+		 * @return true for the throughput.
+		 */
+		boolean higherIsBetter() {
+			return "thrpt".equals(mode);
+		}
+	}
+
+	/**
+	 * Utility class, not instantiated.
+	 */
+	private BenchmarkComparison() {
+	}
+
+	/**
+	 * Compares the result files and exits with status 1 if a benchmark regressed.
+	 *
+	 * @param args The baseline result file, the current result file and, optionally, the threshold in percent.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("Usage: BenchmarkComparison baseline.json current.json [threshold-percent]");
+			System.exit(2);
+		}
+		double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+		Map<String, Result> baseline = read(new File(args[0]));
+		Map<String, Result> current = read(new File(args[1]));
+
+		int regressions = 0;
+		System.out.printf("%-90s %14s %14s %8s %12s %12s%n", "Benchmark", "Baseline", "Current", "Change", "B/op before", "B/op after");
+		for (Map.Entry<String, Result> entry : current.entrySet()) {
+			Result before = baseline.get(entry.getKey());
+			Result after = entry.getValue();
+			if (before == null) {
+				System.out.printf("%-90s %14s %14.3f %8s%n", entry.getKey(), "new", after.score(), "");
+				continue;
+			}
+
+			double change = (after.score() - before.score()) / before.score() * 100;
+			double worsening = after.higherIsBetter() ? -change : change;
+			boolean slower = worsening > threshold;
+			boolean allocatesMore = !Double.isNaN(before.allocation()) && !Double.isNaN(after.allocation())
+					&& after.allocation() - before.allocation() > ALLOCATION_NOISE_BYTES
+					&& after.allocation() > before.allocation() * (1 + threshold / 100);
+
+			System.out.printf("%-90s %14.3f %14.3f %+7.1f%% %12.1f %12.1f%s%n", entry.getKey(), before.score(), after.score(), change,
+					before.allocation(), after.allocation(), slower || allocatesMore ? "  REGRESSION" : "");
+			if (slower || allocatesMore) {
+				regressions++;
+			}
+		}
+
+		if (regressions > 0) {
+			System.out.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+			System.exit(1);
+		}
+		System.out.println("No benchmark regressed by more than " + threshold + "%");
+	}
+
+	/**
+	 * Reads a JMH result file.
+	 *
+	 * @param file The file written with {@code -rf json}.
+	 * @return The results, by benchmark and parameters.
+	 */
+	private static Map<String, Result> read(File file) throws IOException {
+		Map<String, Result> results = new LinkedHashMap<>();
+		for (JsonNode benchmark : new ObjectMapper().readTree(file)) {
+			JsonNode primary = benchmark.get("primaryMetric");
+			JsonNode allocation = benchmark.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score");
+			results.put(key(benchmark), new Result(benchmark.get("mode").asText(), primary.get("score").asDouble(),
+					primary.get("scoreUnit").asText(), allocation.isNumber() ? allocation.asDouble() : Double.NaN));
+		}
+		return results;
+	}
+
+	/**
+	 * Identifies a benchmark by its name, its mode and its parameters.
+	 */
+	private static String key(JsonNode benchmark) {
+		StringBuilder key = new StringBuilder(benchmark.get("benchmark").asText().replace("com.oxygenxml.account.benchmarks.", ""));
+		key.append(" (").append(benchmark.get("mode").asText());
+		Map<String, String> params = new TreeMap<>();
+		benchmark.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+		params.forEach((name, value) -> key.append(", ").append(name).append('=').append(value));
+		return key.append(')').toString();
+	}
+}
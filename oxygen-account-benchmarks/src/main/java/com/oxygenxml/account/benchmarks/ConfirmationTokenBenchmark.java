@@ -0,0 +1,121 @@
+package com.oxygenxml.account.benchmarks;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.model.ConfirmationToken;
+import com.oxygenxml.account.service.BinaryConfirmationTokenFormat;
+import com.oxygenxml.account.service.ConfirmationTokenFormat;
+import com.oxygenxml.account.service.JwtConfirmationTokenFormat;
+import com.oxygenxml.account.service.JwtService;
+import com.oxygenxml.account.service.TokenKeyring;
+import com.oxygenxml.account.type.TokenFormat;
+
+/**
+ * Compares the generation and the verification of the confirmation tokens in the JWT and in the binary format.
+ * The length of the tokens, which is the length added to the confirmation links, is printed when the benchmark starts.
+ * Run with {@code -prof gc} to also report the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfirmationTokenBenchmark {
+
+	/**
+	 * The secret configured for the application.
+	 */
+	private static final String SECRET = "oxygenAccountoxygenAccountoxygenAccountoxygenAccountoxygenAccountoxygenAccount";
+
+	/**
+	 * The format of the tokens.
+	 */
+	@Param({"JWT", "BINARY"})
+	private TokenFormat format;
+
+	/**
+	 * The context that creates the formats, with their configuration.
+	 */
+	private AnnotationConfigApplicationContext context;
+
+	/**
+	 * The format under test.
+	 */
+	private ConfirmationTokenFormat tokenFormat;
+
+	/**
+	 * The creation date written in the tokens.
+	 */
+	private Timestamp creationDate;
+
+	/**
+	 * A token generated in the format under test.
+	 */
+	private String token;
+
+	/**
+	 * Creates the format and a token to verify.
+	 */
+	@Setup
+	public void setUp() {
+		OxygenAccountPorpertiesConfig properties = new OxygenAccountPorpertiesConfig();
+		properties.setSecretKey(SECRET);
+
+		context = new AnnotationConfigApplicationContext();
+		context.registerBean(OxygenAccountPorpertiesConfig.class, () -> properties);
+		context.register(TokenKeyring.class, JwtService.class, JwtConfirmationTokenFormat.class, BinaryConfirmationTokenFormat.class);
+		context.refresh();
+
+		tokenFormat = format == TokenFormat.JWT
+				? context.getBean(JwtConfirmationTokenFormat.class)
+				: context.getBean(BinaryConfirmationTokenFormat.class);
+		creationDate = new Timestamp(System.currentTimeMillis());
+		token = tokenFormat.generate(42, creationDate);
+		System.out.println("Token length for " + format + ": " + token.length() + " characters");
+	}
+
+	/**
+	 * Closes the context.
+	 */
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * Generates a token.
+	 *
+	 * @return The token.
+	 */
+	@Benchmark
+	public String generate() {
+		return tokenFormat.generate(42, creationDate);
+	}
+
+	/**
+	 * Verifies a token and reads its content.
+	 *
+	 * @return The content of the token.
+	 */
+	@Benchmark
+	public ConfirmationToken verify() {
+		return tokenFormat.parse(token);
+	}
+}
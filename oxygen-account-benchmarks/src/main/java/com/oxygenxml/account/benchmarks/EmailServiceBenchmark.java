@@ -0,0 +1,155 @@
+package com.oxygenxml.account.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.dto.EmailInfo;
+import com.oxygenxml.account.exception.EmailException;
+import com.oxygenxml.account.service.EmailService;
+import com.oxygenxml.account.service.EmailTemplateRegistry;
+import com.oxygenxml.account.service.SmtpTransportPool;
+import com.oxygenxml.account.type.EmailTemplateData;
+import com.oxygenxml.account.type.EmailType;
+
+import freemarker.cache.ClassTemplateLoader;
+import freemarker.template.Configuration;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Measures the rendering of the registration email and the building of its message, with a mail sender that never connects
+ * and a transport pool that writes the messages to nowhere instead of sending them.
+ * Run with {@code -prof gc} to also report the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailServiceBenchmark {
+
+	/**
+	 * The context that creates the template registry, with its configuration.
+	 */
+	private AnnotationConfigApplicationContext context;
+
+	/**
+	 * The registry of the templates.
+	 */
+	private EmailTemplateRegistry templateRegistry;
+
+	/**
+	 * The service under test.
+	 */
+	private EmailService emailService;
+
+	/**
+	 * The registration email.
+	 */
+	private EmailInfo emailInfo;
+
+	/**
+	 * A transport pool that serializes the messages, as sending them would, and discards them.
+	 */
+	private static final class DiscardingTransportPool extends SmtpTransportPool {
+
+		/**
+		 * Writes the messages to nowhere.
+		 *
+		 * @param messages The messages.
+		 * @return No failures.
+		 */
+		@Override
+		public List<MessagingException> send(MimeMessage... messages) throws MessagingException {
+			for (MimeMessage message : messages) {
+				message.saveChanges();
+				try {
+					message.writeTo(OutputStream.nullOutputStream());
+				} catch (IOException e) {
+					throw new MessagingException("The message cannot be written", e);
+				}
+			}
+			return Arrays.asList(new MessagingException[messages.length]);
+		}
+	}
+
+	/**
+	 * Loads the templates and creates the service and the email.
+	 */
+	@Setup
+	public void setUp() {
+		Configuration freemarkerConfig = new Configuration(Configuration.VERSION_2_3_32);
+		freemarkerConfig.setTemplateLoader(new ClassTemplateLoader(EmailTemplateRegistry.class, "/email-templates/"));
+		freemarkerConfig.setDefaultEncoding("UTF-8");
+
+		context = new AnnotationConfigApplicationContext();
+		context.registerBean(OxygenAccountPorpertiesConfig.class, OxygenAccountPorpertiesConfig::new);
+		context.registerBean(Configuration.class, () -> freemarkerConfig);
+		context.register(EmailTemplateRegistry.class);
+		context.refresh();
+
+		templateRegistry = context.getBean(EmailTemplateRegistry.class);
+		emailService = new EmailService(new JavaMailSenderImpl(), templateRegistry, new DiscardingTransportPool());
+
+		Map<String, Object> emailData = new HashMap<>();
+		emailData.put(EmailTemplateData.NAME.getName(), "Jane Doe");
+		emailData.put(EmailTemplateData.TOKEN.getName(), "AQAAACpmUwGAkZ3yq8XyWlCqTrcMyUQ2yQ");
+		emailData.put(EmailTemplateData.BASEURL.getName(), "https://account.example.com");
+		emailInfo = new EmailInfo();
+		emailInfo.setType(EmailType.CONFIRM_REGISTRATION);
+		emailInfo.setEmailAddress("jane.doe@example.com");
+		emailInfo.setLocale(Locale.ENGLISH);
+		emailInfo.setEmailData(emailData);
+	}
+
+	/**
+	 * Closes the context.
+	 */
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * Renders the body of the registration email.
+	 *
+	 * @return The body.
+	 */
+	@Benchmark
+	public String renderBody() throws EmailException {
+		return templateRegistry.renderBody(emailInfo.getType(), emailInfo.getLocale(), emailInfo.getEmailData());
+	}
+
+	/**
+	 * Renders the registration email, builds its message and writes it.
+	 *
+	 * @return The email.
+	 */
+	@Benchmark
+	public EmailInfo sendEmail() throws EmailException {
+		emailService.sendEmail(emailInfo);
+		return emailInfo;
+	}
+}
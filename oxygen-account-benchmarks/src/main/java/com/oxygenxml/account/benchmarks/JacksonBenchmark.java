@@ -0,0 +1,117 @@
+package com.oxygenxml.account.benchmarks;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.oxygenxml.account.dto.UserDto;
+import com.oxygenxml.account.exception.ErrorResponse;
+import com.oxygenxml.account.exception.InputValidationError;
+import com.oxygenxml.account.exception.InternalErrorCode;
+import com.oxygenxml.account.messages.Message;
+
+/**
+ * Measures the JSON serialization of the user data and of the error responses, and the reading of the registration data.
+ * Run with {@code -prof gc} to also report the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonBenchmark {
+
+	/**
+	 * Writes the user data.
+	 */
+	private ObjectWriter userWriter;
+
+	/**
+	 * Reads the registration data.
+	 */
+	private ObjectReader userReader;
+
+	/**
+	 * Writes the error responses.
+	 */
+	private ObjectWriter errorWriter;
+
+	/**
+	 * The data of a user.
+	 */
+	private UserDto userDto;
+
+	/**
+	 * The registration data as sent by the client.
+	 */
+	private String userJson;
+
+	/**
+	 * An error response listing the invalid fields.
+	 */
+	private ErrorResponse errorResponse;
+
+	/**
+	 * Creates the readers, the writers and the objects.
+	 */
+	@Setup
+	public void setUp() throws JsonProcessingException {
+		ObjectMapper objectMapper = new ObjectMapper();
+		userWriter = objectMapper.writerFor(UserDto.class);
+		userReader = objectMapper.readerFor(UserDto.class);
+		errorWriter = objectMapper.writerFor(ErrorResponse.class);
+
+		userDto = new UserDto("Jane Doe", "jane.doe@example.com", null, "ACTIVE", new Timestamp(System.currentTimeMillis()));
+		userJson = userWriter.writeValueAsString(new UserDto("Jane Doe", "jane.doe@example.com", "password1234", null, null));
+		errorResponse = new ErrorResponse(InternalErrorCode.THE_CURRENT_REQUEST_VALIDATION_FAILED.getInternalErrorCode(), Message.BAD_REQUEST.getMessage(),
+				Message.BAD_REQUEST.getId(), List.of(
+						new InputValidationError("email", Message.EMAIL_INVALID.getMessage(), Message.EMAIL_INVALID.getId()),
+						new InputValidationError("password", Message.SHORT_FIELD.getMessage(), Message.SHORT_FIELD.getId())));
+	}
+
+	/**
+	 * Writes the data of a user, as returned by the profile endpoints.
+	 *
+	 * @return The JSON.
+	 */
+	@Benchmark
+	public String writeUser() throws JsonProcessingException {
+		return userWriter.writeValueAsString(userDto);
+	}
+
+	/**
+	 * Reads the registration data.
+	 *
+	 * @return The registration data.
+	 */
+	@Benchmark
+	public UserDto readUser() throws JsonProcessingException {
+		return userReader.readValue(userJson);
+	}
+
+	/**
+	 * Writes an error response listing the invalid fields.
+	 *
+	 * @return The JSON.
+	 */
+	@Benchmark
+	public String writeErrorResponse() throws JsonProcessingException {
+		return errorWriter.writeValueAsString(errorResponse);
+	}
+}
@@ -0,0 +1,144 @@
+package com.oxygenxml.account.benchmarks;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.service.JwtService;
+import com.oxygenxml.account.service.TokenKeyring;
+import com.oxygenxml.account.type.TokenClaim;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Compares the confirmation tokens of {@link JwtService}, which signs and verifies with keys derived once into a keyring,
+ * with the previous implementation, which derived the key and built a parser on every call.
+ * Run with {@code -prof gc} to also report the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+	/**
+	 * The secret configured for the application.
+	 */
+	private static final String SECRET = "oxygenAccountoxygenAccountoxygenAccountoxygenAccountoxygenAccountoxygenAccount";
+
+	/**
+	 * The context that creates the service, with its configuration.
+	 */
+	private AnnotationConfigApplicationContext context;
+
+	/**
+	 * The service under test.
+	 */
+	private JwtService jwtService;
+
+	/**
+	 * The creation date written in the tokens.
+	 */
+	private Timestamp creationDate;
+
+	/**
+	 * A token generated by the service.
+	 */
+	private String token;
+
+	/**
+	 * Creates the service and a token to parse.
+	 */
+	@Setup
+	public void setUp() {
+		OxygenAccountPorpertiesConfig properties = new OxygenAccountPorpertiesConfig();
+		properties.setSecretKey(SECRET);
+
+		context = new AnnotationConfigApplicationContext();
+		context.registerBean(OxygenAccountPorpertiesConfig.class, () -> properties);
+		context.register(TokenKeyring.class, JwtService.class);
+		context.refresh();
+
+		jwtService = context.getBean(JwtService.class);
+		creationDate = new Timestamp(System.currentTimeMillis());
+		token = jwtService.generateEmailConfirmationToken(42, creationDate);
+	}
+
+	/**
+	 * Closes the context.
+	 */
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * Generates a token with the keyring.
+	 *
+	 * @return The token.
+	 */
+	@Benchmark
+	public String generateWithKeyring() {
+		return jwtService.generateEmailConfirmationToken(42, creationDate);
+	}
+
+	/**
+	 * Parses a token with the keyring.
+	 *
+	 * @return The claims of the token.
+	 */
+	@Benchmark
+	public Claims parseWithKeyring() {
+		return jwtService.parseToken(token);
+	}
+
+	/**
+	 * Generates a token as the previous implementation did, deriving the key on every call.
+	 *
+	 * @return The token.
+	 */
+	@Benchmark
+	public String generatePerCall() {
+		SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+		return Jwts.builder()
+				.claim(TokenClaim.USER_ID.getName(), 42)
+				.claim(TokenClaim.CREATION_DATE.getName(), creationDate)
+				.signWith(key)
+				.compact();
+	}
+
+	/**
+	 * Parses a token as the previous implementation did, deriving the key and building a parser on every call.
+	 *
+	 * @return The claims of the token.
+	 */
+	@Benchmark
+	public Claims parsePerCall() {
+		SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+		return Jwts.parserBuilder()
+				.setSigningKey(key)
+				.build()
+				.parseClaimsJws(token)
+				.getBody();
+	}
+}
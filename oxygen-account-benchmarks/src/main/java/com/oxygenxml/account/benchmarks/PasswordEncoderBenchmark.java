@@ -0,0 +1,109 @@
+package com.oxygenxml.account.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.security.PasswordEncoderConfig;
+import com.oxygenxml.account.type.PasswordHashAlgorithm;
+
+/**
+ * Measures the hashing and the verification of a password by the encoder of the application, including the hand-off to the
+ * hashing executor, for several algorithms and costs.
+ * Run with {@code -prof gc} to also report the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+	/**
+	 * The hashed password.
+	 */
+	private static final String PASSWORD = "correct-Horse-battery-9";
+
+	/**
+	 * The algorithm and the cost of the hashes, as "algorithm:cost".
+	 */
+	@Param({"BCRYPT:4", "BCRYPT:10", "BCRYPT:12", "ARGON2:1", "ARGON2:3"})
+	private String hash;
+
+	/**
+	 * The context that creates the encoder, with its configuration.
+	 */
+	private AnnotationConfigApplicationContext context;
+
+	/**
+	 * The encoder under test.
+	 */
+	private PasswordEncoder encoder;
+
+	/**
+	 * A hash of the password.
+	 */
+	private String encodedPassword;
+
+	/**
+	 * Creates the encoder, without calibrating the cost, and a hash to verify.
+	 */
+	@Setup
+	public void setUp() {
+		String[] algorithmAndCost = hash.split(":");
+		OxygenAccountPorpertiesConfig properties = new OxygenAccountPorpertiesConfig();
+		properties.setPasswordHashAlgorithm(PasswordHashAlgorithm.valueOf(algorithmAndCost[0]));
+		properties.setPasswordHashCost(Integer.parseInt(algorithmAndCost[1]));
+
+		context = new AnnotationConfigApplicationContext();
+		context.registerBean(OxygenAccountPorpertiesConfig.class, () -> properties);
+		context.register(PasswordEncoderConfig.class);
+		context.refresh();
+
+		encoder = context.getBean(PasswordEncoder.class);
+		encodedPassword = encoder.encode(PASSWORD);
+	}
+
+	/**
+	 * Closes the context, which stops the hashing executor.
+	 */
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * Hashes the password, as a registration or a password change does.
+	 *
+	 * @return The hash.
+	 */
+	@Benchmark
+	public String encode() {
+		return encoder.encode(PASSWORD);
+	}
+
+	/**
+	 * Verifies the password, as a login does.
+	 *
+	 * @return true, the password matches.
+	 */
+	@Benchmark
+	public boolean matches() {
+		return encoder.matches(PASSWORD, encodedPassword);
+	}
+}
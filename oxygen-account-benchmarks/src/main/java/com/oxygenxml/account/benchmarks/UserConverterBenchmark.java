@@ -0,0 +1,86 @@
+package com.oxygenxml.account.benchmarks;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oxygenxml.account.converter.UserConverter;
+import com.oxygenxml.account.dto.UserDto;
+import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.model.UserStatus;
+
+/**
+ * Measures the conversions between the users and their data transfer objects.
+ * Run with {@code -prof gc} to also report the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserConverterBenchmark {
+
+	/**
+	 * The converter under test.
+	 */
+	private final UserConverter userConverter = new UserConverter();
+
+	/**
+	 * A user, as read from the database.
+	 */
+	private User user;
+
+	/**
+	 * Registration data, as received by the controller.
+	 */
+	private UserDto userDto;
+
+	/**
+	 * Creates the user and the registration data.
+	 */
+	@Setup
+	public void setUp() {
+		user = new User();
+		user.setId(42);
+		user.setName("Jane Doe");
+		user.setEmail("jane.doe@example.com");
+		user.setPassword("$2a$10$yWjIRyR/PQu2nS/0jzQa6.lj0YxI/Hc56fb/MD8rLteQe7kYn.NLS");
+		user.setStatus(UserStatus.ACTIVE);
+		user.setRegistrationDate(new Timestamp(System.currentTimeMillis()));
+
+		userDto = new UserDto("Jane Doe", "jane.doe@example.com", "password1234", null, null);
+	}
+
+	/**
+	 * Converts a user to the data returned by the controller.
+	 *
+	 * @return The data of the user.
+	 */
+	@Benchmark
+	public UserDto entityToDto() {
+		return userConverter.entityToDto(user);
+	}
+
+	/**
+	 * Converts registration data to a user and back, setting the status as the registration does.
+	 *
+	 * @return The data of the converted user.
+	 */
+	@Benchmark
+	public UserDto roundTrip() {
+		User converted = userConverter.dtoToEntity(userDto);
+		converted.setStatus(UserStatus.NEW);
+		return userConverter.entityToDto(converted);
+	}
+}
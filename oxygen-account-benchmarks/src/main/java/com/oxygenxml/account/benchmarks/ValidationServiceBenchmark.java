@@ -0,0 +1,102 @@
+package com.oxygenxml.account.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import com.oxygenxml.account.dto.UserDto;
+import com.oxygenxml.account.exception.MultipleOxygenAccountException;
+import com.oxygenxml.account.service.ValidationService;
+
+/**
+ * Measures the validation of the registration data, for valid data and for data that breaks every constraint.
+ * Run with {@code -prof gc} to also report the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationServiceBenchmark {
+
+	/**
+	 * The context that creates the service and the validator.
+	 */
+	private AnnotationConfigApplicationContext context;
+
+	/**
+	 * The service under test.
+	 */
+	private ValidationService validationService;
+
+	/**
+	 * Registration data that passes the validation.
+	 */
+	private UserDto validUser;
+
+	/**
+	 * Registration data with a blank name, an invalid email and a short password.
+	 */
+	private UserDto invalidUser;
+
+	/**
+	 * Creates the service and the registration data.
+	 */
+	@Setup
+	public void setUp() {
+		context = new AnnotationConfigApplicationContext();
+		context.register(LocalValidatorFactoryBean.class, ValidationService.class);
+		context.refresh();
+
+		validationService = context.getBean(ValidationService.class);
+		validUser = new UserDto("Jane Doe", "jane.doe@example.com", "password1234", null, null);
+		invalidUser = new UserDto(" ", "not-an-email", "short", null, null);
+	}
+
+	/**
+	 * Closes the context.
+	 */
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * Validates valid registration data.
+	 *
+	 * @return The validated data.
+	 */
+	@Benchmark
+	public UserDto validateValid() {
+		validationService.validate(validUser);
+		return validUser;
+	}
+
+	/**
+	 * Validates invalid registration data, which builds the exception listing the errors.
+	 *
+	 * @return The exception listing the errors.
+	 */
+	@Benchmark
+	public MultipleOxygenAccountException validateInvalid() {
+		try {
+			validationService.validate(invalidUser);
+			throw new IllegalStateException("The data should be invalid");
+		} catch (MultipleOxygenAccountException e) {
+			return e;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.oxygenxml.account.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oxygenxml.account.dto.UserDto;
+
+/**
+ * Sends the requests of the account pages to the application, as the browser does: JSON for the REST endpoints,
+ * a form for the login and the session cookie for the authenticated requests. The redirects are not followed, they are checked.
+ */
+final class AccountClient {
+
+	/**
+	 * The name of the session cookie.
+	 */
+	private static final String SESSION_COOKIE = "JSESSIONID";
+
+	/**
+	 * How long a request may take.
+	 */
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * Writes the registration data.
+	 */
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	/**
+	 * The HTTP client, shared by all the requests.
+	 */
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.followRedirects(HttpClient.Redirect.NEVER)
+			.connectTimeout(TIMEOUT)
+			.build();
+
+	/**
+	 * The base URL of the application.
+	 */
+	private final URI baseUri;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param baseUri The base URL of the application, ending with a slash.
+	 */
+	AccountClient(URI baseUri) {
+		this.baseUri = baseUri;
+	}
+
+	/**
+	 * Registers a new user.
+	 *
+	 * @param name The name of the user.
+	 * @param email The email of the user.
+	 * @param password The password of the user.
+	 * @return The outcome of the registration.
+	 */
+	Outcome register(String name, String email, String password) throws IOException, InterruptedException {
+		String body = MAPPER.writeValueAsString(new UserDto(name, email, password, null, null));
+		HttpRequest request = request("api/users/register")
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		return Outcome.ofStatus(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode(), 200);
+	}
+
+	/**
+	 * Logs in with the login form.
+	 *
+	 * @param email The email of the user.
+	 * @param password The password of the user.
+	 * @return The answer, a redirect to the home page if the login succeeded.
+	 */
+	HttpResponse<Void> login(String email, String password) throws IOException, InterruptedException {
+		String form = "email=" + URLEncoder.encode(email, StandardCharsets.UTF_8) + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+		HttpRequest request = request("login")
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(form))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.discarding());
+	}
+
+	/**
+	 * Checks the answer of a login.
+	 *
+	 * @param response The answer of the login.
+	 * @return The outcome of the login: an error if it was rejected or redirected back to the login page.
+	 */
+	static Outcome loginOutcome(HttpResponse<Void> response) {
+		if (response.statusCode() != 302) {
+			return Outcome.error("HTTP " + response.statusCode());
+		}
+		String location = response.headers().firstValue("Location").orElse("");
+		return location.contains("/login") ? Outcome.error("Login rejected") : Outcome.SUCCESS;
+	}
+
+	/**
+	 * Returns the session cookie set by a successful login.
+	 *
+	 * @param response The answer of the login.
+	 * @return The cookie, as sent back by the browser, or null.
+	 */
+	static String sessionCookie(HttpResponse<Void> response) {
+		List<String> cookies = response.headers().allValues("Set-Cookie");
+		for (String cookie : cookies) {
+			if (cookie.startsWith(SESSION_COOKIE + "=")) {
+				int end = cookie.indexOf(';');
+				return end < 0 ? cookie : cookie.substring(0, end);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the profile of the logged in user, as the profile page polls it.
+	 *
+	 * @param sessionCookie The session cookie of the user.
+	 * @return The outcome of the request: an error if the session is not authenticated.
+	 */
+	Outcome me(String sessionCookie) throws IOException, InterruptedException {
+		HttpRequest request = request("api/users/me")
+				.header("Cookie", sessionCookie)
+				.GET()
+				.build();
+		HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() != 200) {
+			return Outcome.error("HTTP " + response.statusCode());
+		}
+		return response.body().contains("anonymousUser") ? Outcome.error("Not authenticated") : Outcome.SUCCESS;
+	}
+
+	/**
+	 * Clicks a confirmation link.
+	 *
+	 * @param token The token of the link.
+	 * @return The outcome of the confirmation: an error unless it redirects to the success page.
+	 */
+	Outcome confirm(String token) throws IOException, InterruptedException {
+		HttpRequest request = request("api/users/confirm?token=" + URLEncoder.encode(token, StandardCharsets.UTF_8))
+				.GET()
+				.build();
+		HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+		if (response.statusCode() != 302) {
+			return Outcome.error("HTTP " + response.statusCode());
+		}
+		return response.headers().firstValue("Location").orElse("").endsWith("#success-confirmation") ? Outcome.SUCCESS : Outcome.error("Confirmation rejected");
+	}
+
+	/**
+	 * Starts a request to a path of the application.
+	 */
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(TIMEOUT);
+	}
+}
@@ -0,0 +1,88 @@
+package com.oxygenxml.account.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the requests of an operation from a fixed number of clients, each sending its next request as soon as the previous one completed.
+ * <p>
+ * Unlike {@link EndpointLoad}, the requests do not arrive at a fixed rate (a closed model): the throughput is what the server sustains
+ * with that many requests in flight, and the latency of a request is measured from the moment it was sent. It is used to step up the
+ * concurrency until the latency breaks down.
+ */
+final class ClosedLoad {
+
+	/**
+	 * The operation.
+	 */
+	private final Endpoint endpoint;
+
+	/**
+	 * The number of clients.
+	 */
+	private final int concurrency;
+
+	/**
+	 * Sends a request.
+	 */
+	private final EndpointLoad.Request request;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param endpoint The operation.
+	 * @param concurrency The number of clients.
+	 * @param request Sends a request.
+	 */
+	ClosedLoad(Endpoint endpoint, int concurrency, EndpointLoad.Request request) {
+		this.endpoint = endpoint;
+		this.concurrency = concurrency;
+		this.request = request;
+	}
+
+	/**
+	 * Sends the requests until the end of the measurement and records those sent after the warmup.
+	 *
+	 * @param warmupSeconds The seconds during which the requests are sent but not recorded.
+	 * @param durationSeconds The seconds during which the requests are recorded.
+	 * @return The outcomes of the recorded requests.
+	 */
+	EndpointStats run(int warmupSeconds, int durationSeconds) throws InterruptedException {
+		long measurementStartNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		long endNanos = measurementStartNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+		EndpointStats stats = new EndpointStats(endpoint, measurementStartNanos);
+
+		List<Thread> clients = new ArrayList<>(concurrency);
+		for (int i = 1; i <= concurrency; i++) {
+			Thread client = new Thread(() -> sendUntil(endNanos, stats), "load-" + endpoint.getId() + "-client-" + i);
+			client.setDaemon(true);
+			client.start();
+			clients.add(client);
+		}
+		for (Thread client : clients) {
+			client.join();
+		}
+		return stats;
+	}
+
+	/**
+	 * Sends the requests one after the other until the end of the measurement.
+	 */
+	private void sendUntil(long endNanos, EndpointStats stats) {
+		long sentNanos;
+		while ((sentNanos = System.nanoTime()) - endNanos < 0) {
+			Outcome outcome;
+			try {
+				outcome = request.send();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				stats.record(sentNanos, System.nanoTime() - sentNanos, Outcome.error(e.getClass().getSimpleName()));
+				return;
+			} catch (Exception e) {
+				outcome = Outcome.error(e.getClass().getSimpleName());
+			}
+			stats.record(sentNanos, System.nanoTime() - sentNanos, outcome);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.oxygenxml.account.load;
+
+/**
+ * The operations driven by the load tests.
+ */
+public enum Endpoint {
+
+	/**
+	 * The registration of a new user, which also writes the confirmation email to the outbox.
+	 */
+	REGISTER("register", "POST /api/users/register"),
+
+	/**
+	 * The form login of an active user.
+	 */
+	LOGIN("login", "POST /login"),
+
+	/**
+	 * The profile polled by the profile page, with the session of a logged in user.
+	 */
+	ME("me", "GET /api/users/me"),
+
+	/**
+	 * A click on the confirmation link of a registration email received by the local SMTP server.
+	 */
+	CONFIRM("confirm", "GET /api/users/confirm"),
+
+	/**
+	 * A run of the nightly purge of the deleted and unconfirmed users, called in the application.
+	 */
+	PURGE("purge", "DeletedUsersTask");
+
+	/**
+	 * The prefix of the properties of the operation in the scenarios.
+	 */
+	private final String id;
+
+	/**
+	 * The description of the operation in the report.
+	 */
+	private final String description;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param id The prefix of the properties of the operation in the scenarios.
+	 * @param description The description of the operation in the report.
+	 */
+	Endpoint(String id, String description) {
+		this.id = id;
+		this.description = description;
+	}
+
+	/**
+	 * @return The prefix of the properties of the operation in the scenarios.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return The description of the operation in the report.
+	 */
+	public String getDescription() {
+		return description;
+	}
+}
@@ -0,0 +1,157 @@
+package com.oxygenxml.account.load;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends the requests of an operation at a fixed arrival rate, from a fixed number of concurrent clients.
+ * <p>
+ * The requests arrive on schedule whether or not the previous ones completed, as the requests of independent users do (an open model).
+ * When all the clients are busy, the due requests wait for a free one, and their wait is part of their latency.
+ */
+final class EndpointLoad {
+
+	/**
+	 * A request of the operation.
+	 */
+	@FunctionalInterface
+	interface Request {
+
+		/**
+		 * Sends the request and checks the answer.
+		 *
+		 * @return The outcome of the request.
+		 * @throws Exception if the request failed, which is recorded as an error.
+		 */
+		Outcome send() throws Exception;
+	}
+
+	/**
+	 * The operation.
+	 */
+	private final Endpoint endpoint;
+
+	/**
+	 * The time between two requests.
+	 */
+	private final long intervalNanos;
+
+	/**
+	 * The moment, in {@link System#nanoTime()}, when the first request is due.
+	 */
+	private final long firstNanos;
+
+	/**
+	 * Sends a request.
+	 */
+	private final Request request;
+
+	/**
+	 * Records the outcomes of the requests.
+	 */
+	private final EndpointStats stats;
+
+	/**
+	 * The clients that send the requests.
+	 */
+	private final ExecutorService clients;
+
+	/**
+	 * The thread that schedules the requests.
+	 */
+	private Thread scheduler;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param endpoint The operation.
+	 * @param rate The requests per second.
+	 * @param concurrency The number of requests sent at the same time, at most.
+	 * @param request Sends a request.
+	 * @param stats Records the outcomes of the requests.
+	 * @param firstNanos The moment, in {@link System#nanoTime()}, when the first request is due.
+	 */
+	EndpointLoad(Endpoint endpoint, double rate, int concurrency, Request request, EndpointStats stats, long firstNanos) {
+		this.endpoint = endpoint;
+		this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+		this.request = request;
+		this.stats = stats;
+		this.firstNanos = firstNanos;
+		this.clients = Executors.newFixedThreadPool(Math.max(1, concurrency), threadFactory("load-" + endpoint.getId() + "-"));
+	}
+
+	/**
+	 * Starts sending the requests.
+	 *
+	 * @param endNanos The moment, in {@link System#nanoTime()}, after which no request is sent.
+	 */
+	void start(long endNanos) {
+		scheduler = threadFactory("load-" + endpoint.getId() + "-scheduler").newThread(() -> schedule(endNanos));
+		scheduler.start();
+	}
+
+	/**
+	 * Waits for the requests to complete. The requests still waiting for a client at the deadline are recorded as errors,
+	 * and the running ones are interrupted.
+	 *
+	 * @param deadlineNanos The moment, in {@link System#nanoTime()}, until which the requests are awaited.
+	 */
+	void awaitCompletion(long deadlineNanos) throws InterruptedException {
+		scheduler.join();
+		clients.shutdown();
+		if (!clients.awaitTermination(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+			stats.recordAbandoned(clients.shutdownNow().size());
+		}
+	}
+
+	/**
+	 * Hands the due requests to the clients until the end of the test.
+	 */
+	private void schedule(long endNanos) {
+		for (long due = firstNanos; due - endNanos < 0; due += intervalNanos) {
+			long wait;
+			while ((wait = due - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			long dueNanos = due;
+			clients.execute(() -> send(dueNanos));
+		}
+	}
+
+	/**
+	 * Sends a request and records its outcome.
+	 *
+	 * @param dueNanos The moment, in {@link System#nanoTime()}, when the request was due.
+	 */
+	private void send(long dueNanos) {
+		Outcome outcome;
+		try {
+			outcome = request.send();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			outcome = Outcome.error(e.getClass().getSimpleName());
+		} catch (Exception e) {
+			outcome = Outcome.error(e.getClass().getSimpleName());
+		}
+		stats.record(dueNanos, System.nanoTime() - dueNanos, outcome);
+	}
+
+	/**
+	 * Creates daemon threads with the given name, followed by a number if the name ends with a dash.
+	 */
+	private static ThreadFactory threadFactory(String name) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name.endsWith("-") ? name + count.incrementAndGet() : name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,166 @@
+package com.oxygenxml.account.load;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * The latencies and the outcomes of the requests of an operation.
+ * <p>
+ * The latency of a request is measured from the moment the request was due according to the arrival rate, not from the moment it was sent,
+ * so a server that falls behind is not hidden by the requests that wait for a free connection (coordinated omission).
+ * Only the latencies of the successful requests are recorded, in microseconds; the failed ones are counted by cause.
+ * The requests due before the end of the warmup are not recorded.
+ */
+final class EndpointStats {
+
+	/**
+	 * The highest latency recorded, in microseconds. Higher latencies are recorded as this value.
+	 */
+	private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+	/**
+	 * The significant decimal digits of the recorded latencies.
+	 */
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	/**
+	 * The operation.
+	 */
+	private final Endpoint endpoint;
+
+	/**
+	 * The moment, in {@link System#nanoTime()}, when the warmup ends.
+	 */
+	private final long measurementStartNanos;
+
+	/**
+	 * The latencies of the successful requests.
+	 */
+	private final Recorder latencies = new Recorder(HIGHEST_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+
+	/**
+	 * The number of failed requests, by cause.
+	 */
+	private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+	/**
+	 * The number of requests not sent.
+	 */
+	private final LongAdder skipped = new LongAdder();
+
+	/**
+	 * The summary of the recorded requests.
+	 *
+	 * @param throughput The completed requests per second.
+	 * @param errorPercent The percentage of the completed requests that failed.
+	 * @param p99Millis The 99th percentile of the latencies of the successful requests, in milliseconds.
+	 */
+	record Summary(double throughput, double errorPercent, double p99Millis) {
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param endpoint The operation.
+	 * @param measurementStartNanos The moment, in {@link System#nanoTime()}, when the warmup ends.
+	 */
+	EndpointStats(Endpoint endpoint, long measurementStartNanos) {
+		this.endpoint = endpoint;
+		this.measurementStartNanos = measurementStartNanos;
+	}
+
+	/**
+	 * Records the outcome of a request.
+	 *
+	 * @param dueNanos The moment, in {@link System#nanoTime()}, when the request was due.
+	 * @param latencyNanos The time from the moment the request was due until it completed.
+	 * @param outcome The outcome of the request.
+	 */
+	void record(long dueNanos, long latencyNanos, Outcome outcome) {
+		if (dueNanos - measurementStartNanos < 0) {
+			return;
+		}
+		switch (outcome.kind()) {
+		case SUCCESS:
+			latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY_MICROS));
+			break;
+		case ERROR:
+			errors.computeIfAbsent(outcome.cause(), cause -> new LongAdder()).increment();
+			break;
+		default:
+			skipped.increment();
+		}
+	}
+
+	/**
+	 * Records the requests that were still waiting for a client when the test ended, as errors.
+	 *
+	 * @param count The number of requests.
+	 */
+	void recordAbandoned(int count) {
+		if (count > 0) {
+			errors.computeIfAbsent("Abandoned", cause -> new LongAdder()).add(count);
+		}
+	}
+
+	/**
+	 * Prints the summary of the operation and writes its latency distribution.
+	 *
+	 * @param out Receives the summary.
+	 * @param distribution Receives the percentile distribution of the latencies, in milliseconds, in the HdrHistogram format.
+	 * @param measuredSeconds The duration of the measurement.
+	 * @return The summary of the requests.
+	 */
+	Summary report(PrintStream out, PrintStream distribution, double measuredSeconds) {
+		return report(out, endpoint.getDescription(), distribution, measuredSeconds);
+	}
+
+	/**
+	 * Prints the summary of the operation under the given label and writes its latency distribution.
+	 *
+	 * @param out Receives the summary.
+	 * @param label The first column of the summary.
+	 * @param distribution Receives the percentile distribution of the latencies, in milliseconds, in the HdrHistogram format.
+	 * @param measuredSeconds The duration of the measurement.
+	 * @return The summary of the requests.
+	 */
+	Summary report(PrintStream out, String label, PrintStream distribution, double measuredSeconds) {
+		Histogram histogram = latencies.getIntervalHistogram();
+		long succeeded = histogram.getTotalCount();
+		long failed = errors.values().stream().mapToLong(LongAdder::sum).sum();
+		long completed = succeeded + failed;
+		double errorPercent = completed == 0 ? 0 : failed * 100.0 / completed;
+
+		out.printf("%-30s %9d %10.1f %7.2f%% %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, completed,
+				completed / measuredSeconds, errorPercent, skipped.sum(), millis(histogram, 50), millis(histogram, 95),
+				millis(histogram, 99), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0);
+		new TreeMap<>(errors).forEach((cause, count) -> out.printf("    %-26s %9d%n", cause, count.sum()));
+
+		histogram.outputPercentileDistribution(distribution, 1000.0);
+		return new Summary(completed / measuredSeconds, errorPercent, millis(histogram, 99));
+	}
+
+	/**
+	 * Prints the header of the summaries.
+	 *
+	 * @param out Receives the header.
+	 */
+	static void printHeader(PrintStream out) {
+		out.printf("%-30s %9s %10s %8s %9s %9s %9s %9s %9s %9s%n", "Operation", "Requests", "Req/s", "Errors", "Skipped",
+				"p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+	}
+
+	/**
+	 * Returns a percentile of the latencies in milliseconds.
+	 */
+	private static double millis(Histogram histogram, double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1000.0;
+	}
+}
@@ -0,0 +1,286 @@
+package com.oxygenxml.account.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.security.EmailExistenceFilter;
+import com.oxygenxml.account.task.DeletedUsersTask;
+
+/**
+ * Runs a load test scenario against the application, started in this process with an embedded database and a local SMTP server.
+ * <p>
+ * The test inserts the users of the scenario, logs in the sessions that poll their profile, then sends the requests of every operation
+ * at its arrival rate, over HTTP for the endpoints and in the application for the purge. It prints the throughput, the error rate and
+ * the latency percentiles of every operation, and writes their latency distributions in the output folder of the scenario.
+ * <p>
+ * A step-up scenario instead drives one operation from a growing number of clients, each sending its next request when the previous one
+ * completed, until the 99th percentile of its latencies exceeds the limit of the scenario or it fails more often than {@code maxErrorPercent}.
+ * It prints a summary for every number of clients and the highest one that stayed within the limits.
+ * <p>
+ * Usage: {@code java -jar target/load-tests.jar <scenario> [key=value...]}. The exit status is 1 if an operation failed more often than
+ * {@code maxErrorPercent}, or if a step-up scenario breached its limits at its first step.
+ */
+public final class LoadTest {
+
+	/**
+	 * How long the requests still running at the end of the test are awaited, in seconds.
+	 */
+	private static final long COMPLETION_TIMEOUT_SECONDS = 60;
+
+	/**
+	 * The scenario.
+	 */
+	private final Scenario scenario;
+
+	/**
+	 * Receives the emails of the application.
+	 */
+	private final SmtpSink smtpSink;
+
+	/**
+	 * The application.
+	 */
+	private final ConfigurableApplicationContext context;
+
+	/**
+	 * Sends the requests to the application.
+	 */
+	private final AccountClient client;
+
+	/**
+	 * The emails of the active users.
+	 */
+	private List<String> activeUsers;
+
+	/**
+	 * The session cookies of the logged in users.
+	 */
+	private List<String> sessions;
+
+	/**
+	 * The number of users registered by the test, which makes their emails unique.
+	 */
+	private final AtomicLong registrations = new AtomicLong();
+
+	/**
+	 * Starts the application.
+	 *
+	 * @param scenario The scenario.
+	 * @param smtpSink The started SMTP server that receives the emails of the application.
+	 */
+	private LoadTest(Scenario scenario, SmtpSink smtpSink) {
+		this.scenario = scenario;
+		this.smtpSink = smtpSink;
+
+		List<String> arguments = new ArrayList<>();
+		scenario.getApplicationProperties().forEach((key, value) -> arguments.add("--" + key + "=" + value));
+		arguments.add("--server.port=0");
+		arguments.add("--spring.mail.host=localhost");
+		arguments.add("--spring.mail.port=" + smtpSink.getPort());
+		this.context = new SpringApplicationBuilder(OxygenAccountApplication.class).run(arguments.toArray(String[]::new));
+
+		int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+		this.client = new AccountClient(URI.create("http://localhost:" + port + "/"));
+	}
+
+	/**
+	 * Runs a scenario.
+	 *
+	 * @param args The scenario, followed by the {@code key=value} properties that override it.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.err.println("Usage: LoadTest <scenario name or file> [key=value...]");
+			System.exit(2);
+		}
+		Scenario scenario = Scenario.load(args[0], Arrays.copyOfRange(args, 1, args.length));
+
+		boolean passed;
+		try (SmtpSink smtpSink = new SmtpSink()) {
+			smtpSink.start();
+			LoadTest test = new LoadTest(scenario, smtpSink);
+			try {
+				test.seed();
+				passed = scenario.getStepUpEndpoint() != null ? test.stepUp() : test.run();
+			} finally {
+				test.context.close();
+			}
+		}
+		System.exit(passed ? 0 : 1);
+	}
+
+	/**
+	 * Inserts the users of the scenario and logs in the sessions that poll their profile.
+	 */
+	private void seed() throws IOException, InterruptedException {
+		UserSeeder seeder = new UserSeeder(context.getBean(JdbcTemplate.class),
+				context.getBean(PasswordEncoder.class).encode(scenario.getPassword()));
+		activeUsers = seeder.insertActiveUsers(scenario.getActiveUsers());
+		seeder.insertExpiredDeletedUsers(scenario.getDeletedUsers());
+		seeder.insertExpiredUnconfirmedUsers(scenario.getUnconfirmedUsers());
+		context.getBean(EmailExistenceFilter.class).rebuild();
+
+		sessions = new ArrayList<>();
+		boolean polled = scenario.getRate(Endpoint.ME) > 0 || scenario.getStepUpEndpoint() == Endpoint.ME;
+		int sessionCount = polled ? Math.min(scenario.getSessions(), activeUsers.size()) : 0;
+		for (int i = 0; i < sessionCount; i++) {
+			HttpResponse<Void> response = client.login(activeUsers.get(i), scenario.getPassword());
+			String cookie = AccountClient.sessionCookie(response);
+			if (AccountClient.loginOutcome(response).kind() != Outcome.Kind.SUCCESS || cookie == null) {
+				throw new IllegalStateException("Could not log in " + activeUsers.get(i) + ": HTTP " + response.statusCode());
+			}
+			sessions.add(cookie);
+		}
+		System.out.println("Inserted " + activeUsers.size() + " active, " + scenario.getDeletedUsers() + " deleted and "
+				+ scenario.getUnconfirmedUsers() + " unconfirmed users, logged in " + sessions.size() + " sessions");
+	}
+
+	/**
+	 * Sends the requests of every operation, then prints and writes the results.
+	 *
+	 * @return true if no operation failed more often than allowed.
+	 */
+	private boolean run() throws IOException, InterruptedException {
+		long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+		long measurementStartNanos = startNanos + TimeUnit.SECONDS.toNanos(scenario.getWarmupSeconds());
+		long endNanos = measurementStartNanos + TimeUnit.SECONDS.toNanos(scenario.getDurationSeconds());
+
+		Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+		List<EndpointLoad> loads = new ArrayList<>();
+		for (Endpoint endpoint : Endpoint.values()) {
+			double rate = scenario.getRate(endpoint);
+			if (rate > 0) {
+				EndpointStats endpointStats = new EndpointStats(endpoint, measurementStartNanos);
+				stats.put(endpoint, endpointStats);
+				long firstNanos = startNanos + (long) (scenario.getDelaySeconds(endpoint) * TimeUnit.SECONDS.toNanos(1));
+				loads.add(new EndpointLoad(endpoint, rate, scenario.getConcurrency(endpoint), request(endpoint), endpointStats, firstNanos));
+			}
+		}
+
+		System.out.println("Running " + scenario.getName() + ": " + scenario.getWarmupSeconds() + "s warmup, "
+				+ scenario.getDurationSeconds() + "s measurement");
+		for (EndpointLoad load : loads) {
+			load.start(endNanos);
+		}
+		long deadlineNanos = endNanos + TimeUnit.SECONDS.toNanos(COMPLETION_TIMEOUT_SECONDS);
+		for (EndpointLoad load : loads) {
+			load.awaitCompletion(deadlineNanos);
+		}
+
+		Path output = scenario.getOutputDirectory();
+		Files.createDirectories(output);
+		boolean passed = true;
+		System.out.println();
+		EndpointStats.printHeader(System.out);
+		for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+			try (PrintStream distribution = new PrintStream(Files.newOutputStream(output.resolve(entry.getKey().getId() + ".hgrm")))) {
+				EndpointStats.Summary summary = entry.getValue().report(System.out, distribution, scenario.getDurationSeconds());
+				passed &= summary.errorPercent() <= scenario.getMaxErrorPercent();
+			}
+		}
+		System.out.println();
+		System.out.println("Emails received: " + smtpSink.getReceived() + ". Latency distributions written to " + output.toAbsolutePath());
+		return passed;
+	}
+
+	/**
+	 * Steps up the number of clients of the step-up operation until its latency or its errors exceed the limits, then prints the highest
+	 * number of clients that stayed within them.
+	 *
+	 * @return true if at least the first step stayed within the limits.
+	 */
+	private boolean stepUp() throws IOException, InterruptedException {
+		Endpoint endpoint = scenario.getStepUpEndpoint();
+		EndpointLoad.Request request = request(endpoint);
+		Path output = scenario.getOutputDirectory();
+		Files.createDirectories(output);
+
+		System.out.println("Stepping up " + endpoint.getDescription() + " until p99 > " + scenario.getStepUpP99LimitMillis() + " ms: "
+				+ scenario.getStepUpWarmupSeconds() + "s warmup and " + scenario.getStepUpDurationSeconds() + "s measurement per step");
+		System.out.println();
+		EndpointStats.printHeader(System.out);
+		int withinLimits = 0;
+		EndpointStats.Summary best = null;
+		for (int concurrency = scenario.getStepUpStartConcurrency(); concurrency <= scenario.getStepUpMaxConcurrency();
+				concurrency *= Math.max(2, scenario.getStepUpFactor())) {
+			EndpointStats stats = new ClosedLoad(endpoint, concurrency, request)
+					.run(scenario.getStepUpWarmupSeconds(), scenario.getStepUpDurationSeconds());
+			EndpointStats.Summary summary;
+			try (PrintStream distribution = new PrintStream(Files.newOutputStream(output.resolve(endpoint.getId() + "-" + concurrency + ".hgrm")))) {
+				summary = stats.report(System.out, concurrency + " clients", distribution, scenario.getStepUpDurationSeconds());
+			}
+			if (summary.p99Millis() > scenario.getStepUpP99LimitMillis() || summary.errorPercent() > scenario.getMaxErrorPercent()) {
+				break;
+			}
+			withinLimits = concurrency;
+			best = summary;
+		}
+
+		System.out.println();
+		if (best == null) {
+			System.out.println("The first step already exceeded the limits.");
+		} else {
+			System.out.printf("Highest concurrency within the limits: %d clients, %.1f req/s, p99 %.2f ms%n", withinLimits, best.throughput(), best.p99Millis());
+		}
+		System.out.println("Latency distributions written to " + output.toAbsolutePath());
+		return best != null;
+	}
+
+	/**
+	 * Creates the request of an operation.
+	 */
+	private EndpointLoad.Request request(Endpoint endpoint) {
+		String password = scenario.getPassword();
+		switch (endpoint) {
+		case REGISTER:
+			return () -> {
+				long id = registrations.incrementAndGet();
+				return client.register("Load user " + id, "registered-" + id + "@load.example.com", password);
+			};
+		case LOGIN:
+			return () -> activeUsers.isEmpty() ? Outcome.SKIPPED : AccountClient.loginOutcome(client.login(random(activeUsers), password));
+		case ME:
+			return () -> sessions.isEmpty() ? Outcome.SKIPPED : client.me(random(sessions));
+		case CONFIRM:
+			return () -> {
+				String token = smtpSink.takeConfirmationToken();
+				return token == null ? Outcome.SKIPPED : client.confirm(token);
+			};
+		case PURGE:
+			DeletedUsersTask task = context.getBean(DeletedUsersTask.class);
+			return () -> {
+				task.processDeletedUsers();
+				task.processDeleteUnconfirmedUsers();
+				return Outcome.SUCCESS;
+			};
+		default:
+			throw new IllegalArgumentException("Unknown operation " + endpoint);
+		}
+	}
+
+	/**
+	 * Picks a random element.
+	 */
+	private static String random(List<String> values) {
+		return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+	}
+}
@@ -0,0 +1,59 @@
+package com.oxygenxml.account.load;
+
+/**
+ * The outcome of a request sent by the load tests.
+ *
+ * @param kind Whether the request succeeded, failed or was not sent.
+ * @param cause The cause of the failure, such as "HTTP 500", or null.
+ */
+record Outcome(Kind kind, String cause) {
+
+	/**
+	 * Whether a request succeeded, failed or was not sent.
+	 */
+	enum Kind {
+		/**
+		 * The request got the expected answer.
+		 */
+		SUCCESS,
+		/**
+		 * The request failed or got an unexpected answer.
+		 */
+		ERROR,
+		/**
+		 * The request was not sent because it had nothing to work on, such as a confirmation link.
+		 */
+		SKIPPED
+	}
+
+	/**
+	 * A request that got the expected answer.
+	 */
+	static final Outcome SUCCESS = new Outcome(Kind.SUCCESS, null);
+
+	/**
+	 * A request that was not sent.
+	 */
+	static final Outcome SKIPPED = new Outcome(Kind.SKIPPED, null);
+
+	/**
+	 * Creates the outcome of a failed request.
+	 *
+	 * @param cause The cause of the failure.
+	 * @return The outcome.
+	 */
+	static Outcome error(String cause) {
+		return new Outcome(Kind.ERROR, cause);
+	}
+
+	/**
+	 * Creates the outcome of a request answered with a status.
+	 *
+	 * @param status The status of the answer.
+	 * @param expected The expected status.
+	 * @return A success if the status is the expected one, otherwise an error.
+	 */
+	static Outcome ofStatus(int status, int expected) {
+		return status == expected ? SUCCESS : error("HTTP " + status);
+	}
+}
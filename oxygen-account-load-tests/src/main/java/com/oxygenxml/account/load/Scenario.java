@@ -0,0 +1,270 @@
+package com.oxygenxml.account.load;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * A load test: how long it runs, the users in the database before it starts, the arrival rate and the concurrency of each operation,
+ * and the properties of the application.
+ * <p>
+ * A scenario is a properties file, either one of the {@code scenarios} of the classpath, by name, or a file. It overrides
+ * {@code scenarios/defaults.properties}, and is overridden by the {@code key=value} arguments of the command line.
+ * The properties that start with {@code app.} are passed to the application, without the prefix.
+ */
+final class Scenario {
+
+	/**
+	 * The prefix of the properties passed to the application.
+	 */
+	private static final String APPLICATION_PREFIX = "app.";
+
+	/**
+	 * The name of the scenario.
+	 */
+	private final String name;
+
+	/**
+	 * The properties of the scenario.
+	 */
+	private final Properties properties;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The name of the scenario.
+	 * @param properties The properties of the scenario.
+	 */
+	private Scenario(String name, Properties properties) {
+		this.name = name;
+		this.properties = properties;
+	}
+
+	/**
+	 * Loads a scenario.
+	 *
+	 * @param nameOrFile The name of a scenario of the classpath, or the path of a scenario file.
+	 * @param overrides Properties that override those of the scenario, as {@code key=value}.
+	 * @return The scenario.
+	 * @throws IOException if the scenario cannot be read.
+	 * @throws IllegalArgumentException if an override is not a {@code key=value} pair.
+	 */
+	static Scenario load(String nameOrFile, String... overrides) throws IOException {
+		Properties properties = new Properties();
+		load(properties, "defaults");
+
+		Path file = Path.of(nameOrFile);
+		String name;
+		if (Files.isRegularFile(file)) {
+			try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			}
+			name = file.getFileName().toString().replaceFirst("\\.properties$", "");
+		} else {
+			load(properties, nameOrFile);
+			name = nameOrFile;
+		}
+
+		for (String override : overrides) {
+			int separator = override.indexOf('=');
+			if (separator <= 0) {
+				throw new IllegalArgumentException("Expected key=value, got " + override);
+			}
+			properties.setProperty(override.substring(0, separator), override.substring(separator + 1));
+		}
+		return new Scenario(name, properties);
+	}
+
+	/**
+	 * Loads a scenario of the classpath.
+	 */
+	private static void load(Properties properties, String name) throws IOException {
+		String resource = "scenarios/" + name + ".properties";
+		try (InputStream in = Scenario.class.getClassLoader().getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new FileNotFoundException("No scenario file or " + resource + " in the classpath");
+			}
+			properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * @return The name of the scenario.
+	 */
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The seconds during which the requests are sent but not recorded.
+	 */
+	int getWarmupSeconds() {
+		return getInt("warmupSeconds");
+	}
+
+	/**
+	 * @return The seconds during which the requests are recorded, after the warmup.
+	 */
+	int getDurationSeconds() {
+		return getInt("durationSeconds");
+	}
+
+	/**
+	 * @return The number of active users inserted before the test, who log in and poll their profile.
+	 */
+	int getActiveUsers() {
+		return getInt("seed.activeUsers");
+	}
+
+	/**
+	 * @return The number of users inserted before the test whose recovery period has ended, deleted by the purge.
+	 */
+	int getDeletedUsers() {
+		return getInt("seed.deletedUsers");
+	}
+
+	/**
+	 * @return The number of users inserted before the test whose confirmation period has ended, deleted by the purge.
+	 */
+	int getUnconfirmedUsers() {
+		return getInt("seed.unconfirmedUsers");
+	}
+
+	/**
+	 * @return The password of the inserted users.
+	 */
+	String getPassword() {
+		return properties.getProperty("seed.password");
+	}
+
+	/**
+	 * @return The number of sessions logged in before the test, whose profile is polled.
+	 */
+	int getSessions() {
+		return getInt("me.sessions");
+	}
+
+	/**
+	 * @param endpoint The operation.
+	 * @return The requests of the operation per second, 0 if the operation is not driven.
+	 */
+	double getRate(Endpoint endpoint) {
+		return Double.parseDouble(properties.getProperty(endpoint.getId() + ".rate", "0"));
+	}
+
+	/**
+	 * @param endpoint The operation.
+	 * @return The seconds after the start of the test when the first request of the operation is due.
+	 */
+	double getDelaySeconds(Endpoint endpoint) {
+		return Double.parseDouble(properties.getProperty(endpoint.getId() + ".delaySeconds", "0"));
+	}
+
+	/**
+	 * @param endpoint The operation.
+	 * @return The number of requests of the operation sent at the same time, at most.
+	 */
+	int getConcurrency(Endpoint endpoint) {
+		return Integer.parseInt(properties.getProperty(endpoint.getId() + ".concurrency", "1"));
+	}
+
+	/**
+	 * @return The operation whose concurrency is stepped up, or null if the operations are sent at their arrival rates.
+	 */
+	Endpoint getStepUpEndpoint() {
+		String id = properties.getProperty("stepUp.endpoint", "");
+		if (id.isEmpty()) {
+			return null;
+		}
+		for (Endpoint endpoint : Endpoint.values()) {
+			if (endpoint.getId().equals(id)) {
+				return endpoint;
+			}
+		}
+		throw new IllegalArgumentException("Unknown operation " + id);
+	}
+
+	/**
+	 * @return The number of clients of the first step.
+	 */
+	int getStepUpStartConcurrency() {
+		return getInt("stepUp.startConcurrency");
+	}
+
+	/**
+	 * @return The number of clients after which the steps end even if the latency limit was not reached.
+	 */
+	int getStepUpMaxConcurrency() {
+		return getInt("stepUp.maxConcurrency");
+	}
+
+	/**
+	 * @return The factor by which the number of clients grows from a step to the next.
+	 */
+	int getStepUpFactor() {
+		return getInt("stepUp.factor");
+	}
+
+	/**
+	 * @return The seconds of each step during which the requests are sent but not recorded.
+	 */
+	int getStepUpWarmupSeconds() {
+		return getInt("stepUp.warmupSeconds");
+	}
+
+	/**
+	 * @return The seconds of each step during which the requests are recorded.
+	 */
+	int getStepUpDurationSeconds() {
+		return getInt("stepUp.durationSeconds");
+	}
+
+	/**
+	 * @return The 99th percentile of the latencies, in milliseconds, above which the steps end.
+	 */
+	double getStepUpP99LimitMillis() {
+		return Double.parseDouble(properties.getProperty("stepUp.p99LimitMillis"));
+	}
+
+	/**
+	 * @return The highest percentage of failed requests of an operation for which the test passes.
+	 */
+	double getMaxErrorPercent() {
+		return Double.parseDouble(properties.getProperty("maxErrorPercent"));
+	}
+
+	/**
+	 * @return The folder that receives the latency distributions.
+	 */
+	Path getOutputDirectory() {
+		return Path.of(properties.getProperty("outputDirectory"), name);
+	}
+
+	/**
+	 * @return The properties passed to the application, without their prefix.
+	 */
+	Map<String, String> getApplicationProperties() {
+		Map<String, String> application = new TreeMap<>();
+		for (String key : properties.stringPropertyNames()) {
+			if (key.startsWith(APPLICATION_PREFIX)) {
+				application.put(key.substring(APPLICATION_PREFIX.length()), properties.getProperty(key));
+			}
+		}
+		return application;
+	}
+
+	/**
+	 * Returns a property that must be an integer.
+	 */
+	private int getInt(String key) {
+		return Integer.parseInt(properties.getProperty(key));
+	}
+}
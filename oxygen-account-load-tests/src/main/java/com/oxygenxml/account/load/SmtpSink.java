@@ -0,0 +1,114 @@
+package com.oxygenxml.account.load;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * A local SMTP server that receives the emails of the application and collects the tokens of their confirmation links,
+ * so that the load tests can click them as the users do.
+ */
+final class SmtpSink implements AutoCloseable {
+
+	/**
+	 * Finds the token of the confirmation link in the body of an email.
+	 */
+	private static final Pattern CONFIRMATION_TOKEN = Pattern.compile("/api/users/confirm\\?token=([^\"&\\s]+)");
+
+	/**
+	 * How often the received emails are read, in milliseconds.
+	 */
+	private static final long POLL_MILLIS = 200;
+
+	/**
+	 * The SMTP server, on a free port.
+	 */
+	private final GreenMail greenMail = new GreenMail(new ServerSetup(0, "localhost", ServerSetup.PROTOCOL_SMTP).dynamicPort());
+
+	/**
+	 * The tokens of the confirmation links not clicked yet.
+	 */
+	private final Queue<String> confirmationTokens = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Reads the received emails.
+	 */
+	private final ScheduledExecutorService reader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "smtp-sink-reader");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * The number of emails already read.
+	 */
+	private int read;
+
+	/**
+	 * Starts the server and the reading of the emails.
+	 */
+	void start() {
+		greenMail.start();
+		reader.scheduleWithFixedDelay(this::readNewEmails, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return The port of the SMTP server.
+	 */
+	int getPort() {
+		return greenMail.getSmtp().getPort();
+	}
+
+	/**
+	 * @return The number of emails received.
+	 */
+	int getReceived() {
+		return read;
+	}
+
+	/**
+	 * Takes the token of a confirmation link not clicked yet.
+	 *
+	 * @return The token, or null if every received link was clicked.
+	 */
+	String takeConfirmationToken() {
+		return confirmationTokens.poll();
+	}
+
+	/**
+	 * Collects the confirmation tokens of the emails received since the previous read.
+	 */
+	private void readNewEmails() {
+		MimeMessage[] messages = greenMail.getReceivedMessages();
+		for (; read < messages.length; read++) {
+			try {
+				Matcher link = CONFIRMATION_TOKEN.matcher(String.valueOf(messages[read].getContent()));
+				if (link.find()) {
+					confirmationTokens.add(link.group(1));
+				}
+			} catch (MessagingException | IOException e) {
+				System.err.println("Could not read a received email: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Stops the reading of the emails and the server.
+	 */
+	@Override
+	public void close() {
+		reader.shutdownNow();
+		greenMail.stop();
+	}
+}
@@ -0,0 +1,98 @@
+package com.oxygenxml.account.load;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.oxygenxml.account.model.UserStatus;
+
+/**
+ * Inserts the users that exist before a load test starts, directly in the database.
+ */
+final class UserSeeder {
+
+	/**
+	 * The number of users inserted by one JDBC batch.
+	 */
+	private static final int BATCH_SIZE = 1000;
+
+	/**
+	 * How long ago the users to purge were deleted or registered, longer than any recovery or confirmation period.
+	 */
+	private static final long EXPIRED_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+	/**
+	 * Inserts the users.
+	 */
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * The password hash of the inserted users.
+	 */
+	private final String passwordHash;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param jdbcTemplate Inserts the users.
+	 * @param passwordHash The password hash of the inserted users, computed by the password encoder of the application.
+	 */
+	UserSeeder(JdbcTemplate jdbcTemplate, String passwordHash) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.passwordHash = passwordHash;
+	}
+
+	/**
+	 * Inserts active users.
+	 *
+	 * @param count The number of users.
+	 * @return The emails of the users.
+	 */
+	List<String> insertActiveUsers(int count) {
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		return insert("active", count, UserStatus.ACTIVE, now, null);
+	}
+
+	/**
+	 * Inserts users whose recovery period has ended.
+	 *
+	 * @param count The number of users.
+	 */
+	void insertExpiredDeletedUsers(int count) {
+		Timestamp expired = new Timestamp(System.currentTimeMillis() - EXPIRED_MILLIS);
+		insert("deleted", count, UserStatus.DELETED, expired, expired);
+	}
+
+	/**
+	 * Inserts users whose confirmation period has ended.
+	 *
+	 * @param count The number of users.
+	 */
+	void insertExpiredUnconfirmedUsers(int count) {
+		Timestamp expired = new Timestamp(System.currentTimeMillis() - EXPIRED_MILLIS);
+		insert("unconfirmed", count, UserStatus.NEW, expired, null);
+	}
+
+	/**
+	 * Inserts users in batches.
+	 *
+	 * @return The emails of the users.
+	 */
+	private List<String> insert(String kind, int count, UserStatus status, Timestamp registrationDate, Timestamp deletionDate) {
+		List<String> emails = new ArrayList<>(count);
+		List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+		for (int i = 0; i < count; i++) {
+			String email = kind + "-" + i + "@load.example.com";
+			emails.add(email);
+			batch.add(new Object[] {"Load " + kind + " " + i, email, passwordHash, registrationDate, status.getCode(), deletionDate});
+			if (batch.size() == BATCH_SIZE || i == count - 1) {
+				jdbcTemplate.batchUpdate("INSERT INTO users (name, email, password, registration_date, status, deletion_date) VALUES (?, ?, ?, ?, ?, ?)", batch);
+				batch.clear();
+			}
+		}
+		return emails;
+	}
+}
@@ -1,8 +1,17 @@
 package com.oxygenxml.account.config;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import com.oxygenxml.account.type.PasswordHashAlgorithm;
+import com.oxygenxml.account.type.TokenFormat;
+
 import lombok.Getter;
 import lombok.Setter;
 
@@ -24,9 +33,278 @@ public class OxygenAccountPorpertiesConfig {
 	  * The secret key for JWT Token
 	  */
 	 private String secretKey;
+	 
+	 /**
+	  * The id of the secret key, written in the "kid" header of the generated tokens.
+	  * The tokens generated before the keys had ids are verified with the key whose id is "default".
+	  */
+	 private String secretKeyId = "default";
+	 
+	 /**
+	  * The previous secret keys, by id, which are no longer used to sign tokens but are still accepted when tokens are parsed,
+	  * so that rotating the secret key does not invalidate the outstanding confirmation links.
+	  */
+	 private Map<String, String> previousSecretKeys = new HashMap<>();
+	 
+	 /**
+	  * The format of the confirmation tokens sent in the registration emails. The tokens of every format are accepted,
+	  * so the format should be changed only after all the instances accept the new one.
+	  */
+	 private TokenFormat confirmationTokenFormat = TokenFormat.JWT;
 
 	 /**
 	  * The number of days until a new user is permanently deleted from the system.
 	  */
 	 private int daysForEmailConfirmation;
+	 
+	 /**
+	  * The public base URL of the application, used in the links of the emails, for example "https://account.example.com".
+	  * When empty, the base URL is derived from the request that caused the email.
+	  */
+	 private String publicBaseUrl;
+	 
+	 /**
+	  * The maximum number of users permanently deleted by one statement of the purge task.
+	  */
+	 private int purgeBatchSize = 1000;
+	 
+	 /**
+	  * The pause, in milliseconds, between two consecutive delete statements of the purge task.
+	  * It lets other transactions acquire the row locks released by the previous chunk.
+	  */
+	 private long purgePauseMillis = 100;
+	 
+	 /**
+	  * The emails of the users that are granted the ADMIN role, which is required by the /api/admin endpoints.
+	  */
+	 private List<String> adminEmails = new ArrayList<>();
+	 
+	 /**
+	  * The user name of the account that scrapes /actuator/prometheus with HTTP basic authentication.
+	  */
+	 private String metricsScrapeUsername = "prometheus";
+	 
+	 /**
+	  * The password of the scrape account, in the "{id}encoded" format of the delegating password encoder, such as "{bcrypt}$2a$10$..."
+	  * or "{noop}secret". When missing, the scrape account is disabled and only a logged-in administrator can read the metrics.
+	  */
+	 private String metricsScrapePassword;
+	 
+	 /**
+	  * The number of rows of a bulk import that are validated, hashed and inserted together.
+	  */
+	 private int importBatchSize = 500;
+	 
+	 /**
+	  * The number of threads that hash the passwords of a bulk import, apart from the login hashing threads.
+	  * Zero means one thread for every two available processors.
+	  */
+	 private int importHashingThreads = 0;
+	 
+	 /**
+	  * The number of threads that hash and verify the passwords of the logins, registrations and password changes.
+	  * Zero means one thread per available processor.
+	  */
+	 private int passwordHashingThreads = 0;
+	 
+	 /**
+	  * The number of password hashes that may wait for a hashing thread. When the queue is full the request fails immediately
+	  * with "503 Service Unavailable".
+	  */
+	 private int passwordHashingQueueCapacity = 64;
+	 
+	 /**
+	  * The number of seconds after which a client rejected because the server was busy may try again, sent in the Retry-After header.
+	  */
+	 private int passwordHashingRetryAfterSeconds = 1;
+	 
+	 /**
+	  * The algorithm of the new password hashes. The hashes of the other algorithms are still verified, and are replaced
+	  * with a hash of this algorithm at the next successful login.
+	  */
+	 private PasswordHashAlgorithm passwordHashAlgorithm = PasswordHashAlgorithm.BCRYPT;
+	 
+	 /**
+	  * The cost of the new password hashes: the log2 of the rounds for bcrypt, the iterations for argon2. When the calibration is enabled,
+	  * it is the lowest cost that the calibration may choose.
+	  */
+	 private int passwordHashCost = 10;
+	 
+	 /**
+	  * The memory, in KiB, used by an argon2 hash.
+	  */
+	 private int passwordHashMemoryKib = 19 * 1024;
+	 
+	 /**
+	  * The time, in milliseconds, that the verification of a password should take on this hardware. When it is positive, the highest cost
+	  * whose verification does not exceed it is measured at startup and used instead of the configured cost. Zero disables the calibration.
+	  */
+	 private int passwordHashTargetMillis = 0;
+	 
+	 /**
+	  * Whether the login attempts of each email and of each client address are limited.
+	  */
+	 private boolean loginThrottleEnabled = true;
+	 
+	 /**
+	  * The number of token buckets of the emails, and of the client addresses. The keys whose hashes fall in the same stripe share a bucket.
+	  */
+	 private int loginThrottleStripes = 65536;
+	 
+	 /**
+	  * The number of login attempts that an email may make at once.
+	  */
+	 private int loginThrottleEmailBurst = 10;
+	 
+	 /**
+	  * The number of login attempts per minute that an email gets back after its burst.
+	  */
+	 private int loginThrottleEmailPerMinute = 6;
+	 
+	 /**
+	  * The number of login attempts that a client address may make at once.
+	  */
+	 private int loginThrottleIpBurst = 100;
+	 
+	 /**
+	  * The number of login attempts per minute that a client address gets back after its burst.
+	  */
+	 private int loginThrottleIpPerMinute = 60;
+	 
+	 /**
+	  * Whether the requests, the asynchronous tasks and the scheduled tasks run on virtual threads. It requires Java 21.
+	  */
+	 private boolean virtualThreadsEnabled = false;
+	 
+	 /**
+	  * The read replicas that serve the read-only transactions. When none is configured all the queries go to the primary data source.
+	  */
+	 private List<Replica> replicas = new ArrayList<>();
+	 
+	 /**
+	  * How long, in milliseconds, the reads of a session are sent to the primary after the session changed data, so that the session
+	  * reads its own writes even if the replicas lag behind.
+	  */
+	 private long replicaReadAfterWriteMillis = 5000;
+	 
+	 /**
+	  * The maximum number of login details kept in memory.
+	  */
+	 private long userCacheMaxSize = 10_000;
+	 
+	 /**
+	  * How long, in seconds, the login details of a user are kept in memory after they were loaded. The other instances evict
+	  * nothing when an account changes, so this is also how long they may still accept its old password.
+	  */
+	 private long userCacheTtlSeconds = 5;
+	 
+	 /**
+	  * Whether the emails of the users are kept in an in-memory filter, so that the lookups of unregistered emails skip the database.
+	  */
+	 private boolean emailFilterEnabled = true;
+	 
+	 /**
+	  * The number of users for which the email filter is sized.
+	  */
+	 private long emailFilterExpectedUsers = 1_000_000;
+	 
+	 /**
+	  * The rate of unregistered emails that the email filter sends to the database when it holds the expected number of users.
+	  */
+	 private double emailFilterFalsePositiveRate = 0.01;
+	 
+	 /**
+	  * The interval, in milliseconds, at which the email filter reads the users registered by the other instances.
+	  */
+	 private long emailFilterRefreshMillis = 30_000;
+	 
+	 /**
+	  * The minimum interval, in milliseconds, between two refreshes of the email filter made because an email was missing from it.
+	  * It bounds how long a user registered by another instance may be rejected, and how often the misses query the database.
+	  */
+	 private long emailFilterMissRefreshMillis = 1000;
+	 
+	 /**
+	  * The locales of the email templates, resolved at startup. The first one is used for the emails in the other locales.
+	  */
+	 private List<Locale> emailTemplateLocales = new ArrayList<>(List.of(Locale.ENGLISH));
+	 
+	 /**
+	  * Whether the email templates are resolved again on every email, so that their changes are visible without a restart. For development only.
+	  */
+	 private boolean emailTemplateHotReload = false;
+	 
+	 /**
+	  * The maximum number of emails of the outbox claimed and sent together by the dispatcher.
+	  */
+	 private int emailOutboxBatchSize = 50;
+	 
+	 /**
+	  * The interval, in milliseconds, at which the dispatcher looks for due emails in the outbox.
+	  */
+	 private long emailOutboxPollMillis = 1000;
+	 
+	 /**
+	  * How long, in milliseconds, the emails claimed by a dispatcher are reserved for it. After that they are claimed again,
+	  * so the emails of an instance that stopped while sending them are still sent.
+	  */
+	 private long emailOutboxLeaseMillis = 60_000;
+	 
+	 /**
+	  * The number of attempts to send an email of the outbox before it is marked as failed.
+	  */
+	 private int emailOutboxMaxAttempts = 10;
+	 
+	 /**
+	  * The delay, in milliseconds, before the first retry of an email of the outbox. The delay doubles with every failed attempt.
+	  */
+	 private long emailOutboxRetryBaseMillis = 5_000;
+	 
+	 /**
+	  * The maximum delay, in milliseconds, between two attempts to send an email of the outbox.
+	  */
+	 private long emailOutboxRetryMaxMillis = 3_600_000;
+	 
+	 /**
+	  * The maximum number of SMTP connections kept open.
+	  */
+	 private int emailTransportPoolSize = 2;
+	 
+	 /**
+	  * The number of messages sent over an SMTP connection before it is closed and opened again.
+	  */
+	 private int emailTransportMaxMessages = 100;
+	 
+	 /**
+	  * How long, in milliseconds, an SMTP connection is kept open without being used.
+	  */
+	 private long emailTransportIdleTimeoutMillis = 30_000;
+	 
+	 /**
+	  * How long, in milliseconds, a send waits for a free SMTP connection.
+	  */
+	 private long emailTransportBorrowTimeoutMillis = 10_000;
+	 
+	 /**
+	  * The connection details of a read replica.
+	  */
+	 @Getter
+	 @Setter
+	 public static class Replica {
+		 
+		 /**
+		  * The JDBC URL of the replica.
+		  */
+		 private String url;
+		 
+		 /**
+		  * The user name used to connect to the replica. When missing, the user name of the primary is used.
+		  */
+		 private String username;
+		 
+		 /**
+		  * The password used to connect to the replica. When missing, the password of the primary is used.
+		  */
+		 private String password;
+	 }
 }
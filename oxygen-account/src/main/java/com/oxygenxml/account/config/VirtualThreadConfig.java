@@ -0,0 +1,67 @@
+package com.oxygenxml.account.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.TaskSchedulerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import com.oxygenxml.account.utility.VirtualThreads;
+
+/**
+ * Runs the requests, the asynchronous tasks and the scheduled tasks on virtual threads, when
+ * "oxygen.account.virtualThreadsEnabled" is true. It requires Java 21; on an older runtime the startup fails.
+ * <p>
+ * With virtual threads the number of concurrent requests is no longer bounded by the Tomcat thread pool, but by the resources
+ * they wait for, which keep their own bounds: the JDBC connections of the Hikari pool, the password hashing executor and the SMTP connection pool.
+ * A virtual thread blocked inside a {@code synchronized} block or method stays pinned to its carrier thread, so the pinning code paths are:
+ * <ul>
+ * <li>MySQL Connector/J 8.0 synchronizes around its socket I/O, so each running JDBC statement pins a carrier. The statements are
+ * bounded by the size of the Hikari pool, which should not exceed the number of carriers (one per processor by default,
+ * see {@code -Djdk.virtualThreadScheduler.parallelism}). Hikari itself hands out the connections without synchronized blocks.</li>
+ * <li>Jakarta Mail synchronizes the sending of a message on its transport. The emails are sent by the outbox dispatcher over the
+ * SMTP connection pool, so at most one carrier per pooled connection is pinned.</li>
+ * <li>The password hashes run on the platform threads of the hashing executor; the request threads only wait for them.</li>
+ * </ul>
+ * Diagnose the pinning with {@code -Djdk.tracePinnedThreads=short}. The application events are still delivered synchronously,
+ * since the registration email is written to the outbox in the transaction of the registration.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "oxygen.account", name = "virtualThreadsEnabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	/**
+	 * Runs each request of Tomcat on a new virtual thread.
+	 *
+	 * @return the customizer of the Tomcat protocol handler
+	 */
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("http-virtual-");
+		return protocolHandler -> protocolHandler.setExecutor(executor);
+	}
+
+	/**
+	 * Runs the asynchronous tasks, such as the asynchronous MVC requests and the {@code @Async} methods, on virtual threads.
+	 *
+	 * @return the executor of the asynchronous tasks
+	 */
+	@Bean(name = "applicationTaskExecutor")
+	public AsyncTaskExecutor applicationTaskExecutor() {
+		return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("task-virtual-"));
+	}
+
+	/**
+	 * Runs the scheduled tasks, such as the purge of the deleted users and the outbox dispatcher, on virtual threads.
+	 *
+	 * @return the customizer of the task scheduler
+	 */
+	@Bean
+	public TaskSchedulerCustomizer virtualThreadTaskSchedulerCustomizer() {
+		return scheduler -> scheduler.setThreadFactory(VirtualThreads.factory("scheduling-virtual-"));
+	}
+}
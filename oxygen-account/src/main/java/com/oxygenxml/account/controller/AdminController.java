@@ -0,0 +1,142 @@
+package com.oxygenxml.account.controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oxygenxml.account.dto.UserImportResultDto;
+import com.oxygenxml.account.exception.InternalErrorCode;
+import com.oxygenxml.account.exception.OxygenAccountException;
+import com.oxygenxml.account.messages.Message;
+import com.oxygenxml.account.model.UserStatus;
+import com.oxygenxml.account.service.UserExportService;
+import com.oxygenxml.account.service.UserImportService;
+import com.oxygenxml.account.type.ImportFormat;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * The AdminController class is a REST controller that manages the HTTP requests reserved to the administrators.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+	/**
+	 * The media type of the CSV content accepted by the import.
+	 */
+	private static final String TEXT_CSV_VALUE = "text/csv";
+
+	/**
+	 * UserImportService used to import users in bulk.
+	 */
+	@Autowired
+	private UserImportService userImportService;
+
+	/**
+	 * UserExportService used to export users in bulk.
+	 */
+	@Autowired
+	private UserExportService userExportService;
+
+	/**
+	 * Serializes the results of the imported rows.
+	 */
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Handles the POST request to import users in bulk.
+	 * The body is read as it arrives, either as one JSON object per line or as CSV with a header line, and the result of every row
+	 * is written back as one JSON object per line, after each processed chunk.
+	 *
+	 * @param request The request whose body holds the users to import.
+	 * @param response The response that receives the results of the rows.
+	 * @throws IOException If the body could not be read or the results could not be written.
+	 */
+	@PostMapping(path = "/users/import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE })
+	public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		MediaType contentType = MediaType.parseMediaType(request.getContentType());
+		ImportFormat format = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE)) ? ImportFormat.CSV : ImportFormat.NDJSON;
+		Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		Writer writer = response.getWriter();
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), charset));
+		userImportService.importUsers(reader, format, results -> {
+			for (UserImportResultDto result : results) {
+				writer.write(objectMapper.writeValueAsString(result));
+				writer.write('\n');
+			}
+			writer.flush();
+		});
+	}
+
+	/**
+	 * Handles the GET request to export users in bulk, as one JSON object per line.
+	 * The users are written while they are read from the database, and the response is compressed with gzip when the client accepts it.
+	 *
+	 * @param status The status of the exported users, or null to export users with any status.
+	 * @param from The earliest registration date of the exported users, inclusive, as an ISO instant.
+	 * @param to The latest registration date of the exported users, exclusive, as an ISO instant.
+	 * @param acceptEncoding The encodings accepted by the client.
+	 * @return The response that streams the exported users.
+	 */
+	@GetMapping(path = "/users/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportUsers(
+			@RequestParam(required = false) String status,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		UserStatus userStatus = null;
+		if (status != null) {
+			userStatus = UserStatus.fromStatus(status);
+			if (userStatus == null) {
+				throw new OxygenAccountException(Message.INVALID_STATUS, HttpStatus.BAD_REQUEST, InternalErrorCode.INVALID_STATUS);
+			}
+		}
+		UserStatus exportedStatus = userStatus;
+		Timestamp fromDate = from == null ? null : Timestamp.from(from);
+		Timestamp toDate = to == null ? null : Timestamp.from(to);
+		boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+		if (gzip) {
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return response.body(output -> {
+			if (gzip) {
+				GZIPOutputStream gzipOutput = new GZIPOutputStream(output);
+				userExportService.exportUsers(exportedStatus, fromDate, toDate, gzipOutput);
+				gzipOutput.finish();
+			} else {
+				userExportService.exportUsers(exportedStatus, fromDate, toDate, output);
+			}
+		});
+	}
+}
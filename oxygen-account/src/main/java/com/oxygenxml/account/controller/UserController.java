@@ -19,6 +19,7 @@ import com.oxygenxml.account.exception.OxygenAccountException;
 import com.oxygenxml.account.exception.UserNotAuthenticatedException;
 import com.oxygenxml.account.messages.Message;
 import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.model.UserProfileView;
 import com.oxygenxml.account.model.UserStatus;
 import com.oxygenxml.account.service.UserService;
 import com.oxygenxml.account.service.ValidationService;
@@ -73,8 +74,8 @@ public class UserController {
 	@GetMapping("/me")
 	public UserDto getCurrentUser() {
 		try {
-			User currentUser = userService.getCurrentUser();
-			return userConverter.entityToDto(currentUser);
+			UserProfileView currentUser = userService.getCurrentUserProfile();
+			return userConverter.profileToDto(currentUser);
 
 		} catch (UserNotAuthenticatedException e) {
 			return new UserDto("Anonymous User", "anonymousUser", null, UserStatus.ACTIVE.getStatus(), null);
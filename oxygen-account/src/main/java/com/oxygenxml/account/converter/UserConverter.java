@@ -3,7 +3,10 @@ package com.oxygenxml.account.converter;
 import org.springframework.stereotype.Component;
 
 import com.oxygenxml.account.dto.UserDto;
+import com.oxygenxml.account.dto.UserExportDto;
 import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.model.UserExportView;
+import com.oxygenxml.account.model.UserProfileView;
 
 /**
  * A utility class that provides methods for converting between {@link UserDto} and {@link User}
@@ -25,12 +28,52 @@ public class UserConverter {
 		
 		userDto.setName(user.getName());
 		userDto.setEmail(user.getEmail());
-		userDto.setStatus(user.getStatus());
+		userDto.setStatus(user.getStatus().getStatus());
 	    userDto.setDeletionDate(user.getDeletionDate());
 		
 		return userDto;
 	}
 	
+	/**
+	 * Converts a {@link UserProfileView} object to a {@link UserDto} object.
+	 * 
+	 * @param profile the profile details to be converted.
+	 * @return the corresponding UserDto object with the name, email, status and deletion date
+	 */
+	
+	public UserDto profileToDto(UserProfileView profile) {
+		
+		UserDto userDto = new UserDto();
+		
+		userDto.setName(profile.name());
+		userDto.setEmail(profile.email());
+		userDto.setStatus(profile.status().getStatus());
+		userDto.setDeletionDate(profile.deletionDate());
+		
+		return userDto;
+	}
+	
+	/**
+	 * Converts a {@link UserExportView} object to a {@link UserExportDto} object.
+	 * 
+	 * @param user the exported user details to be converted.
+	 * @return the corresponding UserExportDto object
+	 */
+	
+	public UserExportDto exportToDto(UserExportView user) {
+		
+		UserExportDto userDto = new UserExportDto();
+		
+		userDto.setId(user.id());
+		userDto.setName(user.name());
+		userDto.setEmail(user.email());
+		userDto.setStatus(user.status().getStatus());
+		userDto.setRegistrationDate(user.registrationDate());
+		userDto.setDeletionDate(user.deletionDate());
+		
+		return userDto;
+	}
+	
 	/**
 	 * Converts a {@link UserDto} object to a {@link User} object.
 	 * 
@@ -0,0 +1,230 @@
+package com.oxygenxml.account.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * A data source that records, for each endpoint, how long it takes to obtain a connection and how long the connection is held
+ * before it is returned. Both are published as histograms, so the pool occupancy of every endpoint can be followed.
+ * <p>
+ * The endpoint is the request mapping pattern of the current request. The form login and the logout, handled by the security filters
+ * before any mapping, are recorded under their path; the other requests that use the database without a mapping are recorded under
+ * {@value #UNMAPPED}, so that arbitrary paths cannot create new timers. Work done outside of a request is recorded under {@value #BACKGROUND}.
+ */
+public class MeteredDataSource extends DelegatingDataSource implements Closeable {
+
+	/**
+	 * The name of the timer that records how long it takes to obtain a connection.
+	 */
+	public static final String ACQUIRE_TIMER = "oxygen.db.connection.acquire";
+
+	/**
+	 * The name of the timer that records how long a connection is held.
+	 */
+	public static final String HOLD_TIMER = "oxygen.db.connection.hold";
+
+	/**
+	 * The name of the tag that holds the endpoint.
+	 */
+	public static final String ENDPOINT_TAG = "endpoint";
+
+	/**
+	 * The endpoint of the connections used outside of a request.
+	 */
+	static final String BACKGROUND = "background";
+
+	/**
+	 * The endpoint of the connections used by requests that have no request mapping.
+	 */
+	static final String UNMAPPED = "UNMAPPED";
+
+	/**
+	 * The paths served by the security filters, which are recorded under their own endpoint.
+	 */
+	private static final Set<String> FILTER_ENDPOINTS = Set.of("/login", "/logout");
+
+	/**
+	 * Provides the registry that receives the timers. It is resolved on first use, because data sources are created before the metrics.
+	 */
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	/**
+	 * Creates the metered data source.
+	 * 
+	 * @param targetDataSource The data source that provides the connections.
+	 * @param meterRegistry Provides the registry that receives the timers.
+	 */
+	public MeteredDataSource(DataSource targetDataSource, ObjectProvider<MeterRegistry> meterRegistry) {
+		super(targetDataSource);
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Obtains a connection from the target data source and records the time it took.
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		long start = System.nanoTime();
+		return metered(obtainTargetDataSource().getConnection(), start);
+	}
+
+	/**
+	 * Obtains a connection from the target data source and records the time it took.
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		long start = System.nanoTime();
+		return metered(obtainTargetDataSource().getConnection(username, password), start);
+	}
+
+	/**
+	 * Records the acquire time and wraps the connection so that its hold time is recorded when it is closed.
+	 * 
+	 * @param connection The obtained connection.
+	 * @param start The moment the connection was requested, in nanoseconds.
+	 * @return The wrapped connection.
+	 */
+	private Connection metered(Connection connection, long start) {
+		long acquired = System.nanoTime();
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+		if (registry == null) {
+			return connection;
+		}
+
+		String endpoint = currentEndpoint();
+		timer(registry, ACQUIRE_TIMER, "Time needed to obtain a database connection", endpoint).record(acquired - start, TimeUnit.NANOSECONDS);
+		Timer holdTimer = timer(registry, HOLD_TIMER, "Time a database connection is held before it is returned", endpoint);
+
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[] { ConnectionProxy.class },
+				new HoldTimeHandler(connection, holdTimer, acquired));
+	}
+
+	/**
+	 * Returns the timer with the given name for the given endpoint.
+	 */
+	private static Timer timer(MeterRegistry registry, String name, String description, String endpoint) {
+		return Timer.builder(name)
+				.description(description)
+				.tag(ENDPOINT_TAG, endpoint)
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	/**
+	 * Returns the endpoint that uses the connection.
+	 * 
+	 * @return The endpoint of the current request, or {@value #BACKGROUND} outside of a request.
+	 */
+	private static String currentEndpoint() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		return attributes instanceof ServletRequestAttributes servletAttributes ? endpointOf(servletAttributes.getRequest()) : BACKGROUND;
+	}
+
+	/**
+	 * Returns the endpoint of a request.
+	 * 
+	 * @param request The request.
+	 * @return The request mapping pattern of the request, the path of a request served by the security filters, or {@value #UNMAPPED}.
+	 */
+	static String endpointOf(HttpServletRequest request) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		if (pattern != null) {
+			return pattern.toString();
+		}
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		return FILTER_ENDPOINTS.contains(path) ? path : UNMAPPED;
+	}
+
+	/**
+	 * Closes the target data source, if it holds a connection pool.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (getTargetDataSource() instanceof Closeable closeable) {
+			closeable.close();
+		}
+	}
+
+	/**
+	 * Delegates the calls to the target connection and records the hold time when the connection is closed.
+	 */
+	private static final class HoldTimeHandler implements InvocationHandler {
+
+		/**
+		 * The connection obtained from the target data source.
+		 */
+		private final Connection target;
+
+		/**
+		 * The timer that records the hold time.
+		 */
+		private final Timer holdTimer;
+
+		/**
+		 * The moment the connection was obtained, in nanoseconds.
+		 */
+		private final long acquired;
+
+		/**
+		 * Whether the hold time was already recorded.
+		 */
+		private boolean closed;
+
+		/**
+		 * Creates the handler.
+		 */
+		private HoldTimeHandler(Connection target, Timer holdTimer, long acquired) {
+			this.target = target;
+			this.holdTimer = holdTimer;
+			this.acquired = acquired;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "getTargetConnection":
+				return target;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "close":
+				if (!closed) {
+					closed = true;
+					holdTimer.record(System.nanoTime() - acquired, TimeUnit.NANOSECONDS);
+				}
+				break;
+			default:
+				break;
+			}
+
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.oxygenxml.account.datasource;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Wraps the data sources of the application in a {@link MeteredDataSource}, so that the connection acquire and hold times are recorded per endpoint.
+ */
+@Configuration
+public class MeteredDataSourceConfig {
+
+	/**
+	 * Creates the post processor that wraps the data sources. The lazy proxy used with the read replicas is not wrapped,
+	 * because it hands out connections before they are obtained; the routing data source behind it is wrapped instead.
+	 * 
+	 * @param meterRegistry Provides the registry that receives the timers.
+	 * @return The post processor.
+	 */
+	@Bean
+	public static BeanPostProcessor meteredDataSourcePostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof LazyConnectionDataSourceProxy) && !(bean instanceof MeteredDataSource)) {
+					return new MeteredDataSource(dataSource, meterRegistry);
+				}
+				return bean;
+			}
+		};
+	}
+}
@@ -0,0 +1,94 @@
+package com.oxygenxml.account.datasource;
+
+import java.util.function.Supplier;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Keeps the reads that follow a change on the primary data source, so that a client reads its own writes even if the replicas lag behind.
+ * <p>
+ * A read-write transaction pins the rest of the current request and, for a configured time, the next requests of the same session,
+ * if the client has one, to the primary. Code that must read fresh data outside of these cases can run it with {@link #onPrimary(Supplier)}.
+ */
+public final class ReadYourWrites {
+
+	/**
+	 * The name of the request and session attribute that pins the reads to the primary.
+	 * In the request it holds {@link Boolean#TRUE}; in the session it holds the moment, in milliseconds, until which the pin lasts.
+	 */
+	private static final String PRIMARY_UNTIL_ATTRIBUTE = ReadYourWrites.class.getName() + ".PRIMARY_UNTIL";
+
+	/**
+	 * The number of nested {@link #onPrimary(Supplier)} calls running on the current thread.
+	 */
+	private static final ThreadLocal<Integer> PRIMARY_SCOPE_DEPTH = new ThreadLocal<>();
+
+	/**
+	 * Private constructor to prevent instantiation of this utility class.
+	 */
+	private ReadYourWrites() {
+	}
+
+	/**
+	 * Runs the given action with all its reads sent to the primary data source.
+	 * 
+	 * @param <T> The type of the result.
+	 * @param action The action to run.
+	 * @return The result of the action.
+	 */
+	public static <T> T onPrimary(Supplier<T> action) {
+		Integer depth = PRIMARY_SCOPE_DEPTH.get();
+		PRIMARY_SCOPE_DEPTH.set(depth == null ? 1 : depth + 1);
+		try {
+			return action.get();
+		} finally {
+			if (depth == null) {
+				PRIMARY_SCOPE_DEPTH.remove();
+			} else {
+				PRIMARY_SCOPE_DEPTH.set(depth);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the reads of the current thread must go to the primary data source.
+	 * 
+	 * @return true if the thread runs inside {@link #onPrimary(Supplier)}, or serves a request that recently changed data.
+	 */
+	static boolean isPinnedToPrimary() {
+		if (PRIMARY_SCOPE_DEPTH.get() != null) {
+			return true;
+		}
+
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return false;
+		}
+		if (attributes.getAttribute(PRIMARY_UNTIL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+			return true;
+		}
+		Object primaryUntil = attributes.getAttribute(PRIMARY_UNTIL_ATTRIBUTE, RequestAttributes.SCOPE_SESSION);
+		return primaryUntil instanceof Long until && until > System.currentTimeMillis();
+	}
+
+	/**
+	 * Records that the current request changed data, pinning its remaining reads and, when the client already has a session,
+	 * the reads of its session to the primary. No session is created, so the anonymous writes such as the registrations do not
+	 * leave sessions behind. Outside of a request nothing is recorded.
+	 * 
+	 * @param windowMillis How long, in milliseconds, the reads of the session stay on the primary.
+	 */
+	static void recordWrite(long windowMillis) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return;
+		}
+
+		attributes.setAttribute(PRIMARY_UNTIL_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+		if (attributes instanceof ServletRequestAttributes servletAttributes && servletAttributes.getRequest().getSession(false) != null) {
+			attributes.setAttribute(PRIMARY_UNTIL_ATTRIBUTE, System.currentTimeMillis() + windowMillis, RequestAttributes.SCOPE_SESSION);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.oxygenxml.account.datasource;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Configures the routing of the read-only transactions to the read replicas.
+ * It is active only when at least one replica is configured with oxygen.account.replicas[N].url; otherwise the
+ * data source auto-configured from spring.datasource is used for everything.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "oxygen.account", name = "replicas[0].url")
+public class ReplicaDataSourceConfig {
+
+	/**
+	 * The prefix of the settings of the connection pools, shared by the primary and the replicas.
+	 */
+	private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+	/**
+	 * Creates the connection pools of the primary and of the replicas and the data source that routes between them.
+	 * The replicas use the driver of the primary and, unless configured otherwise, its credentials. All the pools take their
+	 * settings, such as the pool size, the timeouts and the leak detection, from spring.datasource.hikari, as the auto-configured pool does.
+	 * 
+	 * @param dataSourceProperties The spring.datasource properties that describe the primary.
+	 * @param oxygenProperties The configuration that lists the replicas.
+	 * @param environment The environment that holds the spring.datasource.hikari settings.
+	 * @return The routing data source.
+	 */
+	@Bean(destroyMethod = "close")
+	public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties, OxygenAccountPorpertiesConfig oxygenProperties,
+			Environment environment) {
+		Binder binder = Binder.get(environment);
+		HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		binder.bind(HIKARI_PREFIX, Bindable.ofInstance(primary));
+		primary.setPoolName("primary");
+
+		List<DataSource> replicas = new ArrayList<>();
+		for (OxygenAccountPorpertiesConfig.Replica replica : oxygenProperties.getReplicas()) {
+			HikariDataSource replicaDataSource = DataSourceBuilder.create()
+					.type(HikariDataSource.class)
+					.driverClassName(dataSourceProperties.determineDriverClassName())
+					.url(replica.getUrl())
+					.username(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername())
+					.password(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword())
+					.build();
+			binder.bind(HIKARI_PREFIX, Bindable.ofInstance(replicaDataSource));
+			replicaDataSource.setPoolName(ReplicaRoutingDataSource.REPLICA + replicas.size());
+			replicaDataSource.setReadOnly(true);
+			replicas.add(replicaDataSource);
+		}
+
+		return new ReplicaRoutingDataSource(primary, replicas, oxygenProperties.getReplicaReadAfterWriteMillis());
+	}
+
+	/**
+	 * Publishes the hikaricp metrics of the pools of the primary and of the replicas, tagged with the name of the pool.
+	 * The auto-configured metrics only cover the pools that are beans.
+	 * 
+	 * @param replicaRoutingDataSource The routing data source, possibly wrapped by the connection metrics.
+	 * @return The binder of the pool metrics.
+	 */
+	@Bean
+	public MeterBinder replicaPoolMetrics(@Qualifier("replicaRoutingDataSource") DataSource replicaRoutingDataSource) {
+		return registry -> {
+			List<DataSource> pools;
+			try {
+				pools = replicaRoutingDataSource.unwrap(ReplicaRoutingDataSource.class).getDataSources();
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+			for (DataSource pool : pools) {
+				if (pool instanceof HikariDataSource hikari && hikari.getMetricsTrackerFactory() == null && hikari.getMetricRegistry() == null) {
+					hikari.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+				}
+			}
+		};
+	}
+
+	/**
+	 * The data source used by JPA, JDBC and Flyway. It hands out a connection that is bound to the primary or to a replica only
+	 * when the first statement runs, once the transaction is known to be read-only or not.
+	 * 
+	 * @param replicaRoutingDataSource The routing data source, possibly wrapped by the connection metrics.
+	 * @return The lazy data source.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("replicaRoutingDataSource") DataSource replicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+	}
+}
@@ -0,0 +1,125 @@
+package com.oxygenxml.account.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A data source that sends the read-only transactions to the read replicas, in turn, and everything else to the primary.
+ * <p>
+ * The routing decision is taken when a physical connection is requested, so this data source must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which delays the request until the
+ * transaction has been marked as read-only. After a read-write transaction the reads of the same client stay on the primary
+ * for a while, as described by {@link ReadYourWrites}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	/**
+	 * The lookup key of the primary data source.
+	 */
+	static final String PRIMARY = "primary";
+
+	/**
+	 * The prefix of the lookup keys of the replicas.
+	 */
+	static final String REPLICA = "replica-";
+
+	/**
+	 * The primary data source followed by the replicas.
+	 */
+	private final List<DataSource> dataSources = new ArrayList<>();
+
+	/**
+	 * The lookup keys of the replicas.
+	 */
+	private final List<String> replicaKeys = new ArrayList<>();
+
+	/**
+	 * Counts the read-only transactions, to spread them over the replicas.
+	 */
+	private final AtomicInteger nextReplica = new AtomicInteger();
+
+	/**
+	 * How long, in milliseconds, the reads of a session stay on the primary after the session changed data.
+	 */
+	private final long readAfterWriteMillis;
+
+	/**
+	 * Creates the routing data source.
+	 * 
+	 * @param primary The data source that receives the writes and the reads that must be fresh.
+	 * @param replicas The data sources that receive the read-only transactions.
+	 * @param readAfterWriteMillis How long, in milliseconds, the reads of a session stay on the primary after the session changed data.
+	 */
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long readAfterWriteMillis) {
+		this.readAfterWriteMillis = readAfterWriteMillis;
+
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		dataSources.add(primary);
+		for (int i = 0; i < replicas.size(); i++) {
+			String key = REPLICA + i;
+			targets.put(key, replicas.get(i));
+			replicaKeys.add(key);
+			dataSources.add(replicas.get(i));
+		}
+
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+	}
+
+	/**
+	 * Returns the data sources that the connections are routed to.
+	 * 
+	 * @return The primary data source followed by the replicas.
+	 */
+	List<DataSource> getDataSources() {
+		return Collections.unmodifiableList(dataSources);
+	}
+
+	/**
+	 * Chooses the data source of the connection being requested.
+	 * 
+	 * @return The key of a replica for a read-only transaction that does not need fresh data, the key of the primary otherwise.
+	 */
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			if (TransactionSynchronizationManager.isActualTransactionActive()) {
+				ReadYourWrites.recordWrite(readAfterWriteMillis);
+			}
+			return PRIMARY;
+		}
+
+		if (replicaKeys.isEmpty() || ReadYourWrites.isPinnedToPrimary()) {
+			return PRIMARY;
+		}
+		return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+	}
+
+	/**
+	 * Closes the connection pools of the primary and of the replicas.
+	 */
+	@Override
+	public void close() {
+		for (DataSource dataSource : dataSources) {
+			if (dataSource instanceof Closeable closeable) {
+				try {
+					closeable.close();
+				} catch (IOException e) {
+					logger.warn("Could not close the data source", e);
+				}
+			}
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package com.oxygenxml.account.dto;
 
+import java.util.Locale;
 import java.util.Map;
 
 import com.oxygenxml.account.type.EmailType;
@@ -24,6 +25,11 @@ public class EmailInfo {
 	 */
 	private String emailAddress;
 
+	/**
+	 * The locale of the templates, or null for the default locale.
+	 */
+	private Locale locale;
+
 	/**
 	 * Data for constructing the email content.
 	 */
@@ -0,0 +1,46 @@
+package com.oxygenxml.account.dto;
+
+import java.sql.Timestamp;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class is used for transferring the details of a user to the export
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserExportDto {
+
+	/**
+	 * The id of the user
+	 */
+	private Integer id;
+
+	/**
+	 * The name of the user
+	 */
+	private String name;
+
+	/**
+	 * The email address of the user
+	 */
+	private String email;
+
+	/**
+	 * The status of the user
+	 */
+	private String status;
+
+	/**
+	 * The registration date of the user
+	 */
+	private Timestamp registrationDate;
+
+	/**
+	 * The deletion date of the user
+	 */
+	private Timestamp deletionDate;
+}
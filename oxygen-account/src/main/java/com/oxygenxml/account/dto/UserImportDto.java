@@ -0,0 +1,44 @@
+package com.oxygenxml.account.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Represents one row of a bulk user import.
+ * A row carries either a plain password, which is hashed by the server, or an already computed BCrypt hash.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportDto {
+
+	/**
+	 * The name of the user
+	 */
+	@NotBlank
+	private String name;
+
+	/**
+	 * The email address of the user
+	 */
+	@NotBlank
+	@Email
+	private String email;
+
+	/**
+	 * The plain password of the user
+	 */
+	@Size(min = 8)
+	private String password;
+
+	/**
+	 * The BCrypt hash of the password, used when the plain password is not available
+	 */
+	private String passwordHash;
+}
@@ -0,0 +1,81 @@
+package com.oxygenxml.account.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.oxygenxml.account.exception.InputValidationError;
+import com.oxygenxml.account.exception.MultipleOxygenAccountException;
+import com.oxygenxml.account.exception.OxygenAccountException;
+import com.oxygenxml.account.type.ImportStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The outcome of importing one row of a bulk user import.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportResultDto {
+
+	/**
+	 * The line of the imported content on which the row starts.
+	 */
+	private long line;
+
+	/**
+	 * The email of the imported user, if the row could be parsed.
+	 */
+	private String email;
+
+	/**
+	 * Whether the user was created.
+	 */
+	private ImportStatus status;
+
+	/**
+	 * The internal error code, if the row was rejected.
+	 */
+	private Integer internalErrorCode;
+
+	/**
+	 * The ID of the error message, if the row was rejected.
+	 */
+	private String messageId;
+
+	/**
+	 * The error message, if the row was rejected.
+	 */
+	private String errorMessage;
+
+	/**
+	 * The validation errors, if the row was rejected because of invalid fields.
+	 */
+	private List<InputValidationError> errors;
+
+	/**
+	 * Creates the result of a row whose user was created.
+	 * 
+	 * @param line The line on which the row starts.
+	 * @param email The email of the created user.
+	 * @return The result of the row.
+	 */
+	public static UserImportResultDto imported(long line, String email) {
+		return new UserImportResultDto(line, email, ImportStatus.IMPORTED, null, null, null, null);
+	}
+
+	/**
+	 * Creates the result of a row that was rejected.
+	 * 
+	 * @param line The line on which the row starts.
+	 * @param email The email of the rejected user, or null if the row could not be parsed.
+	 * @param exception The reason the row was rejected.
+	 * @return The result of the row.
+	 */
+	public static UserImportResultDto failed(long line, String email, OxygenAccountException exception) {
+		List<InputValidationError> fieldErrors = exception instanceof MultipleOxygenAccountException multiple ? multiple.getFieldErrors() : null;
+		return new UserImportResultDto(line, email, ImportStatus.FAILED, exception.getErrorCode().getInternalErrorCode(),
+				exception.getMessageId(), exception.getMessage(), fieldErrors);
+	}
+}
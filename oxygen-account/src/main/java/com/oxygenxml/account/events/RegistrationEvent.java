@@ -23,13 +23,21 @@ public class RegistrationEvent extends ApplicationEvent {
 	private final User user;
 
 	/**
-	 * Constructs a new RegistrationEvent with the given source and associated user.
+	 * The public base URL of the application, captured when the event is published, so the links of the email
+	 * can be built on any thread.
+	 */
+	private final String baseUrl;
+
+	/**
+	 * Constructs a new RegistrationEvent with the given source, associated user and base URL.
 	 * 
 	 * @param source the object on which the event initially occurred (never {@code null})
 	 * @param user the user for whom this registration event is associated
+	 * @param baseUrl the public base URL of the application
 	 */
-    public RegistrationEvent(Object source, User user) {
+    public RegistrationEvent(Object source, User user, String baseUrl) {
         super(source);
         this.user = user;
+        this.baseUrl = baseUrl;
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.oxygenxml.account.events;
+
+import org.springframework.context.ApplicationEvent;
+
+import lombok.Getter;
+
+/**
+ * Represents the permanent deletion of a batch of users by the purge task.
+ */
+@Getter
+public class UsersPurgedEvent extends ApplicationEvent {
+
+	/**
+	 * Unique ID used in serialization to verify that the sender and receiver of a serialized object maintain compatibility.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of users that were permanently deleted.
+	 */
+	private final int purgedUsers;
+
+	/**
+	 * Constructs a new UsersPurgedEvent with the given source and number of deleted users.
+	 * 
+	 * @param source the object on which the event initially occurred (never {@code null})
+	 * @param purgedUsers the number of users that were permanently deleted
+	 */
+	public UsersPurgedEvent(Object source, int purgedUsers) {
+		super(source);
+		this.purgedUsers = purgedUsers;
+	}
+}
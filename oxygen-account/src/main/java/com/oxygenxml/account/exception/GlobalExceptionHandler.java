@@ -1,15 +1,27 @@
 package com.oxygenxml.account.exception;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.messages.Message;
+
 /**
  * This class handles exceptions globally for the application and provides central exception handling across all HTTP requests
  */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+	/**
+	 * Configuration object that provides the Retry-After of the requests rejected because the server is busy.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
 	/**
 	 * Method handles OxygenAccountExceptions that may be thrown during the execution of HTTP requests.
 	 * @param exception the instance of OxygenAccountExceptions that has been thrown.
@@ -42,7 +54,24 @@ public class GlobalExceptionHandler {
 	
 		return new ResponseEntity<>(errorResponse, exception.getStatus());
 	}
+	
+	/**
+	 * Method handles PasswordHashingBusyException, thrown when a password cannot be hashed or verified because the hashing queue is full.
+	 * @param exception the instance of PasswordHashingBusyException that has been thrown.
+	 * @return ResponseEntity<ErrorResponse> a "503 Service Unavailable" response with a Retry-After header
+	 */
+	@ExceptionHandler(PasswordHashingBusyException.class)
+	public ResponseEntity<ErrorResponse> handlePasswordHashingBusyException(PasswordHashingBusyException exception) {
+		ErrorResponse errorResponse = new ErrorResponse();
+		
+		errorResponse.setInternalErrorCode(InternalErrorCode.SERVER_BUSY.getInternalErrorCode());
+		errorResponse.setErrorMessage(Message.SERVER_BUSY.getMessage());
+		errorResponse.setMessageId(Message.SERVER_BUSY.getId());
+		
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(oxygenProperties.getPasswordHashingRetryAfterSeconds()))
+				.body(errorResponse);
+	}
 }
 
 	
-
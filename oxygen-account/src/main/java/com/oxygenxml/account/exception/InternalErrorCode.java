@@ -81,7 +81,27 @@ public enum InternalErrorCode {
 	/**
 	 * The error that occurs when the token is invalid
 	 */
-	INVALID_TOKEN(1015);
+	INVALID_TOKEN(1015),
+	
+	/**
+	 * The error that occurs when an imported password hash is not supported
+	 */
+	INVALID_PASSWORD_HASH(1016),
+	
+	/**
+	 * The error that occurs when an imported row could not be parsed
+	 */
+	MALFORMED_IMPORT_ROW(1017),
+	
+	/**
+	 * The error that occurs when the requested user status does not exist
+	 */
+	INVALID_STATUS(1018),
+	
+	/**
+	 * The error that occurs when the server is too busy to hash or verify a password
+	 */
+	SERVER_BUSY(1019);
 	
 	/**
 	 * It represents the internal error code
@@ -0,0 +1,23 @@
+package com.oxygenxml.account.exception;
+
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+
+/**
+ * This class represents the exception thrown when a password cannot be hashed or verified because the hashing executor is saturated.
+ * It is an authentication exception, so a rejected login reaches the authentication failure handler, and the REST endpoints
+ * turn it into a "503 Service Unavailable" response.
+ */
+public class PasswordHashingBusyException extends InternalAuthenticationServiceException {
+
+	/**
+	 * Unique ID used in serialization to verify that the sender and receiver of a serialized object maintain compatibility.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructs a new PasswordHashingBusyException with the specified detail msg
+	 */
+	public PasswordHashingBusyException(String msg) {
+		super(msg);
+	}
+}
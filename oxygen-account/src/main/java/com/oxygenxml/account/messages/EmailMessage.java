@@ -20,7 +20,12 @@ public enum EmailMessage {
 	/**
 	 *  Represents an error that occurs when there is a failure in processing the email template.
 	 */
-	EMAIL_TEMPLATE_PROCESSING_FAILED("EMAIL_TEMPLATE_PROCESSING_FAILED", "Email template processing failed.");
+	EMAIL_TEMPLATE_PROCESSING_FAILED("EMAIL_TEMPLATE_PROCESSING_FAILED", "Email template processing failed."),
+
+	/**
+	 * Represents an error that occurs when the SMTP server cannot be reached or rejects the email.
+	 */
+	EMAIL_SENDING_FAILED("EMAIL_SENDING_FAILED", "Email could not be sent.");
 
 
 
@@ -94,7 +94,32 @@ public enum Message {
 	/**
 	 * ID corresponding to the message indicating that the email is not confirmed
 	 */
-	EMAIL_NOT_CONFIRMED("EMAIL_NOT_CONFIRMED", "Email not confirmed.");
+	EMAIL_NOT_CONFIRMED("EMAIL_NOT_CONFIRMED", "Email not confirmed."),
+
+	/**
+	 * ID corresponding to the message indicating that an imported password hash is not supported
+	 */
+	INVALID_PASSWORD_HASH("INVALID_PASSWORD_HASH", "The password hash is not a supported BCrypt hash."),
+
+	/**
+	 * ID corresponding to the message indicating that an imported row could not be parsed
+	 */
+	MALFORMED_IMPORT_ROW("MALFORMED_IMPORT_ROW", "The row could not be parsed."),
+
+	/**
+	 * ID corresponding to the message indicating that an imported user could not be saved
+	 */
+	IMPORT_FAILED("IMPORT_FAILED", "The user could not be imported."),
+
+	/**
+	 * ID corresponding to the message indicating that the requested user status does not exist
+	 */
+	INVALID_STATUS("INVALID_STATUS", "The user status is not valid."),
+	
+	/**
+	 * ID corresponding to the message indicating that the server is too busy to hash or verify a password
+	 */
+	SERVER_BUSY("SERVER_BUSY", "The server is busy. Please try again in a moment.");
 
 	/**
 	 * Unique identifier corresponding to each type of message.
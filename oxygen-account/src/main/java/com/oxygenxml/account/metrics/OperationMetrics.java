@@ -0,0 +1,222 @@
+package com.oxygenxml.account.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import com.oxygenxml.account.exception.InternalErrorCode;
+import com.oxygenxml.account.exception.OxygenAccountException;
+import com.oxygenxml.account.exception.PasswordHashingBusyException;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * The timers of the account operations, one for each method of the instrumented services and each outcome.
+ * <p>
+ * A call that returns is recorded as a {@value #SUCCESS}. A call rejected by the rules of the account, such as a duplicate email,
+ * a wrong password or an invalid token, is recorded as a {@value #FAILURE} tagged with its {@link InternalErrorCode}; any other
+ * exception is recorded as an {@value #ERROR} tagged with the name of its class. The timers are created on the first call of each
+ * method and outcome and then reused, so recording a call only reads a map and the clock.
+ */
+@Component
+public class OperationMetrics implements MeterBinder {
+
+	/**
+	 * The timer of the account operations.
+	 */
+	public static final String OPERATION = "oxygen.account.operation";
+
+	/**
+	 * The tag holding the simple name of the service class.
+	 */
+	public static final String CLASS_TAG = "class";
+
+	/**
+	 * The tag holding the name of the method.
+	 */
+	public static final String METHOD_TAG = "method";
+
+	/**
+	 * The tag holding the outcome: {@value #SUCCESS}, {@value #FAILURE} or {@value #ERROR}.
+	 */
+	public static final String OUTCOME_TAG = "outcome";
+
+	/**
+	 * The tag holding the internal error code of a failure, the class of an error, or {@value #NO_ERROR}.
+	 */
+	public static final String ERROR_TAG = "error";
+
+	/**
+	 * The outcome of the calls that returned.
+	 */
+	public static final String SUCCESS = "success";
+
+	/**
+	 * The outcome of the calls rejected by the rules of the account.
+	 */
+	public static final String FAILURE = "failure";
+
+	/**
+	 * The outcome of the calls that failed unexpectedly.
+	 */
+	public static final String ERROR = "error";
+
+	/**
+	 * The error tag of the successful calls.
+	 */
+	public static final String NO_ERROR = "none";
+
+	/**
+	 * The registry of the metrics recorded before the operations are bound to the registry of the application. Having no registries, it discards them.
+	 */
+	private static final MeterRegistry UNBOUND_REGISTRY = new CompositeMeterRegistry();
+
+	/**
+	 * The registry that receives the timers.
+	 */
+	private volatile MeterRegistry registry = UNBOUND_REGISTRY;
+
+	/**
+	 * The timers of each method called so far.
+	 */
+	private final ConcurrentMap<Method, Operation> operations = new ConcurrentHashMap<>();
+
+	/**
+	 * The timers of one method.
+	 */
+	private static final class Operation {
+
+		/**
+		 * The registry that holds the timers.
+		 */
+		private final MeterRegistry registry;
+
+		/**
+		 * The simple name of the service class.
+		 */
+		private final String className;
+
+		/**
+		 * The name of the method.
+		 */
+		private final String methodName;
+
+		/**
+		 * The timer of the successful calls.
+		 */
+		private final Timer success;
+
+		/**
+		 * The timers of the failed calls, by outcome and error tag.
+		 */
+		private final ConcurrentMap<String, Timer> failures = new ConcurrentHashMap<>();
+
+		/**
+		 * Creates the timers of a method.
+		 *
+		 * @param registry The registry that holds the timers.
+		 * @param method The method.
+		 */
+		private Operation(MeterRegistry registry, Method method) {
+			this.registry = registry;
+			this.className = ClassUtils.getUserClass(method.getDeclaringClass()).getSimpleName();
+			this.methodName = method.getName();
+			this.success = timer(SUCCESS, NO_ERROR);
+		}
+
+		/**
+		 * Returns the timer of a failed call.
+		 *
+		 * @param failure The exception thrown by the call.
+		 * @return The timer of the outcome and error of the exception.
+		 */
+		private Timer failureTimer(Throwable failure) {
+			String outcome = outcomeOf(failure);
+			String error = errorOf(failure);
+			return failures.computeIfAbsent(outcome + ':' + error, key -> timer(outcome, error));
+		}
+
+		/**
+		 * Creates the timer of an outcome.
+		 */
+		private Timer timer(String outcome, String error) {
+			return Timer.builder(OPERATION)
+					.tag(CLASS_TAG, className)
+					.tag(METHOD_TAG, methodName)
+					.tag(OUTCOME_TAG, outcome)
+					.tag(ERROR_TAG, error)
+					.description("The time of an account operation")
+					.register(registry);
+		}
+	}
+
+	/**
+	 * Records a call of a method.
+	 *
+	 * @param method The called method.
+	 * @param start The moment the call started, from {@link System#nanoTime()}.
+	 * @param failure The exception thrown by the call, or null if it returned.
+	 */
+	public void record(Method method, long start, Throwable failure) {
+		long duration = System.nanoTime() - start;
+		Operation operation = operations.get(method);
+		if (operation == null) {
+			operation = operations.computeIfAbsent(method, key -> new Operation(registry, key));
+		}
+		Timer timer = failure == null ? operation.success : operation.failureTimer(failure);
+		timer.record(duration, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the outcome of a failed call.
+	 *
+	 * @param failure The exception thrown by the call.
+	 * @return {@value #FAILURE} if the call was rejected by the rules of the account, otherwise {@value #ERROR}.
+	 */
+	static String outcomeOf(Throwable failure) {
+		return failure instanceof OxygenAccountException || failure instanceof AuthenticationException || failure instanceof JwtException
+				? FAILURE
+				: ERROR;
+	}
+
+	/**
+	 * Returns the error tag of a failed call.
+	 *
+	 * @param failure The exception thrown by the call.
+	 * @return The name of the internal error code of the exception, or the simple name of its class if it has no code.
+	 */
+	static String errorOf(Throwable failure) {
+		InternalErrorCode code = null;
+		if (failure instanceof OxygenAccountException accountException) {
+			code = accountException.getErrorCode();
+		} else if (failure instanceof UsernameNotFoundException) {
+			code = InternalErrorCode.USER_NOT_FOUND;
+		} else if (failure instanceof PasswordHashingBusyException) {
+			code = InternalErrorCode.SERVER_BUSY;
+		} else if (failure instanceof JwtException) {
+			code = InternalErrorCode.INVALID_TOKEN;
+		}
+		return code != null ? code.name() : failure.getClass().getSimpleName();
+	}
+
+	/**
+	 * Records the next calls in the given registry.
+	 *
+	 * @param registry The registry that receives the timers.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.registry = registry;
+		operations.clear();
+	}
+}
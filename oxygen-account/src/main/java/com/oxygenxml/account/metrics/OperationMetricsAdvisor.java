@@ -0,0 +1,81 @@
+package com.oxygenxml.account.metrics;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import com.oxygenxml.account.service.JwtService;
+import com.oxygenxml.account.service.OxygenUserDetailsService;
+import com.oxygenxml.account.service.UserService;
+import com.oxygenxml.account.service.ValidationService;
+
+/**
+ * Times every public method of the account services and records it in the {@link OperationMetrics}.
+ * <p>
+ * The advice runs outside of the transaction of the method, so the recorded time includes the flush and the commit of its changes.
+ */
+@Component
+public class OperationMetricsAdvisor extends StaticMethodMatcherPointcutAdvisor implements MethodInterceptor {
+
+	/**
+	 * Unique ID used in serialization to verify that the sender and receiver of a serialized object maintain compatibility.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The services whose public methods are timed.
+	 */
+	private static final Set<Class<?>> INSTRUMENTED_SERVICES = Set.of(
+			UserService.class, OxygenUserDetailsService.class, JwtService.class, ValidationService.class);
+
+	/**
+	 * Records the timed calls.
+	 */
+	private final transient OperationMetrics operationMetrics;
+
+	/**
+	 * Creates the advisor, ordered before the transaction advisor.
+	 *
+	 * @param operationMetrics Records the timed calls.
+	 */
+	public OperationMetricsAdvisor(OperationMetrics operationMetrics) {
+		this.operationMetrics = operationMetrics;
+		setAdvice(this);
+		setOrder(Ordered.HIGHEST_PRECEDENCE);
+	}
+
+	/**
+	 * Matches the public methods declared by the instrumented services.
+	 */
+	@Override
+	public boolean matches(Method method, Class<?> targetClass) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		return INSTRUMENTED_SERVICES.contains(declaringClass)
+				&& declaringClass == ClassUtils.getUserClass(targetClass)
+				&& Modifier.isPublic(method.getModifiers());
+	}
+
+	/**
+	 * Calls the method and records its time and outcome.
+	 */
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		long start = System.nanoTime();
+		Object result;
+		try {
+			result = invocation.proceed();
+		} catch (Throwable failure) {
+			operationMetrics.record(invocation.getMethod(), start, failure);
+			throw failure;
+		}
+		operationMetrics.record(invocation.getMethod(), start, null);
+		return result;
+	}
+}
@@ -0,0 +1,12 @@
+package com.oxygenxml.account.model;
+
+import java.sql.Timestamp;
+
+/**
+ * The verified content of a confirmation token.
+ * 
+ * @param userId The id of the user whose registration is confirmed.
+ * @param creationDate The registration date of the user, when the token was generated.
+ */
+public record ConfirmationToken(int userId, Timestamp creationDate) {
+}
@@ -0,0 +1,103 @@
+package com.oxygenxml.account.model;
+
+import java.sql.Timestamp;
+
+import com.oxygenxml.account.type.EmailType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An email waiting in the outbox to be sent by the dispatcher.
+ * The email is inserted in the transaction that caused it, so it is sent if and only if that transaction commits,
+ * and it is deleted once it was sent.
+ */
+@Data
+@Entity
+@Table(name = "email_outbox")
+@NoArgsConstructor
+public class OutboxEmail {
+
+	/**
+	 * Unique id of the email.
+	 */
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	/**
+	 * The type of the email, which selects its templates.
+	 */
+	@Enumerated(EnumType.STRING)
+	@Column(name = "email_type")
+	private EmailType type;
+
+	/**
+	 * The email address of the recipient.
+	 */
+	@Column(name = "email_address")
+	private String emailAddress;
+
+	/**
+	 * The language tag of the locale of the templates, or null for the default locale.
+	 */
+	@Column(name = "email_locale")
+	private String locale;
+
+	/**
+	 * The data of the templates, as a JSON object.
+	 */
+	@Column(name = "email_data")
+	private String emailData;
+
+	/**
+	 * The status of the email.
+	 */
+	@Column(name = "status")
+	@Convert(converter = OutboxStatusConverter.class)
+	private OutboxStatus status;
+
+	/**
+	 * The number of failed attempts to send the email.
+	 */
+	private int attempts;
+
+	/**
+	 * The moment when the email was inserted in the outbox.
+	 */
+	@Column(name = "creation_date")
+	private Timestamp creationDate;
+
+	/**
+	 * The earliest moment of the next attempt to send the email.
+	 */
+	@Column(name = "next_attempt_date")
+	private Timestamp nextAttemptDate;
+
+	/**
+	 * The token of the dispatcher run that claimed the email, or null if the email is not claimed.
+	 */
+	@Column(name = "claim_token")
+	private String claimToken;
+
+	/**
+	 * The moment when the claim expires and another dispatcher may claim the email, if the one that claimed it stopped.
+	 */
+	@Column(name = "claimed_until")
+	private Timestamp claimedUntil;
+
+	/**
+	 * The error of the last failed attempt.
+	 */
+	@Column(name = "last_error")
+	private String lastError;
+}
@@ -0,0 +1,51 @@
+package com.oxygenxml.account.model;
+
+import lombok.Getter;
+
+/**
+ * The OutboxStatus enumeration contains the states of an email waiting in the outbox.
+ */
+@Getter
+public enum OutboxStatus {
+	
+	/**
+	 * Status used to indicate that the email is waiting to be sent, for the first time or again after a failure
+	 */
+	PENDING((byte) 0),
+	
+	/**
+	 * Status used to indicate that the email could not be sent in the allowed number of attempts and will not be sent again
+	 */
+	FAILED((byte) 1);
+	
+	/**
+	 * The numeric code of the outbox status, as stored in the database.
+	 */
+	private final byte code;
+
+	/**
+	 * Constructs a new {@code OutboxStatus} enumeration instance with the specified database code.
+	 * @param code The numeric code stored in the database
+	 */
+	private OutboxStatus(byte code) {
+		this.code = code;
+	}
+	
+	/**
+	 * Returns the outbox status with the given database code.
+	 * 
+	 * @param code The numeric code stored in the database
+	 * @return The corresponding outbox status
+	 * @throws IllegalArgumentException if no status has the given code
+	 */
+	public static OutboxStatus fromCode(byte code) {
+		switch (code) {
+		case 0:
+			return PENDING;
+		case 1:
+			return FAILED;
+		default:
+			throw new IllegalArgumentException("Unknown outbox status code: " + code);
+		}
+	}
+}
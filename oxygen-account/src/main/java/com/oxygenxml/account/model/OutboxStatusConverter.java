@@ -0,0 +1,33 @@
+package com.oxygenxml.account.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Converts an {@link OutboxStatus} to the TINYINT code stored in the status column of the email_outbox table, and back.
+ */
+@Converter
+public class OutboxStatusConverter implements AttributeConverter<OutboxStatus, Byte> {
+
+	/**
+	 * Converts the outbox status to its database code.
+	 * 
+	 * @param status The outbox status.
+	 * @return The database code, or null if the status is null.
+	 */
+	@Override
+	public Byte convertToDatabaseColumn(OutboxStatus status) {
+		return status == null ? null : status.getCode();
+	}
+
+	/**
+	 * Converts the database code to the outbox status.
+	 * 
+	 * @param code The database code.
+	 * @return The outbox status, or null if the code is null.
+	 */
+	@Override
+	public OutboxStatus convertToEntityAttribute(Byte code) {
+		return code == null ? null : OutboxStatus.fromCode(code);
+	}
+}
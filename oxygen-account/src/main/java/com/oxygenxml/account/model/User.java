@@ -3,10 +3,12 @@ package com.oxygenxml.account.model;
 
 import java.sql.Timestamp;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -30,9 +32,11 @@ public class User {
 	
 	/**
 	 * Unique id of the user.
+	 * The ids are allocated in blocks from the users_seq sequence (a table on MySQL), which lets Hibernate batch the inserts.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+	@SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
 	private Integer id;
 
 	/**
@@ -64,7 +68,8 @@ public class User {
 	 * The status of the user
 	 */
 	@Column(name = "status")
-	private String status;
+	@Convert(converter = UserStatusConverter.class)
+	private UserStatus status;
 	
 	/**
 	 * The deletion date of the user
@@ -0,0 +1,17 @@
+package com.oxygenxml.account.model;
+
+import java.sql.Timestamp;
+
+/**
+ * A read-only view of the details of a user included in the export.
+ * It is selected directly from the users table, so it never carries the password hash and is not managed by the persistence context.
+ * 
+ * @param id The id of the user.
+ * @param name The name of the user.
+ * @param email The email address of the user.
+ * @param status The status of the user.
+ * @param registrationDate The registration date of the user.
+ * @param deletionDate The deletion date of the user, or null if the user is not deleted.
+ */
+public record UserExportView(Integer id, String name, String email, UserStatus status, Timestamp registrationDate, Timestamp deletionDate) {
+}
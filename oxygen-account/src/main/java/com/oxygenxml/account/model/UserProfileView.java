@@ -0,0 +1,15 @@
+package com.oxygenxml.account.model;
+
+import java.sql.Timestamp;
+
+/**
+ * A read-only view of the profile details of a user.
+ * It is built from the principal of the session, so it never carries the password hash and needs no database query.
+ * 
+ * @param name The name of the user.
+ * @param email The email address of the user.
+ * @param status The status of the user.
+ * @param deletionDate The deletion date of the user, or null if the user is not deleted.
+ */
+public record UserProfileView(String name, String email, UserStatus status, Timestamp deletionDate) {
+}
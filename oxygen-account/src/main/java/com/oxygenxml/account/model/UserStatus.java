@@ -11,28 +11,70 @@ public enum UserStatus {
 	/**
 	 * Status used to indicate that the user is deleted
 	 */
-	DELETED("deleted"),
+	DELETED("deleted", (byte) 2),
 	
 	/**
 	 * Status used to indicate that the user is active
 	 */
-	ACTIVE("active"),
+	ACTIVE("active", (byte) 1),
 	
 	/**
 	 * Status used to indicate that the user is new
 	 */
-	NEW("new");
+	NEW("new", (byte) 0);
 	
 	/**
 	 * The string representation of the user status. 
 	 */
 	private final String status;
+	
+	/**
+	 * The numeric code of the user status, as stored in the database.
+	 */
+	private final byte code;
 
 	/**
-	 * Constructs a new {@code UserStatus} enumeration instance with the specified string representation.
+	 * Constructs a new {@code UserStatus} enumeration instance with the specified string representation and database code.
 	 * @param status The string representation of the user status
+	 * @param code The numeric code stored in the database
 	 */
-	private UserStatus(String status) {
+	private UserStatus(String status, byte code) {
 		this.status = status;
+		this.code = code;
+	}
+	
+	/**
+	 * Returns the user status with the given database code.
+	 * 
+	 * @param code The numeric code stored in the database
+	 * @return The corresponding user status
+	 * @throws IllegalArgumentException if no status has the given code
+	 */
+	public static UserStatus fromCode(byte code) {
+		switch (code) {
+		case 0:
+			return NEW;
+		case 1:
+			return ACTIVE;
+		case 2:
+			return DELETED;
+		default:
+			throw new IllegalArgumentException("Unknown user status code: " + code);
+		}
+	}
+	
+	/**
+	 * Returns the user status with the given string representation.
+	 * 
+	 * @param status The string representation of the user status
+	 * @return The corresponding user status, or null if no status has the given representation
+	 */
+	public static UserStatus fromStatus(String status) {
+		for (UserStatus userStatus : values()) {
+			if (userStatus.status.equalsIgnoreCase(status)) {
+				return userStatus;
+			}
+		}
+		return null;
 	}
 }
@@ -0,0 +1,33 @@
+package com.oxygenxml.account.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Converts a {@link UserStatus} to the TINYINT code stored in the status column of the users table, and back.
+ */
+@Converter
+public class UserStatusConverter implements AttributeConverter<UserStatus, Byte> {
+
+	/**
+	 * Converts the user status to its database code.
+	 * 
+	 * @param status The user status.
+	 * @return The database code, or null if the status is null.
+	 */
+	@Override
+	public Byte convertToDatabaseColumn(UserStatus status) {
+		return status == null ? null : status.getCode();
+	}
+
+	/**
+	 * Converts the database code to the user status.
+	 * 
+	 * @param code The database code.
+	 * @return The user status, or null if the code is null.
+	 */
+	@Override
+	public UserStatus convertToEntityAttribute(Byte code) {
+		return code == null ? null : UserStatus.fromCode(code);
+	}
+}
@@ -0,0 +1,54 @@
+package com.oxygenxml.account.repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.oxygenxml.account.model.OutboxEmail;
+import com.oxygenxml.account.model.OutboxStatus;
+
+/**
+ * Provides database access methods for the emails waiting in the outbox.
+ */
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+	/**
+	 * Claims at most {@code limit} pending emails that are due and not claimed by another dispatcher, with a single statement,
+	 * so two dispatchers never claim the same email. The update runs in its own transaction and is served by the (status, next_attempt_date) index.
+	 * 
+	 * @param claimToken The token that marks the claimed emails.
+	 * @param claimedUntil The moment when the claim expires.
+	 * @param status The database code of the pending status.
+	 * @param now The current moment.
+	 * @param limit The maximum number of emails to claim.
+	 * @return The number of claimed emails.
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = "UPDATE email_outbox SET claim_token = :claimToken, claimed_until = :claimedUntil "
+			+ "WHERE status = :status AND next_attempt_date <= :now AND (claimed_until IS NULL OR claimed_until < :now) "
+			+ "LIMIT :limit", nativeQuery = true)
+	public int claim(@Param("claimToken") String claimToken, @Param("claimedUntil") Timestamp claimedUntil,
+			@Param("status") byte status, @Param("now") Timestamp now, @Param("limit") int limit);
+	
+	/**
+	 * Finds the emails claimed with the given token.
+	 * 
+	 * @param claimToken The token that marks the claimed emails.
+	 * @return The claimed emails.
+	 */
+	public List<OutboxEmail> findByClaimToken(String claimToken);
+	
+	/**
+	 * Counts the emails with the given status.
+	 * 
+	 * @param status The status of the emails.
+	 * @return The number of emails.
+	 */
+	public long countByStatus(OutboxStatus status);
+}
@@ -1,10 +1,23 @@
 package com.oxygenxml.account.repository;
 
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.model.UserExportView;
+import com.oxygenxml.account.model.UserStatus;
+
+import jakarta.persistence.QueryHint;
 
 
 /**
@@ -19,27 +32,106 @@ It handles CRUD operations for User objects.
 
 public interface UserRepository extends JpaRepository<User, Integer> {
 
+	/**
+	 * The number of rows fetched from the database at once while the users are exported.
+	 */
+	public static final String EXPORT_FETCH_SIZE = "500";
+
 	/**
 	 * Checks if a User entity with the provided email exists in the database.
 	 *
-	 * @param email The email to check for in the database.
+	 * @param email The normalized email to check for in the database.
 	 * @return A boolean value representing whether a User with the provided email exists.
 	 */
 	boolean existsByEmail(String email);
 
 	/**
-	 * Finds a User entity in the database by the provided email.
-	 * @param email The email of the User entity to find in the database.
+	 * Finds a User entity in the database by the provided email, using the unique email index.
+	 * @param email The normalized email of the User entity to find in the database.
 	 * @return A User entity that matches the provided email, or null if no matching User entity is found.
 	 */
 	public User findByEmail(String email);
 	
 	/**
-	 * Finds a User entity in the database by status
-	 * @param status The status of the User entity to find in the database
-	 * @return A User entity that matches the provided status
+	 * Replaces the password hash of a user, only if it is still the given hash, so that a password changed in the meantime is not overwritten.
+	 * @param email The normalized email of the user.
+	 * @param oldPassword The hash that is replaced.
+	 * @param newPassword The new hash of the same password.
+	 * @return The number of updated users, 0 or 1.
+	 */
+	@Modifying
+	@Transactional
+	@Query("UPDATE User u SET u.password = :newPassword WHERE u.email = :email AND u.password = :oldPassword")
+	public int updatePasswordHash(@Param("email") String email, @Param("oldPassword") String oldPassword, @Param("newPassword") String newPassword);
+	
+	/**
+	 * Replaces the password hash of a user, without writing the other columns.
+	 * @param id The id of the user.
+	 * @param password The new hash.
+	 * @return The number of updated users, 0 if the user no longer exists.
+	 */
+	@Modifying
+	@Transactional
+	@Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+	public int updatePassword(@Param("id") int id, @Param("password") String password);
+	
+	/**
+	 * Changes the status and the deletion date of a user, without writing the other columns.
+	 * @param id The id of the user.
+	 * @param status The new status.
+	 * @param deletionDate The new deletion date, or null.
+	 * @return The number of updated users, 0 if the user no longer exists.
+	 */
+	@Modifying
+	@Transactional
+	@Query("UPDATE User u SET u.status = :status, u.deletionDate = :deletionDate WHERE u.id = :id")
+	public int updateStatus(@Param("id") int id, @Param("status") UserStatus status, @Param("deletionDate") Timestamp deletionDate);
+	
+	/**
+	 * Finds which of the provided emails already belong to a user, with a single query served by the unique email index.
+	 * @param emails The normalized emails to look for.
+	 * @return The emails that already exist in the database.
+	 */
+	@Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+	public List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+	
+	/**
+	 * Streams the emails of all the users, to build the email filter.
+	 * The rows are read through a database cursor, {@link #EXPORT_FETCH_SIZE} at a time. The stream must be consumed and closed inside a transaction.
+	 * 
+	 * @return The normalized emails of the users.
 	 */
-	public List<User> findByStatus(String status);
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+	@Query("SELECT u.email FROM User u")
+	public Stream<String> streamAllEmails();
+	
+	/**
+	 * Finds the emails of the users registered since the given moment, to refresh the email filter, using the registration date index.
+	 * 
+	 * @param since The earliest registration date, inclusive.
+	 * @return The normalized emails of the users.
+	 */
+	@Query("SELECT u.email FROM User u WHERE u.registrationDate >= :since")
+	public List<String> findEmailsRegisteredSince(@Param("since") Timestamp since);
+	
+	/**
+	 * Streams the details of the users to export, in the order of their ids.
+	 * The rows are read through a database cursor, {@link #EXPORT_FETCH_SIZE} at a time, and are not managed by the persistence context,
+	 * so the memory used does not depend on the number of users. The stream must be consumed and closed inside a transaction.
+	 * 
+	 * @param status The status of the exported users, or null to export users with any status.
+	 * @param from The earliest registration date of the exported users, inclusive, or null for no lower bound.
+	 * @param to The latest registration date of the exported users, exclusive, or null for no upper bound.
+	 * @return The details of the exported users.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+	@Query("SELECT new com.oxygenxml.account.model.UserExportView(u.id, u.name, u.email, u.status, u.registrationDate, u.deletionDate) "
+			+ "FROM User u "
+			+ "WHERE (:status IS NULL OR u.status = :status) "
+			+ "AND (CAST(:from AS timestamp) IS NULL OR u.registrationDate >= :from) "
+			+ "AND (CAST(:to AS timestamp) IS NULL OR u.registrationDate < :to) "
+			+ "ORDER BY u.id")
+	public Stream<UserExportView> streamForExport(@Param("status") UserStatus status, @Param("from") Timestamp from, @Param("to") Timestamp to);
 	
 	/**
 	 * Retrieves a User entity from the database by the provided ID.
@@ -48,4 +140,32 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 	 * @return A User entity with the provided ID, or null if no such User entity exists.
 	 */
 	public User findById(int id);
+	
+	/**
+	 * Permanently deletes at most {@code limit} users with the given status whose deletion date is not after the cutoff.
+	 * The delete runs in its own transaction and is served by the (status, deletion_date) index.
+	 * 
+	 * @param status The database code of the status of the users to delete.
+	 * @param cutoff The latest deletion date of the users to delete.
+	 * @param limit The maximum number of users to delete.
+	 * @return The number of deleted users.
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = "DELETE FROM users WHERE status = :status AND deletion_date <= :cutoff LIMIT :limit", nativeQuery = true)
+	public int deleteByStatusAndDeletionDateUpTo(@Param("status") byte status, @Param("cutoff") Timestamp cutoff, @Param("limit") int limit);
+	
+	/**
+	 * Permanently deletes at most {@code limit} users with the given status whose registration date is not after the cutoff.
+	 * The delete runs in its own transaction and is served by the (status, registration_date) index.
+	 * 
+	 * @param status The database code of the status of the users to delete.
+	 * @param cutoff The latest registration date of the users to delete.
+	 * @param limit The maximum number of users to delete.
+	 * @return The number of deleted users.
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = "DELETE FROM users WHERE status = :status AND registration_date <= :cutoff LIMIT :limit", nativeQuery = true)
+	public int deleteByStatusAndRegistrationDateUpTo(@Param("status") byte status, @Param("cutoff") Timestamp cutoff, @Param("limit") int limit);
 }
@@ -0,0 +1,263 @@
+package com.oxygenxml.account.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.oxygenxml.account.exception.PasswordHashingBusyException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * A password encoder that runs the hashing and the verification of the passwords on a dedicated executor, sized for the
+ * number of processors, with a bounded queue.
+ * <p>
+ * The request threads wait for the result, but at most as many hashes as the executor has threads run at once, so a burst
+ * of logins cannot keep all the request threads busy on the CPU while the cheap requests wait. When the queue is full the call
+ * fails immediately with a {@link PasswordHashingBusyException}. The time spent in the queue and the time spent hashing
+ * are recorded separately, for each operation.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder, DisposableBean {
+
+	/**
+	 * The timer of the time spent by the hashes in the queue.
+	 */
+	public static final String QUEUE_WAIT = "oxygen.password.hashing.queue.wait";
+
+	/**
+	 * The timer of the time spent hashing or verifying.
+	 */
+	public static final String HASH_TIME = "oxygen.password.hashing.time";
+
+	/**
+	 * The counter of the hashes rejected because the queue was full.
+	 */
+	public static final String REJECTED = "oxygen.password.hashing.rejected";
+
+	/**
+	 * The gauge of the hashes waiting in the queue.
+	 */
+	public static final String QUEUED = "oxygen.password.hashing.queued";
+
+	/**
+	 * The tag holding the operation: "encode" or "matches".
+	 */
+	public static final String OPERATION_TAG = "operation";
+
+	/**
+	 * The registry of the metrics recorded before the encoder is bound to the registry of the application. Having no registries, it discards them.
+	 */
+	private static final MeterRegistry UNBOUND_REGISTRY = new CompositeMeterRegistry();
+
+	/**
+	 * The encoder that hashes and verifies the passwords.
+	 */
+	private final PasswordEncoder delegate;
+
+	/**
+	 * The executor that runs the hashes.
+	 */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * The metrics of the encoding.
+	 */
+	private volatile OperationMetrics encodeMetrics;
+
+	/**
+	 * The metrics of the verification.
+	 */
+	private volatile OperationMetrics matchesMetrics;
+
+	/**
+	 * The hashes rejected because the queue was full.
+	 */
+	private volatile Counter rejected;
+
+	/**
+	 * The timers of an operation.
+	 *
+	 * @param queueWait The time spent in the queue.
+	 * @param hashTime The time spent hashing or verifying.
+	 */
+	private record OperationMetrics(Timer queueWait, Timer hashTime) {
+
+		/**
+		 * Registers the timers of an operation.
+		 *
+		 * @param registry The registry that receives the timers.
+		 * @param operation The name of the operation.
+		 * @return The timers.
+		 */
+		private static OperationMetrics register(MeterRegistry registry, String operation) {
+			return new OperationMetrics(
+					Timer.builder(QUEUE_WAIT).tag(OPERATION_TAG, operation)
+							.description("The time spent by a password hash waiting for a hashing thread")
+							.register(registry),
+					Timer.builder(HASH_TIME).tag(OPERATION_TAG, operation)
+							.description("The time spent hashing or verifying a password")
+							.register(registry));
+		}
+	}
+
+	/**
+	 * Creates the encoder and its executor.
+	 *
+	 * @param delegate The encoder that hashes and verifies the passwords.
+	 * @param threads The number of hashing threads. Zero or less means one thread per available processor.
+	 * @param queueCapacity The number of hashes that may wait for a thread. Zero means that a hash is rejected when all the threads are busy.
+	 */
+	public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity) {
+		this.delegate = delegate;
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+		AtomicInteger threadCount = new AtomicInteger();
+		executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, queue,
+				runnable -> {
+					Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				},
+				new ThreadPoolExecutor.AbortPolicy());
+		bindMetrics(UNBOUND_REGISTRY);
+	}
+
+	/**
+	 * Returns the encoder that hashes and verifies the passwords on the calling thread. It is meant for the callers that run
+	 * the hashes on their own bounded pool, such as the bulk import, so that their hashes do not take the places of the logins
+	 * in the queue of the hashing executor.
+	 *
+	 * @return The encoder that hashes and verifies the passwords.
+	 */
+	public PasswordEncoder getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Hashes a password on the hashing executor.
+	 *
+	 * @param rawPassword The password.
+	 * @return The hash.
+	 * @throws PasswordHashingBusyException if the queue of the executor is full.
+	 */
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return execute(encodeMetrics, () -> delegate.encode(rawPassword));
+	}
+
+	/**
+	 * Verifies a password against a hash on the hashing executor.
+	 *
+	 * @param rawPassword The password.
+	 * @param encodedPassword The hash.
+	 * @return true if the password matches the hash.
+	 * @throws PasswordHashingBusyException if the queue of the executor is full.
+	 */
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return execute(matchesMetrics, () -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	/**
+	 * Checks whether a hash should be computed again, on the calling thread since it only parses the hash.
+	 * While hashes are waiting in the queue the upgrade is postponed, so that the extra hash of an upgrade does not add to the load;
+	 * the hash is upgraded at a later login.
+	 *
+	 * @param encodedPassword The hash.
+	 * @return true if the hash should be computed again now.
+	 */
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return executor.getQueue().isEmpty() && delegate.upgradeEncoding(encodedPassword);
+	}
+
+	/**
+	 * Runs a hash on the executor and waits for its result.
+	 *
+	 * @param metrics The timers of the operation.
+	 * @param hash The hash to run.
+	 * @return The result of the hash.
+	 */
+	private <T> T execute(OperationMetrics metrics, Callable<T> hash) {
+		long submitted = System.nanoTime();
+		Future<T> result;
+		try {
+			result = executor.submit(() -> {
+				long started = System.nanoTime();
+				metrics.queueWait().record(started - submitted, TimeUnit.NANOSECONDS);
+				try {
+					return hash.call();
+				} finally {
+					metrics.hashTime().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw new PasswordHashingBusyException("The password hashing queue is full");
+		}
+
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new PasswordHashingBusyException("Interrupted while waiting for the password hash");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Creates the timers and the counter in the given registry.
+	 */
+	private void bindMetrics(MeterRegistry registry) {
+		encodeMetrics = OperationMetrics.register(registry, "encode");
+		matchesMetrics = OperationMetrics.register(registry, "matches");
+		rejected = Counter.builder(REJECTED)
+				.description("Password hashes rejected because the hashing queue was full")
+				.register(registry);
+	}
+
+	/**
+	 * Publishes the queue wait and hash time timers, the rejected hashes and the length of the queue.
+	 *
+	 * @param registry The registry that receives the metrics.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		bindMetrics(registry);
+		Gauge.builder(QUEUED, executor, pool -> pool.getQueue().size())
+				.description("Password hashes waiting for a hashing thread")
+				.register(registry);
+	}
+
+	/**
+	 * Stops the hashing threads.
+	 */
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+}
@@ -2,11 +2,14 @@ package com.oxygenxml.account.security;
 
 import java.io.IOException;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 
 import com.oxygenxml.account.exception.EmailNotConfirmedException;
+import com.oxygenxml.account.exception.PasswordHashingBusyException;
 import com.oxygenxml.account.type.UrlAnchor;
 
 import jakarta.servlet.ServletException;
@@ -14,9 +17,31 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 public class CustomAuthenticationFailureHandler extends SimpleUrlAuthenticationFailureHandler {
+
+	/**
+	 * The number of seconds after which a login rejected because the server is busy may be tried again.
+	 */
+	private final int retryAfterSeconds;
+
+	/**
+	 * Creates the handler.
+	 *
+	 * @param retryAfterSeconds The number of seconds after which a login rejected because the server is busy may be tried again.
+	 */
+	public CustomAuthenticationFailureHandler(int retryAfterSeconds) {
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
     @Override
     public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
                                         AuthenticationException exception) throws IOException, ServletException {
+        if (exception instanceof PasswordHashingBusyException) {
+            // The credentials were not checked, so the login is not reported as invalid.
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getMessage());
+            return;
+        }
+
         if (exception instanceof BadCredentialsException) {
             setDefaultFailureUrl(UrlAnchor.INVALID_USER.getAnchor());
         }   else if (exception instanceof EmailNotConfirmedException) {
@@ -0,0 +1,336 @@
+package com.oxygenxml.account.security;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.events.UsersPurgedEvent;
+import com.oxygenxml.account.repository.UserRepository;
+import com.oxygenxml.account.utility.BloomFilter;
+import com.oxygenxml.account.utility.DateUtility;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * An in-memory Bloom filter of the normalized emails of the users, so that the lookups of emails that are certainly not
+ * registered, as sent by credential stuffing, do not reach the database.
+ * <p>
+ * The filter is built by streaming the emails of the users table when the application is ready, and is rebuilt after
+ * the purge task deleted users. The users registered or imported by this instance are added immediately, and the users
+ * registered by the other instances are added by a periodic refresh. Until the filter is built every email is reported as possibly registered.
+ * <p>
+ * An email missing from the filter may have just been registered by another instance, so a miss also reads the users registered since
+ * the previous refresh and checks the email again. At most one such refresh runs at a time, and at most one every
+ * {@code emailFilterMissRefreshMillis}: the misses during that interval, as sent by credential stuffing, are answered from memory.
+ */
+@Component
+public class EmailExistenceFilter implements MeterBinder {
+
+	/**
+	 * The counter of the lookups answered by the filter without a database query.
+	 */
+	public static final String QUERIES_AVOIDED = "oxygen.email.filter.queries.avoided";
+
+	/**
+	 * The counter of the lookups that the filter sent to the database for an email that was not registered.
+	 */
+	public static final String FALSE_POSITIVES = "oxygen.email.filter.false.positives";
+
+	/**
+	 * The gauge of the observed false positive rate, the share of the unregistered emails that the filter sent to the database.
+	 */
+	public static final String OBSERVED_FALSE_POSITIVE_RATE = "oxygen.email.filter.false.positive.rate";
+
+	/**
+	 * The gauge of the false positive rate expected from the fill of the filter.
+	 */
+	public static final String EXPECTED_FALSE_POSITIVE_RATE = "oxygen.email.filter.expected.false.positive.rate";
+
+	/**
+	 * The counter of the refreshes made because an email was missing from the filter.
+	 */
+	public static final String MISS_REFRESHES = "oxygen.email.filter.miss.refreshes";
+
+	/**
+	 * How far before the previous refresh the next refresh starts, to cover the clock skew between the instances and the transactions still in flight.
+	 */
+	private static final long REFRESH_OVERLAP_MILLIS = 60_000;
+
+	/**
+	 * Instance of UserRepository to read the emails.
+	 */
+	@Autowired
+	private UserRepository userRepository;
+
+	/**
+	 * Used to create the read-only transactions that read the emails.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * Configuration object that provides the size of the filter.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * The filter used by the lookups, or null until it is built.
+	 */
+	private volatile BloomFilter filter;
+
+	/**
+	 * The filter being rebuilt, which also receives the added emails, or null if no rebuild is running.
+	 */
+	private volatile BloomFilter building;
+
+	/**
+	 * The moment when the emails read by the last build or refresh were read.
+	 */
+	private Timestamp lastRefresh;
+
+	/**
+	 * The {@link System#nanoTime()} when the last build or refresh started to read the emails.
+	 */
+	private volatile long lastRefreshNanos;
+
+	/**
+	 * The number of lookups answered without a database query.
+	 */
+	private final LongAdder queriesAvoided = new LongAdder();
+
+	/**
+	 * Serializes the rebuilds and the refreshes. It is a lock rather than a synchronized method, so that a virtual thread reading the emails
+	 * does not stay pinned to its carrier thread.
+	 */
+	private final ReentrantLock updateLock = new ReentrantLock();
+
+	/**
+	 * The number of lookups sent to the database for unregistered emails.
+	 */
+	private final LongAdder falsePositives = new LongAdder();
+
+	/**
+	 * The number of refreshes made because an email was missing from the filter.
+	 */
+	private final LongAdder missRefreshes = new LongAdder();
+
+	/**
+	 * Checks whether an email is possibly registered.
+	 *
+	 * @param email The normalized email.
+	 * @return false if the email is certainly not registered, true if it may be registered and the database must be queried.
+	 */
+	public boolean mightExist(String email) {
+		BloomFilter current = filter;
+		if (current == null) {
+			return true;
+		}
+
+		boolean mightExist = current.mightContain(email) || refreshAfterMiss(email);
+		if (!mightExist) {
+			queriesAvoided.increment();
+		}
+		return mightExist;
+	}
+
+	/**
+	 * Reads the users registered since the previous refresh, unless a refresh started less than {@code emailFilterMissRefreshMillis} ago,
+	 * and checks the missing email again. A refresh that started after the miss is waited for instead of made again.
+	 *
+	 * @param email The normalized email missing from the filter.
+	 * @return true if the email is in the filter after the refresh.
+	 */
+	private boolean refreshAfterMiss(String email) {
+		long missNanos = System.nanoTime();
+		long minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(oxygenProperties.getEmailFilterMissRefreshMillis());
+		if (missNanos - lastRefreshNanos < minIntervalNanos) {
+			return false;
+		}
+
+		updateLock.lock();
+		try {
+			if (lastRefreshNanos - missNanos < 0 && System.nanoTime() - lastRefreshNanos >= minIntervalNanos) {
+				refreshLocked();
+				missRefreshes.increment();
+			}
+			return filter.mightContain(email);
+		} finally {
+			updateLock.unlock();
+		}
+	}
+
+	/**
+	 * Records that the database found no user for an email that the filter reported as possibly registered.
+	 */
+	public void recordFalsePositive() {
+		if (filter != null) {
+			falsePositives.increment();
+		}
+	}
+
+	/**
+	 * Adds the email of a new user to the filter, and to the filter being rebuilt, if any.
+	 *
+	 * @param email The normalized email.
+	 */
+	public void add(String email) {
+		BloomFilter current = filter;
+		if (current != null) {
+			current.add(email);
+		}
+		BloomFilter rebuilt = building;
+		if (rebuilt != null) {
+			rebuilt.add(email);
+		}
+	}
+
+	/**
+	 * Builds the filter when the application is ready.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void buildOnStartup() {
+		rebuild();
+	}
+
+	/**
+	 * Rebuilds the filter after the purge task deleted users, since the deleted emails cannot be removed from a Bloom filter.
+	 *
+	 * @param event The event published by the purge task.
+	 */
+	@EventListener
+	public void handleUsersPurged(UsersPurgedEvent event) {
+		rebuild();
+	}
+
+	/**
+	 * Builds a new filter from all the emails of the users table and replaces the current one.
+	 * The emails added while the table is read go to both filters, so none is lost.
+	 */
+	public void rebuild() {
+		if (!oxygenProperties.isEmailFilterEnabled()) {
+			return;
+		}
+
+		updateLock.lock();
+		try {
+			rebuildLocked();
+		} finally {
+			updateLock.unlock();
+		}
+	}
+
+	/**
+	 * Builds a new filter and replaces the current one, holding the update lock.
+	 */
+	private void rebuildLocked() {
+		BloomFilter rebuilt = new BloomFilter(oxygenProperties.getEmailFilterExpectedUsers(), oxygenProperties.getEmailFilterFalsePositiveRate());
+		building = rebuilt;
+		try {
+			long startNanos = System.nanoTime();
+			Timestamp start = DateUtility.getCurrentUTCTimestamp();
+			readOnlyTransaction().executeWithoutResult(status -> {
+				try (Stream<String> emails = userRepository.streamAllEmails()) {
+					emails.forEach(rebuilt::add);
+				}
+			});
+			filter = rebuilt;
+			lastRefresh = start;
+			lastRefreshNanos = startNanos;
+		} finally {
+			building = null;
+		}
+	}
+
+	/**
+	 * Adds the emails of the users registered since the previous refresh, including those registered by the other instances.
+	 */
+	@Scheduled(fixedDelayString = "${oxygen.account.emailFilterRefreshMillis:30000}", initialDelayString = "${oxygen.account.emailFilterRefreshMillis:30000}")
+	public void refresh() {
+		updateLock.lock();
+		try {
+			if (filter != null) {
+				refreshLocked();
+			}
+		} finally {
+			updateLock.unlock();
+		}
+	}
+
+	/**
+	 * Adds the emails of the users registered since the previous refresh to the built filter, holding the update lock.
+	 */
+	private void refreshLocked() {
+		BloomFilter current = filter;
+		long startNanos = System.nanoTime();
+		Timestamp start = DateUtility.getCurrentUTCTimestamp();
+		Timestamp since = new Timestamp(lastRefresh.getTime() - REFRESH_OVERLAP_MILLIS);
+		readOnlyTransaction().executeWithoutResult(status -> userRepository.findEmailsRegisteredSince(since).forEach(current::add));
+		lastRefresh = start;
+		lastRefreshNanos = startNanos;
+	}
+
+	/**
+	 * Publishes the avoided queries, the false positives, the refreshes made on a miss and the false positive rates.
+	 *
+	 * @param registry The registry that receives the metrics.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder(QUERIES_AVOIDED, queriesAvoided, LongAdder::sum)
+				.description("Email lookups answered by the filter without a database query")
+				.register(registry);
+		FunctionCounter.builder(FALSE_POSITIVES, falsePositives, LongAdder::sum)
+				.description("Email lookups sent to the database for unregistered emails")
+				.register(registry);
+		FunctionCounter.builder(MISS_REFRESHES, missRefreshes, LongAdder::sum)
+				.description("Refreshes of the email filter made because an email was missing from it")
+				.register(registry);
+		Gauge.builder(OBSERVED_FALSE_POSITIVE_RATE, this, EmailExistenceFilter::observedFalsePositiveRate)
+				.description("The share of the unregistered emails that the filter sent to the database")
+				.register(registry);
+		Gauge.builder(EXPECTED_FALSE_POSITIVE_RATE, this, EmailExistenceFilter::expectedFalsePositiveRate)
+				.description("The false positive rate expected from the fill of the filter")
+				.register(registry);
+	}
+
+	/**
+	 * Returns the share of the unregistered emails that the filter sent to the database.
+	 */
+	private double observedFalsePositiveRate() {
+		double positives = falsePositives.sum();
+		double negatives = queriesAvoided.sum();
+		return positives + negatives == 0 ? 0 : positives / (positives + negatives);
+	}
+
+	/**
+	 * Returns the false positive rate expected from the fill of the filter, or 0 if it is not built.
+	 */
+	private double expectedFalsePositiveRate() {
+		BloomFilter current = filter;
+		return current == null ? 0 : current.expectedFalsePositiveRate();
+	}
+
+	/**
+	 * Creates a read-only transaction, served by a read replica when replicas are configured.
+	 */
+	private TransactionTemplate readOnlyTransaction() {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.setReadOnly(true);
+		return transaction;
+	}
+}
@@ -0,0 +1,44 @@
+package com.oxygenxml.account.security;
+
+import java.io.IOException;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Adds the session of a successful login to the {@link UserSessionIndex}, then redirects as the default form login does.
+ */
+public class IndexingAuthenticationSuccessHandler extends SavedRequestAwareAuthenticationSuccessHandler {
+
+	/**
+	 * The live sessions of the users.
+	 */
+	private final UserSessionIndex userSessionIndex;
+
+	/**
+	 * Creates the handler.
+	 *
+	 * @param userSessionIndex The live sessions of the users.
+	 */
+	public IndexingAuthenticationSuccessHandler(UserSessionIndex userSessionIndex) {
+		this.userSessionIndex = userSessionIndex;
+	}
+
+	/**
+	 * Adds the session in which the user logged in to the index and redirects to the saved request or to the home page.
+	 */
+	@Override
+	public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+			Authentication authentication) throws ServletException, IOException {
+		HttpSession session = request.getSession(false);
+		if (session != null && authentication.getPrincipal() instanceof OxygenUserPrincipal principal) {
+			userSessionIndex.add(principal.getId(), session);
+		}
+		super.onAuthenticationSuccess(request, response, authentication);
+	}
+}
@@ -0,0 +1,22 @@
+package com.oxygenxml.account.security;
+
+/**
+ * The token buckets of the login attempts shared by all the instances of the application, for example in Redis.
+ * When a bean implementing it is defined, the login throttle checks it after the buckets of the instance, so the limits
+ * hold across the cluster and not only on each instance.
+ * <p>
+ * An implementation must take the token atomically, as a single step visible to all the instances, for example with a script
+ * that applies the generic cell rate algorithm to a key that expires after the burst interval.
+ */
+public interface LoginAttemptStore {
+
+	/**
+	 * Takes a token from the shared bucket of a key.
+	 *
+	 * @param key The key of the bucket, such as "email:user@example.com" or "ip:192.0.2.1".
+	 * @param burst The number of attempts that a full bucket allows at once.
+	 * @param intervalNanos The time after which a new token is available, in nanoseconds.
+	 * @return 0 if a token was taken, otherwise the time after which a token will be available, in nanoseconds.
+	 */
+	long tryAcquire(String key, int burst, long intervalNanos);
+}
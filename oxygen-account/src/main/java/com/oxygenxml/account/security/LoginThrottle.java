@@ -0,0 +1,163 @@
+package com.oxygenxml.account.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.utility.EmailUtility;
+import com.oxygenxml.account.utility.StripedTokenBuckets;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Limits the login attempts of each email and of each client address, before the user is looked up and the password verified,
+ * so that the attempts against one mailbox or from one address cannot keep the hashing threads busy.
+ * <p>
+ * The attempts are first counted by the striped token buckets of this instance, which reject an attempt without locking or allocating.
+ * When a {@link LoginAttemptStore} bean is defined the attempts allowed locally are also counted by the shared store, so the limits hold across the cluster.
+ */
+@Component
+public class LoginThrottle implements MeterBinder {
+
+	/**
+	 * The counter of the rejected login attempts.
+	 */
+	public static final String THROTTLED = "oxygen.login.throttled";
+
+	/**
+	 * The tag holding the limit that rejected an attempt: "email" or "ip".
+	 */
+	public static final String LIMIT_TAG = "limit";
+
+	/**
+	 * The prefix of the keys of the emails in the shared store.
+	 */
+	private static final String EMAIL_KEY_PREFIX = "email:";
+
+	/**
+	 * The prefix of the keys of the client addresses in the shared store.
+	 */
+	private static final String IP_KEY_PREFIX = "ip:";
+
+	/**
+	 * The shared buckets of the cluster, or null if the limits apply to each instance.
+	 */
+	@Autowired(required = false)
+	private LoginAttemptStore sharedStore;
+
+	/**
+	 * Configuration object that provides the limits.
+	 */
+	private final OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * The buckets of the emails.
+	 */
+	private final StripedTokenBuckets emailBuckets;
+
+	/**
+	 * The buckets of the client addresses.
+	 */
+	private final StripedTokenBuckets ipBuckets;
+
+	/**
+	 * The time after which an email gets a new attempt, in nanoseconds.
+	 */
+	private final long emailIntervalNanos;
+
+	/**
+	 * The time after which a client address gets a new attempt, in nanoseconds.
+	 */
+	private final long ipIntervalNanos;
+
+	/**
+	 * The attempts rejected by the limit of the emails.
+	 */
+	private final LongAdder emailThrottled = new LongAdder();
+
+	/**
+	 * The attempts rejected by the limit of the client addresses.
+	 */
+	private final LongAdder ipThrottled = new LongAdder();
+
+	/**
+	 * Creates the buckets of the emails and of the client addresses.
+	 *
+	 * @param oxygenProperties The configuration that provides the number of stripes and the limits.
+	 */
+	public LoginThrottle(OxygenAccountPorpertiesConfig oxygenProperties) {
+		this.oxygenProperties = oxygenProperties;
+		this.emailIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, oxygenProperties.getLoginThrottleEmailPerMinute());
+		this.ipIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, oxygenProperties.getLoginThrottleIpPerMinute());
+		this.emailBuckets = new StripedTokenBuckets(oxygenProperties.getLoginThrottleStripes(), oxygenProperties.getLoginThrottleEmailBurst(), emailIntervalNanos);
+		this.ipBuckets = new StripedTokenBuckets(oxygenProperties.getLoginThrottleStripes(), oxygenProperties.getLoginThrottleIpBurst(), ipIntervalNanos);
+	}
+
+	/**
+	 * Takes an attempt from the limits of a client address and of an email.
+	 *
+	 * @param email The email sent with the login, or null.
+	 * @param clientIp The address of the client.
+	 * @return 0 if the attempt is allowed, otherwise the time after which the client may try again, in nanoseconds.
+	 */
+	public long tryAcquire(String email, String clientIp) {
+		if (!oxygenProperties.isLoginThrottleEnabled()) {
+			return 0;
+		}
+
+		long wait = ipBuckets.tryAcquire(clientIp);
+		if (wait > 0) {
+			ipThrottled.increment();
+			return wait;
+		}
+		if (email != null) {
+			wait = emailBuckets.tryAcquire(email);
+			if (wait > 0) {
+				emailThrottled.increment();
+				return wait;
+			}
+		}
+
+		return sharedStore == null ? 0 : tryAcquireShared(email, clientIp);
+	}
+
+	/**
+	 * Takes an attempt from the limits of the shared store.
+	 */
+	private long tryAcquireShared(String email, String clientIp) {
+		long wait = sharedStore.tryAcquire(IP_KEY_PREFIX + clientIp, oxygenProperties.getLoginThrottleIpBurst(), ipIntervalNanos);
+		if (wait > 0) {
+			ipThrottled.increment();
+			return wait;
+		}
+		if (email != null) {
+			wait = sharedStore.tryAcquire(EMAIL_KEY_PREFIX + EmailUtility.normalize(email), oxygenProperties.getLoginThrottleEmailBurst(), emailIntervalNanos);
+			if (wait > 0) {
+				emailThrottled.increment();
+			}
+		}
+		return wait;
+	}
+
+	/**
+	 * Publishes the attempts rejected by each limit.
+	 *
+	 * @param registry The registry that receives the metrics.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder(THROTTLED, emailThrottled, LongAdder::sum)
+				.tag(LIMIT_TAG, "email")
+				.description("Login attempts rejected by the limit of their email")
+				.register(registry);
+		FunctionCounter.builder(THROTTLED, ipThrottled, LongAdder::sum)
+				.tag(LIMIT_TAG, "ip")
+				.description("Login attempts rejected by the limit of their client address")
+				.register(registry);
+	}
+}
@@ -0,0 +1,82 @@
+package com.oxygenxml.account.security;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects the form logins over the limits of the {@link LoginThrottle} with "429 Too Many Requests" and a Retry-After header,
+ * before the authentication filter looks up the user and verifies the password.
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+	/**
+	 * Matches the submissions of the login form.
+	 */
+	private final RequestMatcher loginRequests;
+
+	/**
+	 * The limits of the login attempts.
+	 */
+	private final LoginThrottle loginThrottle;
+
+	/**
+	 * The name of the parameter holding the email.
+	 */
+	private final String emailParameter;
+
+	/**
+	 * Creates the filter.
+	 *
+	 * @param loginThrottle The limits of the login attempts.
+	 * @param loginUrl The URL that receives the login form.
+	 * @param emailParameter The name of the parameter holding the email.
+	 */
+	public LoginThrottleFilter(LoginThrottle loginThrottle, String loginUrl, String emailParameter) {
+		this.loginThrottle = loginThrottle;
+		this.loginRequests = new AntPathRequestMatcher(loginUrl, HttpMethod.POST.name());
+		this.emailParameter = emailParameter;
+	}
+
+	/**
+	 * Filters only the submissions of the login form.
+	 *
+	 * @param request The current request.
+	 * @return true if the request is not a login.
+	 */
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !loginRequests.matches(request);
+	}
+
+	/**
+	 * Takes an attempt for the email and the client address of a login, and rejects the login if none is left.
+	 *
+	 * @param request The login request.
+	 * @param response The response.
+	 * @param filterChain The rest of the filters.
+	 */
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		long wait = loginThrottle.tryAcquire(request.getParameter(emailParameter), request.getRemoteAddr());
+		if (wait > 0) {
+			long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+			response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+			response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+			return;
+		}
+		filterChain.doFilter(request, response);
+	}
+}
@@ -0,0 +1,108 @@
+package com.oxygenxml.account.security;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import com.oxygenxml.account.model.UserProfileView;
+import com.oxygenxml.account.model.UserStatus;
+
+import lombok.Getter;
+
+/**
+ * The principal of an authenticated user. Besides the email and the password hash used for the login, it carries the id,
+ * the name, the status and the deletion date of the user, so that the authenticated requests can identify the user and
+ * answer the profile without querying the database. It is stored in the session, so it must be refreshed whenever these details change.
+ */
+@Getter
+public class OxygenUserPrincipal extends User {
+
+	/**
+	 * Unique ID used in serialization to verify that the sender and receiver of a serialized object maintain compatibility.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The id of the user.
+	 */
+	private final int id;
+
+	/**
+	 * The name of the user.
+	 */
+	private final String name;
+
+	/**
+	 * The status of the user.
+	 */
+	private final UserStatus status;
+
+	/**
+	 * The deletion date of the user, or null if the user is not deleted.
+	 */
+	private final Timestamp deletionDate;
+
+	/**
+	 * Creates the principal of a user.
+	 *
+	 * @param user The user, whose email and password hash are used for the login.
+	 * @param authorities The authorities granted to the user.
+	 */
+	public OxygenUserPrincipal(com.oxygenxml.account.model.User user, Collection<? extends GrantedAuthority> authorities) {
+		this(user.getId(), user.getName(), user.getEmail(), user.getPassword(), user.getStatus(), user.getDeletionDate(), authorities);
+	}
+
+	/**
+	 * Creates a principal from its details.
+	 *
+	 * @param id The id of the user.
+	 * @param name The name of the user.
+	 * @param email The normalized email of the user.
+	 * @param password The password hash of the user, or null if it was erased.
+	 * @param status The status of the user.
+	 * @param deletionDate The deletion date of the user, or null if the user is not deleted.
+	 * @param authorities The authorities granted to the user.
+	 */
+	private OxygenUserPrincipal(int id, String name, String email, String password, UserStatus status, Timestamp deletionDate,
+			Collection<? extends GrantedAuthority> authorities) {
+		// The parent rejects a null password, so an erased password is passed as empty and erased again.
+		super(email, password == null ? "" : password, authorities);
+		if (password == null) {
+			eraseCredentials();
+		}
+		this.id = id;
+		this.name = name;
+		this.status = status;
+		this.deletionDate = deletionDate;
+	}
+
+	/**
+	 * Returns an independent copy of this principal, so that erasing the credentials of the copy does not affect this principal.
+	 *
+	 * @return The copy.
+	 */
+	public OxygenUserPrincipal copy() {
+		return new OxygenUserPrincipal(id, name, getUsername(), getPassword(), status, deletionDate, getAuthorities());
+	}
+
+	/**
+	 * Returns a copy of this principal with another password hash.
+	 *
+	 * @param password The new password hash.
+	 * @return The copy.
+	 */
+	public OxygenUserPrincipal withPassword(String password) {
+		return new OxygenUserPrincipal(id, name, getUsername(), password, status, deletionDate, getAuthorities());
+	}
+
+	/**
+	 * Returns the profile details of the user.
+	 *
+	 * @return The profile details held by this principal.
+	 */
+	public UserProfileView toProfile() {
+		return new UserProfileView(name, getUsername(), status, deletionDate);
+	}
+}
@@ -1,10 +1,20 @@
 package com.oxygenxml.account.security;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.type.PasswordHashAlgorithm;
+
 /**
  * Configuration class for setting up the password encoder.
  */
@@ -12,11 +22,66 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class PasswordEncoderConfig {
 
 	/**
-	 * This password encoder use BCryptoPasswordEncoder to encode the password
-	 * @return a BCryptoPasswordEncoder
+	 * Logs the calibrated cost of the password hashes.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(PasswordEncoderConfig.class);
+
+	/**
+	 * The length of the salt of an argon2 hash, in bytes.
+	 */
+	private static final int ARGON2_SALT_LENGTH = 16;
+
+	/**
+	 * The length of an argon2 hash, in bytes.
+	 */
+	private static final int ARGON2_HASH_LENGTH = 32;
+
+	/**
+	 * The number of lanes of an argon2 hash. The hashes already run in parallel on the hashing executor, so each uses one thread.
+	 */
+	private static final int ARGON2_PARALLELISM = 1;
+
+	/**
+	 * This password encoder hashes the new passwords with the configured algorithm and cost, on a bounded hashing executor.
+	 * The stored hashes are prefixed with the id of their algorithm, and the hashes without a prefix, written before the algorithm
+	 * became configurable, are verified as bcrypt hashes. When a target verification time is configured, the cost is calibrated on this hardware.
+	 * @param oxygenProperties the configuration that provides the algorithm, the cost and the size of the hashing executor and of its queue
+	 * @return a DelegatingPasswordEncoder running on the hashing executor
 	 */
     @Bean("encoder")
-    public PasswordEncoder encoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder encoder(OxygenAccountPorpertiesConfig oxygenProperties) {
+        PasswordHashAlgorithm algorithm = oxygenProperties.getPasswordHashAlgorithm();
+        int memoryKib = oxygenProperties.getPasswordHashMemoryKib();
+        int cost = oxygenProperties.getPasswordHashCost();
+        if (oxygenProperties.getPasswordHashTargetMillis() > 0) {
+        	cost = PasswordHashCalibrator.calibrate(algorithm, calibratedCost -> createEncoder(algorithm, calibratedCost, memoryKib),
+        			cost, oxygenProperties.getPasswordHashTargetMillis());
+        	logger.info("Password hashes use {} with cost {}", algorithm.getId(), cost);
+        }
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        for (PasswordHashAlgorithm other : PasswordHashAlgorithm.values()) {
+        	// The other algorithms only verify the existing hashes, which hold their own cost.
+        	encoders.put(other.getId(), createEncoder(other, other == algorithm ? cost : other.getMinCost(), memoryKib));
+        }
+        DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder(algorithm.getId(), encoders);
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(encoders.get(PasswordHashAlgorithm.BCRYPT.getId()));
+
+        return new BoundedPasswordEncoder(delegatingEncoder,
+        		oxygenProperties.getPasswordHashingThreads(), oxygenProperties.getPasswordHashingQueueCapacity());
+    }
+
+    /**
+     * Creates the encoder of an algorithm.
+     * @param algorithm the algorithm of the hashes
+     * @param cost the cost of the hashes
+     * @param memoryKib the memory of an argon2 hash, in KiB
+     * @return the encoder, whose hashes are not prefixed
+     */
+    static PasswordEncoder createEncoder(PasswordHashAlgorithm algorithm, int cost, int memoryKib) {
+    	return switch (algorithm) {
+    		case BCRYPT -> new BCryptPasswordEncoder(cost);
+    		case ARGON2 -> new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, ARGON2_PARALLELISM, memoryKib, cost);
+    	};
     }
 }
@@ -0,0 +1,81 @@
+package com.oxygenxml.account.security;
+
+import java.util.function.IntFunction;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.oxygenxml.account.type.PasswordHashAlgorithm;
+
+/**
+ * Chooses the cost of the password hashes by measuring the verification of a password on the current hardware.
+ */
+public final class PasswordHashCalibrator {
+
+	/**
+	 * The password hashed and verified by the measurements.
+	 */
+	private static final String SAMPLE_PASSWORD = "calibration-Password-1";
+
+	/**
+	 * The number of verifications measured for each cost. The fastest one is kept, since the slower ones were only delayed by other work.
+	 */
+	private static final int SAMPLES = 3;
+
+	/**
+	 * Utility class, not instantiated.
+	 */
+	private PasswordHashCalibrator() {
+	}
+
+	/**
+	 * Returns the highest cost whose verification does not take longer than the target, and not lower than the minimum cost.
+	 * For an exponential cost the cost is raised one step at a time while the next step, expected to take twice as long, still fits,
+	 * and is measured to confirm it. For a linear cost the cost is scaled by the ratio between the target and the time measured
+	 * with the minimum cost.
+	 *
+	 * @param algorithm The algorithm whose cost is chosen.
+	 * @param encoders Creates the encoder of the algorithm for a cost.
+	 * @param minCost The lowest cost that may be chosen.
+	 * @param targetMillis The time that a verification should take, in milliseconds.
+	 * @return The chosen cost.
+	 */
+	public static int calibrate(PasswordHashAlgorithm algorithm, IntFunction<PasswordEncoder> encoders, int minCost, long targetMillis) {
+		long targetNanos = targetMillis * 1_000_000;
+		int cost = Math.max(minCost, algorithm.getMinCost());
+		long nanos = measureVerification(encoders.apply(cost));
+
+		if (algorithm.isExponentialCost()) {
+			while (cost < algorithm.getMaxCost() && nanos * 2 <= targetNanos) {
+				long nextNanos = measureVerification(encoders.apply(cost + 1));
+				if (nextNanos > targetNanos) {
+					break;
+				}
+				cost++;
+				nanos = nextNanos;
+			}
+			return cost;
+		}
+
+		long scaledCost = nanos == 0 ? algorithm.getMaxCost() : cost * targetNanos / nanos;
+		return (int) Math.min(algorithm.getMaxCost(), Math.max(cost, scaledCost));
+	}
+
+	/**
+	 * Measures the verification of a password, after a first hash and verification that warm up the code.
+	 *
+	 * @param encoder The encoder to measure.
+	 * @return The fastest time of a verification, in nanoseconds.
+	 */
+	private static long measureVerification(PasswordEncoder encoder) {
+		String hash = encoder.encode(SAMPLE_PASSWORD);
+		encoder.matches(SAMPLE_PASSWORD, hash);
+
+		long fastest = Long.MAX_VALUE;
+		for (int i = 0; i < SAMPLES; i++) {
+			long start = System.nanoTime();
+			encoder.matches(SAMPLE_PASSWORD, hash);
+			fastest = Math.min(fastest, System.nanoTime() - start);
+		}
+		return fastest;
+	}
+}
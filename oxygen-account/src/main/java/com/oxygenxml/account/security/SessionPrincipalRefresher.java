@@ -0,0 +1,133 @@
+package com.oxygenxml.account.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.oxygenxml.account.model.User;
+
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Replaces the principal of the current user, in the security context and in the session, after the details it carries have changed.
+ * The principal is also replaced in the other live sessions of the user on this instance, such as those of the other browsers.
+ */
+@Component
+public class SessionPrincipalRefresher {
+
+	/**
+	 * The live sessions of the users.
+	 */
+	@Autowired
+	private UserSessionIndex userSessionIndex;
+
+	/**
+	 * Stores the security context in the session, where the login placed it.
+	 */
+	private final SecurityContextRepository securityContextRepository = new HttpSessionSecurityContextRepository();
+
+	/**
+	 * Replaces the principal of the current user, and of the other sessions of the user, with one built from the given user.
+	 * When called inside a transaction, the principal is replaced only after the commit, so a rolled back change is never seen by the session.
+	 *
+	 * @param user The current user, as it was saved.
+	 */
+	public void refresh(User user) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					replacePrincipal(user);
+				}
+			});
+		} else {
+			replacePrincipal(user);
+		}
+	}
+
+	/**
+	 * Replaces the principal of the current authentication and of the other sessions of the user.
+	 *
+	 * @param user The current user.
+	 */
+	private void replacePrincipal(User user) {
+		HttpSession currentSession = null;
+		if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+			currentSession = attributes.getRequest().getSession(false);
+		}
+		replaceCurrentPrincipal(user);
+		for (HttpSession session : userSessionIndex.getSessions(user.getId())) {
+			if (session != currentSession) {
+				replaceSessionPrincipal(user, session);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the principal of the current authentication, keeping its authorities and details, and saves the new context in the session.
+	 *
+	 * @param user The current user.
+	 */
+	private void replaceCurrentPrincipal(User user) {
+		Authentication current = SecurityContextHolder.getContext().getAuthentication();
+		if (current == null || !(current.getPrincipal() instanceof OxygenUserPrincipal)) {
+			return;
+		}
+
+		SecurityContext context = createContext(user, current);
+		SecurityContextHolder.setContext(context);
+
+		if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes && attributes.getResponse() != null) {
+			securityContextRepository.saveContext(context, attributes.getRequest(), attributes.getResponse());
+		}
+	}
+
+	/**
+	 * Replaces the principal stored in another session of the user, keeping its authorities and details.
+	 * A session invalidated since it was indexed is removed from the index.
+	 *
+	 * @param user The current user.
+	 * @param session The other session.
+	 */
+	private void replaceSessionPrincipal(User user, HttpSession session) {
+		try {
+			if (session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY) instanceof SecurityContext stored
+					&& stored.getAuthentication() != null
+					&& stored.getAuthentication().getPrincipal() instanceof OxygenUserPrincipal principal
+					&& principal.getId() == user.getId()) {
+				session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, createContext(user, stored.getAuthentication()));
+			} else {
+				userSessionIndex.remove(user.getId(), session);
+			}
+		} catch (IllegalStateException invalidated) {
+			userSessionIndex.remove(user.getId(), session);
+		}
+	}
+
+	/**
+	 * Creates a security context whose principal is built from the given user, with the authorities and details of an authentication.
+	 *
+	 * @param user The current user.
+	 * @param current The authentication whose principal is replaced.
+	 * @return The new context.
+	 */
+	private static SecurityContext createContext(User user, Authentication current) {
+		OxygenUserPrincipal principal = new OxygenUserPrincipal(user, current.getAuthorities());
+		principal.eraseCredentials();
+		UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(principal, null, current.getAuthorities());
+		authentication.setDetails(current.getDetails());
+
+		SecurityContext context = SecurityContextHolder.createEmptyContext();
+		context.setAuthentication(authentication);
+		return context;
+	}
+}
@@ -0,0 +1,169 @@
+package com.oxygenxml.account.security;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.events.UsersPurgedEvent;
+import com.oxygenxml.account.utility.EmailUtility;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * A bounded in-memory cache of the login details of the users, keyed by normalized email, so that a login does not need a database query.
+ * <p>
+ * The cached details are never handed out: every lookup returns a copy, because the authentication erases the password of the
+ * details it receives. The entry of a user is evicted whenever the password or status of the account changes, and the whole cache
+ * is cleared when the purge task deletes users. A load that started before an eviction is not cached, so the details read before
+ * a change cannot be cached after it. The hit, miss and eviction counts are published as the "users" cache metrics.
+ * <p>
+ * The evictions are local to this instance: the other instances keep the details of a changed account until they expire, so
+ * {@code userCacheTtlSeconds} bounds how long an old password or a deleted account may still log in on another instance.
+ */
+@Component
+public class UserDetailsCache implements UserCache, MeterBinder {
+
+	/**
+	 * The name under which the cache metrics are published.
+	 */
+	static final String CACHE_NAME = "users";
+
+	/**
+	 * The cached login details, by normalized email.
+	 */
+	private final Cache<String, UserDetails> cache;
+
+	/**
+	 * The number of evictions so far. The details loaded before an eviction are not cached.
+	 */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates the cache with the configured size and time to live.
+	 *
+	 * @param oxygenProperties Configuration object that provides the size and time to live of the cache.
+	 */
+	public UserDetailsCache(OxygenAccountPorpertiesConfig oxygenProperties) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(oxygenProperties.getUserCacheMaxSize())
+				.expireAfterWrite(Duration.ofSeconds(oxygenProperties.getUserCacheTtlSeconds()))
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Returns a copy of the cached login details of a user.
+	 *
+	 * @param email The email of the user.
+	 * @return A copy of the cached details, or null if the user is not cached.
+	 */
+	@Override
+	public UserDetails getUserFromCache(String email) {
+		UserDetails cached = cache.getIfPresent(EmailUtility.normalize(email));
+		return cached == null ? null : copyOf(cached);
+	}
+
+	/**
+	 * Caches a copy of the login details of a user.
+	 *
+	 * @param user The login details, whose user name is the normalized email.
+	 */
+	@Override
+	public void putUserInCache(UserDetails user) {
+		putUserInCache(user, evictions.get());
+	}
+
+	/**
+	 * Returns the number of evictions so far, to be read before loading the details that are then given to {@link #putUserInCache(UserDetails, long)}.
+	 *
+	 * @return The eviction generation.
+	 */
+	public long getEvictionGeneration() {
+		return evictions.get();
+	}
+
+	/**
+	 * Caches a copy of the login details of a user, unless an eviction happened since they started to be loaded, in which case
+	 * they may predate the change that caused it.
+	 *
+	 * @param user The login details, whose user name is the normalized email.
+	 * @param generation The eviction generation read before the details were loaded.
+	 */
+	public void putUserInCache(UserDetails user, long generation) {
+		// The eviction increments the generation before it invalidates, so a put that sees the old generation is invalidated after it.
+		cache.asMap().compute(user.getUsername(), (email, cached) -> evictions.get() == generation ? copyOf(user) : cached);
+	}
+
+	/**
+	 * Returns an independent copy of the given login details, keeping the principal type used by the application.
+	 *
+	 * @param user The login details to copy.
+	 * @return The copy.
+	 */
+	private static UserDetails copyOf(UserDetails user) {
+		return user instanceof OxygenUserPrincipal principal ? principal.copy() : User.withUserDetails(user).build();
+	}
+
+	/**
+	 * Evicts the login details of a user.
+	 *
+	 * @param email The email of the user.
+	 */
+	@Override
+	public void removeUserFromCache(String email) {
+		evictions.incrementAndGet();
+		cache.invalidate(EmailUtility.normalize(email));
+	}
+
+	/**
+	 * Evicts the login details of a user whose account is being changed. When the change runs in a transaction, the details are
+	 * evicted again after the commit, so that a login running in between cannot cache the details read before the change.
+	 *
+	 * @param email The email of the user.
+	 */
+	public void evict(String email) {
+		removeUserFromCache(email);
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					removeUserFromCache(email);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Clears the cache after the purge task deleted users, since the deleted emails are not known.
+	 *
+	 * @param event The event published by the purge task.
+	 */
+	@EventListener
+	public void handleUsersPurged(UsersPurgedEvent event) {
+		evictions.incrementAndGet();
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Publishes the hit, miss and eviction metrics of the cache.
+	 *
+	 * @param registry The registry that receives the metrics.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+	}
+}
@@ -0,0 +1,84 @@
+package com.oxygenxml.account.security;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+
+/**
+ * The live sessions of this instance in which each user is logged in, so that a change of the details carried by the principal
+ * can be applied to all of them, not only to the session of the request that made it.
+ * <p>
+ * A session is added when its login succeeds and removed when the servlet container destroys it, on logout or expiry.
+ */
+@Component
+public class UserSessionIndex implements HttpSessionListener {
+
+	/**
+	 * The session attribute that holds the id of the user logged in the session.
+	 */
+	private static final String USER_ID_ATTRIBUTE = UserSessionIndex.class.getName() + ".USER_ID";
+
+	/**
+	 * The live sessions, by the id of the user logged in them.
+	 */
+	private final Map<Integer, Set<HttpSession>> sessionsByUser = new ConcurrentHashMap<>();
+
+	/**
+	 * Adds the session in which a user has just logged in.
+	 *
+	 * @param userId The id of the user.
+	 * @param session The session.
+	 */
+	public void add(int userId, HttpSession session) {
+		Object previousUserId = session.getAttribute(USER_ID_ATTRIBUTE);
+		if (previousUserId instanceof Integer previous && previous != userId) {
+			remove(previous, session);
+		}
+		session.setAttribute(USER_ID_ATTRIBUTE, userId);
+		sessionsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(session);
+	}
+
+	/**
+	 * Removes a session of a user, if it is indexed.
+	 *
+	 * @param userId The id of the user.
+	 * @param session The session.
+	 */
+	public void remove(int userId, HttpSession session) {
+		sessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+			sessions.remove(session);
+			return sessions.isEmpty() ? null : sessions;
+		});
+	}
+
+	/**
+	 * Returns the live sessions of a user.
+	 *
+	 * @param userId The id of the user.
+	 * @return The sessions, possibly including some invalidated since the last call.
+	 */
+	public List<HttpSession> getSessions(int userId) {
+		Set<HttpSession> sessions = sessionsByUser.get(userId);
+		return sessions == null ? List.of() : List.copyOf(sessions);
+	}
+
+	/**
+	 * Removes a session destroyed by the servlet container.
+	 *
+	 * @param event The event of the destroyed session.
+	 */
+	@Override
+	public void sessionDestroyed(HttpSessionEvent event) {
+		HttpSession session = event.getSession();
+		if (session.getAttribute(USER_ID_ATTRIBUTE) instanceof Integer userId) {
+			remove(userId, session);
+		}
+	}
+}
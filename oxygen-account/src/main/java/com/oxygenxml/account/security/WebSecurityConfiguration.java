@@ -3,14 +3,25 @@ package com.oxygenxml.account.security;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
 import com.oxygenxml.account.service.OxygenUserDetailsService;
 
 /**
@@ -20,6 +31,11 @@ import com.oxygenxml.account.service.OxygenUserDetailsService;
 @EnableWebSecurity
 public class WebSecurityConfiguration {
 
+	/**
+	 * The role of the scrape account, which may only read the metrics.
+	 */
+	private static final String METRICS_ROLE = "METRICS";
+
 	/**
 	 *  Service for user details retrieval.
 	 */
@@ -32,6 +48,24 @@ public class WebSecurityConfiguration {
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 	
+	/**
+	 * Limits the login attempts of each email and of each client address.
+	 */
+	@Autowired
+	private LoginThrottle loginThrottle;
+	
+	/**
+	 * Configuration object that provides the Retry-After of the logins rejected because the server is busy.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+	
+	/**
+	 * The live sessions of the users, to which the successful logins add their sessions.
+	 */
+	@Autowired
+	private UserSessionIndex userSessionIndex;
+	
 	/**
      * Configures authentication using user details and password encoder.
      *
@@ -44,17 +78,71 @@ public class WebSecurityConfiguration {
 	}
 	
 	/**
-	 * Creates a handler for authentication failures, redirecting the user to the login page with an "#invalid-user" URL hash if authentificatio fails
+	 * Creates a handler for authentication failures, redirecting the user to the login page with an "#invalid-user" URL hash if authentificatio fails,
+	 * or answering "503 Service Unavailable" if the password could not be verified because the server is busy
 	 * 
 	 * @return the authentification failure handler
 	 */
 	@Bean
 	public AuthenticationFailureHandler authenticationFailureHandler() {
-		return new CustomAuthenticationFailureHandler();
+		return new CustomAuthenticationFailureHandler(oxygenProperties.getPasswordHashingRetryAfterSeconds());
+	}
+	
+	/**
+	 * Creates a handler for successful logins, adding the session to the live sessions of the user and redirecting to the home page
+	 * 
+	 * @return the authentication success handler
+	 */
+	@Bean
+	public AuthenticationSuccessHandler authenticationSuccessHandler() {
+		return new IndexingAuthenticationSuccessHandler(userSessionIndex);
+	}
+	
+	/**
+	 * Lets the Prometheus server scrape the metrics with HTTP basic authentication, as the scrape account, without creating a session.
+	 * A logged-in administrator can still read them with the session of the form login.
+	 * The scrape account is checked by its own authentication manager, so it cannot log in to the application.
+	 *
+	 * @param http - the HttpSecurity instance
+	 * @return the build SecurityFilterChain
+	 * @throws Exception if an error occurs during the security configuration
+	 */
+	@Bean
+	@Order(1)
+	public SecurityFilterChain metricsScrapeFilterChain(HttpSecurity http) throws Exception {
+		http
+		.securityMatcher("/actuator/prometheus")
+		.csrf(csrf -> csrf.disable())
+		.authorizeHttpRequests(authz -> authz.anyRequest().hasAnyRole(METRICS_ROLE, "ADMIN"))
+		.httpBasic(basic -> basic.realmName("metrics"))
+		.requestCache(cache -> cache.requestCache(new NullRequestCache()))
+		.authenticationManager(metricsScrapeAuthenticationManager());
+
+		return http.build();
+	}
+	
+	/**
+	 * Creates the authentication manager of the scrape account. It knows no users if the password of the scrape account is missing.
+	 *
+	 * @return the authentication manager of the scrape account
+	 */
+	private AuthenticationManager metricsScrapeAuthenticationManager() {
+		InMemoryUserDetailsManager scrapeAccounts = new InMemoryUserDetailsManager();
+		String password = oxygenProperties.getMetricsScrapePassword();
+		if (password != null && !password.isBlank()) {
+			scrapeAccounts.createUser(User.withUsername(oxygenProperties.getMetricsScrapeUsername())
+					.password(password)
+					.roles(METRICS_ROLE)
+					.build());
+		}
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+		provider.setUserDetailsService(scrapeAccounts);
+		return new ProviderManager(provider);
 	}
 	
 	/**
-	 * This method defines security like disabling CSRF protection, defining which requests are allowed without authentication
+	 * This method defines security like disabling CSRF protection, defining which requests are allowed without authentication,
+	 * and limits the login attempts before the authentication filter
 	 * @param http - the HttpSecurity instance
 	 * @return the build SecurityFilterChain
 	 * @throws Exception if an error occurs during the security configuration
@@ -65,14 +153,19 @@ public class WebSecurityConfiguration {
 		.csrf(csrf -> csrf.disable())
 		.authorizeHttpRequests(authz->authz
 				.requestMatchers("/api/users/register", "/api/users/me", "/api/users/confirm").permitAll()
+				.requestMatchers("/api/admin/**").hasRole("ADMIN")
+				.requestMatchers("/actuator/health").permitAll()
+				.requestMatchers("/actuator/**").hasRole("ADMIN")
 				.anyRequest().authenticated())
 		.formLogin(form -> form
 				.loginPage("/login")
 				.usernameParameter("email")
 			    .passwordParameter("password")
+			    .successHandler(authenticationSuccessHandler())
 			    .failureHandler(authenticationFailureHandler())
 				.permitAll())
-		.logout(logout -> logout.logoutSuccessUrl("/login"));
+		.logout(logout -> logout.logoutSuccessUrl("/login"))
+		.addFilterBefore(new LoginThrottleFilter(loginThrottle, "/login", "email"), UsernamePasswordAuthenticationFilter.class);
 
 		return http.build();
 	}
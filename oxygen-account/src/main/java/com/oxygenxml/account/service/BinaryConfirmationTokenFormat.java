@@ -0,0 +1,237 @@
+package com.oxygenxml.account.service;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.oxygenxml.account.model.ConfirmationToken;
+import com.oxygenxml.account.type.TokenFormat;
+
+/**
+ * The confirmation tokens as fixed-layout binary tokens, encoded as unpadded Base64URL.
+ * <p>
+ * A token is 25 bytes: the format version, the user id as a 4-byte integer, the registration date as 4-byte unsigned epoch seconds
+ * and the first 16 bytes of the HMAC-SHA256 of the previous 9 bytes. It is encoded and verified without JSON or maps, with one
+ * {@link Mac} per key and thread. The token does not name its key, so it is verified against every key of the {@link TokenKeyring}.
+ */
+@Component
+public class BinaryConfirmationTokenFormat implements ConfirmationTokenFormat {
+
+	/**
+	 * The version of the layout, written in the first byte.
+	 */
+	private static final byte VERSION = 1;
+
+	/**
+	 * The number of bytes covered by the tag: the version, the user id and the registration date.
+	 */
+	private static final int PAYLOAD_LENGTH = 9;
+
+	/**
+	 * The number of bytes of the HMAC-SHA256 kept in the token.
+	 */
+	private static final int TAG_LENGTH = 16;
+
+	/**
+	 * The number of bytes of a token.
+	 */
+	private static final int TOKEN_LENGTH = PAYLOAD_LENGTH + TAG_LENGTH;
+
+	/**
+	 * The number of characters of an encoded token.
+	 */
+	private static final int ENCODED_LENGTH = (TOKEN_LENGTH * 8 + 5) / 6;
+
+	/**
+	 * The algorithm of the tag.
+	 */
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	/**
+	 * The keys that sign and verify the tokens.
+	 */
+	@Autowired
+	private TokenKeyring keyring;
+
+	/**
+	 * The largest number of idle MAC states kept for reuse.
+	 */
+	private static final int MAC_POOL_CAPACITY = 2 * Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The idle MAC states, one per key, and the buffers that receive the tags. They are pooled rather than kept per thread,
+	 * so they are reused also when each request runs on a new virtual thread.
+	 */
+	private final BlockingQueue<MacState> macStates = new ArrayBlockingQueue<>(MAC_POOL_CAPACITY);
+
+	/**
+	 * The MACs of a token operation, in the order of the keys of the keyring, and the buffer that receives the tags.
+	 *
+	 * @param macs The MACs, the one of the signing key first.
+	 * @param tag The buffer that receives a full HMAC-SHA256.
+	 */
+	private record MacState(Mac[] macs, byte[] tag) {
+	}
+
+	/**
+	 * Returns the binary format.
+	 *
+	 * @return {@link TokenFormat#BINARY}
+	 */
+	@Override
+	public TokenFormat getFormat() {
+		return TokenFormat.BINARY;
+	}
+
+	/**
+	 * Generates a binary token holding the user id and the creation date, signed with the current key.
+	 *
+	 * @param userId The id of the user.
+	 * @param creationDate The registration date of the user, kept with a precision of one second.
+	 * @return The token.
+	 */
+	@Override
+	public String generate(int userId, Timestamp creationDate) {
+		byte[] token = new byte[TOKEN_LENGTH];
+		token[0] = VERSION;
+		writeInt(token, 1, userId);
+		writeInt(token, 5, (int) (creationDate.getTime() / 1000));
+
+		MacState state = borrowMacState();
+		try {
+			computeTag(state.macs()[0], token, state.tag());
+			System.arraycopy(state.tag(), 0, token, PAYLOAD_LENGTH, TAG_LENGTH);
+		} finally {
+			macStates.offer(state);
+		}
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+	}
+
+	/**
+	 * Accepts the tokens with the length of an encoded binary token and no dot.
+	 *
+	 * @param token The token.
+	 * @return true if the token has the shape of a binary token.
+	 */
+	@Override
+	public boolean accepts(String token) {
+		return token.length() == ENCODED_LENGTH && token.indexOf('.') < 0;
+	}
+
+	/**
+	 * Verifies a binary token against every key and reads its content.
+	 * The tags of all the keys are computed and compared in constant time, so the time does not reveal which key matched.
+	 *
+	 * @param token The token.
+	 * @return The content of the token.
+	 * @throws IllegalArgumentException if the token is malformed, has an unknown version or its tag matches no key.
+	 */
+	@Override
+	public ConfirmationToken parse(String token) {
+		if (!accepts(token)) {
+			throw new IllegalArgumentException("Malformed confirmation token");
+		}
+		byte[] bytes = Base64.getUrlDecoder().decode(token);
+		if (bytes.length != TOKEN_LENGTH || bytes[0] != VERSION) {
+			throw new IllegalArgumentException("Unsupported confirmation token");
+		}
+
+		MacState state = borrowMacState();
+		boolean valid = false;
+		try {
+			for (Mac mac : state.macs()) {
+				computeTag(mac, bytes, state.tag());
+				valid |= tagMatches(bytes, state.tag());
+			}
+		} finally {
+			macStates.offer(state);
+		}
+		if (!valid) {
+			throw new IllegalArgumentException("Invalid confirmation token signature");
+		}
+
+		long creationSeconds = Integer.toUnsignedLong(readInt(bytes, 5));
+		return new ConfirmationToken(readInt(bytes, 1), new Timestamp(creationSeconds * 1000));
+	}
+
+	/**
+	 * Takes an idle MAC state, or creates one if none is idle. It is given back with {@code macStates.offer}, which drops it if the pool is full.
+	 */
+	private MacState borrowMacState() {
+		MacState state = macStates.poll();
+		return state != null ? state : createMacState();
+	}
+
+	/**
+	 * Computes the HMAC-SHA256 of the payload of a token into the given buffer.
+	 */
+	private static void computeTag(Mac mac, byte[] token, byte[] tag) {
+		mac.update(token, 0, PAYLOAD_LENGTH);
+		try {
+			mac.doFinal(tag, 0);
+		} catch (ShortBufferException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Compares the tag of a token with the truncated computed tag, in constant time.
+	 */
+	private static boolean tagMatches(byte[] token, byte[] tag) {
+		int difference = 0;
+		for (int i = 0; i < TAG_LENGTH; i++) {
+			difference |= token[PAYLOAD_LENGTH + i] ^ tag[i];
+		}
+		return difference == 0;
+	}
+
+	/**
+	 * Creates the MACs of a thread.
+	 */
+	private MacState createMacState() {
+		List<SecretKey> keys = keyring.getKeys();
+		Mac[] macs = new Mac[keys.size()];
+		try {
+			for (int i = 0; i < macs.length; i++) {
+				macs[i] = Mac.getInstance(HMAC_ALGORITHM);
+				macs[i].init(new SecretKeySpec(keys.get(i).getEncoded(), HMAC_ALGORITHM));
+			}
+		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
+			throw new IllegalStateException(e);
+		}
+		return new MacState(macs, new byte[macs[0].getMacLength()]);
+	}
+
+	/**
+	 * Writes a big-endian integer.
+	 */
+	private static void writeInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >>> 24);
+		bytes[offset + 1] = (byte) (value >>> 16);
+		bytes[offset + 2] = (byte) (value >>> 8);
+		bytes[offset + 3] = (byte) value;
+	}
+
+	/**
+	 * Reads a big-endian integer.
+	 */
+	private static int readInt(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xff) << 24
+				| (bytes[offset + 1] & 0xff) << 16
+				| (bytes[offset + 2] & 0xff) << 8
+				| (bytes[offset + 3] & 0xff);
+	}
+}
@@ -0,0 +1,45 @@
+package com.oxygenxml.account.service;
+
+import java.sql.Timestamp;
+
+import com.oxygenxml.account.model.ConfirmationToken;
+import com.oxygenxml.account.type.TokenFormat;
+
+/**
+ * A format of the confirmation tokens sent in the registration emails.
+ */
+public interface ConfirmationTokenFormat {
+
+	/**
+	 * Returns the format implemented by this instance.
+	 * 
+	 * @return The format.
+	 */
+	TokenFormat getFormat();
+
+	/**
+	 * Generates a confirmation token.
+	 * 
+	 * @param userId The id of the user.
+	 * @param creationDate The registration date of the user.
+	 * @return The token, safe to use in a URL.
+	 */
+	String generate(int userId, Timestamp creationDate);
+
+	/**
+	 * Checks whether a token has the shape of this format, without verifying it.
+	 * 
+	 * @param token The token.
+	 * @return true if the token should be verified by this format.
+	 */
+	boolean accepts(String token);
+
+	/**
+	 * Verifies a token and returns its content.
+	 * 
+	 * @param token The token.
+	 * @return The content of the token.
+	 * @throws IllegalArgumentException if the token is malformed or its signature is invalid.
+	 */
+	ConfirmationToken parse(String token);
+}
@@ -0,0 +1,70 @@
+package com.oxygenxml.account.service;
+
+import java.sql.Timestamp;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.model.ConfirmationToken;
+import com.oxygenxml.account.type.TokenFormat;
+
+/**
+ * Service class that generates and verifies the confirmation tokens sent in the registration emails.
+ * The new tokens use the configured format, and the tokens of every known format are accepted, so the format
+ * can be changed without invalidating the links already sent.
+ */
+@Service
+public class ConfirmationTokenService {
+
+	/**
+	 * The known token formats, by format.
+	 */
+	private final Map<TokenFormat, ConfirmationTokenFormat> formats = new EnumMap<>(TokenFormat.class);
+
+	/**
+	 * Configuration object that provides the format of the new tokens.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * Registers the known token formats.
+	 *
+	 * @param formats The token formats defined in the application.
+	 */
+	@Autowired
+	void setFormats(List<ConfirmationTokenFormat> formats) {
+		formats.forEach(format -> this.formats.put(format.getFormat(), format));
+	}
+
+	/**
+	 * Generates a confirmation token in the configured format.
+	 *
+	 * @param userId The id of the user.
+	 * @param creationDate The registration date of the user.
+	 * @return The token, safe to use in a URL.
+	 */
+	public String generateEmailConfirmationToken(int userId, Timestamp creationDate) {
+		return formats.get(oxygenProperties.getConfirmationTokenFormat()).generate(userId, creationDate);
+	}
+
+	/**
+	 * Verifies a confirmation token of any known format and returns its content.
+	 *
+	 * @param token The token.
+	 * @return The content of the token.
+	 * @throws IllegalArgumentException if the token has no known format, is malformed or its signature is invalid.
+	 */
+	public ConfirmationToken parseToken(String token) {
+		for (ConfirmationTokenFormat format : formats.values()) {
+			if (format.accepts(token)) {
+				return format.parse(token);
+			}
+		}
+		throw new IllegalArgumentException("Unknown confirmation token format");
+	}
+}
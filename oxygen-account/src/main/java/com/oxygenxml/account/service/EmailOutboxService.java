@@ -0,0 +1,183 @@
+package com.oxygenxml.account.service;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.dto.EmailInfo;
+import com.oxygenxml.account.model.OutboxEmail;
+import com.oxygenxml.account.model.OutboxStatus;
+import com.oxygenxml.account.repository.OutboxEmailRepository;
+import com.oxygenxml.account.utility.DateUtility;
+
+/**
+ * Service class that stores the outgoing emails in the outbox table and tracks their delivery.
+ * <p>
+ * An email is inserted in the transaction that caused it, for example the insert of a new user, so it is sent if and only if
+ * that transaction commits and it survives a crash of the instance. The {@link com.oxygenxml.account.task.EmailOutboxDispatcher}
+ * claims the due emails in batches, sends them and reports the outcome, and a failed email is retried with an exponential backoff.
+ */
+@Service
+public class EmailOutboxService {
+
+	/**
+	 * The maximum length of the error stored for a failed attempt.
+	 */
+	private static final int MAX_ERROR_LENGTH = 1000;
+
+	/**
+	 * The type of the data of the templates, as read from JSON.
+	 */
+	private static final TypeReference<Map<String, Object>> EMAIL_DATA_TYPE = new TypeReference<>() {};
+
+	/**
+	 * Instance of OutboxEmailRepository to interact with the database.
+	 */
+	@Autowired
+	private OutboxEmailRepository outboxEmailRepository;
+
+	/**
+	 * Writes and reads the data of the templates.
+	 */
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Configuration object that provides the batch size, the claim duration and the retry policy.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * Inserts an email in the outbox, in the current transaction.
+	 *
+	 * @param emailInfo The email to send.
+	 * @throws IllegalStateException if no transaction is active, since the email would be sent even if the change that caused it is rolled back,
+	 * or if the data of the email cannot be written as JSON.
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void enqueue(EmailInfo emailInfo) {
+		Timestamp now = DateUtility.getCurrentUTCTimestamp();
+
+		OutboxEmail email = new OutboxEmail();
+		email.setType(emailInfo.getType());
+		email.setEmailAddress(emailInfo.getEmailAddress());
+		email.setLocale(emailInfo.getLocale() == null ? null : emailInfo.getLocale().toLanguageTag());
+		try {
+			email.setEmailData(objectMapper.writeValueAsString(emailInfo.getEmailData()));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("The data of the email cannot be written", e);
+		}
+		email.setStatus(OutboxStatus.PENDING);
+		email.setCreationDate(now);
+		email.setNextAttemptDate(now);
+
+		outboxEmailRepository.save(email);
+	}
+
+	/**
+	 * Claims a batch of due emails for the current dispatcher. The claim expires after the configured lease,
+	 * so the emails of a dispatcher that stopped are claimed again by another one.
+	 *
+	 * @return The claimed emails, at most the configured batch size.
+	 */
+	@Transactional
+	public List<OutboxEmail> claimBatch() {
+		Timestamp now = DateUtility.getCurrentUTCTimestamp();
+		Timestamp claimedUntil = new Timestamp(now.getTime() + oxygenProperties.getEmailOutboxLeaseMillis());
+		String claimToken = UUID.randomUUID().toString();
+
+		int claimed = outboxEmailRepository.claim(claimToken, claimedUntil, OutboxStatus.PENDING.getCode(), now, oxygenProperties.getEmailOutboxBatchSize());
+		return claimed == 0 ? List.of() : outboxEmailRepository.findByClaimToken(claimToken);
+	}
+
+	/**
+	 * Rebuilds the email described by an outbox row.
+	 *
+	 * @param email The outbox row.
+	 * @return The email to send.
+	 * @throws IllegalStateException if the stored data of the email cannot be read.
+	 */
+	public EmailInfo toEmailInfo(OutboxEmail email) {
+		EmailInfo emailInfo = new EmailInfo();
+		emailInfo.setType(email.getType());
+		emailInfo.setEmailAddress(email.getEmailAddress());
+		emailInfo.setLocale(email.getLocale() == null ? null : Locale.forLanguageTag(email.getLocale()));
+		try {
+			emailInfo.setEmailData(objectMapper.readValue(email.getEmailData(), EMAIL_DATA_TYPE));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("The data of the email cannot be read", e);
+		}
+		return emailInfo;
+	}
+
+	/**
+	 * Removes the sent emails from the outbox, with a single statement.
+	 *
+	 * @param emails The sent emails.
+	 */
+	@Transactional
+	public void markSent(List<OutboxEmail> emails) {
+		outboxEmailRepository.deleteAllByIdInBatch(emails.stream().map(OutboxEmail::getId).toList());
+	}
+
+	/**
+	 * Records a failed attempt and releases the claim. The email is retried after a delay that doubles with every attempt,
+	 * up to the configured maximum, and is marked as failed once the configured number of attempts is reached.
+	 *
+	 * @param email The email that could not be sent.
+	 * @param error The cause of the failure.
+	 * @return true if the email will be retried, false if it was marked as failed.
+	 */
+	@Transactional
+	public boolean markAttemptFailed(OutboxEmail email, Exception error) {
+		int attempts = email.getAttempts() + 1;
+		boolean retry = attempts < oxygenProperties.getEmailOutboxMaxAttempts();
+
+		email.setAttempts(attempts);
+		email.setStatus(retry ? OutboxStatus.PENDING : OutboxStatus.FAILED);
+		email.setNextAttemptDate(new Timestamp(DateUtility.getCurrentUTCTimestamp().getTime() + retryDelayMillis(attempts)));
+		email.setClaimToken(null);
+		email.setClaimedUntil(null);
+		email.setLastError(describe(error));
+
+		outboxEmailRepository.save(email);
+		return retry;
+	}
+
+	/**
+	 * Returns the delay before the next attempt: the base delay, doubled for every previous failed attempt, up to the maximum delay.
+	 *
+	 * @param attempts The number of failed attempts, at least 1.
+	 * @return The delay in milliseconds.
+	 */
+	long retryDelayMillis(int attempts) {
+		long baseMillis = oxygenProperties.getEmailOutboxRetryBaseMillis();
+		long maxMillis = oxygenProperties.getEmailOutboxRetryMaxMillis();
+		int doublings = Math.min(attempts - 1, Long.numberOfLeadingZeros(baseMillis) - 1);
+		return Math.min(baseMillis << doublings, maxMillis);
+	}
+
+	/**
+	 * Describes the cause of a failure, within the length of the last_error column.
+	 */
+	private static String describe(Exception error) {
+		Throwable cause = error;
+		while (cause.getCause() != null && cause.getCause() != cause) {
+			cause = cause.getCause();
+		}
+		String description = error == cause ? String.valueOf(error) : error + " caused by " + cause;
+		return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
+	}
+}
@@ -1,73 +1,166 @@
 package com.oxygenxml.account.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
 
 import com.oxygenxml.account.dto.EmailInfo;
 import com.oxygenxml.account.exception.EmailException;
 import com.oxygenxml.account.messages.EmailMessage;
+import com.oxygenxml.account.metrics.OperationMetrics;
+import com.oxygenxml.account.type.EmailType;
 
-import freemarker.template.Configuration;
-import freemarker.template.Template;
-import freemarker.template.TemplateException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.AllArgsConstructor;
 
 /**
  * Service class responsible for sending email messages.
+ * <p>
+ * The time spent rendering each email, by type and outcome, and the time spent sending each batch over SMTP, by outcome, are published
+ * separately, together with the number of messages of each batch.
  */
 @Service
 @AllArgsConstructor
-public class EmailService {
+public class EmailService implements MeterBinder {
+
+	/**
+	 * The timer of the rendering of an email, from its templates to the message ready to be sent.
+	 */
+	public static final String RENDER = "oxygen.email.render";
+
+	/**
+	 * The timer of the sending of a batch of messages over SMTP.
+	 */
+	public static final String SMTP = "oxygen.email.smtp";
+
+	/**
+	 * The summary of the number of messages sent together over SMTP.
+	 */
+	public static final String BATCH_SIZE = "oxygen.email.batch.size";
+
+	/**
+	 * The tag holding the type of the email.
+	 */
+	public static final String TYPE_TAG = "type";
+
+	/**
+	 * The type tag of the emails that have no type.
+	 */
+	private static final String NO_TYPE = "none";
+
+	/**
+	 * The registry of the metrics recorded before the service is bound to the registry of the application. Having no registries, it discards them.
+	 */
+	private static final MeterRegistry UNBOUND_REGISTRY = new CompositeMeterRegistry();
 	
 	/**
-     * The JavaMailSender instance used to send email messages.
+     * The JavaMailSender instance used to create email messages.
      */
     final JavaMailSender javaMailSender;
     
     /**
-     * The FreeMarker configuration for processing email templates.
+     * The registry of the email templates, resolved at startup.
      */
-    private final Configuration freemarkerConfig;
+    private final EmailTemplateRegistry templateRegistry;
+
+    /**
+     * The pool of SMTP connections that sends the messages.
+     */
+    private final SmtpTransportPool transportPool;
+
+    /**
+     * The registry that receives the metrics.
+     */
+    private final AtomicReference<MeterRegistry> registry = new AtomicReference<>(UNBOUND_REGISTRY);
 
     /**
      * Sends an email based on the provided EmailInfo.
      *
-     * @param emailInfo The EmailInfo object containing email type, address, and email data for template.
+     * @param emailInfo The EmailInfo object containing email type, address, locale and email data for template.
      * @throws EmailException If there is an issue with sending the email.
      */
     public void sendEmail(EmailInfo emailInfo) throws EmailException {
-    	
-    	/**
-    	 * Template for the email body content.
-    	 */
-        Template templateBody;
-        
-        /**
-         * Template for the email subject.
-         */
-        Template templateSubject;
-        
-        switch (emailInfo.getType()) {
-        case CONFIRM_REGISTRATION:
-            try {
-                templateBody = freemarkerConfig.getTemplate("registration-body.ftlh");
-                templateSubject = freemarkerConfig.getTemplate("registration-subject.ftlh");
-            } catch (java.io.IOException e) {
-            	throw new EmailException(EmailMessage.EMAIL_TEMPLATE_NOT_FOUND.getMessage(), e);
-            }
-            break;
-        default:
-        	throw new EmailException(EmailMessage.EMAIL_TYPE_NOT_FOUND.getMessage(), null);
-        }
-        
+    	EmailException failure = sendEmails(List.of(emailInfo)).get(0);
+    	if (failure != null) {
+    		throw failure;
+    	}
+    }
+
+    /**
+     * Sends several emails over one pooled SMTP connection. An email that cannot be rendered or is rejected does not stop the others.
+     *
+     * @param emails The emails to send.
+     * @return The failures, in the order of the emails: null for a sent email, otherwise the cause of the failure.
+     */
+    public List<EmailException> sendEmails(List<EmailInfo> emails) {
+    	EmailException[] failures = new EmailException[emails.size()];
+    	List<MimeMessage> messages = new ArrayList<>(emails.size());
+    	List<Integer> messageIndexes = new ArrayList<>(emails.size());
+
+    	for (int i = 0; i < emails.size(); i++) {
+    		EmailType type = emails.get(i).getType();
+    		long start = System.nanoTime();
+    		try {
+    			messages.add(createMessage(emails.get(i)));
+    			messageIndexes.add(i);
+    			recordRender(type, OperationMetrics.SUCCESS, start);
+    		} catch (EmailException e) {
+    			failures[i] = e;
+    			recordRender(type, OperationMetrics.ERROR, start);
+    		}
+    	}
+
+    	if (!messages.isEmpty()) {
+    		long start = System.nanoTime();
+    		String outcome = OperationMetrics.SUCCESS;
+    		try {
+    			List<MessagingException> sendFailures = transportPool.send(messages.toArray(new MimeMessage[0]));
+    			for (int i = 0; i < sendFailures.size(); i++) {
+    				if (sendFailures.get(i) != null) {
+    					failures[messageIndexes.get(i)] = new EmailException(EmailMessage.EMAIL_SENDING_FAILED.getMessage(), sendFailures.get(i));
+    					outcome = OperationMetrics.FAILURE;
+    				}
+    			}
+    		} catch (MessagingException e) {
+    			for (int index : messageIndexes) {
+    				failures[index] = new EmailException(EmailMessage.EMAIL_SENDING_FAILED.getMessage(), e);
+    			}
+    			outcome = OperationMetrics.ERROR;
+    		}
+    		recordSmtp(outcome, start, messages.size());
+    	}
+
+    	return Arrays.asList(failures);
+    }
+
+    /**
+     * Renders an email into a message.
+     *
+     * @param emailInfo The EmailInfo object containing email type, address, locale and email data for template.
+     * @return The message, ready to be sent.
+     * @throws EmailException If the email has no type, cannot be rendered or has an invalid address.
+     */
+    private MimeMessage createMessage(EmailInfo emailInfo) throws EmailException {
+    	if (emailInfo.getType() == null) {
+    		throw new EmailException(EmailMessage.EMAIL_TYPE_NOT_FOUND.getMessage(), null);
+    	}
+
+		String templateBodyContent = templateRegistry.renderBody(emailInfo.getType(), emailInfo.getLocale(), emailInfo.getEmailData());
+		String templateSubjectContent = templateRegistry.renderSubject(emailInfo.getType(), emailInfo.getLocale(), emailInfo.getEmailData());
+
 		try {
-			String templateBodyContent = FreeMarkerTemplateUtils.processTemplateIntoString(templateBody, emailInfo.getEmailData());
-			String templateSubjectContent = FreeMarkerTemplateUtils.processTemplateIntoString(templateSubject, null);
-			
 			/**
 			 * MimeMessage for composing the email.
 			 */
@@ -82,11 +175,55 @@ public class EmailService {
 			helper.setSubject(templateSubjectContent);
 		    helper.setText(templateBodyContent, true);
 
-	        javaMailSender.send(mimeMessage);
-		} catch (java.io.IOException | TemplateException e) {
-			throw new EmailException(EmailMessage.EMAIL_TEMPLATE_PROCESSING_FAILED.getMessage(), e);
+	        return mimeMessage;
 		} catch (MessagingException e) {
 			throw new EmailException(EmailMessage.EMAIL_PROPERTIES_NOT_FOUND.getMessage(), e);
 		}
     }
-}
\ No newline at end of file
+
+    /**
+     * Records the rendering of an email.
+     *
+     * @param type The type of the email, or null if it has none.
+     * @param outcome {@link OperationMetrics#SUCCESS} or {@link OperationMetrics#ERROR}.
+     * @param start The moment the rendering started, from {@link System#nanoTime()}.
+     */
+    private void recordRender(EmailType type, String outcome, long start) {
+    	Timer.builder(RENDER)
+    			.tag(TYPE_TAG, type == null ? NO_TYPE : type.name())
+    			.tag(OperationMetrics.OUTCOME_TAG, outcome)
+    			.description("The time spent rendering an email")
+    			.register(registry.get())
+    			.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the sending of a batch of messages over SMTP.
+     *
+     * @param outcome {@link OperationMetrics#SUCCESS} if every message was sent, {@link OperationMetrics#FAILURE} if some were rejected,
+     * or {@link OperationMetrics#ERROR} if no connection could be used.
+     * @param start The moment the sending started, from {@link System#nanoTime()}.
+     * @param messages The number of messages of the batch.
+     */
+    private void recordSmtp(String outcome, long start, int messages) {
+    	Timer.builder(SMTP)
+    			.tag(OperationMetrics.OUTCOME_TAG, outcome)
+    			.description("The time spent sending a batch of emails over SMTP")
+    			.register(registry.get())
+    			.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    	DistributionSummary.builder(BATCH_SIZE)
+    			.description("The number of emails sent together over SMTP")
+    			.register(registry.get())
+    			.record(messages);
+    }
+
+    /**
+     * Records the next emails in the given registry.
+     *
+     * @param registry The registry that receives the metrics.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+    	this.registry.set(registry);
+    }
+}
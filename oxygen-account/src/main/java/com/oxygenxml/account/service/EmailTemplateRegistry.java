@@ -0,0 +1,248 @@
+package com.oxygenxml.account.service;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.exception.EmailException;
+import com.oxygenxml.account.messages.EmailMessage;
+import com.oxygenxml.account.type.EmailType;
+import com.oxygenxml.account.utility.StringBuilderWriter;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * The email templates, by email type and locale, resolved and validated once at startup.
+ * <p>
+ * The subjects without variables are rendered once, and the bodies are rendered into pooled buffers.
+ * A missing or invalid template stops the startup instead of failing the first email of its type.
+ * When the hot reload is enabled, for development, the templates are resolved again on every email, so the changes
+ * to the template files are visible without a restart.
+ */
+@Component
+public class EmailTemplateRegistry {
+
+	/**
+	 * The suffix of the subject templates.
+	 */
+	private static final String SUBJECT_SUFFIX = "-subject.ftlh";
+
+	/**
+	 * The suffix of the body templates.
+	 */
+	private static final String BODY_SUFFIX = "-body.ftlh";
+
+	/**
+	 * The markers of the FreeMarker interpolations and directives. A subject without any of them has no variables.
+	 */
+	private static final String[] TEMPLATE_MARKERS = {"${", "#{", "<#", "<@", "[#", "[@", "[="};
+
+	/**
+	 * The initial capacity of the buffers that receive the bodies.
+	 */
+	private static final int BUFFER_CAPACITY = 4 * 1024;
+
+	/**
+	 * The largest buffer kept for the next body. A larger buffer, grown by an unusually long body, is dropped after use.
+	 */
+	private static final int MAX_POOLED_BUFFER_CAPACITY = 64 * 1024;
+
+	/**
+	 * The largest number of idle buffers kept for reuse.
+	 */
+	private static final int BUFFER_POOL_CAPACITY = 2 * Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The FreeMarker configuration that loads the templates.
+	 */
+	@Autowired
+	private Configuration freemarkerConfig;
+
+	/**
+	 * Configuration object that provides the locales of the templates and the hot reload switch.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * The templates, by email type and locale.
+	 */
+	private final Map<EmailType, Map<Locale, EmailTemplates>> templates = new EnumMap<>(EmailType.class);
+
+	/**
+	 * The locale used when the locale of an email has no templates.
+	 */
+	private Locale defaultLocale;
+
+	/**
+	 * The idle buffers that receive the bodies. They are pooled rather than kept per thread,
+	 * so they are reused also when each email is rendered on a new virtual thread.
+	 */
+	private final BlockingQueue<StringBuilderWriter> buffers = new ArrayBlockingQueue<>(BUFFER_POOL_CAPACITY);
+
+	/**
+	 * The templates of an email type in a locale.
+	 *
+	 * @param subject The template of the subject.
+	 * @param renderedSubject The subject, if the subject template has no variables, otherwise null.
+	 * @param body The template of the body.
+	 */
+	private record EmailTemplates(Template subject, String renderedSubject, Template body) {
+	}
+
+	/**
+	 * Resolves and validates the templates of every email type in every configured locale.
+	 *
+	 * @throws IllegalStateException if a template is missing or invalid.
+	 */
+	@PostConstruct
+	void loadTemplates() {
+		List<Locale> locales = oxygenProperties.getEmailTemplateLocales();
+		if (locales.isEmpty()) {
+			throw new IllegalStateException("No locale is configured for the email templates");
+		}
+		defaultLocale = locales.get(0);
+		if (oxygenProperties.isEmailTemplateHotReload()) {
+			freemarkerConfig.setTemplateUpdateDelayMilliseconds(0);
+		}
+
+		for (EmailType type : EmailType.values()) {
+			Map<Locale, EmailTemplates> byLocale = new HashMap<>();
+			for (Locale locale : locales) {
+				try {
+					byLocale.put(locale, resolve(type, locale));
+				} catch (IOException | TemplateException e) {
+					throw new IllegalStateException("Invalid email templates for " + type + " in locale " + locale, e);
+				}
+			}
+			templates.put(type, Map.copyOf(byLocale));
+		}
+	}
+
+	/**
+	 * Returns the subject of an email.
+	 *
+	 * @param type The type of the email.
+	 * @param locale The locale of the email, or null for the default locale.
+	 * @param model The data of the email.
+	 * @return The subject.
+	 * @throws EmailException if the subject cannot be rendered.
+	 */
+	public String renderSubject(EmailType type, Locale locale, Map<String, Object> model) throws EmailException {
+		EmailTemplates emailTemplates = getTemplates(type, locale);
+		if (emailTemplates.renderedSubject() != null) {
+			return emailTemplates.renderedSubject();
+		}
+		return render(emailTemplates.subject(), model);
+	}
+
+	/**
+	 * Returns the body of an email.
+	 *
+	 * @param type The type of the email.
+	 * @param locale The locale of the email, or null for the default locale.
+	 * @param model The data of the email.
+	 * @return The body.
+	 * @throws EmailException if the body cannot be rendered.
+	 */
+	public String renderBody(EmailType type, Locale locale, Map<String, Object> model) throws EmailException {
+		return render(getTemplates(type, locale).body(), model);
+	}
+
+	/**
+	 * Returns the templates of an email type in the closest configured locale: the locale itself, its language or the default locale.
+	 * With the hot reload enabled the templates are resolved again.
+	 */
+	private EmailTemplates getTemplates(EmailType type, Locale locale) throws EmailException {
+		Map<Locale, EmailTemplates> byLocale = templates.get(type);
+		if (byLocale == null) {
+			throw new EmailException(EmailMessage.EMAIL_TYPE_NOT_FOUND.getMessage(), null);
+		}
+
+		Locale resolvedLocale = defaultLocale;
+		if (locale != null) {
+			Locale language = new Locale(locale.getLanguage());
+			if (byLocale.containsKey(locale)) {
+				resolvedLocale = locale;
+			} else if (byLocale.containsKey(language)) {
+				resolvedLocale = language;
+			}
+		}
+
+		if (!oxygenProperties.isEmailTemplateHotReload()) {
+			return byLocale.get(resolvedLocale);
+		}
+		try {
+			return resolve(type, resolvedLocale);
+		} catch (IOException | TemplateException e) {
+			throw new EmailException(EmailMessage.EMAIL_TEMPLATE_NOT_FOUND.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Loads the templates of an email type in a locale and renders the subject if it has no variables.
+	 */
+	private EmailTemplates resolve(EmailType type, Locale locale) throws IOException, TemplateException {
+		Template subject = freemarkerConfig.getTemplate(type.getTemplatePrefix() + SUBJECT_SUFFIX, locale);
+		Template body = freemarkerConfig.getTemplate(type.getTemplatePrefix() + BODY_SUFFIX, locale);
+
+		String renderedSubject = null;
+		if (!hasVariables(subject)) {
+			StringBuilderWriter writer = new StringBuilderWriter(subject.toString().length());
+			subject.process(Map.of(), writer);
+			renderedSubject = writer.toString();
+		}
+		return new EmailTemplates(subject, renderedSubject, body);
+	}
+
+	/**
+	 * Checks whether a template contains interpolations or directives.
+	 */
+	private static boolean hasVariables(Template template) {
+		String source = template.toString();
+		for (String marker : TEMPLATE_MARKERS) {
+			if (source.contains(marker)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Renders a template into a pooled buffer.
+	 */
+	private String render(Template template, Map<String, Object> model) throws EmailException {
+		StringBuilderWriter writer = borrowBuffer();
+		try {
+			template.process(model, writer);
+			return writer.toString();
+		} catch (IOException | TemplateException e) {
+			throw new EmailException(EmailMessage.EMAIL_TEMPLATE_PROCESSING_FAILED.getMessage(), e);
+		} finally {
+			if (writer.capacity() <= MAX_POOLED_BUFFER_CAPACITY) {
+				writer.reset();
+				buffers.offer(writer);
+			}
+		}
+	}
+
+	/**
+	 * Takes an idle buffer, or creates one if none is idle. It is given back with {@code buffers.offer}, which drops it if the pool is full.
+	 */
+	private StringBuilderWriter borrowBuffer() {
+		StringBuilderWriter writer = buffers.poll();
+		return writer != null ? writer : new StringBuilderWriter(BUFFER_CAPACITY);
+	}
+}
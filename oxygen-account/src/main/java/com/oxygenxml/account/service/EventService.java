@@ -5,18 +5,13 @@ import java.util.Map;
 
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.oxygenxml.account.dto.EmailInfo;
 import com.oxygenxml.account.events.RegistrationEvent;
-import com.oxygenxml.account.exception.EmailException;
 import com.oxygenxml.account.model.User;
 import com.oxygenxml.account.type.EmailTemplateData;
 import com.oxygenxml.account.type.EmailType;
 
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 
 /**
@@ -27,17 +22,19 @@ import lombok.AllArgsConstructor;
 public class EventService {
 	
 	/**
-	 * The email service responsible for sending email.
+	 * The outbox that receives the emails, sent later by the dispatcher.
 	 */
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
     
     /**
-     * The JWT (JSON Web Token) service used for generating email confirmation tokens.
+     * The service used for generating email confirmation tokens.
      */
-    private final JwtService jwtService;
+    private final ConfirmationTokenService confirmationTokenService;
 
     /**
      * Event listener method for handling user registration events.
+     * The confirmation email is inserted in the outbox in the transaction of the new user, so the request does not wait for the SMTP server
+     * and the email is sent even if the instance stops before sending it.
      *
      * @param event The RegistrationEvent containing user registration information.
      */
@@ -48,28 +45,19 @@ public class EventService {
         Map<String, Object> emailData = new HashMap<>();
         emailData.put(EmailTemplateData.NAME.getName(), newUser.getName());
         
-        String token = jwtService.generateEmailConfirmationToken(newUser.getId(), newUser.getRegistrationDate());
+        String token = confirmationTokenService.generateEmailConfirmationToken(newUser.getId(), newUser.getRegistrationDate());
 		emailData.put(EmailTemplateData.TOKEN.getName(), token);
 		
-		HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
-	    String baseUrl = ServletUriComponentsBuilder.fromRequestUri(request)
-	    		.replacePath(null)
-	    		.build()
-	    		.toUriString();
-	    emailData.put(EmailTemplateData.BASEURL.getName(), baseUrl);
+	    emailData.put(EmailTemplateData.BASEURL.getName(), event.getBaseUrl());
 		
-        try {
-        	/**
-        	 * Object containing information about the email.
-        	 */
-            EmailInfo emailInfo = new EmailInfo();
-            emailInfo.setType(EmailType.CONFIRM_REGISTRATION);
-            emailInfo.setEmailAddress(newUser.getEmail());
-    		emailInfo.setEmailData(emailData);
-    		
-        	emailService.sendEmail(emailInfo);
-		} catch (EmailException e) {
-			System.err.println("Could not send registration email!");
-		}
+    	/**
+    	 * Object containing information about the email.
+    	 */
+        EmailInfo emailInfo = new EmailInfo();
+        emailInfo.setType(EmailType.CONFIRM_REGISTRATION);
+        emailInfo.setEmailAddress(newUser.getEmail());
+		emailInfo.setEmailData(emailData);
+		
+		emailOutboxService.enqueue(emailInfo);
     }
 }
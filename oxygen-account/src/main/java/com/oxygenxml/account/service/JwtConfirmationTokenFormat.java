@@ -0,0 +1,84 @@
+package com.oxygenxml.account.service;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.oxygenxml.account.model.ConfirmationToken;
+import com.oxygenxml.account.type.TokenClaim;
+import com.oxygenxml.account.type.TokenFormat;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+/**
+ * The confirmation tokens as JSON Web Tokens, generated and verified by the {@link JwtService}.
+ */
+@Component
+public class JwtConfirmationTokenFormat implements ConfirmationTokenFormat {
+
+	/**
+	 * The service that generates and parses the JSON Web Tokens.
+	 */
+	@Autowired
+	private JwtService jwtService;
+
+	/**
+	 * Returns the JWT format.
+	 *
+	 * @return {@link TokenFormat#JWT}
+	 */
+	@Override
+	public TokenFormat getFormat() {
+		return TokenFormat.JWT;
+	}
+
+	/**
+	 * Generates a JSON Web Token holding the user id and the creation date.
+	 *
+	 * @param userId The id of the user.
+	 * @param creationDate The registration date of the user.
+	 * @return The token.
+	 */
+	@Override
+	public String generate(int userId, Timestamp creationDate) {
+		return jwtService.generateEmailConfirmationToken(userId, creationDate);
+	}
+
+	/**
+	 * Accepts the tokens made of dot-separated parts.
+	 *
+	 * @param token The token.
+	 * @return true if the token contains a dot.
+	 */
+	@Override
+	public boolean accepts(String token) {
+		return token.indexOf('.') >= 0;
+	}
+
+	/**
+	 * Verifies a JSON Web Token and reads its claims.
+	 *
+	 * @param token The token.
+	 * @return The content of the token.
+	 * @throws IllegalArgumentException if the token is invalid or misses a claim.
+	 */
+	@Override
+	public ConfirmationToken parse(String token) {
+		Claims claims;
+		try {
+			claims = jwtService.parseToken(token);
+		} catch (JwtException e) {
+			throw new IllegalArgumentException("Invalid confirmation token", e);
+		}
+
+		Integer userId = claims.get(TokenClaim.USER_ID.getName(), Integer.class);
+		Date creationDate = claims.get(TokenClaim.CREATION_DATE.getName(), Date.class);
+		if (userId == null || creationDate == null) {
+			throw new IllegalArgumentException("Incomplete confirmation token");
+		}
+		return new ConfirmationToken(userId, new Timestamp(creationDate.getTime()));
+	}
+}
@@ -1,5 +1,6 @@
 package com.oxygenxml.account.service;
 
+import java.security.Key;
 import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.Map;
@@ -9,27 +10,53 @@ import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
 import com.oxygenxml.account.type.TokenClaim;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import jakarta.annotation.PostConstruct;
 
 /**
  * Service class for handling JWT operations such as token generation and parsing.
+ * <p>
+ * The keys come from the {@link TokenKeyring}, derived once at startup. The generated tokens are signed with
+ * the current key and carry its id in the "kid" header, and the tokens are parsed by a single thread-safe parser that
+ * verifies each token with the key named by its header, so the previous keys keep validating the links issued before a rotation.
  */
 @Service
 public class JwtService {
 
 	/**
-     * Instance of OxygenAccountPorpertiesConfig to get the secret key
-     */
+	 * The keys that sign and verify the tokens.
+	 */
 	@Autowired
-	private OxygenAccountPorpertiesConfig oxygenProperties;
-	
+	private TokenKeyring keyring;
+
+	/**
+	 * The parser that verifies the tokens with the key named by their header.
+	 */
+	private JwtParser parser;
+
+	/**
+	 * Builds the parser.
+	 */
+	@PostConstruct
+	void buildParser() {
+		parser = Jwts.parserBuilder()
+				.setSigningKeyResolver(new SigningKeyResolverAdapter() {
+					@Override
+					public Key resolveSigningKey(JwsHeader header, Claims claims) {
+						return resolveKey(header.getKeyId());
+					}
+				})
+				.build();
+	}
+
 	/**
 	 * Generates a JWT for email confirmation using the specified user ID and account creation date.
      *
@@ -45,40 +72,51 @@ public class JwtService {
 
 		return generateToken(claims);
 	}
-	
+
 	/**
 	 * Generates a JWT using the specified claims.
-	 * 
+	 *
 	 * @param claims A map representing the claims to be included in the token.
-	 * @return A JWT string generated with the specified claims and signed with the secret key
+	 * @return A JWT string generated with the specified claims and signed with the current secret key
 	 */
 	private String generateToken(Map<TokenClaim, Object> claims) {
-		SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(oxygenProperties.getSecretKey()));
-
-		JwtBuilder jwtBuilder = Jwts.builder();
+		JwtBuilder jwtBuilder = Jwts.builder()
+				.setHeaderParam(JwsHeader.KEY_ID, keyring.getSigningKeyId());
 
 		for (Map.Entry<TokenClaim, Object> claim : claims.entrySet()) {
 			jwtBuilder.claim(claim.getKey().getName(), claim.getValue());
 		}
 
 		return jwtBuilder
-				.signWith(key)
+				.signWith(keyring.getSigningKey())
 				.compact();
 	}
-	 
+
 	/**
 	 * Parses the specified JWT and returns its claims.
-	 * 
+	 *
 	 * @param token The JWT to be parsed.
 	 * @return The claims extracted from the JWT.
+	 * @throws io.jsonwebtoken.JwtException if the token is malformed, its signature is invalid or its key id is unknown.
 	 */
 	public Claims parseToken(String token) {
-		SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(oxygenProperties.getSecretKey()));
-        
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
+
+	/**
+	 * Returns the key with the given id.
+	 *
+	 * @param keyId The id from the header of the token, or null for the tokens generated before the keys had ids.
+	 * @return The key with the given id.
+	 * @throws UnsupportedJwtException if no key has the given id.
+	 */
+	private SecretKey resolveKey(String keyId) {
+		SecretKey key = keyring.getKey(keyId);
+		if (key == null) {
+			throw new UnsupportedJwtException("Unknown key id: " + keyId);
+		}
+		return key;
+	}
 }
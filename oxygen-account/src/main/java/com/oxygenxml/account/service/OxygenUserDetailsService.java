@@ -1,29 +1,66 @@
 package com.oxygenxml.account.service;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.User.UserBuilder;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.datasource.ReadYourWrites;
 import com.oxygenxml.account.exception.EmailNotConfirmedException;
 import com.oxygenxml.account.messages.Message;
+import com.oxygenxml.account.model.UserStatus;
+import com.oxygenxml.account.security.EmailExistenceFilter;
+import com.oxygenxml.account.security.OxygenUserPrincipal;
+import com.oxygenxml.account.security.UserDetailsCache;
+import com.oxygenxml.account.utility.EmailUtility;
 
 /**
  * Service implementation for loading user-specific data for authentication purposes.
+ * It also stores the upgraded password hashes computed by the authentication provider after a successful login,
+ * so the stored hashes converge to the configured algorithm and cost without a password reset.
  */
 @Service
-public class OxygenUserDetailsService implements UserDetailsService {
+public class OxygenUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
 	/**
 	 * Service for fetching user details from the database.
 	 */
 	@Autowired
 	private UserService userService;
+	
+	/**
+	 * Configuration object that provides the emails of the administrators.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+	
+	/**
+	 * Keeps the login details in memory, so that repeated logins do not query the database.
+	 */
+	@Autowired
+	private UserDetailsCache userDetailsCache;
+	
+	/**
+	 * Answers the lookups of unregistered emails without querying the database.
+	 */
+	@Autowired
+	private EmailExistenceFilter emailExistenceFilter;
 
 	/**
 	 * Loads a user by their email, primarily for authentication checks.
+	 * The returned {@link OxygenUserPrincipal} also carries the id, name and status of the user, so that the authenticated requests do not query the database to identify the user.
+	 * The details are served from memory when they are cached, and the emails that the email filter reports as certainly
+	 * unregistered are rejected without a query. Otherwise the user is read from the primary, even when replicas are configured,
+	 * because a lagging replica could still hold the password or the status of an account changed since, and the details would be cached.
+	 * The details of confirmed users are cached, unless the account changed while they were read.
+	 * The rejected emails still pay for the dummy password check of the authentication provider, which dominates the time of
+	 * a login, so the time of the response does not reveal whether the email is registered.
 	 * 
 	 * @param email the email of the user to load
      * @return the user details associated with the provided email
@@ -31,19 +68,62 @@ public class OxygenUserDetailsService implements UserDetailsService {
 	 */
 	@Override
 	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-		com.oxygenxml.account.model.User appUser = userService.getUserByEmail(email);
+		String normalizedEmail = EmailUtility.normalize(email);
+		UserDetails cached = userDetailsCache.getUserFromCache(normalizedEmail);
+		if (cached != null) {
+			return cached;
+		}
+		
+		if (normalizedEmail == null || !emailExistenceFilter.mightExist(normalizedEmail)) {
+			throw new UsernameNotFoundException(Message.USER_NOT_FOUND.getMessage());
+		}
+		
+		long generation = userDetailsCache.getEvictionGeneration();
+		com.oxygenxml.account.model.User appUser = ReadYourWrites.onPrimary(() -> userService.getUserByEmail(normalizedEmail));
 		
 		if(appUser == null) {
+			emailExistenceFilter.recordFalsePositive();
 			throw new UsernameNotFoundException(Message.USER_NOT_FOUND.getMessage());
 		}
 		
-		if("new".equals(appUser.getStatus())) {
+		if(appUser.getStatus() == UserStatus.NEW) {
 			throw new EmailNotConfirmedException(Message.EMAIL_NOT_CONFIRMED.getMessage());
 		}
 
-		UserBuilder builder = org.springframework.security.core.userdetails.User.withUsername(appUser.getEmail())
-				.password(appUser.getPassword());
+		UserDetails userDetails = new OxygenUserPrincipal(appUser, isAdmin(appUser.getEmail())
+				? AuthorityUtils.createAuthorityList("ROLE_ADMIN")
+				: List.of());
+		userDetailsCache.putUserInCache(userDetails, generation);
 		
-		return builder.build();
+		return userDetails;
+	}
+	
+	/**
+	 * Stores the new hash of the password of a user who has just logged in with a hash of another algorithm or of a lower cost.
+	 * If the password was changed in the meantime the new hash is dropped.
+	 * 
+	 * @param user the details of the user who logged in
+	 * @param newPassword the new password hash
+	 * @return the details of the user with the new password hash, or the given details if the hash was not replaced
+	 */
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		if (!userService.upgradePasswordHash(user.getUsername(), user.getPassword(), newPassword)) {
+			return user;
+		}
+		return user instanceof OxygenUserPrincipal principal
+				? principal.withPassword(newPassword)
+				: org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+	}
+	
+	/**
+	 * Checks if the given email belongs to one of the configured administrators.
+	 * 
+	 * @param email The normalized email of the user.
+	 * @return true if the user should be granted the ADMIN role.
+	 */
+	private boolean isAdmin(String email) {
+		return oxygenProperties.getAdminEmails().stream()
+				.anyMatch(adminEmail -> EmailUtility.normalize(adminEmail).equals(email));
 	}
 }
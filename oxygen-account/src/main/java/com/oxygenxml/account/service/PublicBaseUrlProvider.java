@@ -0,0 +1,84 @@
+package com.oxygenxml.account.service;
+
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Provides the public base URL of the application, used in the links of the emails.
+ * <p>
+ * The configured public base URL is validated and normalized once at startup. When none is configured, the base URL is derived
+ * from the current request, so it must be read on the request thread and carried with the event that sends the email.
+ */
+@Component
+public class PublicBaseUrlProvider {
+
+	/**
+	 * Configuration object that provides the public base URL.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * The configured public base URL, without a trailing slash, or null if none is configured.
+	 */
+	private String configuredBaseUrl;
+
+	/**
+	 * Validates and normalizes the configured public base URL.
+	 *
+	 * @throws IllegalStateException if the configured public base URL is not an absolute HTTP or HTTPS URL.
+	 */
+	@PostConstruct
+	void normalizeBaseUrl() {
+		String baseUrl = oxygenProperties.getPublicBaseUrl();
+		if (baseUrl == null || baseUrl.isBlank()) {
+			return;
+		}
+
+		baseUrl = baseUrl.trim();
+		while (baseUrl.endsWith("/")) {
+			baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+		}
+		URI uri;
+		try {
+			uri = URI.create(baseUrl);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalStateException("Invalid public base URL: " + baseUrl, e);
+		}
+		if (uri.getHost() == null || !("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))) {
+			throw new IllegalStateException("The public base URL must be an absolute HTTP or HTTPS URL: " + baseUrl);
+		}
+		configuredBaseUrl = baseUrl;
+	}
+
+	/**
+	 * Returns the public base URL: the configured one, or else the scheme, host and port of the current request.
+	 *
+	 * @return The base URL, without a trailing slash.
+	 * @throws IllegalStateException if no public base URL is configured and the current thread is not serving a request.
+	 */
+	public String getBaseUrl() {
+		if (configuredBaseUrl != null) {
+			return configuredBaseUrl;
+		}
+
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+			throw new IllegalStateException("No public base URL is configured and there is no current request to derive it from");
+		}
+		return ServletUriComponentsBuilder.fromRequestUri(servletAttributes.getRequest())
+				.replacePath(null)
+				.build()
+				.toUriString();
+	}
+}
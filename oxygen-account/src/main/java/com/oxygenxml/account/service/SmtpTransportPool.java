@@ -0,0 +1,337 @@
+package com.oxygenxml.account.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.NoSuchProviderException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * A small pool of authenticated SMTP connections, kept open between the emails so that the TCP, STARTTLS and AUTH handshake
+ * is paid once per connection instead of once per email.
+ * <p>
+ * A batch of messages is sent over one connection. A connection is closed and opened again after the configured number of messages,
+ * after it stayed unused for the configured idle timeout, and after a failure that may have broken it. Each connection slot
+ * publishes its messages, failures, connections opened and send time, tagged with the index of the slot.
+ */
+@Component
+public class SmtpTransportPool implements MeterBinder {
+
+	/**
+	 * The counter of the messages sent by a connection slot.
+	 */
+	public static final String MESSAGES = "oxygen.smtp.messages";
+
+	/**
+	 * The counter of the messages that a connection slot failed to send.
+	 */
+	public static final String FAILURES = "oxygen.smtp.failures";
+
+	/**
+	 * The counter of the connections opened by a connection slot.
+	 */
+	public static final String CONNECTIONS = "oxygen.smtp.connections.opened";
+
+	/**
+	 * The timer of the batches sent by a connection slot, including the handshake of a new connection.
+	 */
+	public static final String SEND = "oxygen.smtp.send";
+
+	/**
+	 * The tag holding the index of the connection slot.
+	 */
+	public static final String SLOT_TAG = "slot";
+
+	/**
+	 * The registry of the metrics recorded before the pool is bound to the registry of the application. Having no registries, it discards them.
+	 */
+	private static final MeterRegistry UNBOUND_REGISTRY = new CompositeMeterRegistry();
+
+	/**
+	 * The mail sender configured by Spring Boot, which provides the session, the server and the credentials.
+	 */
+	@Autowired
+	private JavaMailSenderImpl mailSender;
+
+	/**
+	 * Configuration object that provides the size of the pool and the recycling limits.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * The connection slots not used by a send.
+	 */
+	private BlockingQueue<Slot> freeSlots;
+
+	/**
+	 * All the connection slots.
+	 */
+	private List<Slot> slots;
+
+	/**
+	 * A connection slot: at most one open connection, its usage and its metrics.
+	 */
+	private static final class Slot {
+
+		/**
+		 * The index of the slot, used as a metric tag.
+		 */
+		private final int index;
+
+		/**
+		 * The open connection, or null.
+		 */
+		private Transport transport;
+
+		/**
+		 * The number of messages sent over the open connection.
+		 */
+		private int messagesSent;
+
+		/**
+		 * The moment when the open connection was last used.
+		 */
+		private long lastUsedMillis;
+
+		/**
+		 * The messages sent.
+		 */
+		private Counter messages;
+
+		/**
+		 * The messages that could not be sent.
+		 */
+		private Counter failures;
+
+		/**
+		 * The connections opened.
+		 */
+		private Counter connections;
+
+		/**
+		 * The time spent sending batches.
+		 */
+		private Timer sendTimer;
+
+		/**
+		 * Creates an empty slot, with metrics that are not published until the pool is bound to a registry.
+		 *
+		 * @param index The index of the slot.
+		 */
+		private Slot(int index) {
+			this.index = index;
+			bindTo(UNBOUND_REGISTRY);
+		}
+
+		/**
+		 * Registers the metrics of the slot.
+		 *
+		 * @param registry The registry that receives the metrics.
+		 */
+		private void bindTo(MeterRegistry registry) {
+			String slot = String.valueOf(index);
+			messages = Counter.builder(MESSAGES).tag(SLOT_TAG, slot).description("Messages sent over a pooled SMTP connection").register(registry);
+			failures = Counter.builder(FAILURES).tag(SLOT_TAG, slot).description("Messages that could not be sent over a pooled SMTP connection").register(registry);
+			connections = Counter.builder(CONNECTIONS).tag(SLOT_TAG, slot).description("SMTP connections opened by a pool slot").register(registry);
+			sendTimer = Timer.builder(SEND).tag(SLOT_TAG, slot).description("The time spent sending a batch of messages over a pooled SMTP connection").register(registry);
+		}
+
+		/**
+		 * Closes the open connection, if any.
+		 */
+		private void close() {
+			if (transport != null) {
+				try {
+					transport.close();
+				} catch (MessagingException e) {
+					// The connection is dropped anyway.
+				}
+				transport = null;
+			}
+		}
+	}
+
+	/**
+	 * Creates the connection slots. The connections are opened by the first sends.
+	 */
+	@PostConstruct
+	void createSlots() {
+		int size = Math.max(1, oxygenProperties.getEmailTransportPoolSize());
+		slots = new ArrayList<>(size);
+		freeSlots = new ArrayBlockingQueue<>(size);
+		for (int i = 0; i < size; i++) {
+			Slot slot = new Slot(i);
+			slots.add(slot);
+			freeSlots.add(slot);
+		}
+	}
+
+	/**
+	 * Sends a batch of messages over one pooled connection, opening it again when it reached the configured number of messages,
+	 * stayed idle too long or was broken. A message rejected by the server does not stop the others.
+	 *
+	 * @param messages The messages to send.
+	 * @return The failures, in the order of the messages: null for a sent message, otherwise the cause of the failure.
+	 * @throws MessagingException if no connection could be borrowed in time.
+	 */
+	public List<MessagingException> send(MimeMessage... messages) throws MessagingException {
+		Slot slot = borrow();
+		List<MessagingException> failures = new ArrayList<>(messages.length);
+		long start = System.nanoTime();
+		try {
+			for (MimeMessage message : messages) {
+				MessagingException failure = send(slot, message);
+				failures.add(failure);
+				if (failure == null) {
+					slot.messages.increment();
+				} else {
+					slot.failures.increment();
+				}
+			}
+		} finally {
+			slot.sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			freeSlots.add(slot);
+		}
+		return failures;
+	}
+
+	/**
+	 * Sends one message over the connection of a slot.
+	 *
+	 * @return null if the message was sent, otherwise the cause of the failure.
+	 */
+	private MessagingException send(Slot slot, MimeMessage message) {
+		try {
+			if (message.getSentDate() == null) {
+				message.setSentDate(new Date());
+			}
+			message.saveChanges();
+
+			Transport transport = connect(slot);
+			transport.sendMessage(message, message.getAllRecipients());
+			slot.messagesSent++;
+			slot.lastUsedMillis = System.currentTimeMillis();
+			return null;
+		} catch (SendFailedException e) {
+			// The server rejected the recipients of this message; the connection is still usable.
+			return e;
+		} catch (MessagingException e) {
+			slot.close();
+			return e;
+		}
+	}
+
+	/**
+	 * Returns the open connection of a slot, opening a new one if the slot has none, or if its connection
+	 * reached the configured number of messages, stayed idle too long or was closed by the server.
+	 */
+	private Transport connect(Slot slot) throws MessagingException {
+		boolean exhausted = slot.messagesSent >= oxygenProperties.getEmailTransportMaxMessages();
+		boolean idle = System.currentTimeMillis() - slot.lastUsedMillis > oxygenProperties.getEmailTransportIdleTimeoutMillis();
+		if (slot.transport != null && (exhausted || idle || !slot.transport.isConnected())) {
+			slot.close();
+		}
+
+		if (slot.transport == null) {
+			Transport transport = newTransport();
+			String username = mailSender.getUsername();
+			String password = mailSender.getPassword();
+			if ("".equals(username)) {
+				username = null;
+				password = null;
+			}
+			transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+
+			slot.transport = transport;
+			slot.messagesSent = 0;
+			slot.lastUsedMillis = System.currentTimeMillis();
+			slot.connections.increment();
+		}
+		return slot.transport;
+	}
+
+	/**
+	 * Creates an unconnected transport for the configured protocol.
+	 */
+	private Transport newTransport() throws NoSuchProviderException {
+		String protocol = mailSender.getProtocol();
+		if (protocol == null) {
+			protocol = mailSender.getSession().getProperty("mail.transport.protocol");
+		}
+		return protocol == null ? mailSender.getSession().getTransport() : mailSender.getSession().getTransport(protocol);
+	}
+
+	/**
+	 * Takes a free slot, waiting at most the configured time.
+	 */
+	private Slot borrow() throws MessagingException {
+		try {
+			Slot slot = freeSlots.poll(oxygenProperties.getEmailTransportBorrowTimeoutMillis(), TimeUnit.MILLISECONDS);
+			if (slot == null) {
+				throw new MessagingException("No SMTP connection was available in time");
+			}
+			return slot;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+		}
+	}
+
+	/**
+	 * Closes the connections that stayed unused for the configured idle timeout, before the server drops them.
+	 */
+	@Scheduled(fixedDelayString = "${oxygen.account.emailTransportIdleTimeoutMillis:30000}")
+	public void closeIdleConnections() {
+		long now = System.currentTimeMillis();
+		for (int i = slots.size(); i > 0; i--) {
+			Slot slot = freeSlots.poll();
+			if (slot == null) {
+				return;
+			}
+			if (slot.transport != null && now - slot.lastUsedMillis > oxygenProperties.getEmailTransportIdleTimeoutMillis()) {
+				slot.close();
+			}
+			freeSlots.add(slot);
+		}
+	}
+
+	/**
+	 * Closes the connections when the application stops.
+	 */
+	@PreDestroy
+	void closeAll() {
+		slots.forEach(Slot::close);
+	}
+
+	/**
+	 * Publishes the metrics of every slot.
+	 *
+	 * @param registry The registry that receives the metrics.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		slots.forEach(slot -> slot.bindTo(registry));
+	}
+}
@@ -0,0 +1,126 @@
+package com.oxygenxml.account.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * The immutable set of keys that sign and verify the confirmation tokens, derived once at startup from the configured secrets.
+ * The current key signs the new tokens; the previous keys only verify the tokens generated before a rotation.
+ */
+@Component
+public class TokenKeyring {
+
+	/**
+	 * The id of the key that verifies the tokens that do not name a key, which were generated before the keys had ids.
+	 */
+	public static final String DEFAULT_KEY_ID = "default";
+
+	/**
+	 * Instance of OxygenAccountPorpertiesConfig to get the secret keys
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * The id of the key that signs the new tokens.
+	 */
+	private String signingKeyId;
+
+	/**
+	 * The key that signs the new tokens.
+	 */
+	private SecretKey signingKey;
+
+	/**
+	 * All the keys, by id.
+	 */
+	private Map<String, SecretKey> keysById;
+
+	/**
+	 * All the keys, the signing key first.
+	 */
+	private List<SecretKey> keys;
+
+	/**
+	 * Derives the keys from the configured secrets.
+	 */
+	@PostConstruct
+	void deriveKeys() {
+		Map<String, SecretKey> derived = new HashMap<>();
+		oxygenProperties.getPreviousSecretKeys().forEach((id, secret) -> derived.put(id, decodeKey(secret)));
+
+		signingKeyId = oxygenProperties.getSecretKeyId();
+		signingKey = decodeKey(oxygenProperties.getSecretKey());
+		derived.put(signingKeyId, signingKey);
+		keysById = Map.copyOf(derived);
+
+		List<SecretKey> ordered = new ArrayList<>();
+		ordered.add(signingKey);
+		derived.forEach((id, key) -> {
+			if (!id.equals(signingKeyId)) {
+				ordered.add(key);
+			}
+		});
+		keys = List.copyOf(ordered);
+	}
+
+	/**
+	 * Returns the id of the key that signs the new tokens.
+	 *
+	 * @return The id of the signing key.
+	 */
+	public String getSigningKeyId() {
+		return signingKeyId;
+	}
+
+	/**
+	 * Returns the key that signs the new tokens.
+	 *
+	 * @return The signing key.
+	 */
+	public SecretKey getSigningKey() {
+		return signingKey;
+	}
+
+	/**
+	 * Returns the key with the given id.
+	 *
+	 * @param keyId The id of the key, or null for the tokens that do not name a key.
+	 * @return The key, or null if no key has the given id.
+	 */
+	public SecretKey getKey(String keyId) {
+		return keysById.get(keyId == null ? DEFAULT_KEY_ID : keyId);
+	}
+
+	/**
+	 * Returns all the keys, for the token formats that do not name the key.
+	 *
+	 * @return The keys, the signing key first.
+	 */
+	public List<SecretKey> getKeys() {
+		return keys;
+	}
+
+	/**
+	 * Derives an HMAC key from a Base64 secret.
+	 *
+	 * @param secret The Base64 secret.
+	 * @return The derived key.
+	 */
+	private static SecretKey decodeKey(String secret) {
+		return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+	}
+}
@@ -0,0 +1,92 @@
+package com.oxygenxml.account.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.oxygenxml.account.converter.UserConverter;
+import com.oxygenxml.account.dto.UserExportDto;
+import com.oxygenxml.account.model.UserExportView;
+import com.oxygenxml.account.model.UserStatus;
+import com.oxygenxml.account.repository.UserRepository;
+
+/**
+ * Service class that exports the users as newline-delimited JSON, for example for analytics and compliance jobs.
+ * The users are read through a database cursor inside a read-only transaction and written as they arrive,
+ * so the memory used does not depend on the number of users.
+ */
+@Service
+public class UserExportService {
+
+	/**
+	 * Instance of UserRepository to interact with the database.
+	 */
+	@Autowired
+	private UserRepository userRepository;
+
+	/**
+	 * Converts the exported rows to the serialized form.
+	 */
+	@Autowired
+	private UserConverter userConverter;
+
+	/**
+	 * Serializes the exported users.
+	 */
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Used to create the read-only transaction that holds the database cursor open.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * Writes the users matching the given filters to the output, one JSON object per line.
+	 * The output is not closed.
+	 *
+	 * @param status The status of the exported users, or null to export users with any status.
+	 * @param from The earliest registration date of the exported users, inclusive, or null for no lower bound.
+	 * @param to The latest registration date of the exported users, exclusive, or null for no upper bound.
+	 * @param output The stream that receives the users.
+	 * @throws IOException If the users could not be written.
+	 */
+	public void exportUsers(UserStatus status, Timestamp from, Timestamp to, OutputStream output) throws IOException {
+		ObjectWriter rowWriter = objectMapper.writerFor(UserExportDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+		TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+		readOnlyTransaction.setReadOnly(true);
+		try {
+			readOnlyTransaction.executeWithoutResult(transactionStatus -> {
+				try (Stream<UserExportView> users = userRepository.streamForExport(status, from, to);
+						JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+					generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+					generator.setRootValueSeparator(null);
+
+					Iterator<UserExportView> iterator = users.iterator();
+					while (iterator.hasNext()) {
+						rowWriter.writeValue(generator, userConverter.exportToDto(iterator.next()));
+						generator.writeRaw('\n');
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+}
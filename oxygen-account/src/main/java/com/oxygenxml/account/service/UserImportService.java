@@ -0,0 +1,558 @@
+package com.oxygenxml.account.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.dto.UserImportDto;
+import com.oxygenxml.account.dto.UserImportResultDto;
+import com.oxygenxml.account.exception.InternalErrorCode;
+import com.oxygenxml.account.exception.OxygenAccountException;
+import com.oxygenxml.account.messages.Message;
+import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.model.UserStatus;
+import com.oxygenxml.account.repository.UserRepository;
+import com.oxygenxml.account.security.BoundedPasswordEncoder;
+import com.oxygenxml.account.security.EmailExistenceFilter;
+import com.oxygenxml.account.type.ImportFormat;
+import com.oxygenxml.account.utility.DateUtility;
+import com.oxygenxml.account.utility.EmailUtility;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service class that imports users in bulk, for example when accounts are migrated from a legacy system.
+ * The content is read line by line and processed in chunks: the rows of a chunk are validated, checked against the
+ * existing emails with a single query, hashed in parallel and inserted with one batched transaction.
+ * The imported users are active and receive no confirmation email.
+ */
+@Service
+public class UserImportService {
+
+	/**
+	 * The format of a BCrypt hash that can be imported as it is.
+	 */
+	private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}$");
+
+	/**
+	 * Instance of UserRepository to interact with the database.
+	 */
+	@Autowired
+	private UserRepository userRepository;
+
+	/**
+	 * The password encoder of the application. The import hashes with its delegate on its own pool, so the import and the logins
+	 * do not wait for each other in the queue of the login hashing executor.
+	 */
+	@Autowired
+	private BoundedPasswordEncoder passwordEncoder;
+
+	/**
+	 * Validates the imported rows with the same constraints as the registration.
+	 */
+	@Autowired
+	private ValidationService validationService;
+
+	/**
+	 * Parses the NDJSON rows.
+	 */
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Runs the insert of each chunk in its own transaction.
+	 */
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	/**
+	 * Configuration object that provides the chunk size and the number of hashing threads.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * The filter of the registered emails, which skips the existence query when no email of a chunk may be registered.
+	 */
+	@Autowired
+	private EmailExistenceFilter emailExistenceFilter;
+
+	/**
+	 * The bounded pool that hashes the passwords. Its threads have the lowest priority and, by default, there are half as many
+	 * as processors, so the logins keep the rest of the CPU while an import runs. The importing threads never hash themselves.
+	 */
+	private ThreadPoolExecutor hashingExecutor;
+
+	/**
+	 * The passwords that may be running or waiting on the hashing pool: one per thread plus one chunk. When none is left the importing
+	 * thread waits for one, instead of hashing on the request thread, so the concurrent imports cannot queue more work than that.
+	 */
+	private Semaphore hashingPermits;
+
+	/**
+	 * Receives the results of the imported rows, one chunk at a time.
+	 */
+	@FunctionalInterface
+	public interface ImportResultWriter {
+
+		/**
+		 * Writes the results of one chunk.
+		 *
+		 * @param results The results of the rows of the chunk, in the order of the rows.
+		 * @throws IOException If the results could not be written.
+		 */
+		void write(List<UserImportResultDto> results) throws IOException;
+	}
+
+	/**
+	 * A row of the imported content together with the line on which it starts.
+	 */
+	private static final class ImportRow {
+
+		/**
+		 * The line on which the row starts.
+		 */
+		private final long line;
+
+		/**
+		 * The parsed row, or null if the row could not be parsed.
+		 */
+		private final UserImportDto user;
+
+		/**
+		 * The user created from the row, once the row was validated and hashed.
+		 */
+		private User entity;
+
+		/**
+		 * The result of the row, once the row was processed.
+		 */
+		private UserImportResultDto result;
+
+		/**
+		 * Creates a row.
+		 *
+		 * @param line The line on which the row starts.
+		 * @param user The parsed row, or null if the row could not be parsed.
+		 */
+		private ImportRow(long line, UserImportDto user) {
+			this.line = line;
+			this.user = user;
+		}
+
+		/**
+		 * Marks the row as rejected.
+		 *
+		 * @param exception The reason the row was rejected.
+		 */
+		private void fail(OxygenAccountException exception) {
+			String email = user == null ? null : EmailUtility.normalize(user.getEmail());
+			result = UserImportResultDto.failed(line, email, exception);
+			entity = null;
+		}
+	}
+
+	/**
+	 * Creates the pool that hashes the passwords.
+	 */
+	@PostConstruct
+	void startHashingExecutor() {
+		int threads = oxygenProperties.getImportHashingThreads();
+		if (threads <= 0) {
+			threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		}
+		int queueCapacity = Math.max(1, oxygenProperties.getImportBatchSize());
+		hashingPermits = new Semaphore(threads + queueCapacity);
+		AtomicInteger threadCount = new AtomicInteger();
+		hashingExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				runnable -> {
+					Thread thread = new Thread(runnable, "user-import-hashing-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				});
+	}
+
+	/**
+	 * Stops the pool that hashes the passwords.
+	 */
+	@PreDestroy
+	void stopHashingExecutor() {
+		hashingExecutor.shutdownNow();
+	}
+
+	/**
+	 * Imports the users read from the given content and writes the result of every row after each chunk.
+	 *
+	 * @param input The imported content.
+	 * @param format The format of the imported content.
+	 * @param resultWriter Receives the results of the rows.
+	 * @throws IOException If the content could not be read or the results could not be written.
+	 */
+	public void importUsers(Reader input, ImportFormat format, ImportResultWriter resultWriter) throws IOException {
+		BufferedReader reader = input instanceof BufferedReader bufferedReader ? bufferedReader : new BufferedReader(input);
+		int batchSize = Math.max(1, oxygenProperties.getImportBatchSize());
+
+		long lineNumber = 0;
+		Map<String, Integer> csvColumns = null;
+		List<ImportRow> chunk = new ArrayList<>(batchSize);
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.isBlank()) {
+				continue;
+			}
+			if (format == ImportFormat.CSV && csvColumns == null) {
+				csvColumns = parseCsvHeader(line);
+				continue;
+			}
+
+			chunk.add(format == ImportFormat.CSV ? parseCsvRow(lineNumber, line, csvColumns) : parseJsonRow(lineNumber, line));
+			if (chunk.size() == batchSize) {
+				resultWriter.write(importChunk(chunk));
+				chunk = new ArrayList<>(batchSize);
+			}
+		}
+		if (!chunk.isEmpty()) {
+			resultWriter.write(importChunk(chunk));
+		}
+	}
+
+	/**
+	 * Validates, hashes and inserts the rows of one chunk.
+	 *
+	 * @param chunk The rows of the chunk.
+	 * @return The results of the rows, in the order of the rows.
+	 */
+	private List<UserImportResultDto> importChunk(List<ImportRow> chunk) {
+		Timestamp registrationDate = DateUtility.getCurrentUTCTimestamp();
+		Set<String> chunkEmails = new HashSet<>();
+		for (ImportRow row : chunk) {
+			if (row.result == null) {
+				validate(row, chunkEmails);
+			}
+		}
+
+		List<String> candidateEmails = chunkEmails.stream().filter(emailExistenceFilter::mightExist).toList();
+		if (!candidateEmails.isEmpty()) {
+			Set<String> existingEmails = new HashSet<>(userRepository.findExistingEmails(candidateEmails));
+			for (ImportRow row : chunk) {
+				if (row.result == null && existingEmails.contains(row.entity.getEmail())) {
+					row.fail(emailAlreadyExists());
+				}
+			}
+		}
+
+		hashPasswords(chunk);
+
+		List<ImportRow> accepted = new ArrayList<>();
+		for (ImportRow row : chunk) {
+			if (row.result == null) {
+				row.entity.setRegistrationDate(registrationDate);
+				row.entity.setStatus(UserStatus.ACTIVE);
+				accepted.add(row);
+			}
+		}
+		save(accepted);
+
+		List<UserImportResultDto> results = new ArrayList<>(chunk.size());
+		for (ImportRow row : chunk) {
+			results.add(row.result);
+		}
+		return results;
+	}
+
+	/**
+	 * Validates a parsed row and creates its user, rejecting the emails that already appeared earlier in the chunk.
+	 *
+	 * @param row The row to validate.
+	 * @param chunkEmails The emails of the accepted rows of the chunk.
+	 */
+	private void validate(ImportRow row, Set<String> chunkEmails) {
+		UserImportDto dto = row.user;
+		try {
+			validationService.validate(dto);
+		} catch (OxygenAccountException e) {
+			row.fail(e);
+			return;
+		}
+
+		boolean hasPassword = dto.getPassword() != null;
+		boolean hasHash = dto.getPasswordHash() != null;
+		if (hasPassword == hasHash) {
+			row.fail(new OxygenAccountException(Message.PASSWORD_EMPTY, HttpStatus.BAD_REQUEST, InternalErrorCode.EMPTY_PASSWORD));
+			return;
+		}
+		if (hasHash && !BCRYPT_HASH.matcher(dto.getPasswordHash()).matches()) {
+			row.fail(new OxygenAccountException(Message.INVALID_PASSWORD_HASH, HttpStatus.BAD_REQUEST, InternalErrorCode.INVALID_PASSWORD_HASH));
+			return;
+		}
+
+		String email = EmailUtility.normalize(dto.getEmail());
+		if (!chunkEmails.add(email)) {
+			row.fail(emailAlreadyExists());
+			return;
+		}
+
+		User user = new User();
+		user.setName(dto.getName());
+		user.setEmail(email);
+		user.setPassword(hasHash ? dto.getPasswordHash() : null);
+		row.entity = user;
+	}
+
+	/**
+	 * Hashes the plain passwords of the accepted rows on the hashing pool of the import, waiting for room in the pool when
+	 * other imports fill it.
+	 *
+	 * @param chunk The rows of the chunk.
+	 */
+	private void hashPasswords(List<ImportRow> chunk) {
+		PasswordEncoder encoder = passwordEncoder.getDelegate();
+		Map<ImportRow, Future<String>> hashes = new HashMap<>();
+		for (ImportRow row : chunk) {
+			if (row.result == null && row.entity.getPassword() == null) {
+				String password = row.user.getPassword();
+				try {
+					hashingPermits.acquire();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					row.fail(importFailed());
+					continue;
+				}
+				try {
+					hashes.put(row, hashingExecutor.submit(() -> {
+						try {
+							return encoder.encode(password);
+						} finally {
+							hashingPermits.release();
+						}
+					}));
+				} catch (RejectedExecutionException e) {
+					hashingPermits.release();
+					row.fail(importFailed());
+				}
+			}
+		}
+
+		for (Map.Entry<ImportRow, Future<String>> hash : hashes.entrySet()) {
+			try {
+				hash.getKey().entity.setPassword(hash.getValue().get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				hash.getKey().fail(importFailed());
+			} catch (ExecutionException e) {
+				hash.getKey().fail(importFailed());
+			}
+		}
+	}
+
+	/**
+	 * Inserts the accepted rows of a chunk with one batched transaction.
+	 * If a concurrent registration took one of the emails in the meantime the chunk is rolled back and its rows are inserted one by one,
+	 * so only the conflicting rows are rejected.
+	 *
+	 * @param rows The accepted rows of the chunk.
+	 */
+	private void save(List<ImportRow> rows) {
+		if (rows.isEmpty()) {
+			return;
+		}
+
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				userRepository.saveAll(rows.stream().map(row -> row.entity).toList());
+				userRepository.flush();
+			});
+			for (ImportRow row : rows) {
+				emailExistenceFilter.add(row.entity.getEmail());
+				row.result = UserImportResultDto.imported(row.line, row.entity.getEmail());
+			}
+		} catch (DataIntegrityViolationException e) {
+			rows.forEach(row -> row.entity.setId(null));
+			rows.forEach(this::saveOne);
+		}
+	}
+
+	/**
+	 * Inserts the user of a single row.
+	 *
+	 * @param row The row to insert.
+	 */
+	private void saveOne(ImportRow row) {
+		try {
+			userRepository.saveAndFlush(row.entity);
+			emailExistenceFilter.add(row.entity.getEmail());
+			row.result = UserImportResultDto.imported(row.line, row.entity.getEmail());
+		} catch (DataIntegrityViolationException e) {
+			row.fail(UserService.isEmailUniqueViolation(e) ? emailAlreadyExists() : importFailed());
+		}
+	}
+
+	/**
+	 * Parses a row of the NDJSON content.
+	 *
+	 * @param lineNumber The line of the row.
+	 * @param line The JSON object of the row.
+	 * @return The parsed row, or a rejected row if the line is not a valid JSON object.
+	 */
+	private ImportRow parseJsonRow(long lineNumber, String line) {
+		// Any other JSON value, such as null, an array or a number, is not a row: null would even be read as a missing user.
+		if (!line.stripLeading().startsWith("{")) {
+			return malformedRow(lineNumber);
+		}
+		try {
+			return new ImportRow(lineNumber, objectMapper.readValue(line, UserImportDto.class));
+		} catch (JsonProcessingException e) {
+			return malformedRow(lineNumber);
+		}
+	}
+
+	/**
+	 * Parses the header of the CSV content.
+	 *
+	 * @param line The header line.
+	 * @return The index of each column, by its lower-cased name.
+	 */
+	private static Map<String, Integer> parseCsvHeader(String line) {
+		List<String> names = splitCsvLine(line);
+		Map<String, Integer> columns = new HashMap<>();
+		for (int i = 0; names != null && i < names.size(); i++) {
+			columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+		}
+		return columns;
+	}
+
+	/**
+	 * Parses a row of the CSV content.
+	 *
+	 * @param lineNumber The line of the row.
+	 * @param line The values of the row.
+	 * @param columns The index of each column, by its lower-cased name.
+	 * @return The parsed row, or a rejected row if the line could not be split into values.
+	 */
+	private static ImportRow parseCsvRow(long lineNumber, String line, Map<String, Integer> columns) {
+		List<String> values = splitCsvLine(line);
+		if (values == null) {
+			return malformedRow(lineNumber);
+		}
+		UserImportDto user = new UserImportDto(
+				csvValue(values, columns, "name"),
+				csvValue(values, columns, "email"),
+				csvValue(values, columns, "password"),
+				csvValue(values, columns, "passwordhash"));
+		return new ImportRow(lineNumber, user);
+	}
+
+	/**
+	 * Returns the value of a CSV column.
+	 *
+	 * @param values The values of the row.
+	 * @param columns The index of each column, by its lower-cased name.
+	 * @param name The lower-cased name of the column.
+	 * @return The value, or null if the column is missing or empty.
+	 */
+	private static String csvValue(List<String> values, Map<String, Integer> columns, String name) {
+		Integer index = columns.get(name);
+		if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+			return null;
+		}
+		return values.get(index);
+	}
+
+	/**
+	 * Splits a CSV line into its values. Values may be quoted with double quotes, and a quote inside a quoted value is written twice.
+	 *
+	 * @param line The CSV line.
+	 * @return The values, or null if a quoted value is not closed.
+	 */
+	private static List<String> splitCsvLine(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					value.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					value.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(value.toString());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		if (quoted) {
+			return null;
+		}
+		values.add(value.toString());
+		return values;
+	}
+
+	/**
+	 * Creates a rejected row for a line that could not be parsed.
+	 *
+	 * @param lineNumber The line of the row.
+	 * @return The rejected row.
+	 */
+	private static ImportRow malformedRow(long lineNumber) {
+		ImportRow row = new ImportRow(lineNumber, null);
+		row.fail(new OxygenAccountException(Message.MALFORMED_IMPORT_ROW, HttpStatus.BAD_REQUEST, InternalErrorCode.MALFORMED_IMPORT_ROW));
+		return row;
+	}
+
+	/**
+	 * Creates the exception used for the rows whose email already belongs to a user.
+	 *
+	 * @return The exception.
+	 */
+	private static OxygenAccountException emailAlreadyExists() {
+		return new OxygenAccountException(Message.EMAIL_ALREADY_EXISTS, HttpStatus.CONFLICT, InternalErrorCode.EMAIL_ALREADY_EXISTS);
+	}
+
+	/**
+	 * Creates the exception used for the rows that could not be hashed or saved.
+	 *
+	 * @return The exception.
+	 */
+	private static OxygenAccountException importFailed() {
+		return new OxygenAccountException(Message.IMPORT_FAILED, HttpStatus.INTERNAL_SERVER_ERROR, InternalErrorCode.REGISTRATION_FAILED);
+	}
+}
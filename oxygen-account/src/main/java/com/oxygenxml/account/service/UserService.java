@@ -1,17 +1,21 @@
 package com.oxygenxml.account.service;
 
 import java.sql.Timestamp;
-import java.util.Date;
+import java.util.Locale;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.datasource.ReadYourWrites;
 import com.oxygenxml.account.dto.ChangePasswordDto;
 import com.oxygenxml.account.dto.DeleteUserDto;
 import com.oxygenxml.account.dto.UpdateUserNameDto;
@@ -20,13 +24,18 @@ import com.oxygenxml.account.exception.InternalErrorCode;
 import com.oxygenxml.account.exception.OxygenAccountException;
 import com.oxygenxml.account.exception.UserNotAuthenticatedException;
 import com.oxygenxml.account.messages.Message;
+import com.oxygenxml.account.model.ConfirmationToken;
 import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.model.UserProfileView;
 import com.oxygenxml.account.model.UserStatus;
 import com.oxygenxml.account.repository.UserRepository;
-import com.oxygenxml.account.type.TokenClaim;
+import com.oxygenxml.account.security.EmailExistenceFilter;
+import com.oxygenxml.account.security.OxygenUserPrincipal;
+import com.oxygenxml.account.security.SessionPrincipalRefresher;
+import com.oxygenxml.account.security.UserDetailsCache;
 import com.oxygenxml.account.utility.DateUtility;
+import com.oxygenxml.account.utility.EmailUtility;
 
-import io.jsonwebtoken.Claims;
 import lombok.AllArgsConstructor;
 
 /**
@@ -39,6 +48,11 @@ public class UserService {
 	
 	private static final long MILIS_IN_DAY = 24L * 60L * 60L * 1000L;
 	
+	/**
+	 * The name of the unique index defined over the normalized email column of the users table.
+	 */
+	private static final String EMAIL_UNIQUE_INDEX = "ux_users_email";
+	
 	/**
 	 * Instance of UserRepository to interact with the database.
 	 */
@@ -51,34 +65,93 @@ public class UserService {
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 	
+	/**
+	 * Verifies the confirmation tokens of every known format.
+	 */
 	@Autowired
-	private JwtService jwtService;
+	private ConfirmationTokenService confirmationTokenService;
 	
 	@Autowired
 	private OxygenAccountPorpertiesConfig oxygenProperties;
 	
+	/**
+	 * The cached login details, evicted whenever the password or the status of a user changes.
+	 */
+	@Autowired
+	private UserDetailsCache userDetailsCache;
+	
+	/**
+	 * Replaces the principal stored in the session after the details it carries have changed.
+	 */
+	@Autowired
+	private SessionPrincipalRefresher sessionPrincipalRefresher;
+	
+	/**
+	 * The filter of the registered emails, which receives the email of every new user.
+	 */
+	@Autowired
+	private EmailExistenceFilter emailExistenceFilter;
+	
+	/**
+	 * Runs the insert of a new user and of its confirmation email in one transaction.
+	 */
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	
+	/**
+	 * Provides the base URL of the confirmation links, read before the email is written to the outbox.
+	 */
+	@Autowired
+	private PublicBaseUrlProvider publicBaseUrlProvider;
+	
 	/**
 	 * Register a new user in the system.
+	 * The email is normalized and the user is inserted directly; the unique index on the email column 
+	 * rejects duplicates, so no separate existence check is needed.
+	 * The method is deliberately not transactional: the password is hashed without holding a database connection,
+	 * and only the insert and the confirmation email, written to the outbox, run in a short transaction, so the email
+	 * is sent if and only if the user is inserted.
 	 * 
 	 * @param newUser The new User entity to be registered.
 	 * @return The registered User entity
 	 * @throws OxygenAccountException If a user with the same email already exists.
 	 */
 	public com.oxygenxml.account.model.User registerUser(User newUser) {
-				
-		if(userRepository.existsByEmail(newUser.getEmail())) {
-            throw new OxygenAccountException(Message.EMAIL_ALREADY_EXISTS, HttpStatus.CONFLICT, InternalErrorCode.EMAIL_ALREADY_EXISTS);
-        }
 		
+		newUser.setEmail(EmailUtility.normalize(newUser.getEmail()));
 		newUser.setPassword(passwordEncoder.encode(newUser.getPassword()));
 		newUser.setRegistrationDate(DateUtility.getCurrentUTCTimestamp());
-		newUser.setStatus(UserStatus.NEW.getStatus());
+		newUser.setStatus(UserStatus.NEW);
 		
-		newUser = userRepository.save(newUser);
+		String baseUrl = publicBaseUrlProvider.getBaseUrl();
 		
-		eventPublisher.publishEvent(new RegistrationEvent(this, newUser));
+		User registeredUser;
+		try {
+			registeredUser = transactionTemplate.execute(status -> {
+				User insertedUser = userRepository.saveAndFlush(newUser);
+				eventPublisher.publishEvent(new RegistrationEvent(this, insertedUser, baseUrl));
+				return insertedUser;
+			});
+		} catch (DataIntegrityViolationException e) {
+			if (isEmailUniqueViolation(e)) {
+				throw new OxygenAccountException(Message.EMAIL_ALREADY_EXISTS, HttpStatus.CONFLICT, InternalErrorCode.EMAIL_ALREADY_EXISTS);
+			}
+			throw e;
+		}
+		emailExistenceFilter.add(registeredUser.getEmail());
 		
-		return newUser;
+		return registeredUser;
+	}
+	
+	/**
+	 * Checks if the given data integrity violation was caused by the unique index on the email column.
+	 * 
+	 * @param e The exception thrown by the repository.
+	 * @return true if a user with the same email already exists.
+	 */
+	static boolean isEmailUniqueViolation(DataIntegrityViolationException e) {
+		String message = e.getMostSpecificCause().getMessage();
+		return message != null && message.toLowerCase(Locale.ROOT).contains(EMAIL_UNIQUE_INDEX);
 	}
 	
 	
@@ -88,8 +161,9 @@ public class UserService {
 	 * @param email The email of the User entity to retrieve.
 	 * @return A User entity that matches the provided email, or null if no matching User entity is found.
 	 */
+	@Transactional(readOnly = true)
 	public User getUserByEmail(String email) {
-		return userRepository.findByEmail(email);
+		return userRepository.findByEmail(EmailUtility.normalize(email));
 	}
 	
 	/**
@@ -98,21 +172,44 @@ public class UserService {
 	 * @param user the user entity to be saved or updated.
 	 * @return the saved or updated user entity.
 	 */
+	@Transactional
 	public User updateUser(User user) {
+		userDetailsCache.evict(user.getEmail());
 		return userRepository.save(user);
 	}
 	
 	/**
-	 * Retrieves the currently authenticated user from the security context.
+	 * Retrieves the currently authenticated user, by the primary key carried by the principal of the session.
+	 * When called from outside this service the lookup runs in a read-only transaction, so it is served by a read replica when replicas are configured.
 	 * 
 	 * @return The authenticated User entity.
 	 */
+	@Transactional(readOnly = true)
 	public User getCurrentUser() {
-		
+		return userRepository.findById(getCurrentPrincipal().getId());
+	}
+	
+	/**
+	 * Retrieves the profile details of the currently authenticated user.
+	 * The details are carried by the principal of the session, so the database is not queried.
+	 * 
+	 * @return The profile details of the authenticated user.
+	 */
+	public UserProfileView getCurrentUserProfile() {
+		return getCurrentPrincipal().toProfile();
+	}
+	
+	/**
+	 * Retrieves the principal of the currently authenticated user from the security context.
+	 * 
+	 * @return The principal of the authenticated user.
+	 * @throws UserNotAuthenticatedException if no user is authenticated.
+	 */
+	private static OxygenUserPrincipal getCurrentPrincipal() {
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 		
-		if (authentication.getPrincipal() instanceof org.springframework.security.core.userdetails.User userPrincipal) {
-		        return userRepository.findByEmail(userPrincipal.getUsername());
+		if (authentication != null && authentication.getPrincipal() instanceof OxygenUserPrincipal userPrincipal) {
+		        return userPrincipal;
 		}
 		
 		throw new UserNotAuthenticatedException();
@@ -125,21 +222,27 @@ public class UserService {
      * @param newName the new name to be set for the user.
      * @return the updated user entity.
      */
+	@Transactional
 	public User updateCurrentUserName( UpdateUserNameDto newName) {
 		User currentUser = getCurrentUser();
 	    currentUser.setName(newName.getName());
 	    userRepository.save(currentUser);
+	    userDetailsCache.evict(currentUser.getEmail());
+	    sessionPrincipalRefresher.refresh(currentUser);
 	    return currentUser;
 	}
 	
 	/**
 	 * Updates the password of the currently authenticated user after validating the input data.
+	 * The method is deliberately not transactional, so that no database connection is held while the passwords are hashed.
+	 * The user is read from the primary, because the old password must be checked against the current hash, and only the password
+	 * column is written, so that the changes made by other requests since the user was read are kept.
 	 * 
 	 * @param changePasswordDto Data transfer object containing details about the old and new passwords.
 	 * @return A UserDto representation of the user after the password has been updated.
 	 */
 	public User updateCurrentUserPassword(ChangePasswordDto changePasswordDto) {
-		User currentUser = getCurrentUser();
+		User currentUser = getCurrentUserFromPrimary();
 		
 		 if (!passwordEncoder.matches(changePasswordDto.getOldPassword(), currentUser.getPassword())) {
 			throw new OxygenAccountException(Message.INCORRECT_PASSWORD, HttpStatus.FORBIDDEN, InternalErrorCode.INCORRECT_PASSWORD);
@@ -149,27 +252,68 @@ public class UserService {
 		}
 		 currentUser.setPassword(passwordEncoder.encode(changePasswordDto.getNewPassword()));
 		 
-		 return userRepository.save(currentUser);
+		 if (userRepository.updatePassword(currentUser.getId(), currentUser.getPassword()) == 0) {
+			 throw new UserNotAuthenticatedException();
+		 }
+		 userDetailsCache.evict(currentUser.getEmail());
+		 return currentUser;
+	}
+	
+	/**
+	 * Reads the currently authenticated user from the primary, for the changes that depend on its current state.
+	 * 
+	 * @return The authenticated User entity.
+	 */
+	private User getCurrentUserFromPrimary() {
+		User currentUser = ReadYourWrites.onPrimary(this::getCurrentUser);
+		if (currentUser == null) {
+			throw new UserNotAuthenticatedException();
+		}
+		return currentUser;
+	}
+	
+	/**
+	 * Replaces the stored password hash of a user with a hash of the same password computed with the current algorithm and cost.
+	 * The hash is only replaced if it did not change since the login that computed the new one.
+	 * 
+	 * @param email The normalized email of the user.
+	 * @param oldPassword The stored hash that was verified.
+	 * @param newPassword The new hash.
+	 * @return true if the hash was replaced.
+	 */
+	public boolean upgradePasswordHash(String email, String oldPassword, String newPassword) {
+		boolean upgraded = userRepository.updatePasswordHash(email, oldPassword, newPassword) > 0;
+		if (upgraded) {
+			userDetailsCache.evict(email);
+		}
+		return upgraded;
 	}
 	
 	/**
 	 * Deletes the currently authenticated user by updating their status to "deleted" and setting their deletion date to the current timestamp.
+	 * The method is deliberately not transactional, so that no database connection is held while the password is checked.
+	 * The user is read from the primary, and only the status and the deletion date are written.
 	 * 
 	 * @param deleteUserDto Data transfer object containing the password of the user to be deleted.
 	 * @return The updated user entity with the "deleted" status and the current timestamp as the deletion date.
 	 */
 	public User deleteUser(DeleteUserDto deleteUserDto) {
-        User currentUser = getCurrentUser();
+        User currentUser = getCurrentUserFromPrimary();
 
         if (!passwordEncoder.matches(deleteUserDto.getPassword(), currentUser.getPassword())) {
             throw new OxygenAccountException(Message.INCORRECT_PASSWORD, HttpStatus.FORBIDDEN, InternalErrorCode.INCORRECT_PASSWORD);
         }
         
-        currentUser.setStatus(UserStatus.DELETED.getStatus());
+        currentUser.setStatus(UserStatus.DELETED);
         
         currentUser.setDeletionDate(DateUtility.getCurrentUTCTimestamp());
         
-        return userRepository.save(currentUser);
+        if (userRepository.updateStatus(currentUser.getId(), currentUser.getStatus(), currentUser.getDeletionDate()) == 0) {
+        	throw new UserNotAuthenticatedException();
+        }
+        userDetailsCache.evict(currentUser.getEmail());
+        sessionPrincipalRefresher.refresh(currentUser);
+        return currentUser;
     }
 	
 	/**
@@ -177,11 +321,14 @@ public class UserService {
 	 * 
 	 * @return The updated user entity with the "active" status and set null the deletion date.
 	 */
+	@Transactional
 	public User recoverUser() {
         User currentUser = getCurrentUser();
 
-        currentUser.setStatus(UserStatus.ACTIVE.getStatus());
+        currentUser.setStatus(UserStatus.ACTIVE);
         currentUser.setDeletionDate(null);
+        userDetailsCache.evict(currentUser.getEmail());
+        sessionPrincipalRefresher.refresh(currentUser);
         
         return userRepository.save(currentUser);
     }
@@ -193,36 +340,35 @@ public class UserService {
 	 * @return User object representing the confirmed user with updated status.
 	 * @throws  OxygenAccountException if the token is invalid, expired, or the user is already active
 	 */
+	@Transactional
 	public User confirmUserRegistration(String token) {
-		Claims claims;
+		ConfirmationToken confirmationToken;
 
 		try {
-			claims = jwtService.parseToken(token);
+			confirmationToken = confirmationTokenService.parseToken(token);
 		} catch (Exception e) {
 			throw new OxygenAccountException(Message.INVALID_TOKEN, HttpStatus.BAD_REQUEST, InternalErrorCode.INVALID_TOKEN);
 		}
 
-		Integer userId = claims.get(TokenClaim.USER_ID.getName(), Integer.class);
-		Date creationDate = claims.get(TokenClaim.CREATION_DATE.getName(), Date.class);
-
-		if (userId == null || creationDate == null) {
-			throw new OxygenAccountException(Message.INVALID_TOKEN, HttpStatus.BAD_REQUEST, InternalErrorCode.INVALID_TOKEN);
-		}
-
 		Timestamp currentDate = DateUtility.getCurrentUTCTimestamp();
-		long differenceDays = Math.abs(currentDate.getTime() - creationDate.getTime())/MILIS_IN_DAY;
+		long differenceDays = Math.abs(currentDate.getTime() - confirmationToken.creationDate().getTime())/MILIS_IN_DAY;
 
 		if(differenceDays >= oxygenProperties.getDaysForEmailConfirmation()) {
 			throw new OxygenAccountException(Message.TOKEN_EXPIRED, HttpStatus.GONE, InternalErrorCode.TOKEN_EXPIRED);
 		}
 
-		User user = userRepository.findById((int) userId);
+		User user = userRepository.findById(confirmationToken.userId());
 
-		if (UserStatus.ACTIVE.getStatus().equals(user.getStatus())) {
+		if (user == null) {
+			throw new OxygenAccountException(Message.INVALID_TOKEN, HttpStatus.BAD_REQUEST, InternalErrorCode.INVALID_TOKEN);
+		}
+		
+		if (user.getStatus() == UserStatus.ACTIVE) {
 			throw new OxygenAccountException(Message.USER_ALREADY_CONFIRMED, HttpStatus.GONE, InternalErrorCode.USER_ALREADY_CONFIRMED);
     	} 
         
-        user.setStatus(UserStatus.ACTIVE.getStatus());
+        user.setStatus(UserStatus.ACTIVE);
+        userDetailsCache.evict(user.getEmail());
         
         return userRepository.save(user);
 	}
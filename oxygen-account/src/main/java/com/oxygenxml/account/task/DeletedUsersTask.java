@@ -1,63 +1,217 @@
 package com.oxygenxml.account.task;
 
-import java.util.List;
+import java.sql.Timestamp;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.events.UsersPurgedEvent;
+import com.oxygenxml.account.metrics.OperationMetrics;
 import com.oxygenxml.account.model.UserStatus;
 import com.oxygenxml.account.repository.UserRepository;
 import com.oxygenxml.account.utility.DateUtility;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
 /**
  * A scheduled task that processes deleted users on a daily basis, checking if the deleted users should be permanently deleted from the database.
+ * The users are deleted directly in the database, in bounded chunks, so that no user is loaded into memory and the row locks are held only briefly.
+ * The duration of each run, the users it deleted and the delete statements it ran are published for each purged status.
  */
 @Component
-public class DeletedUsersTask {
-	
+public class DeletedUsersTask implements MeterBinder {
+
+	/**
+	 * The timer of the runs of the purge.
+	 */
+	public static final String DURATION = "oxygen.purge.duration";
+
+	/**
+	 * The summary of the users deleted by a run of the purge.
+	 */
+	public static final String DELETED = "oxygen.purge.deleted";
+
+	/**
+	 * The summary of the delete statements run by a run of the purge, each deleting at most one chunk.
+	 */
+	public static final String STATEMENTS = "oxygen.purge.statements";
+
+	/**
+	 * The tag holding the status of the purged users: "deleted" or "new".
+	 */
+	public static final String STATUS_TAG = "status";
+
+	/**
+	 * The registry of the metrics recorded before the task is bound to the registry of the application. Having no registries, it discards them.
+	 */
+	private static final MeterRegistry UNBOUND_REGISTRY = new CompositeMeterRegistry();
+
 	/**
 	 * Instance of UserRepository to interact with the database.
 	 */
 	@Autowired
 	private UserRepository userRepository;
-	
+
 	/**
-	 * Instance of a utility class to calculate the number of days left before a deleted user should be permanently deleted.
+	 * Instance of a utility class to calculate the moment before which users should be permanently deleted.
 	 */
 	@Autowired
 	private DateUtility daysLeftUtility;
 
 	/**
-	 * Scheduled task that runs daily at midnight to process users marked as "deleted" and check if they should be permanently deleted from the repository.
+	 * Configuration object that provides the chunk size and the pause between chunks.
 	 */
-	@Scheduled(cron = "0 0 0 * * ?")
-	public void processDeletedUsers() {
-		List<User> deletedUsers = userRepository.findByStatus(UserStatus.DELETED.getStatus());
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+	
+	/**
+	 * Announces the purged users, so that their cached login details are dropped.
+	 */
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * The metrics of the purge of the deleted users.
+	 */
+	private volatile PurgeMetrics deletedUsersMetrics = PurgeMetrics.register(UNBOUND_REGISTRY, UserStatus.DELETED);
+
+	/**
+	 * The metrics of the purge of the unconfirmed users.
+	 */
+	private volatile PurgeMetrics unconfirmedUsersMetrics = PurgeMetrics.register(UNBOUND_REGISTRY, UserStatus.NEW);
+
+	/**
+	 * The metrics of the purge of the users of one status.
+	 *
+	 * @param success The duration of the runs that completed.
+	 * @param error The duration of the runs stopped by an exception.
+	 * @param deleted The users deleted by each run.
+	 * @param statements The delete statements run by each run.
+	 */
+	private record PurgeMetrics(Timer success, Timer error, DistributionSummary deleted, DistributionSummary statements) {
 
-		for (User user : deletedUsers) {
-			int daysLeft = daysLeftUtility.getDaysLeftForRecovery(user);
+		/**
+		 * Creates the metrics of the purge of a status.
+		 *
+		 * @param registry The registry that receives the metrics.
+		 * @param status The status of the purged users.
+		 * @return The metrics.
+		 */
+		private static PurgeMetrics register(MeterRegistry registry, UserStatus status) {
+			String statusTag = status.name().toLowerCase(Locale.ROOT);
+			return new PurgeMetrics(
+					duration(registry, statusTag, OperationMetrics.SUCCESS),
+					duration(registry, statusTag, OperationMetrics.ERROR),
+					DistributionSummary.builder(DELETED).tag(STATUS_TAG, statusTag)
+							.description("The users deleted by a run of the purge")
+							.register(registry),
+					DistributionSummary.builder(STATEMENTS).tag(STATUS_TAG, statusTag)
+							.description("The delete statements run by a run of the purge")
+							.register(registry));
+		}
 
-			if (daysLeft == 0) {
-				userRepository.delete(user);
-			}
+		/**
+		 * Creates the timer of the runs of an outcome.
+		 */
+		private static Timer duration(MeterRegistry registry, String statusTag, String outcome) {
+			return Timer.builder(DURATION).tag(STATUS_TAG, statusTag).tag(OperationMetrics.OUTCOME_TAG, outcome)
+					.description("The duration of a run of the purge")
+					.register(registry);
 		}
 	}
-	
+
 	/**
-	 * Scheduled task that runs daily at midnight to process users marked as "new" and check if they should be permanently deleted from the repository.
+	 * Scheduled task that runs daily at midnight to permanently delete the users marked as "deleted" whose recovery period has ended.
+	 */
+	@Scheduled(cron = "0 0 0 * * ?")
+	public void processDeletedUsers() {
+		Timestamp cutoff = daysLeftUtility.getRecoveryCutoff();
+		byte status = UserStatus.DELETED.getCode();
+
+		purgeInChunks(limit -> userRepository.deleteByStatusAndDeletionDateUpTo(status, cutoff, limit), deletedUsersMetrics);
+	}
+
+	/**
+	 * Scheduled task that runs daily at midnight to permanently delete the users marked as "new" whose confirmation period has ended.
 	 */
 	@Scheduled(cron = "0 0 0 * * ?")
 	public void processDeleteUnconfirmedUsers() {
-		List<User> newUsers = userRepository.findByStatus(UserStatus.NEW.getStatus());
+		Timestamp cutoff = daysLeftUtility.getConfirmationCutoff();
+		byte status = UserStatus.NEW.getCode();
 
-		for (User user : newUsers) {
-			int daysLeft = daysLeftUtility.getDaysLeftForConfirmAccount(user);
+		purgeInChunks(limit -> userRepository.deleteByStatusAndRegistrationDateUpTo(status, cutoff, limit), unconfirmedUsersMetrics);
+	}
 
-			if (daysLeft == 0) {
-				userRepository.delete(user);
-			}
+	/**
+	 * Repeats the given delete statement until it removes fewer rows than the chunk size, pausing between chunks,
+	 * publishes a {@link UsersPurgedEvent} if any user was deleted, and records the run.
+	 *
+	 * @param deleteChunk Deletes at most the given number of users and returns how many were deleted.
+	 * @param metrics The metrics of the purged status.
+	 * @return The total number of deleted users.
+	 */
+	private int purgeInChunks(IntUnaryOperator deleteChunk, PurgeMetrics metrics) {
+		long start = System.nanoTime();
+		int batchSize = oxygenProperties.getPurgeBatchSize();
+		int total = 0;
+		int statements = 0;
+		int deleted;
+
+		try {
+			do {
+				deleted = deleteChunk.applyAsInt(batchSize);
+				statements++;
+				total += deleted;
+			} while (deleted == batchSize && pause());
+		} catch (RuntimeException e) {
+			metrics.error().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			throw e;
+		} finally {
+			metrics.deleted().record(total);
+			metrics.statements().record(statements);
+		}
+		metrics.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		if (total > 0) {
+			eventPublisher.publishEvent(new UsersPurgedEvent(this, total));
 		}
+
+		return total;
+	}
+
+	/**
+	 * Waits the configured time between two chunks.
+	 *
+	 * @return false if the thread was interrupted and the purge should stop.
+	 */
+	private boolean pause() {
+		try {
+			Thread.sleep(oxygenProperties.getPurgePauseMillis());
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Publishes the duration, the deleted users and the delete statements of the runs of the purge.
+	 *
+	 * @param registry The registry that receives the metrics.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		deletedUsersMetrics = PurgeMetrics.register(registry, UserStatus.DELETED);
+		unconfirmedUsersMetrics = PurgeMetrics.register(registry, UserStatus.NEW);
 	}
 }
@@ -0,0 +1,174 @@
+package com.oxygenxml.account.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.dto.EmailInfo;
+import com.oxygenxml.account.exception.EmailException;
+import com.oxygenxml.account.model.OutboxEmail;
+import com.oxygenxml.account.service.EmailOutboxService;
+import com.oxygenxml.account.service.EmailService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * A scheduled task that sends the emails of the outbox, off the request threads.
+ * Each run claims the due emails in batches until no due email is left, sends each batch over one pooled SMTP connection
+ * and reports the outcome of each email, so a failed email is retried later with a backoff and does not block the others.
+ */
+@Component
+public class EmailOutboxDispatcher implements MeterBinder {
+
+	/**
+	 * The counter of the emails sent.
+	 */
+	public static final String SENT = "oxygen.email.outbox.sent";
+
+	/**
+	 * The counter of the failed attempts that will be retried.
+	 */
+	public static final String RETRIED = "oxygen.email.outbox.retried";
+
+	/**
+	 * The counter of the emails that were given up after the last allowed attempt.
+	 */
+	public static final String FAILED = "oxygen.email.outbox.failed";
+
+	/**
+	 * Logs the emails that were given up.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+	/**
+	 * Stores the emails and tracks their delivery.
+	 */
+	@Autowired
+	private EmailOutboxService emailOutboxService;
+
+	/**
+	 * Renders and sends the emails.
+	 */
+	@Autowired
+	private EmailService emailService;
+
+	/**
+	 * Configuration object that provides the batch size.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * The number of emails sent.
+	 */
+	private final LongAdder sent = new LongAdder();
+
+	/**
+	 * The number of failed attempts that will be retried.
+	 */
+	private final LongAdder retried = new LongAdder();
+
+	/**
+	 * The number of emails given up.
+	 */
+	private final LongAdder failed = new LongAdder();
+
+	/**
+	 * Scheduled task that sends the due emails of the outbox.
+	 *
+	 * @return The number of emails sent by this run.
+	 */
+	@Scheduled(fixedDelayString = "${oxygen.account.emailOutboxPollMillis:1000}", initialDelayString = "${oxygen.account.emailOutboxPollMillis:1000}")
+	public int dispatch() {
+		int batchSize = oxygenProperties.getEmailOutboxBatchSize();
+		int total = 0;
+		List<OutboxEmail> batch;
+
+		do {
+			batch = emailOutboxService.claimBatch();
+			if (!batch.isEmpty()) {
+				total += send(batch);
+			}
+		} while (batch.size() == batchSize && !Thread.currentThread().isInterrupted());
+
+		return total;
+	}
+
+	/**
+	 * Sends a batch of claimed emails over one SMTP connection and reports the outcome of each.
+	 *
+	 * @param batch The claimed emails.
+	 * @return The number of emails sent.
+	 */
+	private int send(List<OutboxEmail> batch) {
+		List<OutboxEmail> readable = new ArrayList<>(batch.size());
+		List<EmailInfo> emails = new ArrayList<>(batch.size());
+		for (OutboxEmail email : batch) {
+			try {
+				emails.add(emailOutboxService.toEmailInfo(email));
+				readable.add(email);
+			} catch (IllegalStateException e) {
+				recordFailure(email, e);
+			}
+		}
+
+		List<EmailException> failures = emailService.sendEmails(emails);
+
+		List<OutboxEmail> sentEmails = new ArrayList<>(readable.size());
+		for (int i = 0; i < readable.size(); i++) {
+			if (failures.get(i) == null) {
+				sentEmails.add(readable.get(i));
+			} else {
+				recordFailure(readable.get(i), failures.get(i));
+			}
+		}
+
+		if (!sentEmails.isEmpty()) {
+			emailOutboxService.markSent(sentEmails);
+			sent.add(sentEmails.size());
+		}
+		return sentEmails.size();
+	}
+
+	/**
+	 * Records a failed attempt to send an email.
+	 *
+	 * @param email The email that could not be sent.
+	 * @param error The cause of the failure.
+	 */
+	private void recordFailure(OutboxEmail email, Exception error) {
+		if (emailOutboxService.markAttemptFailed(email, error)) {
+			retried.increment();
+		} else {
+			failed.increment();
+			logger.error("Could not send {} email {} after {} attempts", email.getType(), email.getId(), email.getAttempts(), error);
+		}
+	}
+
+	/**
+	 * Publishes the sent, retried and failed counters.
+	 *
+	 * @param registry The registry that receives the metrics.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder(SENT, sent, LongAdder::sum)
+				.description("Emails of the outbox sent")
+				.register(registry);
+		FunctionCounter.builder(RETRIED, retried, LongAdder::sum)
+				.description("Failed attempts to send an email of the outbox that will be retried")
+				.register(registry);
+		FunctionCounter.builder(FAILED, failed, LongAdder::sum)
+				.description("Emails of the outbox given up after the last allowed attempt")
+				.register(registry);
+	}
+}
@@ -1,12 +1,27 @@
 package com.oxygenxml.account.type;
 
+import lombok.Getter;
+
 /**
  * An enumeration representing the types of email messages.
  */
+@Getter
 public enum EmailType {
 	
 	/**
      * Email type for confirm registration.
      */
-	CONFIRM_REGISTRATION;
-}
\ No newline at end of file
+	CONFIRM_REGISTRATION("registration");
+
+	/**
+	 * The prefix of the templates of the email: the subject is "prefix-subject.ftlh" and the body is "prefix-body.ftlh".
+	 */
+	private final String templatePrefix;
+
+	/**
+	 * Constructs a new enum instance with the specified template prefix.
+	 */
+	private EmailType(String templatePrefix) {
+		this.templatePrefix = templatePrefix;
+	}
+}
@@ -0,0 +1,17 @@
+package com.oxygenxml.account.type;
+
+/**
+ * An enumeration representing the formats accepted by the bulk user import.
+ */
+public enum ImportFormat {
+
+	/**
+	 * One JSON object per line.
+	 */
+	NDJSON,
+
+	/**
+	 * Comma-separated values with a header line naming the columns.
+	 */
+	CSV;
+}
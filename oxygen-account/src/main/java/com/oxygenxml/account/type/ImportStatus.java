@@ -0,0 +1,17 @@
+package com.oxygenxml.account.type;
+
+/**
+ * An enumeration representing the outcome of importing one row of a bulk user import.
+ */
+public enum ImportStatus {
+
+	/**
+	 * The user was created.
+	 */
+	IMPORTED,
+
+	/**
+	 * The row was rejected; the result carries the reason.
+	 */
+	FAILED;
+}
@@ -0,0 +1,55 @@
+package com.oxygenxml.account.type;
+
+import lombok.Getter;
+
+/**
+ * The algorithms of the password hashes.
+ */
+@Getter
+public enum PasswordHashAlgorithm {
+
+	/**
+	 * BCrypt, whose cost is the log2 of the number of rounds, so each step doubles the time of a hash.
+	 */
+	BCRYPT("bcrypt", 4, 31, true),
+
+	/**
+	 * Argon2id, a memory-hard algorithm whose cost is the number of iterations over the memory, so the time of a hash grows linearly with it.
+	 */
+	ARGON2("argon2", 1, 1000, false);
+
+	/**
+	 * The id that prefixes the stored hashes, as in "{bcrypt}$2a$10$...".
+	 */
+	private final String id;
+
+	/**
+	 * The lowest cost accepted by the algorithm.
+	 */
+	private final int minCost;
+
+	/**
+	 * The highest cost accepted by the algorithm.
+	 */
+	private final int maxCost;
+
+	/**
+	 * Whether each step of the cost doubles the time of a hash, instead of adding a constant time.
+	 */
+	private final boolean exponentialCost;
+
+	/**
+	 * Creates an algorithm.
+	 *
+	 * @param id The id that prefixes the stored hashes.
+	 * @param minCost The lowest cost accepted by the algorithm.
+	 * @param maxCost The highest cost accepted by the algorithm.
+	 * @param exponentialCost Whether each step of the cost doubles the time of a hash.
+	 */
+	private PasswordHashAlgorithm(String id, int minCost, int maxCost, boolean exponentialCost) {
+		this.id = id;
+		this.minCost = minCost;
+		this.maxCost = maxCost;
+		this.exponentialCost = exponentialCost;
+	}
+}
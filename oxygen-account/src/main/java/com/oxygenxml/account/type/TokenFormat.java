@@ -0,0 +1,17 @@
+package com.oxygenxml.account.type;
+
+/**
+ * The formats of the confirmation tokens sent in the registration emails.
+ */
+public enum TokenFormat {
+
+	/**
+	 * A JSON Web Token holding the {@link TokenClaim} claims.
+	 */
+	JWT,
+
+	/**
+	 * A fixed-layout binary token holding the user id and the creation date, authenticated with a truncated HMAC-SHA256 tag.
+	 */
+	BINARY
+}
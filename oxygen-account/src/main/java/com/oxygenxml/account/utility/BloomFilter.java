@@ -0,0 +1,145 @@
+package com.oxygenxml.account.utility;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter of strings.
+ * It answers whether a string was possibly added, with a bounded rate of false positives, or certainly not added.
+ * Strings cannot be removed; the filter must be rebuilt to forget them.
+ * <p>
+ * A lookup always computes and reads all the positions of the string, even after finding an unset bit,
+ * so the time it takes does not depend on whether the string was added.
+ */
+public class BloomFilter {
+
+	/**
+	 * The offset basis of the 64-bit FNV-1a hash.
+	 */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/**
+	 * The prime of the 64-bit FNV-1a hash.
+	 */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * The increment used to derive the second hash from the first one.
+	 */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * The bits of the filter.
+	 */
+	private final AtomicLongArray bits;
+
+	/**
+	 * The number of bits of the filter.
+	 */
+	private final long bitCount;
+
+	/**
+	 * The number of positions set for each string.
+	 */
+	private final int hashCount;
+
+	/**
+	 * Creates a filter sized for the given number of strings and false positive rate.
+	 *
+	 * @param expectedInsertions The number of strings the filter is expected to hold.
+	 * @param falsePositiveRate The rate of false positives when the filter holds the expected number of strings, between 0 and 1.
+	 */
+	public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+		if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("Invalid Bloom filter size: " + expectedInsertions + " strings, " + falsePositiveRate + " false positives");
+		}
+		double ln2 = Math.log(2);
+		long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+		int words = (int) Math.min(Integer.MAX_VALUE - 8L, (optimalBits + 63) / 64);
+
+		this.bits = new AtomicLongArray(words);
+		this.bitCount = words * 64L;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+	}
+
+	/**
+	 * Adds a string to the filter.
+	 *
+	 * @param value The string to add.
+	 */
+	public void add(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1 + GOLDEN_GAMMA);
+		for (int i = 0; i < hashCount; i++) {
+			long index = position(hash1, hash2, i);
+			long mask = 1L << index;
+			bits.accumulateAndGet((int) (index >>> 6), mask, (word, bit) -> word | bit);
+		}
+	}
+
+	/**
+	 * Checks whether a string was possibly added to the filter.
+	 *
+	 * @param value The string to check.
+	 * @return false if the string was certainly not added, true if it was possibly added.
+	 */
+	public boolean mightContain(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1 + GOLDEN_GAMMA);
+		long present = 1;
+		for (int i = 0; i < hashCount; i++) {
+			long index = position(hash1, hash2, i);
+			present &= bits.get((int) (index >>> 6)) >>> index;
+		}
+		return present != 0;
+	}
+
+	/**
+	 * Returns the false positive rate expected for the strings added so far, computed from the fraction of set bits.
+	 *
+	 * @return The expected false positive rate, between 0 and 1.
+	 */
+	public double expectedFalsePositiveRate() {
+		long setBits = 0;
+		for (int i = 0; i < bits.length(); i++) {
+			setBits += Long.bitCount(bits.get(i));
+		}
+		return Math.pow((double) setBits / bitCount, hashCount);
+	}
+
+	/**
+	 * Returns the number of positions set for each string.
+	 *
+	 * @return The number of hash functions.
+	 */
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	/**
+	 * Returns the bit at the given step of the double hashing sequence.
+	 */
+	private long position(long hash1, long hash2, int step) {
+		return Long.remainderUnsigned(hash1 + step * hash2, bitCount);
+	}
+
+	/**
+	 * Computes the 64-bit FNV-1a hash of the characters of a string, finished with a mixing function.
+	 */
+	private static long hash(String value) {
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = 0; i < value.length(); i++) {
+			hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Spreads the bits of a 64-bit value, with the finalizer of SplitMix64.
+	 */
+	private static long mix(long value) {
+		long z = value;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -9,7 +9,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
-import com.oxygenxml.account.model.User;
 
 /**
  * Utility class to handle date-related operations.
@@ -29,32 +28,33 @@ public class DateUtility {
 	private static final long MILIS_IN_DAY = 24L * 60L * 60L * 1000L;
 	
 	/**
-	 * Calculates the number of days left for a user's recovery based on the user's deletion date and the configured number of days until deletion.
-	 * @param user The user whose recovery days left needs to be calculated
-	 * @return the number of days left for recovery; returns zero if the user has no days left
+	 * Calculates the moment before which deleted users can no longer be recovered.
+	 * A user deleted at or before this moment has no days left for recovery.
+	 * 
+	 * @return the latest deletion date of the users that should be permanently deleted
 	 */
-	public int getDaysLeftForRecovery(User user) {
-		Timestamp currentTimestamp = getCurrentUTCTimestamp();
-		long timeSinceDeletion = currentTimestamp.getTime() - user.getDeletionDate().getTime();
-		int daysSinceDeletion = (int) (timeSinceDeletion / MILIS_IN_DAY);
-		int daysLeft = oxygenProperties.getDaysUntilDeletion() - daysSinceDeletion;
-
-		return Math.max(daysLeft, 0); 
+	public Timestamp getRecoveryCutoff() {
+		return getCutoff(oxygenProperties.getDaysUntilDeletion());
 	}
 	
 	/**
-	 * This method calculates the number of days left for a user to confirm their account.
+	 * Calculates the moment before which new users can no longer confirm their account.
+	 * A user registered at or before this moment has no days left to confirm the account.
 	 * 
-	 * @param user User object representing the user whose account confirmation days left are to be calculated.
-	 * @return int representing the number of days left for the user to confirm their account.
+	 * @return the latest registration date of the unconfirmed users that should be permanently deleted
 	 */
-	public int getDaysLeftForConfirmAccount(User user) {
-		Timestamp currentTimestamp = getCurrentUTCTimestamp();
-		long timeSinceCreation = currentTimestamp.getTime() - user.getRegistrationDate().getTime();
-		int daysSinceCreation = (int) (timeSinceCreation / MILIS_IN_DAY);
-		int daysLeft = oxygenProperties.getDaysForEmailConfirmation() - daysSinceCreation;
-
-		return Math.max(daysLeft, 0); 
+	public Timestamp getConfirmationCutoff() {
+		return getCutoff(oxygenProperties.getDaysForEmailConfirmation());
+	}
+	
+	/**
+	 * Calculates the UTC timestamp that lies the given number of days before the current moment.
+	 * 
+	 * @param days the number of days
+	 * @return the current UTC timestamp minus the given number of days
+	 */
+	private static Timestamp getCutoff(int days) {
+		return new Timestamp(getCurrentUTCTimestamp().getTime() - days * MILIS_IN_DAY);
 	}
 	
 	/**
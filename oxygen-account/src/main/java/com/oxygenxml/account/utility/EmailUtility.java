@@ -0,0 +1,26 @@
+package com.oxygenxml.account.utility;
+
+import java.util.Locale;
+
+/**
+ * Utility class to handle email-related operations.
+ */
+public final class EmailUtility {
+
+	/**
+	 * Private constructor to prevent instantiation of this utility class.
+	 */
+	private EmailUtility() {
+	}
+
+	/**
+	 * Normalizes an email address to the form stored in the database: trimmed and lower-cased.
+	 * The unique index on the users table is defined over this form, so every lookup by email must use it.
+	 * 
+	 * @param email The email address to normalize.
+	 * @return The normalized email address, or null if the given email is null.
+	 */
+	public static String normalize(String email) {
+		return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,110 @@
+package com.oxygenxml.account.utility;
+
+import java.io.Writer;
+
+/**
+ * A {@link Writer} that appends to a {@link StringBuilder} and can be reset, so that one instance is reused for many renderings.
+ * It is not thread-safe.
+ */
+public final class StringBuilderWriter extends Writer {
+
+	/**
+	 * The buffer that receives the characters.
+	 */
+	private final StringBuilder builder;
+
+	/**
+	 * Creates a writer with the given initial capacity.
+	 *
+	 * @param capacity The initial capacity of the buffer.
+	 */
+	public StringBuilderWriter(int capacity) {
+		builder = new StringBuilder(capacity);
+	}
+
+	/**
+	 * Appends a character.
+	 *
+	 * @param c The character.
+	 */
+	@Override
+	public void write(int c) {
+		builder.append((char) c);
+	}
+
+	/**
+	 * Appends a part of an array of characters.
+	 *
+	 * @param chars The characters.
+	 * @param offset The index of the first character to append.
+	 * @param length The number of characters to append.
+	 */
+	@Override
+	public void write(char[] chars, int offset, int length) {
+		builder.append(chars, offset, length);
+	}
+
+	/**
+	 * Appends a string.
+	 *
+	 * @param string The string.
+	 */
+	@Override
+	public void write(String string) {
+		builder.append(string);
+	}
+
+	/**
+	 * Appends a part of a string.
+	 *
+	 * @param string The string.
+	 * @param offset The index of the first character to append.
+	 * @param length The number of characters to append.
+	 */
+	@Override
+	public void write(String string, int offset, int length) {
+		builder.append(string, offset, offset + length);
+	}
+
+	/**
+	 * Does nothing, the characters are already in the buffer.
+	 */
+	@Override
+	public void flush() {
+		// Nothing to flush.
+	}
+
+	/**
+	 * Does nothing, the writer can still be used.
+	 */
+	@Override
+	public void close() {
+		// Nothing to release.
+	}
+
+	/**
+	 * Discards the characters written so far, keeping the capacity of the buffer.
+	 */
+	public void reset() {
+		builder.setLength(0);
+	}
+
+	/**
+	 * Returns the capacity of the buffer.
+	 *
+	 * @return The number of characters that the buffer holds without growing.
+	 */
+	public int capacity() {
+		return builder.capacity();
+	}
+
+	/**
+	 * Returns the characters written since the last reset.
+	 *
+	 * @return The written characters.
+	 */
+	@Override
+	public String toString() {
+		return builder.toString();
+	}
+}
@@ -0,0 +1,137 @@
+package com.oxygenxml.account.utility;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed number of lock-free token buckets, shared by the keys whose hashes fall in the same stripe.
+ * <p>
+ * Each bucket is a single long, updated with compare-and-set, that holds the theoretical arrival time of the next token
+ * of the generic cell rate algorithm: a bucket allows a burst of requests and then one request per interval. Acquiring a token
+ * neither locks nor allocates, and the memory does not grow with the number of keys. The keys that share a stripe share its bucket,
+ * so a stripe may be throttled by another key; the hash is seeded randomly at startup, so the keys that share a stripe cannot be chosen by a client.
+ */
+public class StripedTokenBuckets {
+
+	/**
+	 * The offset basis of the 64-bit FNV-1a hash.
+	 */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/**
+	 * The prime of the 64-bit FNV-1a hash.
+	 */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * The theoretical arrival time of each bucket, in nanoseconds since the creation of the buckets.
+	 */
+	private final AtomicLongArray arrivals;
+
+	/**
+	 * The mask that selects a stripe from a hash.
+	 */
+	private final int stripeMask;
+
+	/**
+	 * The time after which a new token is available, in nanoseconds.
+	 */
+	private final long intervalNanos;
+
+	/**
+	 * The time for which the tokens of a burst may be taken in advance, in nanoseconds.
+	 */
+	private final long burstNanos;
+
+	/**
+	 * The moment when the buckets were created, so that the times held by the buckets start at zero and an unused bucket is full.
+	 */
+	private final long originNanos = System.nanoTime();
+
+	/**
+	 * The random seed of the hash.
+	 */
+	private final long seed = new SecureRandom().nextLong();
+
+	/**
+	 * Creates full buckets.
+	 *
+	 * @param stripes The number of buckets, rounded up to a power of two.
+	 * @param burst The number of requests that a full bucket allows at once.
+	 * @param intervalNanos The time after which a new token is available, in nanoseconds.
+	 */
+	public StripedTokenBuckets(int stripes, int burst, long intervalNanos) {
+		if (stripes <= 0 || burst <= 0 || intervalNanos <= 0) {
+			throw new IllegalArgumentException("Invalid token buckets: " + stripes + " stripes, burst " + burst + ", interval " + intervalNanos + " ns");
+		}
+		int size = Integer.highestOneBit(Math.min(stripes, 1 << 30));
+		if (size < stripes) {
+			size <<= 1;
+		}
+		this.arrivals = new AtomicLongArray(size);
+		this.stripeMask = size - 1;
+		this.intervalNanos = intervalNanos;
+		this.burstNanos = (burst - 1) * intervalNanos;
+	}
+
+	/**
+	 * Takes a token from the bucket of a key.
+	 *
+	 * @param key The key. It is hashed trimmed and lower-cased, so the forms of an email that normalize to the same email share a bucket.
+	 * @return 0 if a token was taken, otherwise the time after which a token will be available, in nanoseconds.
+	 */
+	public long tryAcquire(String key) {
+		int stripe = (int) hash(key) & stripeMask;
+		long now = System.nanoTime() - originNanos;
+		while (true) {
+			long arrival = arrivals.get(stripe);
+			long start = Math.max(arrival, now);
+			long wait = start - now - burstNanos;
+			if (wait > 0) {
+				return wait;
+			}
+			if (arrivals.compareAndSet(stripe, arrival, start + intervalNanos)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of buckets.
+	 *
+	 * @return The number of stripes.
+	 */
+	public int getStripes() {
+		return arrivals.length();
+	}
+
+	/**
+	 * Computes the seeded 64-bit FNV-1a hash of the trimmed, lower-cased characters of a string, finished with a mixing function.
+	 */
+	private long hash(String value) {
+		int start = 0;
+		int end = value.length();
+		while (start < end && value.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && value.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		long hash = FNV_OFFSET_BASIS ^ seed;
+		for (int i = start; i < end; i++) {
+			hash = (hash ^ Character.toLowerCase(value.charAt(i))) * FNV_PRIME;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Spreads the bits of a 64-bit value, with the finalizer of SplitMix64.
+	 */
+	private static long mix(long value) {
+		long z = value;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
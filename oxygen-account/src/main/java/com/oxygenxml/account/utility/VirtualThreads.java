@@ -0,0 +1,136 @@
+package com.oxygenxml.account.utility;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when the runtime supports them, from Java 21.
+ * The application is compiled for Java 17, so the virtual thread API is looked up reflectively once and called through method handles.
+ */
+public final class VirtualThreads {
+
+	/**
+	 * Calls {@code Thread.ofVirtual()}, or null if the runtime has no virtual threads.
+	 */
+	private static final MethodHandle OF_VIRTUAL;
+
+	/**
+	 * Calls {@code Thread.Builder.name(String, long)}.
+	 */
+	private static final MethodHandle NAME;
+
+	/**
+	 * Calls {@code Thread.Builder.factory()}.
+	 */
+	private static final MethodHandle FACTORY;
+
+	/**
+	 * Calls {@code Thread.isVirtual()}.
+	 */
+	private static final MethodHandle IS_VIRTUAL;
+
+	/**
+	 * Calls {@code Executors.newThreadPerTaskExecutor(ThreadFactory)}.
+	 */
+	private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+
+	static {
+		MethodHandle ofVirtual = null;
+		MethodHandle name = null;
+		MethodHandle factory = null;
+		MethodHandle isVirtual = null;
+		MethodHandle newThreadPerTaskExecutor = null;
+		if (Runtime.version().feature() >= 21) {
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+				Class<?> builder = Class.forName("java.lang.Thread$Builder");
+				Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+				ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder));
+				name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class, long.class));
+				factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+				isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+				newThreadPerTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+						MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+			} catch (ReflectiveOperationException e) {
+				ofVirtual = null;
+			}
+		}
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		FACTORY = factory;
+		IS_VIRTUAL = isVirtual;
+		NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+	}
+
+	/**
+	 * Utility class, not instantiated.
+	 */
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Checks whether the runtime supports virtual threads.
+	 *
+	 * @return true on Java 21 or later.
+	 */
+	public static boolean isSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Creates a factory of virtual threads, named with a prefix followed by a counter.
+	 *
+	 * @param namePrefix The prefix of the names of the threads.
+	 * @return The factory.
+	 * @throws IllegalStateException if the runtime does not support virtual threads.
+	 */
+	public static ThreadFactory factory(String namePrefix) {
+		if (!isSupported()) {
+			throw new IllegalStateException("Virtual threads require Java 21 or later, the runtime is Java " + Runtime.version().feature());
+		}
+		try {
+			Object builder = OF_VIRTUAL.invoke();
+			builder = NAME.invoke(builder, namePrefix, 0L);
+			return (ThreadFactory) FACTORY.invoke(builder);
+		} catch (Throwable e) {
+			throw new IllegalStateException("Virtual threads cannot be created", e);
+		}
+	}
+
+	/**
+	 * Creates an executor that runs each task on a new virtual thread.
+	 *
+	 * @param namePrefix The prefix of the names of the threads.
+	 * @return The executor.
+	 * @throws IllegalStateException if the runtime does not support virtual threads.
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+		ThreadFactory factory = factory(namePrefix);
+		try {
+			return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(factory);
+		} catch (Throwable e) {
+			throw new IllegalStateException("Virtual threads cannot be created", e);
+		}
+	}
+
+	/**
+	 * Checks whether a thread is virtual.
+	 *
+	 * @param thread The thread.
+	 * @return true if the thread is virtual.
+	 */
+	public static boolean isVirtual(Thread thread) {
+		if (!isSupported()) {
+			return false;
+		}
+		try {
+			return (boolean) IS_VIRTUAL.invoke(thread);
+		} catch (Throwable e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,3 @@
+CREATE INDEX ix_users_status_deletion_date ON users (status, deletion_date);
+
+CREATE INDEX ix_users_status_registration_date ON users (status, registration_date);
@@ -0,0 +1,5 @@
+CREATE TABLE users_seq (
+    next_val BIGINT NOT NULL
+);
+
+INSERT INTO users_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM users;
@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    email_type VARCHAR(50) NOT NULL,
+    email_address VARCHAR(255) NOT NULL,
+    email_locale VARCHAR(35),
+    email_data TEXT NOT NULL,
+    status TINYINT NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    creation_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    next_attempt_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    claim_token VARCHAR(36),
+    claimed_until TIMESTAMP NULL,
+    last_error VARCHAR(1000)
+);
+
+CREATE INDEX ix_email_outbox_status_next_attempt_date ON email_outbox (status, next_attempt_date);
+
+CREATE INDEX ix_email_outbox_claim_token ON email_outbox (claim_token);
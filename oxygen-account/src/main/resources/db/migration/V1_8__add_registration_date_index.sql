@@ -0,0 +1 @@
+CREATE INDEX ix_users_registration_date ON users (registration_date);
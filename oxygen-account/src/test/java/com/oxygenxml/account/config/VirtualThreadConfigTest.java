@@ -0,0 +1,62 @@
+package com.oxygenxml.account.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import com.oxygenxml.account.utility.VirtualThreads;
+
+/**
+ * Tests the virtual thread mode.
+ */
+class VirtualThreadConfigTest {
+
+	/**
+	 * Runs the configuration of the virtual threads.
+	 */
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withUserConfiguration(VirtualThreadConfig.class);
+
+	/**
+	 * Tests that the mode is disabled by default.
+	 */
+	@Test
+	void testDisabledByDefault() {
+		contextRunner.run(context -> assertThat(context).doesNotHaveBean(VirtualThreadConfig.class));
+	}
+
+	/**
+	 * Tests that, when enabled, the asynchronous tasks run on virtual threads on Java 21, and that the startup fails on an older runtime.
+	 */
+	@Test
+	void testEnabled() {
+		contextRunner.withPropertyValues("oxygen.account.virtualThreadsEnabled=true").run(context -> {
+			if (!VirtualThreads.isSupported()) {
+				assertThat(context).hasFailed();
+				assertThat(context.getStartupFailure()).hasRootCauseInstanceOf(IllegalStateException.class);
+				return;
+			}
+
+			AsyncTaskExecutor executor = context.getBean("applicationTaskExecutor", AsyncTaskExecutor.class);
+			CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+			executor.execute(() -> virtual.complete(VirtualThreads.isVirtual(Thread.currentThread())));
+			assertTrue(virtual.get());
+		});
+	}
+
+	/**
+	 * Tests that the support of the virtual threads matches the version of the runtime.
+	 */
+	@Test
+	void testSupportMatchesRuntime() {
+		assertEquals(Runtime.version().feature() >= 21, VirtualThreads.isSupported());
+		assertFalse(VirtualThreads.isVirtual(Thread.currentThread()));
+	}
+}
@@ -0,0 +1,142 @@
+package com.oxygenxml.account.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Tests that the database connections are measured per endpoint and that no connection is held open for the whole request.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.emailFilterEnabled=false",
+		"oxygen.account.adminEmails=denismateescu@gmail.com"
+})
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+class MeteredDataSourceTest {
+
+	/**
+	 * MockMvc instance is used for simulating HTPP requests
+	 */
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * The registry that receives the timers.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * The data source used by the application.
+	 */
+	@Autowired
+	private DataSource dataSource;
+
+	/**
+	 * Used to look for the open-in-view interceptor.
+	 */
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	/**
+	 * Tests that open-in-view is disabled and that the data source is metered.
+	 */
+	@Test
+	void testOpenInViewDisabled() {
+		assertTrue(applicationContext.getBeansOfType(OpenEntityManagerInViewInterceptor.class).isEmpty());
+		assertTrue(dataSource instanceof MeteredDataSource);
+	}
+
+	/**
+	 * Tests that the connections used by the login and by the profile update are recorded under their endpoints,
+	 * that the profile is answered from the session without a connection, and that the timers are published through the metrics endpoint.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testConnectionTimersPerEndpoint() throws Exception {
+		MvcResult result = mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", "denismateescu@gmail.com")
+				.param("password", "password"))
+		.andReturn();
+		MockHttpSession session = (MockHttpSession) result.getRequest().getSession();
+
+		mockMvc.perform(put("/api/users/profile").session(session)
+				.contentType("application/json")
+				.content("{\"name\":\"Denis\"}"))
+		.andExpect(status().isOk());
+
+		Timer loginHold = meterRegistry.find(MeteredDataSource.HOLD_TIMER).tag(MeteredDataSource.ENDPOINT_TAG, "/login").timer();
+		Timer profileAcquire = meterRegistry.find(MeteredDataSource.ACQUIRE_TIMER).tag(MeteredDataSource.ENDPOINT_TAG, "/api/users/profile").timer();
+		Timer profileHold = meterRegistry.find(MeteredDataSource.HOLD_TIMER).tag(MeteredDataSource.ENDPOINT_TAG, "/api/users/profile").timer();
+		assertNotNull(loginHold);
+		assertNotNull(profileAcquire);
+		assertNotNull(profileHold);
+		assertTrue(profileAcquire.count() > 0);
+		assertFalse(profileHold.count() == 0);
+
+		mockMvc.perform(get("/api/users/me").session(session))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.name").value("Denis"));
+		assertNull(meterRegistry.find(MeteredDataSource.ACQUIRE_TIMER).tag(MeteredDataSource.ENDPOINT_TAG, "/api/users/me").timer());
+
+		mockMvc.perform(get("/actuator/metrics/" + MeteredDataSource.HOLD_TIMER).session(session)
+				.param("tag", MeteredDataSource.ENDPOINT_TAG + ":/api/users/profile"))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.name").value(MeteredDataSource.HOLD_TIMER));
+	}
+
+	/**
+	 * Tests that the requests without a request mapping, other than the login and the logout, share one endpoint,
+	 * so that arbitrary paths cannot create new timers.
+	 */
+	@Test
+	void testUnmappedRequestsShareOneEndpoint() {
+		MockHttpServletRequest mapped = new MockHttpServletRequest("PUT", "/api/users/profile");
+		mapped.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/users/profile");
+		assertEquals("/api/users/profile", MeteredDataSource.endpointOf(mapped));
+
+		assertEquals("/login", MeteredDataSource.endpointOf(new MockHttpServletRequest("POST", "/login")));
+		assertEquals(MeteredDataSource.UNMAPPED, MeteredDataSource.endpointOf(new MockHttpServletRequest("GET", "/api/users/unknown/12345")));
+		assertEquals(MeteredDataSource.UNMAPPED, MeteredDataSource.endpointOf(new MockHttpServletRequest("GET", "/wp-admin/setup.php")));
+	}
+}
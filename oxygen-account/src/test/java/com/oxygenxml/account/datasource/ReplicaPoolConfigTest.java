@@ -0,0 +1,83 @@
+package com.oxygenxml.account.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tests that with read replicas the pools of the primary and of the replicas take the spring.datasource.hikari settings
+ * and publish the hikaricp metrics.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.replicas[0].url=" + ReplicaPoolConfigTest.REPLICA_URL,
+		"spring.datasource.hikari.maximum-pool-size=7",
+		"spring.datasource.hikari.leak-detection-threshold=30000"
+})
+class ReplicaPoolConfigTest {
+
+	/**
+	 * The URL of the replica, a separate in-memory database.
+	 */
+	static final String REPLICA_URL = "jdbc:h2:mem:replica-pool;DB_CLOSE_DELAY=-1";
+
+	/**
+	 * The routing data source, wrapped by the connection metrics.
+	 */
+	@Autowired
+	@Qualifier("replicaRoutingDataSource")
+	private DataSource replicaRoutingDataSource;
+
+	/**
+	 * The registry that receives the pool metrics.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Creates the tables of the replica.
+	 */
+	@BeforeAll
+	static void migrateReplica() {
+		Flyway.configure().dataSource(REPLICA_URL, "sa", "").locations("classpath:db/h2").load().migrate();
+	}
+
+	/**
+	 * Tests that every pool has the configured size and leak detection, keeps its own name, and is published in the metrics.
+	 */
+	@Test
+	void testPoolsUseHikariSettings() throws Exception {
+		List<DataSource> pools = replicaRoutingDataSource.unwrap(ReplicaRoutingDataSource.class).getDataSources();
+		assertEquals(2, pools.size());
+
+		for (DataSource pool : pools) {
+			HikariDataSource hikari = (HikariDataSource) pool;
+			assertEquals(7, hikari.getMaximumPoolSize());
+			assertEquals(30000, hikari.getLeakDetectionThreshold());
+			assertNotNull(meterRegistry.find("hikaricp.connections.max").tag("pool", hikari.getPoolName()).gauge(), hikari.getPoolName());
+		}
+		assertEquals("primary", ((HikariDataSource) pools.get(0)).getPoolName());
+		assertTrue(((HikariDataSource) pools.get(1)).isReadOnly());
+	}
+}
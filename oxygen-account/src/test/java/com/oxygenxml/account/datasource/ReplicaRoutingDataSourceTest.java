@@ -0,0 +1,146 @@
+package com.oxygenxml.account.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Tests the routing between a primary and two replicas, each backed by its own in-memory H2 database.
+ */
+class ReplicaRoutingDataSourceTest {
+
+	/**
+	 * The data source that routes between the databases.
+	 */
+	private ReplicaRoutingDataSource routingDataSource;
+
+	/**
+	 * Runs the queries through the lazy proxy, as the application does.
+	 */
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Runs the read-only transactions.
+	 */
+	private TransactionTemplate readOnlyTransaction;
+
+	/**
+	 * Runs the read-write transactions.
+	 */
+	private TransactionTemplate readWriteTransaction;
+
+	/**
+	 * Creates the databases, each holding its own name.
+	 */
+	@BeforeEach
+	void createDataSources() {
+		routingDataSource = new ReplicaRoutingDataSource(database("primary"), List.of(database("replica0"), database("replica1")), 60_000);
+		routingDataSource.afterPropertiesSet();
+
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		readWriteTransaction = new TransactionTemplate(transactionManager);
+		readOnlyTransaction = new TransactionTemplate(transactionManager);
+		readOnlyTransaction.setReadOnly(true);
+	}
+
+	/**
+	 * Removes the request bound by the tests.
+	 */
+	@AfterEach
+	void clearRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	/**
+	 * Tests that the read-only transactions are spread over the replicas and everything else goes to the primary.
+	 */
+	@Test
+	void testReadOnlyTransactionsUseReplicas() {
+		assertEquals("primary", currentDatabase());
+		assertEquals("primary", readWriteTransaction.execute(status -> currentDatabase()));
+		assertEquals("replica0", readOnlyTransaction.execute(status -> currentDatabase()));
+		assertEquals("replica1", readOnlyTransaction.execute(status -> currentDatabase()));
+		assertEquals("replica0", readOnlyTransaction.execute(status -> currentDatabase()));
+	}
+
+	/**
+	 * Tests that the escape hatch sends the read-only transactions to the primary.
+	 */
+	@Test
+	void testOnPrimary() {
+		assertEquals("primary", ReadYourWrites.onPrimary(() -> readOnlyTransaction.execute(status -> currentDatabase())));
+		assertEquals("replica0", readOnlyTransaction.execute(status -> currentDatabase()));
+	}
+
+	/**
+	 * Tests that after a write the same request and the next requests of the same session read from the primary,
+	 * while other sessions keep using the replicas.
+	 */
+	@Test
+	void testReadYourWritesAfterMutation() {
+		MockHttpServletRequest writingRequest = new MockHttpServletRequest();
+		writingRequest.getSession();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(writingRequest));
+
+		assertEquals("replica0", readOnlyTransaction.execute(status -> currentDatabase()));
+		readWriteTransaction.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET name = name"));
+		assertEquals("primary", readOnlyTransaction.execute(status -> currentDatabase()));
+
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setSession(writingRequest.getSession());
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(nextRequest));
+		assertEquals("primary", readOnlyTransaction.execute(status -> currentDatabase()));
+
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		assertEquals("replica1", readOnlyTransaction.execute(status -> currentDatabase()));
+	}
+
+	/**
+	 * Tests that a write of a client without a session pins only its own request, without creating a session.
+	 */
+	@Test
+	void testAnonymousWriteCreatesNoSession() {
+		MockHttpServletRequest writingRequest = new MockHttpServletRequest();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(writingRequest));
+
+		readWriteTransaction.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET name = name"));
+		assertEquals("primary", readOnlyTransaction.execute(status -> currentDatabase()));
+		assertNull(writingRequest.getSession(false));
+	}
+
+	/**
+	 * Returns the name of the database that served the query.
+	 */
+	private String currentDatabase() {
+		return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+	}
+
+	/**
+	 * Creates an in-memory database holding the given name.
+	 */
+	private static DataSource database(String name) {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS marker (name VARCHAR(20))");
+		jdbcTemplate.execute("DELETE FROM marker");
+		jdbcTemplate.update("INSERT INTO marker (name) VALUES (?)", name);
+		return dataSource;
+	}
+}
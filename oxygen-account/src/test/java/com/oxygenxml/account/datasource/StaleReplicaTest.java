@@ -0,0 +1,193 @@
+package com.oxygenxml.account.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.model.UserStatus;
+import com.oxygenxml.account.type.UrlAnchor;
+
+/**
+ * Tests that the changes that depend on the current state of the user read it from the primary and write only the changed columns,
+ * so that a replica that lags behind cannot bring back the data it still holds.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.emailFilterEnabled=false",
+		"oxygen.account.replicas[0].url=" + StaleReplicaTest.REPLICA_URL,
+		"oxygen.account.replicaReadAfterWriteMillis=0",
+		"oxygen.account.userCacheTtlSeconds=0"
+})
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+class StaleReplicaTest {
+
+	/**
+	 * The URL of the replica, a separate in-memory database.
+	 */
+	static final String REPLICA_URL = "jdbc:h2:mem:stale-replica;DB_CLOSE_DELAY=-1";
+
+	/**
+	 * The email of the user of the tests.
+	 */
+	private static final String EMAIL = "denismateescu@gmail.com";
+
+	/**
+	 * The name of the user in the replica, replaced on the primary since the replica was last updated.
+	 */
+	private static final String STALE_NAME = "Stale Name";
+
+	/**
+	 * MockMvc instance is used for simulating HTTP requests
+	 */
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * The data source of the application, whose statements outside of a read-only transaction go to the primary.
+	 */
+	@Autowired
+	private DataSource dataSource;
+
+	/**
+	 * Checks the stored password hashes.
+	 */
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	/**
+	 * Creates the tables of the replica.
+	 */
+	@BeforeAll
+	static void migrateReplica() {
+		Flyway.configure().dataSource(REPLICA_URL, "sa", "").locations("classpath:db/h2").load().migrate();
+	}
+
+	/**
+	 * Copies the users of the primary to the replica, with the name of the user of the tests as it was before a rename.
+	 */
+	@BeforeEach
+	void copyUsersToReplica() {
+		JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+		replica.update("DELETE FROM users");
+		for (Map<String, Object> user : new JdbcTemplate(dataSource).queryForList("SELECT * FROM users")) {
+			replica.update("INSERT INTO users (id, name, email, password, registration_date, status, deletion_date) VALUES (?, ?, ?, ?, ?, ?, ?)",
+					user.get("ID"), EMAIL.equals(user.get("EMAIL")) ? STALE_NAME : user.get("NAME"), user.get("EMAIL"), user.get("PASSWORD"),
+					user.get("REGISTRATION_DATE"), user.get("STATUS"), user.get("DELETION_DATE"));
+		}
+	}
+
+	/**
+	 * Tests that changing the password keeps the name renamed on the primary.
+	 */
+	@Test
+	void testPasswordChangeKeepsNewerName() throws Exception {
+		String name = primaryName();
+
+		mockMvc.perform(put("/api/users/password").session(login())
+				.contentType("application/json")
+				.content("{\"oldPassword\":\"password\",\"newPassword\":\"newPassword\"}"))
+		.andExpect(status().isOk());
+
+		assertEquals(name, primaryName());
+		assertTrue(passwordEncoder.matches("newPassword", primary().queryForObject("SELECT password FROM users WHERE email = ?", String.class, EMAIL)));
+	}
+
+	/**
+	 * Tests that after a password change a login from a new session is checked against the new password, although the replica
+	 * still holds the old one.
+	 */
+	@Test
+	void testLoginAfterPasswordChangeIgnoresReplica() throws Exception {
+		mockMvc.perform(put("/api/users/password").session(login())
+				.contentType("application/json")
+				.content("{\"oldPassword\":\"password\",\"newPassword\":\"newPassword\"}"))
+		.andExpect(status().isOk());
+
+		mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", EMAIL)
+				.param("password", "password"))
+		.andExpect(redirectedUrl(UrlAnchor.INVALID_USER.getAnchor()));
+		mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", EMAIL)
+				.param("password", "newPassword"))
+		.andExpect(redirectedUrl("/"));
+	}
+
+	/**
+	 * Tests that deleting the account keeps the name renamed on the primary.
+	 */
+	@Test
+	void testDeleteKeepsNewerName() throws Exception {
+		String name = primaryName();
+
+		mockMvc.perform(put("/api/users/delete").session(login())
+				.contentType("application/json")
+				.content("{\"password\":\"password\"}"))
+		.andExpect(status().isOk());
+
+		assertEquals(name, primaryName());
+		assertEquals(UserStatus.DELETED.getCode(), primary().queryForObject("SELECT status FROM users WHERE email = ?", Byte.class, EMAIL));
+	}
+
+	/**
+	 * Logs in the user of the tests. The login reads the user from the primary, whose password is the same as on the replica.
+	 */
+	private MockHttpSession login() throws Exception {
+		MvcResult result = mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", EMAIL)
+				.param("password", "password"))
+		.andReturn();
+		return (MockHttpSession) result.getRequest().getSession();
+	}
+
+	/**
+	 * Returns the name of the user of the tests on the primary.
+	 */
+	private String primaryName() {
+		return primary().queryForObject("SELECT name FROM users WHERE email = ?", String.class, EMAIL);
+	}
+
+	/**
+	 * Runs the queries on the primary.
+	 */
+	private JdbcTemplate primary() {
+		return new JdbcTemplate(dataSource);
+	}
+}
@@ -0,0 +1,231 @@
+package com.oxygenxml.account.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.dto.UserDto;
+import com.oxygenxml.account.metrics.OperationMetrics;
+import com.oxygenxml.account.model.OutboxEmail;
+import com.oxygenxml.account.model.OutboxStatus;
+import com.oxygenxml.account.model.UserStatus;
+import com.oxygenxml.account.repository.OutboxEmailRepository;
+import com.oxygenxml.account.service.EmailService;
+import com.oxygenxml.account.service.UserService;
+import com.oxygenxml.account.task.EmailOutboxDispatcher;
+import com.oxygenxml.account.utility.JsonUtil;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Tests that the registration emails go through the outbox and are sent by the dispatcher to a local SMTP server.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.emailOutboxMaxAttempts=2",
+		"oxygen.account.emailOutboxRetryBaseMillis=60000",
+		"oxygen.account.publicBaseUrl=https://account.example.com/"
+})
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+class EmailOutboxTest {
+
+	/**
+	 * The local SMTP server that receives the emails.
+	 */
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	/**
+	 * Finds the confirmation link in the body of the email.
+	 */
+	private static final Pattern CONFIRMATION_TOKEN = Pattern.compile("\"https://account\\.example\\.com/api/users/confirm\\?token=([^\"]+)\"");
+
+	/**
+	 * MockMvc instance is used for simulating HTTP requests
+	 */
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * The dispatcher under test, run explicitly by the tests.
+	 */
+	@Autowired
+	private EmailOutboxDispatcher dispatcher;
+
+	/**
+	 * Reads the emails of the outbox.
+	 */
+	@Autowired
+	private OutboxEmailRepository outboxEmailRepository;
+
+	/**
+	 * The instance used for user-related operations
+	 */
+	@Autowired
+	private UserService userService;
+
+	/**
+	 * The registry that receives the email metrics.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Tests that the registration only writes the email to the outbox, and that the dispatcher sends it with a working confirmation link
+	 * on the configured public base URL.
+	 */
+	@Test
+	void testRegistrationEmailSentByDispatcher() throws Exception {
+		register("outbox@gmail.com");
+
+		assertEquals(1, outboxEmailRepository.count());
+		assertEquals(0, greenMail.getReceivedMessages().length);
+
+		long smtpBatches = smtpBatches(OperationMetrics.SUCCESS);
+		assertEquals(1, dispatcher.dispatch());
+		assertEquals(smtpBatches + 1, smtpBatches(OperationMetrics.SUCCESS));
+
+		assertEquals(0, outboxEmailRepository.count());
+		MimeMessage[] messages = greenMail.getReceivedMessages();
+		assertEquals(1, messages.length);
+		assertEquals("Confirm registration", messages[0].getSubject());
+		assertEquals("outbox@gmail.com", messages[0].getAllRecipients()[0].toString());
+
+		Matcher link = CONFIRMATION_TOKEN.matcher(GreenMailUtil.getBody(messages[0]).replace("=\r\n", "").replace("=3D", "="));
+		assertTrue(link.find());
+		mockMvc.perform(get("/api/users/confirm").param("token", link.group(1)))
+				.andExpect(status().is3xxRedirection())
+				.andExpect(redirectedUrl("/login#success-confirmation"));
+		assertEquals(UserStatus.ACTIVE, userService.getUserByEmail("outbox@gmail.com").getStatus());
+	}
+
+	/**
+	 * Tests that a failed email is retried after the backoff, and is given up, logged and counted after the last allowed attempt.
+	 */
+	@Test
+	void testFailedEmailRetriedWithBackoff() throws Exception {
+		register("retry@gmail.com");
+		greenMail.stop();
+		double retried = meterRegistry.get(EmailOutboxDispatcher.RETRIED).functionCounter().count();
+		double failed = meterRegistry.get(EmailOutboxDispatcher.FAILED).functionCounter().count();
+
+		assertEquals(0, dispatcher.dispatch());
+
+		OutboxEmail email = outboxEmailRepository.findAll().get(0);
+		assertEquals(1, email.getAttempts());
+		assertEquals(OutboxStatus.PENDING, email.getStatus());
+		assertNull(email.getClaimToken());
+		assertNotNull(email.getLastError());
+		assertTrue(email.getNextAttemptDate().getTime() - System.currentTimeMillis() > 30_000);
+
+		// The email is not due yet.
+		assertEquals(0, dispatcher.dispatch());
+		assertEquals(1, outboxEmailRepository.findAll().get(0).getAttempts());
+
+		makeDue();
+		assertEquals(0, dispatcher.dispatch());
+		email = outboxEmailRepository.findAll().get(0);
+		assertEquals(2, email.getAttempts());
+		assertEquals(OutboxStatus.FAILED, email.getStatus());
+		assertEquals(retried + 1, meterRegistry.get(EmailOutboxDispatcher.RETRIED).functionCounter().count());
+		assertEquals(failed + 1, meterRegistry.get(EmailOutboxDispatcher.FAILED).functionCounter().count());
+
+		// A failed email is not sent again.
+		greenMail.start();
+		makeDue();
+		assertEquals(0, dispatcher.dispatch());
+		assertEquals(0, greenMail.getReceivedMessages().length);
+	}
+
+	/**
+	 * Tests that an email claimed by a dispatcher that stopped is sent once its claim expires.
+	 */
+	@Test
+	void testExpiredClaimSentAgain() throws Exception {
+		register("claim@gmail.com");
+
+		OutboxEmail email = outboxEmailRepository.findAll().get(0);
+		email.setClaimToken("stopped-dispatcher");
+		email.setClaimedUntil(new Timestamp(System.currentTimeMillis() + 60_000));
+		outboxEmailRepository.save(email);
+		assertEquals(0, dispatcher.dispatch());
+
+		email.setClaimedUntil(new Timestamp(System.currentTimeMillis() - 1));
+		outboxEmailRepository.save(email);
+		assertEquals(1, dispatcher.dispatch());
+		assertEquals(1, greenMail.getReceivedMessages().length);
+	}
+
+	/**
+	 * Registers a new user.
+	 *
+	 * @param email The email of the user.
+	 */
+	private void register(String email) throws Exception {
+		UserDto newUser = new UserDto();
+		newUser.setName("Outbox");
+		newUser.setEmail(email);
+		newUser.setPassword("password");
+
+		mockMvc.perform(post("/api/users/register")
+				.contentType("application/json")
+				.content(JsonUtil.asJsonString(newUser)))
+				.andExpect(status().isOk());
+	}
+
+	/**
+	 * Returns the number of batches sent over SMTP with the given outcome.
+	 *
+	 * @param outcome The outcome of the batches.
+	 * @return The number of batches.
+	 */
+	private long smtpBatches(String outcome) {
+		Timer timer = meterRegistry.find(EmailService.SMTP).tag(OperationMetrics.OUTCOME_TAG, outcome).timer();
+		return timer == null ? 0 : timer.count();
+	}
+
+	/**
+	 * Moves the next attempt of every email of the outbox to the past.
+	 */
+	private void makeDue() {
+		List<OutboxEmail> emails = outboxEmailRepository.findAll();
+		for (OutboxEmail email : emails) {
+			email.setNextAttemptDate(new Timestamp(System.currentTimeMillis() - 1));
+		}
+		outboxEmailRepository.saveAll(emails);
+	}
+}
@@ -0,0 +1,110 @@
+package com.oxygenxml.account.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.service.EmailTemplateRegistry;
+import com.oxygenxml.account.type.EmailTemplateData;
+import com.oxygenxml.account.type.EmailType;
+
+/**
+ * Tests the rendering of the email templates resolved at startup.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(locations="classpath:application-test.properties", properties = "oxygen.account.emailTemplateLocales=en,de")
+class EmailTemplateRegistryTest {
+
+	/**
+	 * The data of the registration email.
+	 */
+	private static final Map<String, Object> MODEL = Map.of(
+			EmailTemplateData.NAME.getName(), "Denis",
+			EmailTemplateData.TOKEN.getName(), "abc",
+			EmailTemplateData.BASEURL.getName(), "https://account.example.com");
+
+	/**
+	 * The registry under test.
+	 */
+	@Autowired
+	private EmailTemplateRegistry templateRegistry;
+
+	/**
+	 * Tests that a subject without variables is rendered once and the same string is returned for every email.
+	 */
+	@Test
+	void testSubjectWithoutVariablesIsPrerendered() throws Exception {
+		String subject = templateRegistry.renderSubject(EmailType.CONFIRM_REGISTRATION, Locale.ENGLISH, MODEL);
+
+		assertEquals("Confirm registration", subject);
+		assertSame(subject, templateRegistry.renderSubject(EmailType.CONFIRM_REGISTRATION, null, MODEL));
+	}
+
+	/**
+	 * Tests that a subject with variables is rendered for every email, and that a locale without templates uses the default locale.
+	 */
+	@Test
+	void testLocales() throws Exception {
+		assertEquals("Registrierung von Denis", templateRegistry.renderSubject(EmailType.CONFIRM_REGISTRATION, Locale.GERMANY, MODEL));
+		assertEquals("Confirm registration", templateRegistry.renderSubject(EmailType.CONFIRM_REGISTRATION, Locale.FRENCH, MODEL));
+	}
+
+	/**
+	 * Tests that the bodies rendered one after another in the same buffer each hold only their own data.
+	 */
+	@Test
+	void testBodyRendering() throws Exception {
+		String first = templateRegistry.renderBody(EmailType.CONFIRM_REGISTRATION, Locale.ENGLISH, MODEL);
+		String second = templateRegistry.renderBody(EmailType.CONFIRM_REGISTRATION, Locale.ENGLISH,
+				Map.of(EmailTemplateData.NAME.getName(), "Ana",
+						EmailTemplateData.TOKEN.getName(), "def",
+						EmailTemplateData.BASEURL.getName(), "https://account.example.com"));
+
+		assertTrue(first.contains("Dear Denis,"));
+		assertTrue(first.contains("https://account.example.com/api/users/confirm?token=abc"));
+		assertTrue(second.contains("Dear Ana,"));
+		assertTrue(second.contains("token=def"));
+		assertEquals(first.length() - "Denis".length(), second.length() - "Ana".length());
+	}
+
+	/**
+	 * Tests that the bodies rendered at the same time, each on a new thread as with the virtual threads, do not share a buffer.
+	 */
+	@Test
+	void testConcurrentBodyRendering() throws Exception {
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			List<Future<String>> bodies = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				String token = "token" + i;
+				bodies.add(executor.submit(() -> templateRegistry.renderBody(EmailType.CONFIRM_REGISTRATION, Locale.ENGLISH,
+						Map.of(EmailTemplateData.NAME.getName(), "Denis",
+								EmailTemplateData.TOKEN.getName(), token,
+								EmailTemplateData.BASEURL.getName(), "https://account.example.com"))));
+			}
+			for (int i = 0; i < bodies.size(); i++) {
+				String body = bodies.get(i).get();
+				assertTrue(body.contains("token=token" + i + "\""), body);
+				assertEquals(1, body.split("token=", -1).length - 1);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -118,7 +118,7 @@ public class EmailTest {
 		
 		User user = userService.getUserByEmail("denis@gmail.com");
 		
-		assertEquals(UserStatus.NEW.getStatus(), user.getStatus());
+		assertEquals(UserStatus.NEW, user.getStatus());
 		assertNotNull(user.getId());
 		
 		mockMvc.perform(get("/api/users/confirm")
@@ -127,6 +127,6 @@ public class EmailTest {
                 .andExpect(redirectedUrl("/login#success-confirmation"));
 		
 		user = userService.getUserByEmail("denis@gmail.com");
-        assertEquals(UserStatus.ACTIVE.getStatus(), user.getStatus());
+        assertEquals(UserStatus.ACTIVE, user.getStatus());
 	}
 }
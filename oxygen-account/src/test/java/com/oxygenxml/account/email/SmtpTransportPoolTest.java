@@ -0,0 +1,127 @@
+package com.oxygenxml.account.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.dto.EmailInfo;
+import com.oxygenxml.account.exception.EmailException;
+import com.oxygenxml.account.service.EmailService;
+import com.oxygenxml.account.service.SmtpTransportPool;
+import com.oxygenxml.account.type.EmailTemplateData;
+import com.oxygenxml.account.type.EmailType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tests that the emails are sent in batches over pooled SMTP connections, which are recycled after the configured number of messages.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.emailTransportPoolSize=1",
+		"oxygen.account.emailTransportMaxMessages=2"
+})
+class SmtpTransportPoolTest {
+
+	/**
+	 * The local SMTP server that receives the emails.
+	 */
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	/**
+	 * The service that renders the emails and sends them through the pool.
+	 */
+	@Autowired
+	private EmailService emailService;
+
+	/**
+	 * The registry that receives the metrics of the pool.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Tests that a batch is sent over one connection, opened again after the configured number of messages.
+	 */
+	@Test
+	void testBatchRecyclesConnection() {
+		double connectionsBefore = count(SmtpTransportPool.CONNECTIONS);
+		double messagesBefore = count(SmtpTransportPool.MESSAGES);
+
+		List<EmailException> failures = emailService.sendEmails(emails(5));
+
+		failures.forEach(failure -> assertNull(failure));
+		assertEquals(5, greenMail.getReceivedMessages().length);
+		assertEquals(5, count(SmtpTransportPool.MESSAGES) - messagesBefore);
+		// Two messages per connection: 2 + 2 + 1.
+		assertEquals(3, count(SmtpTransportPool.CONNECTIONS) - connectionsBefore);
+	}
+
+	/**
+	 * Tests that the failures are reported per email and counted, and that the pool connects again once the server is back.
+	 */
+	@Test
+	void testFailuresReportedAndConnectionRestored() {
+		double failuresBefore = count(SmtpTransportPool.FAILURES);
+		greenMail.stop();
+
+		List<EmailException> failures = emailService.sendEmails(emails(2));
+
+		failures.forEach(failure -> assertNotNull(failure));
+		assertEquals(2, count(SmtpTransportPool.FAILURES) - failuresBefore);
+
+		greenMail.start();
+		emailService.sendEmails(emails(1)).forEach(failure -> assertNull(failure));
+		assertEquals(1, greenMail.getReceivedMessages().length);
+	}
+
+	/**
+	 * Creates registration emails to distinct recipients.
+	 *
+	 * @param count The number of emails.
+	 * @return The emails.
+	 */
+	private static List<EmailInfo> emails(int count) {
+		List<EmailInfo> emails = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			EmailInfo email = new EmailInfo();
+			email.setType(EmailType.CONFIRM_REGISTRATION);
+			email.setEmailAddress("pool" + i + "@gmail.com");
+			email.setEmailData(Map.of(
+					EmailTemplateData.NAME.getName(), "Pool " + i,
+					EmailTemplateData.TOKEN.getName(), "token" + i,
+					EmailTemplateData.BASEURL.getName(), "http://localhost"));
+			emails.add(email);
+		}
+		return emails;
+	}
+
+	/**
+	 * Sums a counter of the pool over all its slots.
+	 *
+	 * @param name The name of the counter.
+	 * @return The total count.
+	 */
+	private double count(String name) {
+		return meterRegistry.find(name).counters().stream().mapToDouble(Counter::count).sum();
+	}
+}
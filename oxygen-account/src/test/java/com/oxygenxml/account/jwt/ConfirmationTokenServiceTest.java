@@ -0,0 +1,84 @@
+package com.oxygenxml.account.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Timestamp;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.model.ConfirmationToken;
+import com.oxygenxml.account.service.ConfirmationTokenService;
+import com.oxygenxml.account.service.JwtService;
+
+/**
+ * Tests the confirmation tokens in the binary format, and that the JWT tokens are still accepted.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "oxygen.account.confirmationTokenFormat=BINARY")
+class ConfirmationTokenServiceTest {
+
+	/**
+	 * The service under test.
+	 */
+	@Autowired
+	private ConfirmationTokenService confirmationTokenService;
+
+	/**
+	 * Generates the tokens of the previous format.
+	 */
+	@Autowired
+	private JwtService jwtService;
+
+	/**
+	 * Tests that a binary token is short, safe in a URL and holds the user id and the creation date, to the second.
+	 */
+	@Test
+	void testBinaryRoundTrip() {
+		Timestamp creationDate = new Timestamp(1_700_000_000_123L);
+
+		String token = confirmationTokenService.generateEmailConfirmationToken(123456, creationDate);
+
+		assertEquals(34, token.length());
+		assertFalse(token.contains("."));
+		ConfirmationToken parsed = confirmationTokenService.parseToken(token);
+		assertEquals(123456, parsed.userId());
+		assertEquals(1_700_000_000_000L, parsed.creationDate().getTime());
+	}
+
+	/**
+	 * Tests that a binary token whose content or tag was changed is rejected.
+	 */
+	@Test
+	void testTamperedBinaryTokenRejected() {
+		String token = confirmationTokenService.generateEmailConfirmationToken(1, new Timestamp(System.currentTimeMillis()));
+
+		for (int position : new int[] {2, token.length() - 2}) {
+			char replacement = token.charAt(position) == 'A' ? 'B' : 'A';
+			String tampered = token.substring(0, position) + replacement + token.substring(position + 1);
+			assertThrows(IllegalArgumentException.class, () -> confirmationTokenService.parseToken(tampered));
+		}
+		assertThrows(IllegalArgumentException.class, () -> confirmationTokenService.parseToken("not a token"));
+	}
+
+	/**
+	 * Tests that the JWT tokens sent before the format changed are still accepted.
+	 */
+	@Test
+	void testJwtTokenStillAccepted() {
+		Timestamp creationDate = new Timestamp(System.currentTimeMillis());
+		String token = jwtService.generateEmailConfirmationToken(7, creationDate);
+
+		ConfirmationToken parsed = confirmationTokenService.parseToken(token);
+
+		assertEquals(7, parsed.userId());
+		assertEquals(creationDate.getTime(), parsed.creationDate().getTime());
+	}
+}
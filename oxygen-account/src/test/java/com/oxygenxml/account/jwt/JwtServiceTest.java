@@ -2,6 +2,7 @@ package com.oxygenxml.account.jwt;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.sql.Timestamp;
@@ -11,13 +12,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
 
 import com.oxygenxml.account.OxygenAccountApplication;
 import com.oxygenxml.account.service.JwtService;
+import com.oxygenxml.account.service.TokenKeyring;
 import com.oxygenxml.account.type.TokenClaim;
 import com.oxygenxml.account.utility.DateUtility;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
 
 /**
  * The JwtServiceTest class tests the functionality of JwtService
@@ -25,8 +33,22 @@ import io.jsonwebtoken.Claims;
  */
 @SpringBootTest(classes=OxygenAccountApplication.class)
 @ActiveProfiles("test")
+@TestPropertySource(properties = {
+		"oxygen.account.secretKeyId=" + JwtServiceTest.CURRENT_KEY_ID,
+		"oxygen.account.previousSecretKeys.default=" + JwtServiceTest.PREVIOUS_SECRET
+})
 public class JwtServiceTest {
 
+	/**
+	 * The id of the key that signs the tokens in this test.
+	 */
+	static final String CURRENT_KEY_ID = "current";
+
+	/**
+	 * The secret of the key used before the rotation, registered under the default id.
+	 */
+	static final String PREVIOUS_SECRET = "cHJldmlvdXMtY29uZmlybWF0aW9uLXNlY3JldC1wcmV2aW91cy1jb25maXJtYXRpb24tc2VjcmV0";
+
 	/**
 	 * Instance of JwtService to interact with the methods from JwtService.
 	 */
@@ -56,4 +78,54 @@ public class JwtServiceTest {
 		long timeDifferenceInMillis = Math.abs(accountCreationDate.getTime() - new Timestamp(extractedCreationDate.getTime()).getTime());
 		assertTrue(timeDifferenceInMillis < 1);
 	}
+	
+	/**
+	 * Tests that the generated tokens name the current key in their header.
+	 */
+	@Test
+	void testTokenCarriesKeyId() {
+		String token = jwtService.generateEmailConfirmationToken(1, DateUtility.getCurrentUTCTimestamp());
+		
+		String header = new String(Decoders.BASE64URL.decode(token.substring(0, token.indexOf('.'))));
+		assertTrue(header.contains("\"" + JwsHeader.KEY_ID + "\":\"" + CURRENT_KEY_ID + "\""));
+	}
+	
+	/**
+	 * Tests that the tokens signed before a rotation are still accepted, with or without a key id.
+	 */
+	@Test
+	void testPreviousKeyStillAccepted() {
+		String withoutKeyId = Jwts.builder()
+				.claim(TokenClaim.USER_ID.getName(), 7)
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(PREVIOUS_SECRET)))
+				.compact();
+		String withKeyId = Jwts.builder()
+				.setHeaderParam(JwsHeader.KEY_ID, TokenKeyring.DEFAULT_KEY_ID)
+				.claim(TokenClaim.USER_ID.getName(), 8)
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(PREVIOUS_SECRET)))
+				.compact();
+		
+		assertEquals(7, jwtService.parseToken(withoutKeyId).get(TokenClaim.USER_ID.getName(), Integer.class));
+		assertEquals(8, jwtService.parseToken(withKeyId).get(TokenClaim.USER_ID.getName(), Integer.class));
+	}
+	
+	/**
+	 * Tests that the tokens naming an unknown key, or signed with a key other than the one they name, are rejected.
+	 */
+	@Test
+	void testUnknownOrMismatchedKeyRejected() {
+		String unknownKeyId = Jwts.builder()
+				.setHeaderParam(JwsHeader.KEY_ID, "unknown")
+				.claim(TokenClaim.USER_ID.getName(), 1)
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(PREVIOUS_SECRET)))
+				.compact();
+		String mismatchedKey = Jwts.builder()
+				.setHeaderParam(JwsHeader.KEY_ID, CURRENT_KEY_ID)
+				.claim(TokenClaim.USER_ID.getName(), 1)
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(PREVIOUS_SECRET)))
+				.compact();
+		
+		assertThrows(JwtException.class, () -> jwtService.parseToken(unknownKeyId));
+		assertThrows(JwtException.class, () -> jwtService.parseToken(mismatchedKey));
+	}
 }
@@ -0,0 +1,137 @@
+package com.oxygenxml.account.login;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.oxygenxml.account.exception.PasswordHashingBusyException;
+import com.oxygenxml.account.security.BoundedPasswordEncoder;
+import com.oxygenxml.account.security.CustomAuthenticationFailureHandler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the password encoder that hashes on a bounded executor.
+ */
+class BoundedPasswordEncoderTest {
+
+	/**
+	 * Tests that a hash is rejected immediately when the hashing thread is busy and the queue is full,
+	 * and that the queue wait, the hash time and the rejections are recorded.
+	 */
+	@Test
+	void testRejectedWhenQueueFull() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingEncoder(started, release), 1, 1);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		encoder.bindTo(registry);
+		try {
+			CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("running"));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("queued", "hash:queued"));
+			while (registry.get(BoundedPasswordEncoder.QUEUED).gauge().value() < 1) {
+				Thread.onSpinWait();
+			}
+
+			assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("rejected"));
+
+			release.countDown();
+			assertEquals("hash:running", running.get(5, TimeUnit.SECONDS));
+			assertTrue(queued.get(5, TimeUnit.SECONDS));
+		} finally {
+			encoder.destroy();
+		}
+
+		assertEquals(1, registry.get(BoundedPasswordEncoder.REJECTED).counter().count());
+		assertEquals(1, registry.get(BoundedPasswordEncoder.HASH_TIME).tag(BoundedPasswordEncoder.OPERATION_TAG, "encode").timer().count());
+		assertEquals(1, registry.get(BoundedPasswordEncoder.HASH_TIME).tag(BoundedPasswordEncoder.OPERATION_TAG, "matches").timer().count());
+		assertTrue(registry.get(BoundedPasswordEncoder.QUEUE_WAIT).tag(BoundedPasswordEncoder.OPERATION_TAG, "matches").timer()
+				.totalTime(TimeUnit.NANOSECONDS) > 0);
+	}
+
+	/**
+	 * Tests that the exceptions of the hash reach the caller unchanged.
+	 */
+	@Test
+	void testHashExceptionPropagated() {
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingEncoder(new CountDownLatch(1), new CountDownLatch(0)), 1, 1);
+		try {
+			assertThrows(IllegalArgumentException.class, () -> encoder.matches("password", null));
+		} finally {
+			encoder.destroy();
+		}
+	}
+
+	/**
+	 * Tests that a login rejected because the server is busy gets "503 Service Unavailable" with a Retry-After header, instead of the invalid user redirect.
+	 */
+	@Test
+	void testBusyLoginAnswered503() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new CustomAuthenticationFailureHandler(3).onAuthenticationFailure(new MockHttpServletRequest(), response,
+				new PasswordHashingBusyException("busy"));
+
+		assertEquals(503, response.getStatus());
+		assertEquals("3", response.getHeader(HttpHeaders.RETRY_AFTER));
+	}
+
+	/**
+	 * A fake encoder that prefixes the passwords and, for the hashes, waits until it is released.
+	 */
+	private static class BlockingEncoder implements PasswordEncoder {
+
+		/**
+		 * Counted down when a hash starts.
+		 */
+		private final CountDownLatch started;
+
+		/**
+		 * Awaited by the hashes.
+		 */
+		private final CountDownLatch release;
+
+		/**
+		 * Creates the encoder.
+		 */
+		BlockingEncoder(CountDownLatch started, CountDownLatch release) {
+			this.started = started;
+			this.release = release;
+		}
+
+		/**
+		 * Returns the prefixed password, once released.
+		 */
+		@Override
+		public String encode(CharSequence rawPassword) {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return "hash:" + rawPassword;
+		}
+
+		/**
+		 * Compares the prefixed password with the hash.
+		 */
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			if (encodedPassword == null) {
+				throw new IllegalArgumentException("No hash");
+			}
+			return encodedPassword.equals("hash:" + rawPassword);
+		}
+	}
+}
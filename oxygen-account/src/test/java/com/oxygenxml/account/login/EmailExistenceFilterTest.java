@@ -0,0 +1,160 @@
+package com.oxygenxml.account.login;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.dto.UserDto;
+import com.oxygenxml.account.security.EmailExistenceFilter;
+import com.oxygenxml.account.type.UrlAnchor;
+import com.oxygenxml.account.utility.JsonUtil;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests that the logins of unregistered emails are rejected by the email filter without a database query.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.emailFilterExpectedUsers=1000",
+		"oxygen.account.emailFilterMissRefreshMillis=" + EmailExistenceFilterTest.MISS_REFRESH_MILLIS
+})
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+class EmailExistenceFilterTest {
+
+	/**
+	 * The minimum interval between the refreshes made on a miss.
+	 */
+	static final long MISS_REFRESH_MILLIS = 500;
+
+	/**
+	 * MockMvc instance is used for simulating HTPP requests
+	 */
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * The filter under test.
+	 */
+	@Autowired
+	private EmailExistenceFilter emailExistenceFilter;
+
+	/**
+	 * The registry that receives the filter metrics.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Creates the filter of another instance of the application.
+	 */
+	@Autowired
+	private AutowireCapableBeanFactory beanFactory;
+
+	/**
+	 * Builds the filter from the users inserted for the test.
+	 */
+	@BeforeEach
+	void buildFilter() {
+		emailExistenceFilter.rebuild();
+	}
+
+	/**
+	 * Tests that a registered user can log in and that an unregistered email is rejected without a query.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testUnregisteredEmailSkipsDatabase() throws Exception {
+		double avoided = counter(EmailExistenceFilter.QUERIES_AVOIDED);
+
+		mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", "DenisMateescu@gmail.com")
+				.param("password", "password"))
+		.andExpect(redirectedUrl("/"));
+		assertEquals(avoided, counter(EmailExistenceFilter.QUERIES_AVOIDED));
+
+		mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", "unknown@test.com")
+				.param("password", "password"))
+		.andExpect(redirectedUrl(UrlAnchor.INVALID_USER.getAnchor()));
+		assertEquals(avoided + 1, counter(EmailExistenceFilter.QUERIES_AVOIDED));
+	}
+
+	/**
+	 * Tests that the added emails are found and survive a rebuild only if they are in the table.
+	 */
+	@Test
+	void testAddAndRebuild() {
+		assertFalse(emailExistenceFilter.mightExist("added@test.com"));
+
+		emailExistenceFilter.add("added@test.com");
+		assertTrue(emailExistenceFilter.mightExist("added@test.com"));
+
+		emailExistenceFilter.rebuild();
+		assertFalse(emailExistenceFilter.mightExist("added@test.com"));
+		assertTrue(emailExistenceFilter.mightExist("denismateescu@gmail.com"));
+	}
+
+	/**
+	 * Tests that the filter of an instance finds a user registered by another instance without waiting for the periodic refresh,
+	 * and that the misses after that refresh do not query the database again before the interval.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testUserRegisteredByAnotherInstance() throws Exception {
+		EmailExistenceFilter otherInstance = beanFactory.createBean(EmailExistenceFilter.class);
+		MeterRegistry otherRegistry = new SimpleMeterRegistry();
+		otherInstance.bindTo(otherRegistry);
+		otherInstance.rebuild();
+
+		UserDto newUser = new UserDto();
+		newUser.setName("test");
+		newUser.setEmail("registered@test.com");
+		newUser.setPassword("testtesttest");
+		mockMvc.perform(post("/api/users/register")
+				.contentType("application/json")
+				.content(JsonUtil.asJsonString(newUser)))
+		.andExpect(status().isOk());
+		Thread.sleep(MISS_REFRESH_MILLIS);
+
+		assertTrue(otherInstance.mightExist("registered@test.com"));
+		assertEquals(1, otherRegistry.get(EmailExistenceFilter.MISS_REFRESHES).functionCounter().count());
+
+		assertFalse(otherInstance.mightExist("unknown@test.com"));
+		assertEquals(1, otherRegistry.get(EmailExistenceFilter.MISS_REFRESHES).functionCounter().count());
+	}
+
+	/**
+	 * Returns the value of the given counter.
+	 */
+	private double counter(String name) {
+		return meterRegistry.get(name).functionCounter().count();
+	}
+}
@@ -0,0 +1,44 @@
+package com.oxygenxml.account.login;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.oxygenxml.account.security.LoginAttemptStore;
+
+/**
+ * A shared store of the login attempts kept in memory, standing in for the store shared by the instances of a cluster.
+ */
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+	/**
+	 * The theoretical arrival time of the next token of each key, in nanoseconds.
+	 */
+	private final Map<String, Long> arrivals = new ConcurrentHashMap<>();
+
+	/**
+	 * Takes a token from the bucket of a key, with the generic cell rate algorithm.
+	 *
+	 * @param key The key of the bucket.
+	 * @param burst The number of attempts that a full bucket allows at once.
+	 * @param intervalNanos The time after which a new token is available, in nanoseconds.
+	 * @return 0 if a token was taken, otherwise the time after which a token will be available, in nanoseconds.
+	 */
+	@Override
+	public long tryAcquire(String key, int burst, long intervalNanos) {
+		long now = System.nanoTime();
+		long[] wait = new long[1];
+		arrivals.compute(key, (k, arrival) -> {
+			long start = arrival == null ? now : Math.max(arrival, now);
+			wait[0] = start - now - (burst - 1) * intervalNanos;
+			return wait[0] > 0 ? arrival : start + intervalNanos;
+		});
+		return Math.max(0, wait[0]);
+	}
+
+	/**
+	 * Forgets all the attempts.
+	 */
+	public void clear() {
+		arrivals.clear();
+	}
+}
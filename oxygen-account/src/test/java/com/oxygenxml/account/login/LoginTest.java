@@ -36,7 +36,7 @@ import com.oxygenxml.account.service.OxygenUserDetailsService;
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
-@TestPropertySource(locations="classpath:application-test.properties")
+@TestPropertySource(locations="classpath:application-test.properties", properties = "oxygen.account.emailFilterEnabled=false")
 class LoginTest {
 	
 	/**
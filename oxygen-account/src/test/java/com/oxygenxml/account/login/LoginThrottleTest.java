@@ -0,0 +1,172 @@
+package com.oxygenxml.account.login;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.security.BoundedPasswordEncoder;
+import com.oxygenxml.account.security.LoginThrottle;
+import com.oxygenxml.account.type.UrlAnchor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tests that the login attempts over the limits of an email or of a client address are rejected before the password is verified.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(LoginThrottleTest.SharedStoreConfiguration.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.emailFilterEnabled=false",
+		"oxygen.account.loginThrottleEmailBurst=2",
+		"oxygen.account.loginThrottleEmailPerMinute=1",
+		"oxygen.account.loginThrottleIpBurst=4",
+		"oxygen.account.loginThrottleIpPerMinute=1"
+})
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+class LoginThrottleTest {
+
+	/**
+	 * Provides the shared store of the login attempts.
+	 */
+	@TestConfiguration
+	static class SharedStoreConfiguration {
+
+		/**
+		 * The shared store, kept in memory.
+		 *
+		 * @return the store
+		 */
+		@Bean
+		InMemoryLoginAttemptStore loginAttemptStore() {
+			return new InMemoryLoginAttemptStore();
+		}
+	}
+
+	/**
+	 * MockMvc instance is used for simulating HTTP requests
+	 */
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * The shared store of the login attempts.
+	 */
+	@Autowired
+	private InMemoryLoginAttemptStore sharedStore;
+
+	/**
+	 * The registry that receives the metrics.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Forgets the attempts counted by the shared store.
+	 */
+	@BeforeEach
+	void clearSharedStore() {
+		sharedStore.clear();
+	}
+
+	/**
+	 * Tests that the attempts of an email over its burst get "429 Too Many Requests" with a Retry-After header,
+	 * without verifying the password.
+	 */
+	@Test
+	void testEmailThrottled() throws Exception {
+		login("denismateescu@gmail.com", "wrong", "192.0.2.1").andExpect(redirectedUrl(UrlAnchor.INVALID_USER.getAnchor()));
+		login(" DenisMateescu@Gmail.com", "wrong", "192.0.2.2").andExpect(redirectedUrl(UrlAnchor.INVALID_USER.getAnchor()));
+		double verifications = verifications();
+
+		String retryAfter = login("denismateescu@gmail.com", "password", "192.0.2.3")
+				.andExpect(status().isTooManyRequests())
+				.andReturn().getResponse().getHeader(HttpHeaders.RETRY_AFTER);
+		assertTrue(Integer.parseInt(retryAfter) > 30 && Integer.parseInt(retryAfter) <= 60, retryAfter);
+
+		assertEquals(verifications, verifications());
+		assertEquals(1, throttled("email"));
+	}
+
+	/**
+	 * Tests that the attempts of a client address over its burst are rejected, whatever the email.
+	 */
+	@Test
+	void testClientAddressThrottled() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			login("unknown" + i + "@test.com", "wrong", "198.51.100.1").andExpect(status().isFound());
+		}
+		login("unknown4@test.com", "wrong", "198.51.100.1").andExpect(status().isTooManyRequests());
+		login("unknown4@test.com", "wrong", "198.51.100.2").andExpect(status().isFound());
+	}
+
+	/**
+	 * Tests that the attempts counted by the other instances in the shared store are rejected, even if this instance allows them.
+	 */
+	@Test
+	void testSharedStoreThrottled() throws Exception {
+		long interval = TimeUnit.MINUTES.toNanos(1);
+		sharedStore.tryAcquire("email:shared@test.com", 2, interval);
+		sharedStore.tryAcquire("email:shared@test.com", 2, interval);
+
+		login("Shared@Test.com", "wrong", "203.0.113.1").andExpect(status().isTooManyRequests());
+	}
+
+	/**
+	 * Submits the login form from a client address.
+	 */
+	private ResultActions login(String email, String password, String clientIp) throws Exception {
+		return mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", email)
+				.param("password", password)
+				.with(request -> {
+					request.setRemoteAddr(clientIp);
+					return request;
+				}));
+	}
+
+	/**
+	 * Returns the number of password verifications.
+	 */
+	private double verifications() {
+		return meterRegistry.get(BoundedPasswordEncoder.HASH_TIME).tag(BoundedPasswordEncoder.OPERATION_TAG, "matches").timer().count();
+	}
+
+	/**
+	 * Returns the number of attempts rejected by a limit.
+	 */
+	private double throttled(String limit) {
+		assertNotNull(meterRegistry.find(LoginThrottle.THROTTLED).tag(LoginThrottle.LIMIT_TAG, limit).functionCounter());
+		return meterRegistry.get(LoginThrottle.THROTTLED).tag(LoginThrottle.LIMIT_TAG, limit).functionCounter().count();
+	}
+}
@@ -0,0 +1,153 @@
+package com.oxygenxml.account.login;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.repository.UserRepository;
+import com.oxygenxml.account.security.PasswordHashCalibrator;
+import com.oxygenxml.account.type.PasswordHashAlgorithm;
+
+/**
+ * Tests that the stored password hashes are upgraded to the configured algorithm and cost at the next successful login.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = "oxygen.account.emailFilterEnabled=false")
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+class PasswordHashUpgradeTest {
+
+	/**
+	 * The email of the confirmed fixture user.
+	 */
+	private static final String EMAIL = "denismateescu@gmail.com";
+
+	/**
+	 * MockMvc instance is used for simulating HTTP requests
+	 */
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * Reads and changes the stored hashes.
+	 */
+	@Autowired
+	private UserRepository userRepository;
+
+	/**
+	 * The configured encoder.
+	 */
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	/**
+	 * Tests that a hash written before the algorithm became configurable, without an algorithm prefix, is accepted
+	 * and replaced with a prefixed hash at the login, and that the new hash is not replaced again.
+	 */
+	@Test
+	void testUnprefixedHashUpgraded() throws Exception {
+		assertTrue(userRepository.findByEmail(EMAIL).getPassword().startsWith("$2a$10$"));
+
+		login();
+		String upgraded = userRepository.findByEmail(EMAIL).getPassword();
+		assertTrue(upgraded.startsWith("{bcrypt}$2a$10$"), upgraded);
+		assertTrue(passwordEncoder.matches("password", upgraded));
+
+		login();
+		assertEquals(upgraded, userRepository.findByEmail(EMAIL).getPassword());
+	}
+
+	/**
+	 * Tests that a hash of a lower cost is replaced with a hash of the configured cost at the login.
+	 */
+	@Test
+	void testLowerCostUpgraded() throws Exception {
+		User user = userRepository.findByEmail(EMAIL);
+		user.setPassword("{bcrypt}" + new BCryptPasswordEncoder(4).encode("password"));
+		userRepository.save(user);
+
+		login();
+		assertTrue(userRepository.findByEmail(EMAIL).getPassword().startsWith("{bcrypt}$2a$10$"));
+	}
+
+	/**
+	 * Tests that the calibration chooses the highest cost that fits the target, and never a cost below the minimum.
+	 */
+	@Test
+	void testCalibration() {
+		// A fake verification that takes 2^(cost - 4) milliseconds: the target of 20 ms fits cost 8, which takes 16 ms.
+		int cost = PasswordHashCalibrator.calibrate(PasswordHashAlgorithm.BCRYPT, SleepingEncoder::exponential, 4, 20);
+		assertTrue(cost == 8 || cost == 7, "cost " + cost);
+
+		assertEquals(9, PasswordHashCalibrator.calibrate(PasswordHashAlgorithm.BCRYPT, SleepingEncoder::exponential, 9, 1));
+	}
+
+	/**
+	 * Logs in the fixture user.
+	 */
+	private void login() throws Exception {
+		mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", EMAIL)
+				.param("password", "password"))
+		.andExpect(redirectedUrl("/"));
+	}
+
+	/**
+	 * A fake encoder whose verification sleeps for a time that depends on its cost.
+	 *
+	 * @param millis The time of a verification.
+	 */
+	private record SleepingEncoder(long millis) implements PasswordEncoder {
+
+		/**
+		 * Creates an encoder whose verification takes 2^(cost - 4) milliseconds.
+		 */
+		static PasswordEncoder exponential(int cost) {
+			return new SleepingEncoder(1L << (cost - 4));
+		}
+
+		/**
+		 * Returns the password itself.
+		 */
+		@Override
+		public String encode(CharSequence rawPassword) {
+			return rawPassword.toString();
+		}
+
+		/**
+		 * Sleeps, then compares the password with the hash.
+		 */
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			try {
+				Thread.sleep(millis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return rawPassword.toString().equals(encodedPassword);
+		}
+	}
+}
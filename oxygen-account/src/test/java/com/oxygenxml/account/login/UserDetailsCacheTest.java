@@ -0,0 +1,185 @@
+package com.oxygenxml.account.login;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.dto.ChangePasswordDto;
+import com.oxygenxml.account.events.UsersPurgedEvent;
+import com.oxygenxml.account.security.UserDetailsCache;
+import com.oxygenxml.account.service.OxygenUserDetailsService;
+import com.oxygenxml.account.type.UrlAnchor;
+import com.oxygenxml.account.utility.JsonUtil;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tests that the login details are served from memory and evicted when the account changes.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = "oxygen.account.emailFilterEnabled=false")
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+class UserDetailsCacheTest {
+
+	/**
+	 * MockMvc instance is used for simulating HTPP requests
+	 */
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * The service that loads the login details.
+	 */
+	@Autowired
+	private OxygenUserDetailsService userDetailsService;
+
+	/**
+	 * The cache under test.
+	 */
+	@Autowired
+	private UserDetailsCache userDetailsCache;
+
+	/**
+	 * Used to publish the purge event.
+	 */
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * The registry that receives the cache metrics.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Starts every test with an empty cache, since the database is populated again before each test.
+	 */
+	@BeforeEach
+	void clearCache() {
+		eventPublisher.publishEvent(new UsersPurgedEvent(this, 1));
+	}
+
+	/**
+	 * Tests that the second lookup is a cache hit and that erasing the credentials of the returned details does not affect the cache.
+	 */
+	@Test
+	void testLookupIsCached() {
+		double hits = cacheGets("hit");
+
+		UserDetails first = userDetailsService.loadUserByUsername("denismateescu@gmail.com");
+		((CredentialsContainer) first).eraseCredentials();
+		UserDetails second = userDetailsService.loadUserByUsername(" DenisMateescu@Gmail.com ");
+
+		assertNull(first.getPassword());
+		assertNotNull(second.getPassword());
+		assertEquals("denismateescu@gmail.com", second.getUsername());
+		assertEquals(hits + 1, cacheGets("hit"));
+	}
+
+	/**
+	 * Tests that after a password change the old password is rejected and the new one is accepted.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testPasswordChangeEvictsUser() throws Exception {
+		MockHttpSession session = login("password");
+
+		ChangePasswordDto changePassword = new ChangePasswordDto();
+		changePassword.setOldPassword("password");
+		changePassword.setNewPassword("password1234");
+		mockMvc.perform(put("/api/users/password").session(session)
+				.contentType("application/json")
+				.content(JsonUtil.asJsonString(changePassword)))
+		.andExpect(status().isOk());
+
+		assertNull(userDetailsCache.getUserFromCache("denismateescu@gmail.com"));
+
+		mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", "denismateescu@gmail.com")
+				.param("password", "password"))
+		.andExpect(redirectedUrl(UrlAnchor.INVALID_USER.getAnchor()));
+		login("password1234");
+	}
+
+	/**
+	 * Tests that the details loaded before an eviction are not cached, since they may predate the change that caused it.
+	 */
+	@Test
+	void testLoadBeforeEvictionNotCached() {
+		UserDetails details = userDetailsService.loadUserByUsername("denismateescu@gmail.com");
+		long generation = userDetailsCache.getEvictionGeneration();
+		userDetailsCache.removeUserFromCache("denismateescu@gmail.com");
+
+		userDetailsCache.putUserInCache(details, generation);
+		assertNull(userDetailsCache.getUserFromCache("denismateescu@gmail.com"));
+
+		userDetailsCache.putUserInCache(details, userDetailsCache.getEvictionGeneration());
+		assertNotNull(userDetailsCache.getUserFromCache("denismateescu@gmail.com"));
+	}
+
+	/**
+	 * Tests that the purge task clears the cache.
+	 */
+	@Test
+	void testPurgeClearsCache() {
+		userDetailsService.loadUserByUsername("denismateescu@gmail.com");
+		assertNotNull(userDetailsCache.getUserFromCache("denismateescu@gmail.com"));
+
+		eventPublisher.publishEvent(new UsersPurgedEvent(this, 1));
+
+		assertNull(userDetailsCache.getUserFromCache("denismateescu@gmail.com"));
+	}
+
+	/**
+	 * Logs in the fixture user with the given password.
+	 */
+	private MockHttpSession login(String password) throws Exception {
+		MvcResult result = mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", "denismateescu@gmail.com")
+				.param("password", password))
+		.andExpect(redirectedUrl("/"))
+		.andReturn();
+		return (MockHttpSession) result.getRequest().getSession();
+	}
+
+	/**
+	 * Returns the number of cache lookups with the given result.
+	 */
+	private double cacheGets(String result) {
+		FunctionCounter counter = meterRegistry.find("cache.gets").tag("cache", "users").tag("result", result).functionCounter();
+		assertNotNull(counter);
+		return counter.count();
+	}
+}
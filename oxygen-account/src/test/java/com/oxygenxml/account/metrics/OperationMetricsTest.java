@@ -0,0 +1,264 @@
+package com.oxygenxml.account.metrics;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.dto.EmailInfo;
+import com.oxygenxml.account.dto.UserDto;
+import com.oxygenxml.account.exception.InternalErrorCode;
+import com.oxygenxml.account.service.EmailService;
+import com.oxygenxml.account.service.JwtService;
+import com.oxygenxml.account.task.DeletedUsersTask;
+import com.oxygenxml.account.utility.JsonUtil;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Tests that the account operations, the emails and the purge are measured, and that the metrics are served in the Prometheus format.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.emailFilterEnabled=false",
+		"oxygen.account.adminEmails=denismateescu@gmail.com",
+		"oxygen.account.purgePauseMillis=0",
+		"oxygen.account.metricsScrapeUsername=" + OperationMetricsTest.SCRAPE_USERNAME,
+		"oxygen.account.metricsScrapePassword={noop}" + OperationMetricsTest.SCRAPE_PASSWORD
+})
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+class OperationMetricsTest {
+
+	/**
+	 * The user name of the scrape account.
+	 */
+	static final String SCRAPE_USERNAME = "prometheus";
+
+	/**
+	 * The password of the scrape account.
+	 */
+	static final String SCRAPE_PASSWORD = "scrape-secret";
+
+	/**
+	 * MockMvc instance is used for simulating HTTP requests
+	 */
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * The registry that receives the metrics.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Parses the confirmation tokens.
+	 */
+	@Autowired
+	private JwtService jwtService;
+
+	/**
+	 * Renders and sends the emails.
+	 */
+	@Autowired
+	private EmailService emailService;
+
+	/**
+	 * The purge task.
+	 */
+	@Autowired
+	private DeletedUsersTask deletedUsersTask;
+
+	/**
+	 * Tests that a registration and a rejected duplicate registration are recorded under their outcome and error code,
+	 * together with the validation of the request and the generation of the confirmation token.
+	 */
+	@Test
+	void testRegistrationRecorded() throws Exception {
+		long registered = count("UserService", "registerUser", OperationMetrics.SUCCESS, OperationMetrics.NO_ERROR);
+		long rejected = count("UserService", "registerUser", OperationMetrics.FAILURE, InternalErrorCode.EMAIL_ALREADY_EXISTS.name());
+		long validated = count("ValidationService", "validate", OperationMetrics.SUCCESS, OperationMetrics.NO_ERROR);
+		long generated = count("JwtService", "generateEmailConfirmationToken", OperationMetrics.SUCCESS, OperationMetrics.NO_ERROR);
+		long invalid = count("JwtService", "parseToken", OperationMetrics.FAILURE, InternalErrorCode.INVALID_TOKEN.name());
+
+		register("metrics@gmail.com").andExpect(status().isOk());
+		register("metrics@gmail.com").andExpect(status().isConflict());
+		assertThrows(JwtException.class, () -> jwtService.parseToken("invalid.token.value"));
+
+		assertEquals(registered + 1, count("UserService", "registerUser", OperationMetrics.SUCCESS, OperationMetrics.NO_ERROR));
+		assertEquals(rejected + 1, count("UserService", "registerUser", OperationMetrics.FAILURE, InternalErrorCode.EMAIL_ALREADY_EXISTS.name()));
+		assertEquals(validated + 2, count("ValidationService", "validate", OperationMetrics.SUCCESS, OperationMetrics.NO_ERROR));
+		assertEquals(generated + 1, count("JwtService", "generateEmailConfirmationToken", OperationMetrics.SUCCESS, OperationMetrics.NO_ERROR));
+		assertEquals(invalid + 1, count("JwtService", "parseToken", OperationMetrics.FAILURE, InternalErrorCode.INVALID_TOKEN.name()));
+	}
+
+	/**
+	 * Tests that the successful and the rejected logins are recorded, and that the Prometheus endpoint serves the operation timers
+	 * with the connection pool and JVM metrics to an administrator.
+	 */
+	@Test
+	void testPrometheusEndpoint() throws Exception {
+		long loaded = count("OxygenUserDetailsService", "loadUserByUsername", OperationMetrics.SUCCESS, OperationMetrics.NO_ERROR);
+		long notFound = count("OxygenUserDetailsService", "loadUserByUsername", OperationMetrics.FAILURE, InternalErrorCode.USER_NOT_FOUND.name());
+
+		mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", "unknown@gmail.com")
+				.param("password", "password"));
+		MvcResult result = mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", "denismateescu@gmail.com")
+				.param("password", "password"))
+		.andReturn();
+		MockHttpSession session = (MockHttpSession) result.getRequest().getSession();
+
+		assertEquals(loaded + 1, count("OxygenUserDetailsService", "loadUserByUsername", OperationMetrics.SUCCESS, OperationMetrics.NO_ERROR));
+		assertEquals(notFound + 1, count("OxygenUserDetailsService", "loadUserByUsername", OperationMetrics.FAILURE, InternalErrorCode.USER_NOT_FOUND.name()));
+
+		mockMvc.perform(get("/actuator/prometheus").session(session))
+		.andExpect(status().isOk())
+		.andExpect(content().string(containsString("oxygen_account_operation_seconds_count{class=\"OxygenUserDetailsService\",error=\"none\",method=\"loadUserByUsername\",outcome=\"success\",}")))
+		.andExpect(content().string(containsString("hikaricp_connections_active")))
+		.andExpect(content().string(containsString("jvm_memory_used_bytes")));
+	}
+
+	/**
+	 * Tests that the Prometheus server scrapes the metrics with the scrape account, without a session,
+	 * and that the scrape account cannot use the rest of the application.
+	 */
+	@Test
+	void testPrometheusScrapeWithBasicAuthentication() throws Exception {
+		MvcResult result = mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, basic(SCRAPE_USERNAME, SCRAPE_PASSWORD)))
+		.andExpect(status().isOk())
+		.andExpect(content().string(containsString("jvm_memory_used_bytes")))
+		.andReturn();
+		assertNull(result.getRequest().getSession(false));
+
+		mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, basic(SCRAPE_USERNAME, SCRAPE_PASSWORD)))
+		.andExpect(status().is3xxRedirection());
+	}
+
+	/**
+	 * Tests that the Prometheus endpoint asks for the credentials of the scrape account without creating a session,
+	 * and rejects the wrong ones.
+	 */
+	@Test
+	void testPrometheusEndpointRequiresAuthentication() throws Exception {
+		MvcResult result = mockMvc.perform(get("/actuator/prometheus"))
+		.andExpect(status().isUnauthorized())
+		.andExpect(header().exists("WWW-Authenticate"))
+		.andReturn();
+		assertNull(result.getRequest().getSession(false));
+
+		mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, basic(SCRAPE_USERNAME, "wrong")))
+		.andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, basic("denismateescu@gmail.com", "password")))
+		.andExpect(status().isUnauthorized());
+	}
+
+	/**
+	 * Tests that an email that cannot be rendered is recorded as a render error, without reaching the SMTP server.
+	 */
+	@Test
+	void testEmailRenderErrorRecorded() {
+		long renderErrors = meterRegistry.find(EmailService.RENDER).tag(OperationMetrics.OUTCOME_TAG, OperationMetrics.ERROR).timers().stream()
+				.mapToLong(Timer::count).sum();
+		long smtpBatches = meterRegistry.find(EmailService.SMTP).timers().stream().mapToLong(Timer::count).sum();
+
+		assertNotNull(emailService.sendEmails(List.of(new EmailInfo())).get(0));
+
+		assertEquals(renderErrors + 1, meterRegistry.get(EmailService.RENDER).tag(OperationMetrics.OUTCOME_TAG, OperationMetrics.ERROR).timer().count());
+		assertEquals(smtpBatches, meterRegistry.find(EmailService.SMTP).timers().stream().mapToLong(Timer::count).sum());
+	}
+
+	/**
+	 * Tests that each run of the purge records its duration, its deleted users and its delete statements.
+	 */
+	@Test
+	void testPurgeRecorded() {
+		long runs = meterRegistry.get(DeletedUsersTask.DURATION).tag(DeletedUsersTask.STATUS_TAG, "deleted")
+				.tag(OperationMetrics.OUTCOME_TAG, OperationMetrics.SUCCESS).timer().count();
+
+		deletedUsersTask.processDeletedUsers();
+		deletedUsersTask.processDeletedUsers();
+
+		assertEquals(runs + 2, meterRegistry.get(DeletedUsersTask.DURATION).tag(DeletedUsersTask.STATUS_TAG, "deleted")
+				.tag(OperationMetrics.OUTCOME_TAG, OperationMetrics.SUCCESS).timer().count());
+		assertEquals(runs + 2, meterRegistry.get(DeletedUsersTask.STATEMENTS).tag(DeletedUsersTask.STATUS_TAG, "deleted").summary().count());
+		assertEquals(runs + 2, meterRegistry.get(DeletedUsersTask.DELETED).tag(DeletedUsersTask.STATUS_TAG, "deleted").summary().count());
+	}
+
+	/**
+	 * Returns the number of recorded calls of a method with the given outcome.
+	 */
+	private long count(String className, String method, String outcome, String error) {
+		Timer timer = meterRegistry.find(OperationMetrics.OPERATION)
+				.tag(OperationMetrics.CLASS_TAG, className)
+				.tag(OperationMetrics.METHOD_TAG, method)
+				.tag(OperationMetrics.OUTCOME_TAG, outcome)
+				.tag(OperationMetrics.ERROR_TAG, error)
+				.timer();
+		return timer == null ? 0 : timer.count();
+	}
+
+	/**
+	 * Returns the value of the Authorization header of HTTP basic authentication.
+	 */
+	private static String basic(String username, String password) {
+		return "Basic " + Base64.getEncoder().encodeToString((username + ':' + password).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Registers a new user.
+	 *
+	 * @param email The email of the user.
+	 * @return The result of the request.
+	 */
+	private ResultActions register(String email) throws Exception {
+		UserDto newUser = new UserDto();
+		newUser.setName("Metrics");
+		newUser.setEmail(email);
+		newUser.setPassword("password");
+
+		return mockMvc.perform(post("/api/users/register")
+				.contentType("application/json")
+				.content(JsonUtil.asJsonString(newUser)));
+	}
+}
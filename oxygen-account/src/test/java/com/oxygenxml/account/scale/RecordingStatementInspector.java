@@ -0,0 +1,51 @@
+package com.oxygenxml.account.scale;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records the SQL statements that Hibernate prepares on the current thread, so that their query plans can be checked.
+ * Installed with the {@code hibernate.session_factory.statement_inspector} property.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+	/**
+	 * The statements prepared on each thread, or null while the thread does not record.
+	 */
+	private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+	/**
+	 * Starts recording the statements of the current thread.
+	 */
+	static void start() {
+		RECORDED.set(new ArrayList<>());
+	}
+
+	/**
+	 * Stops recording the statements of the current thread.
+	 *
+	 * @return The distinct statements prepared since {@link #start()}, in their order.
+	 */
+	static List<String> stop() {
+		List<String> recorded = RECORDED.get();
+		RECORDED.remove();
+		return recorded == null ? List.of() : recorded.stream().distinct().toList();
+	}
+
+	/**
+	 * Records the statement, unchanged.
+	 *
+	 * @param sql The statement.
+	 * @return The statement.
+	 */
+	@Override
+	public String inspect(String sql) {
+		List<String> recorded = RECORDED.get();
+		if (recorded != null) {
+			recorded.add(sql);
+		}
+		return sql;
+	}
+}
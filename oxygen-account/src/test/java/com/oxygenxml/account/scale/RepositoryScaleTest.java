@@ -0,0 +1,406 @@
+package com.oxygenxml.account.scale;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.model.UserExportView;
+import com.oxygenxml.account.model.UserStatus;
+import com.oxygenxml.account.repository.UserRepository;
+import com.oxygenxml.account.task.DeletedUsersTask;
+import com.oxygenxml.account.utility.DateUtility;
+
+/**
+ * Records the query plan, the latency and the memory allocated by every {@link UserRepository} method and by the purge of
+ * {@link DeletedUsersTask}, at several table sizes, and fails if a method scans the users table, or if its latency or its allocation
+ * grows with the table size, which is how a query that loads every matching user in memory shows.
+ * <p>
+ * The users are generated by {@link UserDataGenerator}. The login and the registration are measured through their queries, without
+ * hashing the passwords, which would hide a query that scans the table. The methods that stream every user on purpose, for the export
+ * and for the email filter, are recorded but not checked. Every method is called once before the first table size is measured,
+ * so that the smallest table is not measured on a cold JVM. The results are written to {@code target/scale-report.txt}.
+ * <p>
+ * The test is disabled by default because it loads a large number of rows; run it with -Doxygen.scaleTests=true
+ * and optionally -Doxygen.scaleSizes=N,M,... to change the table sizes.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.oxygenxml.account.scale.RecordingStatementInspector",
+		"oxygen.account.purgePauseMillis=0"
+})
+@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+@EnabledIfSystemProperty(named = "oxygen.scaleTests", matches = "true")
+class RepositoryScaleTest {
+
+	/**
+	 * The number of calls measured for a method that reads a bounded number of users.
+	 */
+	private static final int SAMPLES = 200;
+
+	/**
+	 * The number of calls measured for a method that reads every user.
+	 */
+	private static final int SCAN_SAMPLES = 2;
+
+	/**
+	 * How many times slower a method may become on the largest table than on the smallest one before the test fails.
+	 */
+	private static final double MAX_SLOWDOWN = 3.0;
+
+	/**
+	 * The latency below which the differences are measurement noise, in microseconds.
+	 */
+	private static final double MIN_COMPARED_MICROS = 20;
+
+	/**
+	 * How many times more memory a method may allocate on the largest table than on the smallest one before the test fails.
+	 */
+	private static final double MAX_ALLOCATION_GROWTH = 2.0;
+
+	/**
+	 * The allocation below which the differences are measurement noise, in bytes.
+	 */
+	private static final double MIN_COMPARED_BYTES = 16 * 1024;
+
+	/**
+	 * The fraction of the unconfirmed and of the deleted users that the purge deletes.
+	 */
+	private static final double EXPIRED_FRACTION = 0.5;
+
+	/**
+	 * The number of emails looked up together, as by a batch of the import.
+	 */
+	private static final int EMAIL_BATCH = 500;
+
+	/**
+	 * The name of the purge in the results.
+	 */
+	private static final String PURGE = "DeletedUsersTask (per deleted user)";
+
+	/**
+	 * Measures the memory allocated by the current thread.
+	 */
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	/**
+	 * The repository under test.
+	 */
+	@Autowired
+	private UserRepository userRepository;
+
+	/**
+	 * The purge under test.
+	 */
+	@Autowired
+	private DeletedUsersTask deletedUsersTask;
+
+	/**
+	 * Generates the users and reads the query plans.
+	 */
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Runs the streaming methods in a transaction.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * Configuration object that provides the confirmation and recovery periods.
+	 */
+	@Autowired
+	private OxygenAccountPorpertiesConfig oxygenProperties;
+
+	/**
+	 * The highest id of the generated users.
+	 */
+	private int maxId;
+
+	/**
+	 * The number of users registered so far, which makes the registered emails unique.
+	 */
+	private int registered;
+
+	/**
+	 * A repository method, as it is called by the application.
+	 *
+	 * @param name The name of the method in the results.
+	 * @param scanAllowed Whether the method reads every user on purpose.
+	 * @param call Calls the method, with a different user for every sample index.
+	 * @param planArguments The arguments of the statements of the method, in their order, or null to bind null to every parameter.
+	 */
+	private record Operation(String name, boolean scanAllowed, IntConsumer call, Object[] planArguments) {
+	}
+
+	/**
+	 * What was measured for a method at a table size.
+	 *
+	 * @param plans The query plans of the statements of the method.
+	 * @param micros The median latency of a call, in microseconds.
+	 * @param bytes The average memory allocated by a call, in bytes.
+	 */
+	private record Measurement(List<String> plans, double micros, double bytes) {
+
+		/**
+		 * @return Whether a statement of the method scans the users table.
+		 */
+		boolean tableScan() {
+			return plans.stream().anyMatch(RepositoryScaleTest::isTableScan);
+		}
+	}
+
+	/**
+	 * Measures every repository method and the purge at each table size, and checks that none of them scans the users table
+	 * or gets slower or allocates more on the larger tables.
+	 */
+	@Test
+	void testRepositoryScales() throws IOException {
+		int[] sizes = Arrays.stream(System.getProperty("oxygen.scaleSizes", "100000,1000000").split(",")).mapToInt(size -> Integer.parseInt(size.trim())).sorted().toArray();
+		UserDataGenerator generator = new UserDataGenerator(jdbcTemplate, oxygenProperties.getDaysForEmailConfirmation(),
+				oxygenProperties.getDaysUntilDeletion(), EXPIRED_FRACTION);
+
+		growTo(generator, sizes[0]);
+		operations().forEach(this::measure);
+		measurePurge();
+
+		Map<String, Map<Integer, Measurement>> results = new LinkedHashMap<>();
+		Map<String, Boolean> scanAllowed = new LinkedHashMap<>();
+		StringBuilder report = new StringBuilder();
+		for (int size : sizes) {
+			long start = System.nanoTime();
+			growTo(generator, size);
+			report.append(String.format("%n%d users (%s), generated in %.1f s%n", size, generator.getCounts(), (System.nanoTime() - start) / 1e9));
+
+			for (Operation operation : operations()) {
+				Measurement measurement = measure(operation);
+				results.computeIfAbsent(operation.name(), name -> new LinkedHashMap<>()).put(size, measurement);
+				scanAllowed.put(operation.name(), operation.scanAllowed());
+				appendResult(report, operation.name(), measurement);
+			}
+			Measurement purge = measurePurge();
+			results.computeIfAbsent(PURGE, name -> new LinkedHashMap<>()).put(size, purge);
+			scanAllowed.put(PURGE, false);
+			appendResult(report, PURGE, purge);
+		}
+		Files.writeString(Path.of("target", "scale-report.txt"), report);
+
+		int smallest = sizes[0];
+		int largest = sizes[sizes.length - 1];
+		results.forEach((name, measurements) -> {
+			if (scanAllowed.get(name)) {
+				return;
+			}
+			measurements.forEach((size, measurement) ->
+					assertTrue(!measurement.tableScan(), name + " scans the users table with " + size + " users: " + measurement.plans()));
+
+			Measurement small = measurements.get(smallest);
+			Measurement large = measurements.get(largest);
+			assertTrue(large.micros() <= Math.max(small.micros(), MIN_COMPARED_MICROS) * MAX_SLOWDOWN,
+					name + " gets slower with the table size: " + small.micros() + " us with " + smallest + " users, " + large.micros() + " us with " + largest);
+			assertTrue(large.bytes() <= Math.max(small.bytes(), MIN_COMPARED_BYTES) * MAX_ALLOCATION_GROWTH,
+					name + " allocates more with the table size: " + small.bytes() + " bytes with " + smallest + " users, " + large.bytes() + " bytes with " + largest);
+		});
+	}
+
+	/**
+	 * Generates users until the table has the given size.
+	 */
+	private void growTo(UserDataGenerator generator, int size) {
+		long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+		int firstId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Integer.class) + 1;
+		if (count < size) {
+			generator.generate(firstId, (int) (size - count));
+		}
+		maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Integer.class);
+	}
+
+	/**
+	 * Lists the repository methods, called as the application calls them.
+	 */
+	private List<Operation> operations() {
+		String someEmail = UserDataGenerator.emailOf(1);
+		Timestamp recently = new Timestamp(DateUtility.getCurrentUTCTimestamp().getTime() - 30_000);
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+
+		List<Operation> operations = new ArrayList<>();
+		operations.add(new Operation("findByEmail (login)", false, i -> userRepository.findByEmail(email(i)), new Object[] {someEmail}));
+		operations.add(new Operation("existsByEmail", false, i -> userRepository.existsByEmail(email(i)), new Object[] {someEmail, 1}));
+		operations.add(new Operation("findById", false, i -> userRepository.findById(id(i)), new Object[] {1}));
+		operations.add(new Operation("saveAndFlush (registration)", false,
+				i -> transaction.executeWithoutResult(status -> userRepository.saveAndFlush(newUser())), null));
+		operations.add(new Operation("findExistingEmails", false,
+				i -> userRepository.findExistingEmails(IntStream.range(0, EMAIL_BATCH).mapToObj(j -> email(i * EMAIL_BATCH + j)).toList()),
+				IntStream.range(0, EMAIL_BATCH).mapToObj(UserDataGenerator::emailOf).toArray()));
+		operations.add(new Operation("findEmailsRegisteredSince", false, i -> userRepository.findEmailsRegisteredSince(recently), new Object[] {recently}));
+		operations.add(new Operation("updatePasswordHash", false,
+				i -> userRepository.updatePasswordHash(email(i), UserDataGenerator.PASSWORD_HASH, UserDataGenerator.PASSWORD_HASH),
+				new Object[] {UserDataGenerator.PASSWORD_HASH, someEmail, UserDataGenerator.PASSWORD_HASH}));
+		operations.add(new Operation("streamAllEmails", true, i -> readOnly.executeWithoutResult(status -> {
+			try (Stream<String> emails = userRepository.streamAllEmails()) {
+				emails.forEach(email -> {});
+			}
+		}), null));
+		operations.add(new Operation("streamForExport", true, i -> readOnly.executeWithoutResult(status -> {
+			try (Stream<UserExportView> users = userRepository.streamForExport(null, null, null)) {
+				users.forEach(user -> {});
+			}
+		}), null));
+		return operations;
+	}
+
+	/**
+	 * Measures a repository method: the plans of its statements, the median latency and the average allocation of its calls.
+	 */
+	private Measurement measure(Operation operation) {
+		int samples = operation.scanAllowed() ? SCAN_SAMPLES : SAMPLES;
+		RecordingStatementInspector.start();
+		operation.call().accept(0);
+		List<String> statements = RecordingStatementInspector.stop();
+		List<String> plans = statements.stream().map(sql -> explain(sql, operation.planArguments())).toList();
+
+		// Warm up the code and the caches of the database before measuring.
+		for (int i = 1; i < samples; i++) {
+			operation.call().accept(i);
+		}
+
+		long[] nanos = new long[samples];
+		long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < samples; i++) {
+			long start = System.nanoTime();
+			operation.call().accept(samples + i);
+			nanos[i] = System.nanoTime() - start;
+		}
+		long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+		Arrays.sort(nanos);
+		return new Measurement(plans, nanos[samples / 2] / 1000.0, (double) allocated / samples);
+	}
+
+	/**
+	 * Runs the purge once and measures the plans of its statements, and its latency and allocation per deleted user.
+	 */
+	private Measurement measurePurge() {
+		long before = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+
+		RecordingStatementInspector.start();
+		long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+		long start = System.nanoTime();
+		deletedUsersTask.processDeletedUsers();
+		deletedUsersTask.processDeleteUnconfirmedUsers();
+		long nanos = System.nanoTime() - start;
+		long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+		List<String> statements = RecordingStatementInspector.stop();
+
+		long deleted = Math.max(1, before - jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class));
+		Timestamp cutoff = DateUtility.getCurrentUTCTimestamp();
+		List<String> plans = statements.stream()
+				.map(sql -> explain(sql, new Object[] {UserStatus.DELETED.getCode(), cutoff, oxygenProperties.getPurgeBatchSize()}))
+				.toList();
+		return new Measurement(plans, nanos / 1000.0 / deleted, (double) allocated / deleted);
+	}
+
+	/**
+	 * Returns the query plan of a statement.
+	 *
+	 * @param sql The statement, as prepared by Hibernate.
+	 * @param arguments The arguments of the statement, or null to bind null to every parameter.
+	 * @return The plan, on one line.
+	 */
+	private String explain(String sql, Object[] arguments) {
+		return jdbcTemplate.query("EXPLAIN " + sql, (PreparedStatement ps) -> {
+			int parameters = ps.getParameterMetaData().getParameterCount();
+			if (arguments != null && arguments.length != parameters) {
+				throw new IllegalStateException(arguments.length + " plan arguments given for the " + parameters + " parameters of " + sql);
+			}
+			for (int i = 0; i < parameters; i++) {
+				ps.setObject(i + 1, arguments == null ? null : arguments[i]);
+			}
+		}, (ResultSet rs) -> {
+			StringBuilder plan = new StringBuilder();
+			ResultSetMetaData metaData = rs.getMetaData();
+			while (rs.next()) {
+				for (int column = 1; column <= metaData.getColumnCount(); column++) {
+					plan.append(metaData.getColumnCount() == 1 ? "" : metaData.getColumnLabel(column) + "=").append(rs.getString(column)).append(' ');
+				}
+			}
+			// Shorten the long lists of parameters, such as those of the IN conditions.
+			return plan.toString().replaceAll("\\s+", " ").replaceAll("(\\?\\d+, ){3,}", "..., ").trim();
+		});
+	}
+
+	/**
+	 * Checks whether a plan reads the whole users table: a table scan on H2, an access of type ALL on MySQL.
+	 */
+	private static boolean isTableScan(String plan) {
+		return plan.contains(".tableScan") || plan.contains("type=ALL ");
+	}
+
+	/**
+	 * Appends a measurement to the report.
+	 */
+	private static void appendResult(StringBuilder report, String name, Measurement measurement) {
+		report.append(String.format("  %-36s %12.1f us %14.0f B  %s%n", name, measurement.micros(), measurement.bytes(), String.join(" | ", measurement.plans())));
+	}
+
+	/**
+	 * Creates a new user as the registration inserts it, with its password already hashed.
+	 */
+	private User newUser() {
+		User user = new User();
+		user.setName("New User");
+		user.setEmail("new" + registered++ + "@register.test");
+		user.setPassword(UserDataGenerator.PASSWORD_HASH);
+		user.setRegistrationDate(DateUtility.getCurrentUTCTimestamp());
+		user.setStatus(UserStatus.NEW);
+		return user;
+	}
+
+	/**
+	 * Returns the id of a generated user, spread over the table.
+	 */
+	private int id(int sample) {
+		return 1 + (int) ((sample * 7919L) % maxId);
+	}
+
+	/**
+	 * Returns the email of a generated user, spread over the table.
+	 */
+	private String email(int sample) {
+		return UserDataGenerator.emailOf(id(sample));
+	}
+}
@@ -0,0 +1,301 @@
+package com.oxygenxml.account.scale;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.oxygenxml.account.model.UserStatus;
+import com.oxygenxml.account.utility.DateUtility;
+
+/**
+ * Generates realistic users directly in the database, fast enough to load tens of millions of them.
+ * <p>
+ * The users are written with multi-row INSERT statements, sent in JDBC batches. Their registration dates spread over the last years,
+ * more of them recent than old. Most users are active; some registered without confirming their email and some deleted their account,
+ * and a configurable part of these are past their confirmation or recovery period, so that the purge has work to do.
+ * The ids are assigned here, and the users sequence is moved after them.
+ * <p>
+ * The users are deterministic: the user with a given id always has the same email, given by {@link #emailOf(int)}.
+ */
+class UserDataGenerator {
+
+	/**
+	 * The number of users written by one INSERT statement.
+	 */
+	private static final int ROWS_PER_STATEMENT = 500;
+
+	/**
+	 * The number of INSERT statements sent in one JDBC batch.
+	 */
+	private static final int STATEMENTS_PER_BATCH = 20;
+
+	/**
+	 * The number of columns of a generated user.
+	 */
+	private static final int COLUMNS = 7;
+
+	/**
+	 * The range of the registration dates.
+	 */
+	private static final long REGISTRATION_RANGE_MILLIS = TimeUnit.DAYS.toMillis(5 * 365L);
+
+	/**
+	 * The percentage of the users that are active.
+	 */
+	private static final int ACTIVE_PERCENT = 90;
+
+	/**
+	 * The percentage of the users that did not confirm their email. The others deleted their account.
+	 */
+	private static final int NEW_PERCENT = 6;
+
+	/**
+	 * The first names of the generated users.
+	 */
+	private static final String[] FIRST_NAMES = {"Ana", "Andrei", "Maria", "Ion", "Elena", "Mihai", "Ioana", "Alex", "John", "Emma",
+			"Liam", "Olivia", "Noah", "Sophia", "Lucas", "Mia", "Hiro", "Yuki", "Chen", "Priya"};
+
+	/**
+	 * The last names of the generated users.
+	 */
+	private static final String[] LAST_NAMES = {"Popescu", "Ionescu", "Smith", "Johnson", "Brown", "Garcia", "Muller", "Schmidt", "Rossi",
+			"Dubois", "Tanaka", "Wang", "Kumar", "Silva", "Novak", "Kowalski", "Nielsen", "Horvat", "Petrov", "Murphy"};
+
+	/**
+	 * The email domains of the generated users, the first ones more frequent.
+	 */
+	private static final String[] DOMAINS = {"gmail.com", "gmail.com", "gmail.com", "yahoo.com", "outlook.com", "hotmail.com",
+			"icloud.com", "example.org", "company.example.com", "university.example.edu"};
+
+	/**
+	 * BCrypt hash of "password", used for all the generated users.
+	 */
+	static final String PASSWORD_HASH = "$2a$10$yWjIRyR/PQu2nS/0jzQa6.lj0YxI/Hc56fb/MD8rLteQe7kYn.NLS";
+
+	/**
+	 * Writes the users.
+	 */
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * The days during which a new user may confirm the email.
+	 */
+	private final int daysForEmailConfirmation;
+
+	/**
+	 * The days during which a deleted user may recover the account.
+	 */
+	private final int daysUntilDeletion;
+
+	/**
+	 * The fraction of the new and of the deleted users that are past their confirmation or recovery period.
+	 */
+	private final double expiredFraction;
+
+	/**
+	 * The counts of the generated users.
+	 */
+	private final Counts counts = new Counts();
+
+	/**
+	 * The users generated so far, by status and expiry.
+	 */
+	static class Counts {
+
+		/**
+		 * The active users.
+		 */
+		long active;
+
+		/**
+		 * The new users still in their confirmation period.
+		 */
+		long unconfirmed;
+
+		/**
+		 * The new users past their confirmation period.
+		 */
+		long expiredUnconfirmed;
+
+		/**
+		 * The deleted users still in their recovery period.
+		 */
+		long deleted;
+
+		/**
+		 * The deleted users past their recovery period.
+		 */
+		long expiredDeleted;
+
+		/**
+		 * @return The users that the purge deletes.
+		 */
+		long expired() {
+			return expiredUnconfirmed + expiredDeleted;
+		}
+
+		/**
+		 * Describes the counts.
+		 */
+		@Override
+		public String toString() {
+			return active + " active, " + unconfirmed + " unconfirmed (" + expiredUnconfirmed + " expired), "
+					+ deleted + " deleted (" + expiredDeleted + " expired)";
+		}
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param jdbcTemplate Writes the users.
+	 * @param daysForEmailConfirmation The days during which a new user may confirm the email.
+	 * @param daysUntilDeletion The days during which a deleted user may recover the account.
+	 * @param expiredFraction The fraction of the new and of the deleted users that are past their confirmation or recovery period.
+	 */
+	UserDataGenerator(JdbcTemplate jdbcTemplate, int daysForEmailConfirmation, int daysUntilDeletion, double expiredFraction) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.daysForEmailConfirmation = daysForEmailConfirmation;
+		this.daysUntilDeletion = daysUntilDeletion;
+		this.expiredFraction = expiredFraction;
+	}
+
+	/**
+	 * Returns the email of a generated user.
+	 *
+	 * @param id The id of the user.
+	 * @return The normalized email.
+	 */
+	static String emailOf(int id) {
+		return FIRST_NAMES[id % FIRST_NAMES.length].toLowerCase() + "." + LAST_NAMES[(id / FIRST_NAMES.length) % LAST_NAMES.length].toLowerCase()
+				+ "." + id + "@" + DOMAINS[Integer.remainderUnsigned(id * 0x9E3779B9, DOMAINS.length)];
+	}
+
+	/**
+	 * @return The counts of the users generated so far.
+	 */
+	Counts getCounts() {
+		return counts;
+	}
+
+	/**
+	 * Generates users, after the users already in the table, and moves the users sequence after them.
+	 *
+	 * @param firstId The id of the first generated user, higher than every id in the table.
+	 * @param count The number of users to generate.
+	 */
+	void generate(int firstId, int count) {
+		SplittableRandom random = new SplittableRandom(firstId);
+		long now = DateUtility.getCurrentUTCTimestamp().getTime();
+		String fullStatement = insertStatement(ROWS_PER_STATEMENT);
+
+		List<Object[]> batch = new ArrayList<>(STATEMENTS_PER_BATCH);
+		Object[] values = new Object[ROWS_PER_STATEMENT * COLUMNS];
+		int rows = 0;
+		for (int id = firstId; id < firstId + count; id++) {
+			addUser(values, rows * COLUMNS, id, random, now);
+			rows++;
+			if (rows == ROWS_PER_STATEMENT) {
+				batch.add(values);
+				values = new Object[ROWS_PER_STATEMENT * COLUMNS];
+				rows = 0;
+				if (batch.size() == STATEMENTS_PER_BATCH) {
+					jdbcTemplate.batchUpdate(fullStatement, batch);
+					batch.clear();
+				}
+			}
+		}
+		if (!batch.isEmpty()) {
+			jdbcTemplate.batchUpdate(fullStatement, batch);
+		}
+		if (rows > 0) {
+			jdbcTemplate.update(insertStatement(rows), Arrays.copyOf(values, rows * COLUMNS));
+		}
+
+		moveSequenceAfter(firstId + count - 1);
+	}
+
+	/**
+	 * Fills the columns of a user.
+	 */
+	private void addUser(Object[] values, int offset, int id, SplittableRandom random, long now) {
+		// More recent registrations than old ones, as for a growing product.
+		double age = random.nextDouble();
+		long registration = now - (long) (age * age * REGISTRATION_RANGE_MILLIS);
+		Timestamp deletionDate = null;
+		UserStatus status;
+
+		int kind = random.nextInt(100);
+		if (kind < ACTIVE_PERCENT) {
+			status = UserStatus.ACTIVE;
+			counts.active++;
+		} else if (kind < ACTIVE_PERCENT + NEW_PERCENT) {
+			status = UserStatus.NEW;
+			boolean expired = random.nextDouble() < expiredFraction;
+			registration = expired ? registration - daysToMillis(daysForEmailConfirmation + 1)
+					: now - random.nextLong(daysToMillis(daysForEmailConfirmation) - 1) - 1;
+			if (expired) {
+				counts.expiredUnconfirmed++;
+			} else {
+				counts.unconfirmed++;
+			}
+		} else {
+			status = UserStatus.DELETED;
+			boolean expired = random.nextDouble() < expiredFraction;
+			long deletion = expired ? now - daysToMillis(daysUntilDeletion + 1) - random.nextLong(daysToMillis(30))
+					: now - random.nextLong(daysToMillis(daysUntilDeletion) - 1) - 1;
+			registration = Math.min(registration, deletion);
+			deletionDate = new Timestamp(deletion);
+			if (expired) {
+				counts.expiredDeleted++;
+			} else {
+				counts.deleted++;
+			}
+		}
+
+		values[offset] = id;
+		values[offset + 1] = FIRST_NAMES[id % FIRST_NAMES.length] + " " + LAST_NAMES[(id / FIRST_NAMES.length) % LAST_NAMES.length];
+		values[offset + 2] = emailOf(id);
+		values[offset + 3] = PASSWORD_HASH;
+		values[offset + 4] = new Timestamp(registration);
+		values[offset + 5] = status.getCode();
+		values[offset + 6] = deletionDate;
+	}
+
+	/**
+	 * Moves the users sequence after the given id, so that the users registered through Hibernate do not reuse the generated ids.
+	 */
+	private void moveSequenceAfter(int lastId) {
+		// Hibernate allocates the ids that precede the value it reads from the sequence.
+		long next = lastId + 1L + 50;
+		String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+		if ("H2".equals(database)) {
+			jdbcTemplate.execute("ALTER SEQUENCE users_seq RESTART WITH " + next);
+		} else {
+			jdbcTemplate.update("UPDATE users_seq SET next_val = ?", next);
+		}
+	}
+
+	/**
+	 * Builds an INSERT statement of the given number of users.
+	 */
+	private static String insertStatement(int rows) {
+		StringBuilder sql = new StringBuilder("INSERT INTO users (id, name, email, password, registration_date, status, deletion_date) VALUES ");
+		for (int i = 0; i < rows; i++) {
+			sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?)");
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * Converts days to milliseconds.
+	 */
+	private static long daysToMillis(int days) {
+		return TimeUnit.DAYS.toMillis(days);
+	}
+}
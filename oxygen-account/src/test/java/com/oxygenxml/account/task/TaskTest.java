@@ -1,38 +1,57 @@
 package com.oxygenxml.account.task;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.List;
 
-import java.util.Collections;
 import com.oxygenxml.account.OxygenAccountApplication;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
 
-import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.config.OxygenAccountPorpertiesConfig;
+import com.oxygenxml.account.events.UsersPurgedEvent;
+import com.oxygenxml.account.model.UserStatus;
 import com.oxygenxml.account.repository.UserRepository;
 import com.oxygenxml.account.utility.DateUtility;
 
 /**
- * Class that tests the tasks 
+ * Class that tests the tasks
  *
  */
 @SpringBootTest(classes=OxygenAccountApplication.class)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
-@TestPropertySource(locations="classpath:application-test.properties")
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.purgeBatchSize=2",
+		"oxygen.account.purgePauseMillis=0"
+})
+@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
 class TaskTest {
 
+	/**
+	 * The number of milliseconds in a day.
+	 */
+	private static final long MILIS_IN_DAY = 24L * 60L * 60L * 1000L;
+
 	/**
 	 * Instance for interaction with database
 	 */
@@ -45,42 +64,97 @@ class TaskTest {
     @Mock
     private DateUtility dateUtility;
 
+    /**
+     * Instance that provides the purge chunk size
+     */
+    @Mock
+    private OxygenAccountPorpertiesConfig oxygenProperties;
+
+    /**
+     * Instance that receives the purge events
+     */
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Instance for access the tasks from DeletedUsersTask
      */
     @InjectMocks
     private DeletedUsersTask deletedUsersTask;
 
+    /**
+     * The task wired to the real database
+     */
+    @Autowired
+    private DeletedUsersTask purgeTask;
+
+    /**
+     * Used to insert users with dates in the past
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     /**
      * Tests the task for deleted users
      */
     @Test
     void testProcessRemoveDeletedUsers() {
-        User user = mock(User.class);
-        
-        when(userRepository.findByStatus(anyString())).thenReturn(Collections.singletonList(user));
-
-        when(dateUtility.getDaysLeftForRecovery(any())).thenReturn(0);
+    	Timestamp cutoff = DateUtility.getCurrentUTCTimestamp();
+        when(dateUtility.getRecoveryCutoff()).thenReturn(cutoff);
+        when(oxygenProperties.getPurgeBatchSize()).thenReturn(2);
+        when(userRepository.deleteByStatusAndDeletionDateUpTo(UserStatus.DELETED.getCode(), cutoff, 2)).thenReturn(2, 1);
 
         deletedUsersTask.processDeletedUsers();
 
-        verify(userRepository, times(1)).delete(user);
+        verify(userRepository, times(2)).deleteByStatusAndDeletionDateUpTo(eq(UserStatus.DELETED.getCode()), eq(cutoff), anyInt());
+        verify(eventPublisher).publishEvent(any(UsersPurgedEvent.class));
     }
-    
+
     /**
      * Test the task for unconfirmed users
      */
     @Test
     void testProcessRemoveUnconfirmedUsers() {
-        User user = mock(User.class);
-        
-        when(userRepository.findByStatus(anyString())).thenReturn(Collections.singletonList(user));
-
-        when(dateUtility.getDaysLeftForConfirmAccount(any())).thenReturn(0);
+    	Timestamp cutoff = DateUtility.getCurrentUTCTimestamp();
+        when(dateUtility.getConfirmationCutoff()).thenReturn(cutoff);
+        when(oxygenProperties.getPurgeBatchSize()).thenReturn(2);
+        when(userRepository.deleteByStatusAndRegistrationDateUpTo(UserStatus.NEW.getCode(), cutoff, 2)).thenReturn(0);
 
         deletedUsersTask.processDeleteUnconfirmedUsers();
 
-        verify(userRepository, times(1)).delete(user);
+        verify(userRepository, times(1)).deleteByStatusAndRegistrationDateUpTo(eq(UserStatus.NEW.getCode()), eq(cutoff), anyInt());
+        verify(eventPublisher, never()).publishEvent(any(UsersPurgedEvent.class));
+    }
+
+    /**
+     * Tests that the purge removes, in several chunks, only the users whose grace period has ended
+     */
+    @Test
+    void testPurgeDeletesExpiredUsersInChunks() {
+    	long now = DateUtility.getCurrentUTCTimestamp().getTime();
+    	Timestamp expired = new Timestamp(now - 8 * MILIS_IN_DAY);
+    	Timestamp recent = new Timestamp(now - MILIS_IN_DAY);
+
+    	for (int i = 0; i < 5; i++) {
+    		insertUser("expired-deleted" + i + "@test.com", UserStatus.DELETED.getCode(), recent, expired);
+    		insertUser("expired-new" + i + "@test.com", UserStatus.NEW.getCode(), expired, null);
+    	}
+    	insertUser("recent-deleted@test.com", UserStatus.DELETED.getCode(), recent, recent);
+    	insertUser("recent-new@test.com", UserStatus.NEW.getCode(), recent, null);
+    	insertUser("active@test.com", UserStatus.ACTIVE.getCode(), expired, null);
+
+    	purgeTask.processDeletedUsers();
+    	purgeTask.processDeleteUnconfirmedUsers();
+
+    	List<String> remaining = jdbcTemplate.queryForList("SELECT email FROM users ORDER BY email", String.class);
+    	assertEquals(List.of("active@test.com", "recent-deleted@test.com", "recent-new@test.com"), remaining);
     }
-}
 
+    /**
+     * Inserts a user with the given dates.
+     */
+    private void insertUser(String email, byte status, Timestamp registrationDate, Timestamp deletionDate) {
+    	jdbcTemplate.update("INSERT INTO users (name, email, password, registration_date, status, deletion_date) VALUES (?, ?, ?, ?, ?, ?)",
+    			"Test", email, "password", registrationDate, status, deletionDate);
+    }
+}
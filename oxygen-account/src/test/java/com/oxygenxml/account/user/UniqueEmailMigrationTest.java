@@ -0,0 +1,94 @@
+package com.oxygenxml.account.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Tests that the migration that makes the emails unique keeps one user for each address and reports the others,
+ * instead of failing on the emails that differ only by case or surrounding spaces.
+ */
+class UniqueEmailMigrationTest {
+
+	/**
+	 * The URL of the migrated database, a separate in-memory database.
+	 */
+	private static final String URL = "jdbc:h2:mem:unique-email-migration;DB_CLOSE_DELAY=-1";
+
+	/**
+	 * Tests that the active user, or else the oldest one, keeps each address and that the other users are reported with their original email.
+	 */
+	@Test
+	void testDuplicateEmailsReported() {
+		flyway("1.2").migrate();
+		JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+		insert(jdbc, 1, "Same@Example.com", "new");
+		insert(jdbc, 2, " same@example.com ", "active");
+		insert(jdbc, 3, "SAME@EXAMPLE.COM", "active");
+		insert(jdbc, 4, "Other@Example.com ", "new");
+		insert(jdbc, 5, "other@example.com", "deleted");
+		insert(jdbc, 6, " Unique@Example.com", "active");
+
+		flyway(null).migrate();
+
+		assertEquals("same@example.com", email(jdbc, 2));
+		assertEquals("other@example.com", email(jdbc, 4));
+		assertEquals("unique@example.com", email(jdbc, 6));
+		assertEquals("duplicate-1@email-conflict.invalid", email(jdbc, 1));
+		assertEquals("duplicate-3@email-conflict.invalid", email(jdbc, 3));
+		assertEquals("duplicate-5@email-conflict.invalid", email(jdbc, 5));
+
+		List<Map<String, Object>> conflicts = jdbc.queryForList(
+				"SELECT user_id, kept_user_id, original_email FROM users_email_conflicts ORDER BY user_id");
+		assertEquals(3, conflicts.size());
+		assertConflict(conflicts.get(0), 1, 2, "Same@Example.com");
+		assertConflict(conflicts.get(1), 3, 2, "SAME@EXAMPLE.COM");
+		assertConflict(conflicts.get(2), 5, 4, "other@example.com");
+
+		flyway(null).clean();
+	}
+
+	/**
+	 * Creates the migrations of the test database, up to the given version.
+	 *
+	 * @param target The last version to apply, or null for all of them.
+	 * @return The migrations.
+	 */
+	private static Flyway flyway(String target) {
+		var configuration = Flyway.configure().dataSource(URL, "sa", "").locations("classpath:db/h2").cleanDisabled(false);
+		if (target != null) {
+			configuration.target(target);
+		}
+		return configuration.load();
+	}
+
+	/**
+	 * Inserts a user as it was stored before the emails were unique.
+	 */
+	private static void insert(JdbcTemplate jdbc, int id, String email, String status) {
+		jdbc.update("INSERT INTO users (id, name, email, password, registration_date, status) VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP, ?)",
+				id, "User " + id, email, "password", status);
+	}
+
+	/**
+	 * Returns the email of a user.
+	 */
+	private static String email(JdbcTemplate jdbc, int id) {
+		return jdbc.queryForObject("SELECT email FROM users WHERE id = ?", String.class, id);
+	}
+
+	/**
+	 * Checks a reported user.
+	 */
+	private static void assertConflict(Map<String, Object> conflict, int userId, int keptUserId, String originalEmail) {
+		assertEquals(userId, ((Number) conflict.get("USER_ID")).intValue());
+		assertEquals(keptUserId, ((Number) conflict.get("KEPT_USER_ID")).intValue());
+		assertEquals(originalEmail, conflict.get("ORIGINAL_EMAIL"));
+	}
+}
@@ -54,7 +54,10 @@ import com.oxygenxml.account.utility.JsonUtil;
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
-@TestPropertySource(locations="classpath:application-test.properties")
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.emailFilterEnabled=false",
+		"oxygen.account.loginThrottleEnabled=false"
+})
 @SqlGroup({
 	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
 	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
@@ -120,6 +123,26 @@ public class UserControllerTest {
 		.andExpect(jsonPath("$.messageId", is(Message.EMAIL_ALREADY_EXISTS.getId())));
 	}
 
+	/**
+	 * Tests that an email differing only by case and surrounding whitespace is rejected as a duplicate.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testRegisterSameNormalizedEmail() throws Exception{
+		UserDto newUser = new UserDto();
+
+		newUser.setName("Denis Mateescu");
+		newUser.setEmail("DenisMateescu@Gmail.com");
+		newUser.setPassword("password");
+
+		ResultActions resultAction = mockMvc.perform(post("/api/users/register")
+				.contentType("application/json")
+				.content(JsonUtil.asJsonString(newUser)));
+		resultAction.andExpect(status().isConflict())
+		.andExpect(jsonPath("$.internalErrorCode", is(1001)))
+		.andExpect(jsonPath("$.messageId", is(Message.EMAIL_ALREADY_EXISTS.getId())));
+	}
+
 	/**
 	 * Tests the registration with an invalid email.
 	 * @throws Exception
@@ -291,6 +314,54 @@ public class UserControllerTest {
 		assertThat(user.getName(), equalTo("Marius Costescu"));
 	}
 	
+	/**
+	 * Tests that a name change is seen by the other sessions of the user, and that a session logged out since is skipped
+	 * @throws Exception
+	 */
+	@Test
+	void testChangeNameRefreshesOtherSessions() throws Exception {
+		MvcResult result = mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", "denismateescu@gmail.com")
+				.param("password", "password"))
+		.andExpect(redirectedUrl("/"))
+		.andReturn();
+		MockHttpSession session = (MockHttpSession) result.getRequest().getSession();
+		
+		MvcResult otherResult = mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", "denismateescu@gmail.com")
+				.param("password", "password"))
+		.andExpect(redirectedUrl("/"))
+		.andReturn();
+		MockHttpSession otherSession = (MockHttpSession) otherResult.getRequest().getSession();
+		
+		UpdateUserNameDto updateNameDto = new UpdateUserNameDto();
+		updateNameDto.setName("Marius Costescu");
+		
+		mockMvc.perform(put("/api/users/profile").session(session)
+				.contentType("application/json")
+				.content(JsonUtil.asJsonString(updateNameDto)))
+		.andExpect(status().isOk());
+		
+		mockMvc.perform(get("/api/users/me").session(otherSession))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.name", is("Marius Costescu")));
+		
+		mockMvc.perform(post("/logout").session(otherSession))
+		.andExpect(status().isFound());
+		updateNameDto.setName("Denis Mateescu");
+		
+		mockMvc.perform(put("/api/users/profile").session(session)
+				.contentType("application/json")
+				.content(JsonUtil.asJsonString(updateNameDto)))
+		.andExpect(status().isOk());
+		
+		mockMvc.perform(get("/api/users/me").session(session))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.name", is("Denis Mateescu")));
+	}
+	
 	/**
 	 * Tests the situation in which a User enters an empty name
 	 * @throws Exception
@@ -476,7 +547,7 @@ public class UserControllerTest {
 
         User user = userService.getUserByEmail("denismateescu@gmail.com");
         
-        assertEquals(UserStatus.DELETED.getStatus(), user.getStatus());
+        assertEquals(UserStatus.DELETED, user.getStatus());
         assertNotNull(user.getDeletionDate());
         
         assertTrue(user.getDeletionDate().after(timestampBeforeDelete));
@@ -510,7 +581,7 @@ public class UserControllerTest {
 
         User user = userService.getUserByEmail("denismateescu@gmail.com");
         
-        assertEquals(UserStatus.ACTIVE.getStatus(), user.getStatus());
+        assertEquals(UserStatus.ACTIVE, user.getStatus());
     }
 	
 	/**
@@ -539,17 +610,26 @@ public class UserControllerTest {
 
         User userAfterDeletion = userService.getUserByEmail("denismateescu@gmail.com");
         
-        assertEquals(UserStatus.DELETED.getStatus(), userAfterDeletion.getStatus());
+        assertEquals(UserStatus.DELETED, userAfterDeletion.getStatus());
         assertNotNull(userAfterDeletion.getDeletionDate());
         
+        mockMvc.perform(get("/api/users/me").session(session))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status", is(UserStatus.DELETED.getStatus())));
+        
         mockMvc.perform(put("/api/users/recover").session(session)
 				.contentType("application/json"))
 		.andExpect(status().isOk());
         
         User userAfterRecover = userService.getUserByEmail("denismateescu@gmail.com");
         
-        assertEquals(UserStatus.ACTIVE.getStatus(), userAfterRecover.getStatus());
+        assertEquals(UserStatus.ACTIVE, userAfterRecover.getStatus());
         assertNull(userAfterRecover.getDeletionDate());
+        
+        mockMvc.perform(get("/api/users/me").session(session))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status", is(UserStatus.ACTIVE.getStatus())))
+        .andExpect(jsonPath("$.deletionDate").doesNotExist());
 	}
 	
 	/**
@@ -0,0 +1,196 @@
+package com.oxygenxml.account.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.messages.Message;
+import com.oxygenxml.account.model.UserStatus;
+
+/**
+ * Tests the bulk user export endpoint.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.emailFilterEnabled=false",
+		"oxygen.account.adminEmails=denismateescu@gmail.com"
+})
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+class UserExportTest {
+
+	/**
+	 * MockMvc instance is used for simulating HTPP requests
+	 */
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * Used to insert users with dates in the past
+	 */
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Parses the streamed users.
+	 */
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Tests that all the users are exported, in the order of their ids and without their passwords.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testExportAllUsers() throws Exception {
+		List<JsonNode> users = parse(export(get("/api/admin/users/export")).getResponse().getContentAsByteArray());
+
+		assertEquals(2, users.size());
+		assertEquals("denismateescu@gmail.com", users.get(0).get("email").asText());
+		assertEquals(UserStatus.ACTIVE.getStatus(), users.get(0).get("status").asText());
+		assertEquals("denismateescu@yahoo.com", users.get(1).get("email").asText());
+		assertEquals(UserStatus.NEW.getStatus(), users.get(1).get("status").asText());
+		assertEquals(false, users.get(0).has("password"));
+	}
+
+	/**
+	 * Tests that the users are filtered by status and registration date.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testExportFilters() throws Exception {
+		Instant now = Instant.now();
+		jdbcTemplate.update("INSERT INTO users (name, email, password, registration_date, status) VALUES (?, ?, ?, ?, ?)",
+				"Old", "old@test.com", "password", Timestamp.from(now.minus(30, ChronoUnit.DAYS)), UserStatus.ACTIVE.getCode());
+
+		List<JsonNode> active = parse(export(get("/api/admin/users/export").param("status", "active"))
+				.getResponse().getContentAsByteArray());
+		assertEquals(2, active.size());
+
+		List<JsonNode> old = parse(export(get("/api/admin/users/export")
+				.param("to", now.minus(1, ChronoUnit.DAYS).toString()))
+				.getResponse().getContentAsByteArray());
+		assertEquals(1, old.size());
+		assertEquals("old@test.com", old.get(0).get("email").asText());
+
+		List<JsonNode> recentActive = parse(export(get("/api/admin/users/export")
+				.param("status", "active")
+				.param("from", now.minus(1, ChronoUnit.DAYS).toString()))
+				.getResponse().getContentAsByteArray());
+		assertEquals(1, recentActive.size());
+		assertEquals("denismateescu@gmail.com", recentActive.get(0).get("email").asText());
+	}
+
+	/**
+	 * Tests that the export is compressed when the client accepts gzip.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testExportGzip() throws Exception {
+		MvcResult result = export(get("/api/admin/users/export").header("Accept-Encoding", "gzip, deflate"));
+
+		assertEquals("gzip", result.getResponse().getHeader("Content-Encoding"));
+		try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+			assertEquals(2, parse(input.readAllBytes()).size());
+		}
+	}
+
+	/**
+	 * Tests that an unknown status is rejected before the export starts.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testExportInvalidStatus() throws Exception {
+		mockMvc.perform(get("/api/admin/users/export").session(login()).param("status", "unknown"))
+		.andExpect(status().isBadRequest())
+		.andExpect(jsonPath("$.messageId").value(Message.INVALID_STATUS.getId()))
+		.andExpect(jsonPath("$.internalErrorCode").value(1018));
+	}
+
+	/**
+	 * Runs the export as the administrator and waits for the streamed response.
+	 *
+	 * @param request The export request.
+	 * @return The completed response.
+	 * @throws Exception if the request fails
+	 */
+	private MvcResult export(MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult started = mockMvc.perform(request.session(login()))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", "application/x-ndjson"))
+				.andReturn();
+	}
+
+	/**
+	 * Parses the exported users.
+	 *
+	 * @param content The exported content.
+	 * @return One node for each exported user.
+	 * @throws Exception if the content is not valid
+	 */
+	private List<JsonNode> parse(byte[] content) throws Exception {
+		List<JsonNode> users = new ArrayList<>();
+		for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+			if (!line.isEmpty()) {
+				users.add(objectMapper.readTree(line));
+			}
+		}
+		return users;
+	}
+
+	/**
+	 * Logs in with the administrator.
+	 *
+	 * @return The authenticated session.
+	 * @throws Exception if the request fails
+	 */
+	private MockHttpSession login() throws Exception {
+		MvcResult result = mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", "denismateescu@gmail.com")
+				.param("password", "password"))
+		.andReturn();
+		return (MockHttpSession) result.getRequest().getSession();
+	}
+}
@@ -0,0 +1,273 @@
+package com.oxygenxml.account.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.messages.Message;
+import com.oxygenxml.account.model.User;
+import com.oxygenxml.account.model.UserStatus;
+import com.oxygenxml.account.security.BoundedPasswordEncoder;
+import com.oxygenxml.account.service.UserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tests the bulk user import endpoint.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = {
+		"oxygen.account.emailFilterEnabled=false",
+		"oxygen.account.adminEmails=DenisMateescu@gmail.com",
+		"oxygen.account.importBatchSize=2"
+})
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+class UserImportTest {
+
+	/**
+	 * BCrypt hash of "password".
+	 */
+	private static final String PASSWORD_HASH = "$2a$10$yWjIRyR/PQu2nS/0jzQa6.lj0YxI/Hc56fb/MD8rLteQe7kYn.NLS";
+
+	/**
+	 * MockMvc instance is used for simulating HTPP requests
+	 */
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * The instance used for user-related operations
+	 */
+	@Autowired
+	private UserService userService;
+
+	/**
+	 * The password encoder that will be used to check the imported passwords
+	 */
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	/**
+	 * The registry that receives the timers of the login hashing executor.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Parses the streamed results.
+	 */
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Tests that the NDJSON rows are imported as active users and that the rejected rows are reported with their reason.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testImportNdjson() throws Exception {
+		String body = String.join("\n",
+				"{\"name\":\"Plain\",\"email\":\"Plain@Import.com\",\"password\":\"password1\"}",
+				"{\"name\":\"Hashed\",\"email\":\"hashed@import.com\",\"passwordHash\":\"" + PASSWORD_HASH + "\"}",
+				"{\"name\":\"Existing\",\"email\":\"denismateescu@gmail.com\",\"password\":\"password1\"}",
+				"{\"name\":\"Duplicate\",\"email\":\"plain@import.com\",\"password\":\"password1\"}",
+				"",
+				"{\"name\":\"Bad hash\",\"email\":\"bad@import.com\",\"passwordHash\":\"plain\"}",
+				"{\"name\":\"\",\"email\":\"invalid\",\"password\":\"short\"}",
+				"not json");
+
+		JsonNode[] results = importUsers(body, "application/x-ndjson");
+
+		assertEquals(7, results.length);
+		assertImported(results[0], 1, "plain@import.com");
+		assertImported(results[1], 2, "hashed@import.com");
+		assertFailed(results[2], 3, Message.EMAIL_ALREADY_EXISTS, 1001);
+		assertFailed(results[3], 4, Message.EMAIL_ALREADY_EXISTS, 1001);
+		assertFailed(results[4], 6, Message.INVALID_PASSWORD_HASH, 1016);
+		assertFailed(results[5], 7, Message.INPUT_VALIDATION_FAILED, 1008);
+		assertEquals(3, results[5].get("errors").size());
+		assertFailed(results[6], 8, Message.MALFORMED_IMPORT_ROW, 1017);
+
+		User plain = userService.getUserByEmail("plain@import.com");
+		assertEquals(UserStatus.ACTIVE, plain.getStatus());
+		assertTrue(passwordEncoder.matches("password1", plain.getPassword()));
+		assertEquals(PASSWORD_HASH, userService.getUserByEmail("hashed@import.com").getPassword());
+		assertEquals("Denis Mateescu", userService.getUserByEmail("denismateescu@gmail.com").getName());
+	}
+
+	/**
+	 * Tests that the NDJSON lines holding a JSON value other than an object, such as null, are rejected as malformed
+	 * and do not stop the import of the next rows.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testImportNdjsonNonObjectRows() throws Exception {
+		String body = String.join("\n",
+				"null",
+				"[]",
+				"\"text\"",
+				"42",
+				"{\"name\":\"After\",\"email\":\"after@import.com\",\"password\":\"password1\"}");
+
+		JsonNode[] results = importUsers(body, "application/x-ndjson");
+
+		assertEquals(5, results.length);
+		for (int i = 0; i < 4; i++) {
+			assertFailed(results[i], i + 1, Message.MALFORMED_IMPORT_ROW, 1017);
+		}
+		assertImported(results[4], 5, "after@import.com");
+	}
+
+	/**
+	 * Tests that the CSV rows are imported using the column names from the header.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testImportCsv() throws Exception {
+		String body = String.join("\n",
+				"email,name,password",
+				"csv1@import.com,\"Doe, John\",password1",
+				"csv2@import.com,\"Say \"\"hi\"\"\",password2",
+				"csv3@import.com,\"Unclosed,password3");
+
+		JsonNode[] results = importUsers(body, "text/csv");
+
+		assertEquals(3, results.length);
+		assertImported(results[0], 2, "csv1@import.com");
+		assertImported(results[1], 3, "csv2@import.com");
+		assertFailed(results[2], 4, Message.MALFORMED_IMPORT_ROW, 1017);
+
+		assertEquals("Doe, John", userService.getUserByEmail("csv1@import.com").getName());
+		assertEquals("Say \"hi\"", userService.getUserByEmail("csv2@import.com").getName());
+	}
+
+	/**
+	 * Tests that the passwords of an import are hashed apart from the login hashing executor, so an import and the logins do not
+	 * take each other's places in its queue.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testImportDoesNotUseLoginHashingExecutor() throws Exception {
+		MockHttpSession session = login("denismateescu@gmail.com");
+		long loginHashes = meterRegistry.get(BoundedPasswordEncoder.HASH_TIME).tag(BoundedPasswordEncoder.OPERATION_TAG, "encode").timer().count();
+
+		MvcResult result = mockMvc.perform(post("/api/admin/users/import").session(session)
+				.contentType("application/x-ndjson")
+				.content(String.join("\n",
+						"{\"name\":\"First\",\"email\":\"first@import.com\",\"password\":\"password1\"}",
+						"{\"name\":\"Second\",\"email\":\"second@import.com\",\"password\":\"password2\"}",
+						"{\"name\":\"Third\",\"email\":\"third@import.com\",\"password\":\"password3\"}")))
+		.andExpect(status().isOk())
+		.andReturn();
+
+		assertEquals(3, result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n").length);
+		assertEquals(loginHashes, meterRegistry.get(BoundedPasswordEncoder.HASH_TIME).tag(BoundedPasswordEncoder.OPERATION_TAG, "encode").timer().count());
+		assertTrue(passwordEncoder.matches("password3", userService.getUserByEmail("third@import.com").getPassword()));
+	}
+
+	/**
+	 * Tests that the import is reserved to the administrators.
+	 * @throws Exception if the test encounters any errors
+	 */
+	@Test
+	void testImportRequiresAdmin() throws Exception {
+		mockMvc.perform(post("/api/admin/users/import")
+				.contentType("application/x-ndjson")
+				.content("{}"))
+		.andExpect(status().isFound());
+
+		importUsers("{\"name\":\"User\",\"email\":\"user@import.com\",\"passwordHash\":\"" + PASSWORD_HASH + "\"}", "application/x-ndjson");
+
+		mockMvc.perform(post("/api/admin/users/import").session(login("user@import.com"))
+				.contentType("application/x-ndjson")
+				.content("{}"))
+		.andExpect(status().isForbidden());
+	}
+
+	/**
+	 * Imports the given content as the administrator.
+	 *
+	 * @param body The imported content.
+	 * @param contentType The format of the content.
+	 * @return The result of every row.
+	 * @throws Exception if the request fails
+	 */
+	private JsonNode[] importUsers(String body, String contentType) throws Exception {
+		MvcResult result = mockMvc.perform(post("/api/admin/users/import").session(login("denismateescu@gmail.com"))
+				.contentType(contentType)
+				.content(body.getBytes(StandardCharsets.UTF_8)))
+		.andExpect(status().isOk())
+		.andReturn();
+
+		assertEquals("application/x-ndjson", result.getResponse().getContentType().split(";")[0]);
+		String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+		JsonNode[] results = new JsonNode[lines.length];
+		for (int i = 0; i < lines.length; i++) {
+			results[i] = objectMapper.readTree(lines[i]);
+		}
+		return results;
+	}
+
+	/**
+	 * Logs in with the given user.
+	 *
+	 * @param email The email of the user.
+	 * @return The authenticated session.
+	 * @throws Exception if the request fails
+	 */
+	private MockHttpSession login(String email) throws Exception {
+		MvcResult result = mockMvc.perform(post("/login")
+				.contentType(APPLICATION_FORM_URLENCODED)
+				.param("email", email)
+				.param("password", "password"))
+		.andReturn();
+		return (MockHttpSession) result.getRequest().getSession();
+	}
+
+	/**
+	 * Checks that a row was imported.
+	 */
+	private static void assertImported(JsonNode result, long line, String email) {
+		assertEquals(line, result.get("line").asLong());
+		assertEquals(email, result.get("email").asText());
+		assertEquals("IMPORTED", result.get("status").asText());
+	}
+
+	/**
+	 * Checks that a row was rejected for the given reason.
+	 */
+	private static void assertFailed(JsonNode result, long line, Message message, int internalErrorCode) {
+		assertEquals(line, result.get("line").asLong());
+		assertEquals("FAILED", result.get("status").asText());
+		assertNotNull(result.get("errorMessage"));
+		assertEquals(message.getId(), result.get("messageId").asText());
+		assertEquals(internalErrorCode, result.get("internalErrorCode").asInt());
+	}
+}
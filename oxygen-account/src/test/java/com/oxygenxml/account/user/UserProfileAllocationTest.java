@@ -0,0 +1,123 @@
+package com.oxygenxml.account.user;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlGroup;
+
+import com.oxygenxml.account.OxygenAccountApplication;
+import com.oxygenxml.account.converter.UserConverter;
+import com.oxygenxml.account.dto.UserDto;
+import com.oxygenxml.account.service.OxygenUserDetailsService;
+import com.oxygenxml.account.service.UserService;
+
+/**
+ * Compares the memory allocated by the /api/users/me lookup when it loads the full User entity and when it answers from the session principal.
+ * The test is disabled by default; run it with -Doxygen.benchmarks=true.
+ */
+@SpringBootTest(classes=OxygenAccountApplication.class)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestPropertySource(locations="classpath:application-test.properties", properties = "oxygen.account.emailFilterEnabled=false")
+@SqlGroup({
+	@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = {"classpath:db/ClearDatabase.sql", "classpath:db/PopulateDatabase.sql"}),
+	@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:db/ClearDatabase.sql")
+})
+@EnabledIfSystemProperty(named = "oxygen.benchmarks", matches = "true")
+class UserProfileAllocationTest {
+
+	/**
+	 * The number of lookups run before measuring, so that both paths are compiled and their caches are filled.
+	 */
+	private static final int WARMUP_ITERATIONS = 5_000;
+
+	/**
+	 * The number of measured lookups.
+	 */
+	private static final int ITERATIONS = 20_000;
+
+	/**
+	 * The instance used for user-related operations
+	 */
+	@Autowired
+	private UserService userService;
+
+	/**
+	 * Loads the principal of the authenticated user.
+	 */
+	@Autowired
+	private OxygenUserDetailsService userDetailsService;
+
+	/**
+	 * Converts the loaded data to the DTO returned by the endpoint.
+	 */
+	@Autowired
+	private UserConverter userConverter;
+
+	/**
+	 * Authenticates the user from the populated database.
+	 */
+	@BeforeEach
+	void authenticate() {
+		UserDetails principal = userDetailsService.loadUserByUsername("denismateescu@gmail.com");
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+
+	/**
+	 * Removes the authentication set for the test.
+	 */
+	@AfterEach
+	void clearAuthentication() {
+		SecurityContextHolder.clearContext();
+	}
+
+	/**
+	 * Measures the bytes allocated per lookup by the entity lookup and by the answer from the session principal.
+	 */
+	@Test
+	void testPrincipalAllocatesLessThanEntity() {
+		long entityBytes = bytesPerLookup(() -> userConverter.entityToDto(userService.getCurrentUser()));
+		long principalBytes = bytesPerLookup(() -> userConverter.profileToDto(userService.getCurrentUserProfile()));
+
+		assertTrue(principalBytes < entityBytes, () -> String.format(
+				"The session principal should allocate less than the entity lookup per /me lookup: principal %d bytes, entity %d bytes",
+				principalBytes, entityBytes));
+	}
+
+	/**
+	 * Runs the lookup repeatedly and returns the average number of bytes allocated by the current thread for one lookup.
+	 *
+	 * @param lookup The lookup to measure.
+	 * @return The average allocated bytes.
+	 */
+	private static long bytesPerLookup(Supplier<UserDto> lookup) {
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			lookup.get();
+		}
+
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < ITERATIONS; i++) {
+			lookup.get();
+		}
+		return (threadBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+	}
+}
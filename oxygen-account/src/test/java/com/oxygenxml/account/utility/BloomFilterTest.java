@@ -0,0 +1,47 @@
+package com.oxygenxml.account.utility;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Bloom filter of strings.
+ */
+class BloomFilterTest {
+
+	/**
+	 * Tests that every added string is found and that the rate of false positives stays close to the configured one.
+	 */
+	@Test
+	void testNoFalseNegativesAndBoundedFalsePositives() {
+		int insertions = 100_000;
+		BloomFilter filter = new BloomFilter(insertions, 0.01);
+		for (int i = 0; i < insertions; i++) {
+			filter.add("user" + i + "@test.com");
+		}
+
+		for (int i = 0; i < insertions; i++) {
+			assertTrue(filter.mightContain("user" + i + "@test.com"));
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < insertions; i++) {
+			if (filter.mightContain("unknown" + i + "@test.com")) {
+				falsePositives++;
+			}
+		}
+		double rate = (double) falsePositives / insertions;
+		assertTrue(rate < 0.02, "False positive rate too high: " + rate);
+		assertTrue(filter.expectedFalsePositiveRate() < 0.02);
+	}
+
+	/**
+	 * Tests that the filter rejects invalid sizes.
+	 */
+	@Test
+	void testInvalidSize() {
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1000, 1));
+	}
+}
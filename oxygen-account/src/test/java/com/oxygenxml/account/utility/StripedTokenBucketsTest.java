@@ -0,0 +1,81 @@
+package com.oxygenxml.account.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the striped token buckets.
+ */
+class StripedTokenBucketsTest {
+
+	/**
+	 * Tests that a key gets its burst, is then rejected with the time until the next token, and that the forms of an email
+	 * that normalize to the same email share a bucket while another key has its own.
+	 */
+	@Test
+	void testBurstThenRejected() {
+		StripedTokenBuckets buckets = new StripedTokenBuckets(1 << 16, 3, TimeUnit.MINUTES.toNanos(1));
+
+		assertEquals(0, buckets.tryAcquire("user@test.com"));
+		assertEquals(0, buckets.tryAcquire(" User@Test.com "));
+		assertEquals(0, buckets.tryAcquire("USER@TEST.COM"));
+		long wait = buckets.tryAcquire("user@test.com");
+		assertTrue(wait > TimeUnit.SECONDS.toNanos(50) && wait <= TimeUnit.MINUTES.toNanos(1), "wait " + wait);
+
+		assertEquals(0, buckets.tryAcquire("other@test.com"));
+	}
+
+	/**
+	 * Tests that a token is given back after the interval.
+	 */
+	@Test
+	void testRefill() throws Exception {
+		StripedTokenBuckets buckets = new StripedTokenBuckets(16, 1, TimeUnit.MILLISECONDS.toNanos(20));
+
+		assertEquals(0, buckets.tryAcquire("key"));
+		assertTrue(buckets.tryAcquire("key") > 0);
+		Thread.sleep(30);
+		assertEquals(0, buckets.tryAcquire("key"));
+	}
+
+	/**
+	 * Tests that the threads that race for one bucket get exactly its burst.
+	 */
+	@Test
+	void testConcurrentAcquireGetsExactlyTheBurst() {
+		StripedTokenBuckets buckets = new StripedTokenBuckets(1024, 100, TimeUnit.HOURS.toNanos(1));
+		AtomicInteger acquired = new AtomicInteger();
+
+		List<CompletableFuture<Void>> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			threads.add(CompletableFuture.runAsync(() -> {
+				for (int i = 0; i < 1000; i++) {
+					if (buckets.tryAcquire("attacked@test.com") == 0) {
+						acquired.incrementAndGet();
+					}
+				}
+			}));
+		}
+		threads.forEach(CompletableFuture::join);
+
+		assertEquals(100, acquired.get());
+	}
+
+	/**
+	 * Tests that the number of stripes is rounded up to a power of two and that invalid limits are rejected.
+	 */
+	@Test
+	void testSize() {
+		assertEquals(1024, new StripedTokenBuckets(1000, 1, 1).getStripes());
+		assertThrows(IllegalArgumentException.class, () -> new StripedTokenBuckets(16, 0, 1));
+	}
+}
@@ -1 +1,2 @@
-DELETE FROM users;
\ No newline at end of file
+DELETE FROM users;
+DELETE FROM email_outbox;
\ No newline at end of file
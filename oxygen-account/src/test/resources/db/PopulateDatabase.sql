@@ -1,2 +1,2 @@
-INSERT INTO users (name, email, password, registration_date, status) VALUES ('Denis Mateescu', 'denismateescu@gmail.com', '$2a$10$yWjIRyR/PQu2nS/0jzQa6.lj0YxI/Hc56fb/MD8rLteQe7kYn.NLS', CURRENT_TIMESTAMP(), 'active');
-INSERT INTO users (name, email, password, registration_date, status) VALUES ('Denis', 'denismateescu@yahoo.com', '$2a$10$yWjIRyR/PQu2nS/0jzQa6.lj0YxI/Hc56fb/MD8rLteQe7kYn.NLS', CURRENT_TIMESTAMP(), 'new');
\ No newline at end of file
+INSERT INTO users (name, email, password, registration_date, status) VALUES ('Denis Mateescu', 'denismateescu@gmail.com', '$2a$10$yWjIRyR/PQu2nS/0jzQa6.lj0YxI/Hc56fb/MD8rLteQe7kYn.NLS', CURRENT_TIMESTAMP(), 1);
+INSERT INTO users (name, email, password, registration_date, status) VALUES ('Denis', 'denismateescu@yahoo.com', '$2a$10$yWjIRyR/PQu2nS/0jzQa6.lj0YxI/Hc56fb/MD8rLteQe7kYn.NLS', CURRENT_TIMESTAMP(), 0);
\ No newline at end of file
@@ -0,0 +1,28 @@
+-- The emails that differ only by case or surrounding spaces belong to the same address. The user kept for each address is the
+-- active one with the lowest id, or the one with the lowest id if none is active. The other users are recorded in
+-- users_email_conflicts with their original email, to be merged by hand, and get a unique placeholder email so the index can be built.
+CREATE TABLE IF NOT EXISTS users_email_conflicts (
+    user_id INT PRIMARY KEY,
+    kept_user_id INT NOT NULL,
+    original_email VARCHAR(255) NOT NULL,
+    detection_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO users_email_conflicts (user_id, kept_user_id, original_email)
+SELECT u.id, duplicates.kept_user_id, u.email
+FROM users u
+JOIN (
+    SELECT LOWER(TRIM(email)) AS normalized_email,
+        COALESCE(MIN(CASE WHEN status = 'active' THEN id END), MIN(id)) AS kept_user_id
+    FROM users
+    GROUP BY LOWER(TRIM(email))
+    HAVING COUNT(*) > 1
+) duplicates ON duplicates.normalized_email = LOWER(TRIM(u.email))
+WHERE u.id <> duplicates.kept_user_id;
+
+UPDATE users SET email = CONCAT('duplicate-', id, '@email-conflict.invalid')
+WHERE id IN (SELECT user_id FROM users_email_conflicts);
+
+UPDATE users SET email = LOWER(TRIM(email));
+
+CREATE UNIQUE INDEX ux_users_email ON users (email);
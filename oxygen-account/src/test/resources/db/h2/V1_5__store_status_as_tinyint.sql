@@ -0,0 +1,13 @@
+ALTER TABLE users ADD COLUMN status_code TINYINT NOT NULL DEFAULT 0;
+
+UPDATE users SET status_code = CASE status WHEN 'active' THEN 1 WHEN 'deleted' THEN 2 ELSE 0 END;
+
+DROP INDEX ix_users_status_deletion_date;
+DROP INDEX ix_users_status_registration_date;
+
+ALTER TABLE users DROP COLUMN status;
+ALTER TABLE users RENAME COLUMN status_code TO status;
+ALTER TABLE users ALTER COLUMN status DROP DEFAULT;
+
+CREATE INDEX ix_users_status_deletion_date ON users (status, deletion_date);
+CREATE INDEX ix_users_status_registration_date ON users (status, registration_date);